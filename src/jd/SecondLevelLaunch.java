@@ -110,6 +110,8 @@ import org.jdownloader.api.cnl2.ExternInterface;
 import org.jdownloader.api.myjdownloader.MyJDownloaderController;
 import org.jdownloader.captcha.v2.ChallengeResponseController;
 import org.jdownloader.controlling.FileCreationManager;
+import org.jdownloader.controlling.ffmpeg.FFmpeg;
+import org.jdownloader.controlling.ffmpeg.FFprobe;
 import org.jdownloader.controlling.packagizer.PackagizerController;
 import org.jdownloader.extensions.ExtensionController;
 import org.jdownloader.extensions.extraction.ArchiveController;
@@ -121,6 +123,7 @@ import org.jdownloader.jna.windows.JNAWindowsWindowManager;
 import org.jdownloader.logging.LogController;
 import org.jdownloader.net.BCTLSSocketStreamFactory;
 import org.jdownloader.osevents.OperatingSystemEventSender;
+import org.jdownloader.plugins.controller.crawler.CrawlerPluginController;
 import org.jdownloader.plugins.controller.host.HostPluginController;
 import org.jdownloader.scripting.JSHtmlUnitPermissionRestricter;
 import org.jdownloader.scripting.JSRhinoPermissionRestricter;
@@ -132,6 +135,9 @@ import org.jdownloader.settings.GraphicalUserInterfaceSettings.RlyWarnLevel;
 import org.jdownloader.settings.staticreferences.CFG_GENERAL;
 import org.jdownloader.settings.staticreferences.CFG_GUI;
 import org.jdownloader.settings.staticreferences.CFG_SILENTMODE;
+import org.jdownloader.startup.Main;
+import org.jdownloader.startup.StartupTask;
+import org.jdownloader.startup.StartupTaskGraph;
 import org.jdownloader.statistics.StatsManager;
 import org.jdownloader.statistics.StatsManager.CollectionName;
 import org.jdownloader.translate._JDT;
@@ -159,6 +165,7 @@ public class SecondLevelLaunch {
 
     private static File                      FILE;
     public final static long                 startup               = System.currentTimeMillis();
+    private final static LogSource           STARTUP_LOGGER        = LogController.getInstance().getLogger("Startup");
 
     // private static JSonWrapper webConfig;
 
@@ -674,6 +681,168 @@ public class SecondLevelLaunch {
 
     }
 
+    private static void showStartupException(final Throwable e) {
+        if (Application.isHeadless()) {
+            ConsoleDialog.showExceptionDialog("Exception occured", "An unexpected error occured.\r\nJDownloader will try to fix this. If this happens again, please contact our support.", e);
+        } else {
+            Dialog.getInstance().showExceptionDialog("Exception occured", "An unexpected error occured.\r\nJDownloader will try to fix this. If this happens again, please contact our support.", e);
+            // org.jdownloader.controlling.JDRestartController.getInstance().restartViaUpdater(false);
+        }
+    }
+
+    /**
+     * headless fast start, see {@link GeneralSettings#isHeadlessFastStartEnabled()} and the -faststart switch
+     */
+    private static boolean isHeadlessFastStart() {
+        if (!Application.isHeadless()) {
+            return false;
+        }
+        return CFG_GENERAL.CFG.isHeadlessFastStartEnabled() || (Main.PARAMETER_HANDLER != null && Main.PARAMETER_HANDLER.hasCommandSwitch("faststart"));
+    }
+
+    private static StartupTaskGraph createStartupTaskGraph(final String name) {
+        return new StartupTaskGraph(name, STARTUP_LOGGER) {
+            @Override
+            protected void onTaskFailed(StartupTask task, Throwable e) {
+                showStartupException(e);
+            }
+        };
+    }
+
+    private static void initDownloadWatchDog() {
+        DownloadWatchDog.getInstance();
+        SecondLevelLaunch.GUI_COMPLETE.executeWhenReached(new Runnable() {
+            @Override
+            public void run() {
+                if (!org.appwork.utils.Application.isHeadless()) {
+                    final GraphicalUserInterfaceSettings guiConfig = JsonConfig.create(GraphicalUserInterfaceSettings.class);
+                    new EDTRunner() {
+                        /*
+                         * moved to edt. rar init freezes under linux
+                         */
+                        @Override
+                        protected void runInEDT() {
+                            /* init clipboardMonitoring stuff */
+                            CLIPBOARD_SKIP_MODE skipMode = guiConfig.getClipboardSkipMode();
+                            if (skipMode == null) {
+                                skipMode = CLIPBOARD_SKIP_MODE.NEVER;
+                            }
+                            ClipboardMonitoring.setHtmlFlavorAllowed(guiConfig.isClipboardMonitorProcessHTMLFlavor());
+                            if (org.jdownloader.settings.staticreferences.CFG_GUI.CLIPBOARD_MONITORED.isEnabled()) {
+                                ClipboardMonitoring.setClipboardSkipMode(skipMode);
+                                ClipboardMonitoring.getINSTANCE().startMonitoring();
+                            } else {
+                                switch (skipMode) {
+                                case NEVER:
+                                case ON_ENABLE:
+                                    ClipboardMonitoring.setClipboardSkipMode(skipMode);
+                                    break;
+                                }
+                            }
+                            org.jdownloader.settings.staticreferences.CFG_GUI.CLIPBOARD_MONITORED.getEventSender().addListener(new GenericConfigEventListener<Boolean>() {
+
+                                public void onConfigValueModified(KeyHandler<Boolean> keyHandler, Boolean newValue) {
+                                    if (Boolean.TRUE.equals(newValue) && ClipboardMonitoring.getINSTANCE().isMonitoring() == false) {
+                                        ClipboardMonitoring.getINSTANCE().startMonitoring();
+                                    } else {
+                                        ClipboardMonitoring.getINSTANCE().stopMonitoring();
+                                    }
+                                }
+
+                                public void onConfigValidatorError(KeyHandler<Boolean> keyHandler, Boolean invalidValue, ValidationException validateException) {
+                                }
+                            });
+                        }
+                    }.start(true);
+                }
+                new Thread("ExecuteWhenGuiReachedThread: Init Clipboard and ChallengeResponseController") {
+                    public void run() {
+                        ChallengeResponseController.getInstance().init();
+                    };
+                }.start();
+            }
+        });
+        DownloadController.DOWNLOADLIST_LOADED.executeWhenReached(new Runnable() {
+
+            @Override
+            public void run() {
+                final AutoDownloadStartOption doRestartRunninfDownloads = JsonConfig.create(GeneralSettings.class).getAutoStartDownloadOption();
+                final boolean closedWithRunningDownload = JsonConfig.create(GeneralSettings.class).isClosedWithRunningDownloads();
+                if (AutoDownloadStartOption.ALWAYS == doRestartRunninfDownloads || (closedWithRunningDownload && AutoDownloadStartOption.ONLY_IF_EXIT_WITH_RUNNING_DOWNLOADS == doRestartRunninfDownloads)) {
+                    DownloadController.getInstance().getQueue().add(new QueueAction<Void, RuntimeException>() {
+
+                        @Override
+                        protected Void run() throws RuntimeException {
+                            /*
+                             * we do this check inside IOEQ because initDownloadLinks also does its final init in IOEQ
+                             */
+                            final List<DownloadLink> dlAvailable = DownloadController.getInstance().getChildrenByFilter(new AbstractPackageChildrenNodeFilter<DownloadLink>() {
+
+                                @Override
+                                public boolean acceptNode(final DownloadLink node) {
+                                    return node.isEnabled() && node.getFinalLinkState() == null;
+                                }
+
+                                @Override
+                                public int returnMaxResults() {
+                                    return 1;
+                                }
+
+                            });
+                            if (dlAvailable.size() > 0) {
+                                new Thread("AutostartDialog") {
+                                    @Override
+                                    public void run() {
+                                        if (!DownloadWatchDog.getInstance().getStateMachine().isState(DownloadWatchDog.IDLE_STATE)) {
+                                            // maybe downloads have been started by another instance or user input
+                                            return;
+                                        }
+                                        final GeneralSettings generalSettings = JsonConfig.create(GeneralSettings.class);
+                                        if (generalSettings.getAutoStartCountdownSeconds() > 0 && CFG_GENERAL.SHOW_COUNTDOWNON_AUTO_START_DOWNLOADS.isEnabled()) {
+                                            final ConfirmDialog d = new ConfirmDialog(UIOManager.LOGIC_COUNTDOWN | UIOManager.LOGIC_DONT_SHOW_AGAIN_IGNORES_CANCEL, _JDT.T.Main_run_autostart_(), _JDT.T.Main_run_autostart_msg(), new AbstractIcon(IconKey.ICON_START, 32), _JDT.T.Mainstart_now(), null);
+                                            d.setTimeout(generalSettings.getAutoStartCountdownSeconds() * 1000);
+                                            try {
+                                                final ConfirmDialogInterface ret = UIOManager.I().show(ConfirmDialogInterface.class, d);
+                                                ret.throwCloseExceptions();
+                                            } catch (DialogNoAnswerException e) {
+                                                if (!e.isCausedByTimeout()) {
+                                                    return;
+                                                }
+                                            }
+                                        }
+                                        DownloadWatchDog.getInstance().startDownloads();
+                                    }
+                                }.start();
+                            }
+                            return null;
+                        }
+                    });
+                }
+            }
+        });
+        /* Start shared memory state update */
+        if (CrossSystem.isWindows() && JsonConfig.create(GeneralSettings.class).isSharedMemoryStateEnabled()) {
+            SecondLevelLaunch.GUI_COMPLETE.executeWhenReached(new Runnable() {
+                @Override
+                public void run() {
+                    new Thread("ExecuteWhenGuiReachedThread: Init SharedMemoryState") {
+                        public void run() {
+                            /* init clipboardMonitoring stuff */
+                            SharedMemoryState.getInstance().startUpdates();
+                        };
+                    }.start();
+                }
+            });
+        }
+        SecondLevelLaunch.INIT_COMPLETE.executeWhenReached(new Runnable() {
+
+            @Override
+            public void run() {
+                DelayWriteController.getInstance().init();
+            }
+        });
+    }
+
     private static void go() {
         LoggerFactory.getDefaultLogger().info("Initialize JDownloader2");
         // try {
@@ -919,182 +1088,114 @@ public class SecondLevelLaunch {
 
                                 }.start(true);
                             }
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init Host Plugins");
-                            HostPluginController.getInstance().ensureLoaded();
-                            HOST_PLUGINS_COMPLETE.setReached();
-                            PackagizerController.getInstance();
+                            final boolean fastStart = isHeadlessFastStart();
+                            final StartupTaskGraph startup = createStartupTaskGraph("Startup");
+                            /* stages that are not needed to start downloads run with low priority after INIT_COMPLETE */
+                            final StartupTaskGraph deferred = createStartupTaskGraph("Deferred startup");
+                            final StartupTask hostPlugins = startup.add(new StartupTask("HostPlugins") {
+                                @Override
+                                public void run() throws Exception {
+                                    HostPluginController.getInstance().ensureLoaded();
+                                    HOST_PLUGINS_COMPLETE.setReached();
+                                    PackagizerController.getInstance();
+                                }
+                            });
+                            deferred.add(new StartupTask("CrawlerPlugins") {
+                                @Override
+                                public void run() throws Exception {
+                                    CrawlerPluginController.getInstance().ensureLoaded();
+                                }
+                            });
                             /* load links */
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init DownloadLinks");
-                            DownloadController.getInstance().initDownloadLinks();
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init Linkgrabber");
-                            LinkCollector.getInstance().initLinkCollector();
+                            final StartupTask downloadLinks = startup.add(new StartupTask("DownloadLinks", hostPlugins) {
+                                @Override
+                                public void run() throws Exception {
+                                    DownloadController.getInstance().initDownloadLinks();
+                                }
+                            });
+                            final StartupTask linkCollector = startup.add(new StartupTask("Linkgrabber", hostPlugins) {
+                                @Override
+                                public void run() throws Exception {
+                                    LinkCollector.getInstance().initLinkCollector();
+                                }
+                            });
                             /* start remote api */
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init RemoteAPI");
-                            RemoteAPIController.getInstance();
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init MYJDownloader");
-                            MyJDownloaderController.getInstance();
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init Extern INterface");
-                            ExternInterface.getINSTANCE();
+                            final StartupTask remoteAPI = startup.add(new StartupTask("RemoteAPI") {
+                                @Override
+                                public void run() throws Exception {
+                                    RemoteAPIController.getInstance();
+                                }
+                            });
+                            startup.add(new StartupTask("MyJDownloader", remoteAPI) {
+                                @Override
+                                public void run() throws Exception {
+                                    MyJDownloaderController.getInstance();
+                                }
+                            });
+                            /* fast start: no click'n'load/flashgot until the deferred startup */
+                            (fastStart ? deferred : startup).add(new StartupTask("ExternInterface", linkCollector) {
+                                @Override
+                                public void run() throws Exception {
+                                    ExternInterface.getINSTANCE();
+                                }
+                            });
                             // GarbageController.getInstance();
                             /* load extensions */
-                            new Thread("Init ExtensionController") {
-                                public void run() {
-                                    Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init Extensions");
+                            startup.add(new StartupTask("Extensions", downloadLinks, linkCollector, remoteAPI) {
+                                @Override
+                                public void run() throws Exception {
                                     if (!jared) {
                                         ExtensionController.getInstance().invalidateCache();
                                     }
                                     ExtensionController.getInstance().init();
                                     EXTENSIONS_LOADED.setReached();
-                                };
-                            }.start();
-                            new Thread("Init AccountController") {
-                                public void run() {
+                                }
+                            });
+                            startup.add(new StartupTask("Accounts", hostPlugins) {
+                                @Override
+                                public void run() throws Exception {
                                     AccountController.getInstance();
                                     SecondLevelLaunch.ACCOUNTLIST_LOADED.setReached();
-                                };
-                            }.start();
-
-                            /* start downloadwatchdog */
-                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Init DownloadWatchdog");
-                            DownloadWatchDog.getInstance();
-                            SecondLevelLaunch.GUI_COMPLETE.executeWhenReached(new Runnable() {
+                                }
+                            });
+                            deferred.add(new StartupTask("FFmpeg") {
                                 @Override
-                                public void run() {
-                                    if (!org.appwork.utils.Application.isHeadless()) {
-                                        final GraphicalUserInterfaceSettings guiConfig = JsonConfig.create(GraphicalUserInterfaceSettings.class);
-                                        new EDTRunner() {
-                                            /*
-                                             * moved to edt. rar init freezes under linux
-                                             */
-                                            @Override
-                                            protected void runInEDT() {
-                                                /* init clipboardMonitoring stuff */
-                                                CLIPBOARD_SKIP_MODE skipMode = guiConfig.getClipboardSkipMode();
-                                                if (skipMode == null) {
-                                                    skipMode = CLIPBOARD_SKIP_MODE.NEVER;
-                                                }
-                                                ClipboardMonitoring.setHtmlFlavorAllowed(guiConfig.isClipboardMonitorProcessHTMLFlavor());
-                                                if (org.jdownloader.settings.staticreferences.CFG_GUI.CLIPBOARD_MONITORED.isEnabled()) {
-                                                    ClipboardMonitoring.setClipboardSkipMode(skipMode);
-                                                    ClipboardMonitoring.getINSTANCE().startMonitoring();
-                                                } else {
-                                                    switch (skipMode) {
-                                                    case NEVER:
-                                                    case ON_ENABLE:
-                                                        ClipboardMonitoring.setClipboardSkipMode(skipMode);
-                                                        break;
-                                                    }
-                                                }
-                                                org.jdownloader.settings.staticreferences.CFG_GUI.CLIPBOARD_MONITORED.getEventSender().addListener(new GenericConfigEventListener<Boolean>() {
-
-                                                    public void onConfigValueModified(KeyHandler<Boolean> keyHandler, Boolean newValue) {
-                                                        if (Boolean.TRUE.equals(newValue) && ClipboardMonitoring.getINSTANCE().isMonitoring() == false) {
-                                                            ClipboardMonitoring.getINSTANCE().startMonitoring();
-                                                        } else {
-                                                            ClipboardMonitoring.getINSTANCE().stopMonitoring();
-                                                        }
-                                                    }
-
-                                                    public void onConfigValidatorError(KeyHandler<Boolean> keyHandler, Boolean invalidValue, ValidationException validateException) {
-                                                    }
-                                                });
-                                            }
-                                        }.start(true);
-                                    }
-                                    new Thread("ExecuteWhenGuiReachedThread: Init Clipboard and ChallengeResponseController") {
-                                        public void run() {
-                                            ChallengeResponseController.getInstance().init();
-                                        };
-                                    }.start();
+                                public void run() throws Exception {
+                                    final FFmpeg ffmpeg = new FFmpeg();
+                                    final FFprobe ffprobe = new FFprobe();
+                                    STARTUP_LOGGER.info("FFmpeg: " + ffmpeg.getFullPath() + "|FFprobe: " + ffprobe.getFullPath());
                                 }
                             });
-                            DownloadController.DOWNLOADLIST_LOADED.executeWhenReached(new Runnable() {
-
+                            /* start downloadwatchdog */
+                            startup.add(new StartupTask("DownloadWatchdog", downloadLinks) {
                                 @Override
-                                public void run() {
-                                    final AutoDownloadStartOption doRestartRunninfDownloads = JsonConfig.create(GeneralSettings.class).getAutoStartDownloadOption();
-                                    final boolean closedWithRunningDownload = JsonConfig.create(GeneralSettings.class).isClosedWithRunningDownloads();
-                                    if (AutoDownloadStartOption.ALWAYS == doRestartRunninfDownloads || (closedWithRunningDownload && AutoDownloadStartOption.ONLY_IF_EXIT_WITH_RUNNING_DOWNLOADS == doRestartRunninfDownloads)) {
-                                        DownloadController.getInstance().getQueue().add(new QueueAction<Void, RuntimeException>() {
-
-                                            @Override
-                                            protected Void run() throws RuntimeException {
-                                                /*
-                                                 * we do this check inside IOEQ because initDownloadLinks also does its final init in IOEQ
-                                                 */
-                                                final List<DownloadLink> dlAvailable = DownloadController.getInstance().getChildrenByFilter(new AbstractPackageChildrenNodeFilter<DownloadLink>() {
-
-                                                    @Override
-                                                    public boolean acceptNode(final DownloadLink node) {
-                                                        return node.isEnabled() && node.getFinalLinkState() == null;
-                                                    }
-
-                                                    @Override
-                                                    public int returnMaxResults() {
-                                                        return 1;
-                                                    }
-
-                                                });
-                                                if (dlAvailable.size() > 0) {
-                                                    new Thread("AutostartDialog") {
-                                                        @Override
-                                                        public void run() {
-                                                            if (!DownloadWatchDog.getInstance().getStateMachine().isState(DownloadWatchDog.IDLE_STATE)) {
-                                                                // maybe downloads have been started by another instance or user input
-                                                                return;
-                                                            }
-                                                            final GeneralSettings generalSettings = JsonConfig.create(GeneralSettings.class);
-                                                            if (generalSettings.getAutoStartCountdownSeconds() > 0 && CFG_GENERAL.SHOW_COUNTDOWNON_AUTO_START_DOWNLOADS.isEnabled()) {
-                                                                final ConfirmDialog d = new ConfirmDialog(UIOManager.LOGIC_COUNTDOWN | UIOManager.LOGIC_DONT_SHOW_AGAIN_IGNORES_CANCEL, _JDT.T.Main_run_autostart_(), _JDT.T.Main_run_autostart_msg(), new AbstractIcon(IconKey.ICON_START, 32), _JDT.T.Mainstart_now(), null);
-                                                                d.setTimeout(generalSettings.getAutoStartCountdownSeconds() * 1000);
-                                                                try {
-                                                                    final ConfirmDialogInterface ret = UIOManager.I().show(ConfirmDialogInterface.class, d);
-                                                                    ret.throwCloseExceptions();
-                                                                } catch (DialogNoAnswerException e) {
-                                                                    if (!e.isCausedByTimeout()) {
-                                                                        return;
-                                                                    }
-                                                                }
-                                                            }
-                                                            DownloadWatchDog.getInstance().startDownloads();
-                                                        }
-                                                    }.start();
-                                                }
-                                                return null;
-                                            }
-                                        });
-                                    }
+                                public void run() throws Exception {
+                                    initDownloadWatchDog();
                                 }
                             });
-                            /* Start shared memory state update */
-                            if (CrossSystem.isWindows() && JsonConfig.create(GeneralSettings.class).isSharedMemoryStateEnabled()) {
-                                SecondLevelLaunch.GUI_COMPLETE.executeWhenReached(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        new Thread("ExecuteWhenGuiReachedThread: Init SharedMemoryState") {
-                                            public void run() {
-                                                /* init clipboardMonitoring stuff */
-                                                SharedMemoryState.getInstance().startUpdates();
-                                            };
-                                        }.start();
-                                    }
-                                });
-                            }
+                            Thread.currentThread().setName("ExecuteWhenGuiReachedThread: Startup");
+                            startup.run();
+                            STARTUP_LOGGER.info(startup.getReport());
+                            deferred.setPriority(Thread.MIN_PRIORITY);
                             SecondLevelLaunch.INIT_COMPLETE.executeWhenReached(new Runnable() {
 
                                 @Override
                                 public void run() {
-                                    DelayWriteController.getInstance().init();
+                                    new Thread("ExecuteWhenGuiReachedThread: Deferred Startup") {
+                                        public void run() {
+                                            try {
+                                                deferred.run();
+                                                STARTUP_LOGGER.info(deferred.getReport());
+                                            } catch (InterruptedException e) {
+                                                STARTUP_LOGGER.log(e);
+                                            }
+                                        };
+                                    }.start();
                                 }
                             });
                         } catch (Throwable e) {
                             LoggerFactory.getDefaultLogger().log(e);
-                            if (Application.isHeadless()) {
-                                ConsoleDialog.showExceptionDialog("Exception occured", "An unexpected error occured.\r\nJDownloader will try to fix this. If this happens again, please contact our support.", e);
-                            } else {
-                                Dialog.getInstance().showExceptionDialog("Exception occured", "An unexpected error occured.\r\nJDownloader will try to fix this. If this happens again, please contact our support.", e);
-                                // org.jdownloader.controlling.JDRestartController.getInstance().restartViaUpdater(false);
-                            }
+                            showStartupException(e);
                         } finally {
                             OperatingSystemEventSender.getInstance();
                             if (!(CrossSystem.isWindows() || CrossSystem.isMac()) && Application.isHeadless()) {
@@ -3,11 +3,12 @@ package jd.controlling.downloadcontroller;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jd.controlling.downloadcontroller.AccountCache.CachedAccount;
 import jd.plugins.Account;
 import jd.plugins.AccountInfo;
+import jd.plugins.AccountInfo.MultiHostIndex;
 import jd.plugins.DownloadLink;
 import jd.plugins.PluginForHost;
 
@@ -26,10 +27,22 @@ public class AccountCache implements Iterable<CachedAccount> {
     }
 
     public static class CachedAccount {
-        private final Account       account;
-        private final ACCOUNTTYPE   type;
-        private final PluginForHost plugin;
-        private final String        host;
+
+        private static class MultiHostDecisions {
+            private final MultiHostIndex                     index;
+            private final ConcurrentHashMap<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
+            private MultiHostDecisions(MultiHostIndex index) {
+                this.index = index;
+            }
+        }
+
+        private final Account                     account;
+        private final ACCOUNTTYPE                 type;
+        private final PluginForHost               plugin;
+        private final String                      host;
+        /* per host multihost support decisions for the life of this CachedAccount/AccountCache, dropped when the MultiHostIndex changes */
+        private volatile MultiHostDecisions       multiHostDecisions = null;
 
         public String getHost() {
             return host;
@@ -76,18 +89,36 @@ public class AccountCache implements Iterable<CachedAccount> {
                 canHandle = plugin.canHandle(link, account) && plugin.enoughTrafficFor(link, account);
             }
             if (canHandle && ACCOUNTTYPE.MULTI.equals(getType()) && getAccount() != null) {
-                final AccountInfo ai = getAccount().getAccountInfo();
-                /* verify again because plugins can modify list on runtime */
-                if (ai != null) {
-                    final List<String> supported = ai.getMultiHostSupport();
-                    if (supported != null) {
-                        canHandle = supported.contains(link.getHost());
-                    }
-                }
+                canHandle = isMultiHostSupported(link.getHost());
             }
             return canHandle;
         }
 
+        boolean isMultiHostSupported(final String host) {
+            final AccountInfo ai = getAccount().getAccountInfo();
+            /* verify again because plugins can modify list on runtime */
+            if (ai == null) {
+                return true;
+            }
+            final MultiHostIndex index = ai.getMultiHostIndex();
+            if (index == null) {
+                return true;
+            } else if (host == null) {
+                return false;
+            }
+            MultiHostDecisions decisions = multiHostDecisions;
+            if (decisions == null || decisions.index != index) {
+                decisions = new MultiHostDecisions(index);
+                multiHostDecisions = decisions;
+            }
+            Boolean ret = decisions.decisions.get(host);
+            if (ret == null) {
+                ret = Boolean.valueOf(index.isSupported(host));
+                decisions.decisions.put(host, ret);
+            }
+            return ret.booleanValue();
+        }
+
         @Override
         public String toString() {
             if (plugin == null) {
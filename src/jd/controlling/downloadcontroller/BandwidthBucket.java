@@ -0,0 +1,295 @@
+package jd.controlling.downloadcontroller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.appwork.utils.net.throttledconnection.ThrottledConnection;
+
+/**
+ * node of the bandwidth tree of the {@link DownloadSpeedManager}: global -> host -> package -> link -> connection. every bucket meters the
+ * traffic of its subtree and may have a cap. the DownloadSpeedManager calculates the demand of every bucket bottom up and splits the
+ * budget of every bucket max-min fair between its children, unused share of satisfied children goes to the hungry ones. priority buckets
+ * are served before their siblings.
+ *
+ * meters can be read from any thread, everything else is only accessed by the DownloadSpeedManager
+ */
+public class BandwidthBucket {
+    public static enum Level {
+        GLOBAL,
+        HOST,
+        PACKAGE,
+        LINK,
+        CONNECTION
+    }
+
+    /* children want as much as they can get */
+    protected static final long                              UNLIMITED      = Long.MAX_VALUE;
+    /* min. demand of a connection that does not use its limit */
+    private static final long                                MIN_DEMAND     = 4 * 1024;
+    /* min. limit of a connection, 0 would mean unlimited */
+    private static final int                                 MIN_LIMIT      = 10;
+    /* time constant of the speed meter in ms */
+    private static final double                              METER_TAU      = 2000d;
+
+    private static final Comparator<BandwidthBucket>         DEMAND_ASC     = new Comparator<BandwidthBucket>() {
+        @Override
+        public int compare(BandwidthBucket o1, BandwidthBucket o2) {
+            return o1.demand < o2.demand ? -1 : o1.demand == o2.demand ? 0 : 1;
+        }
+    };
+
+    private final Level                                      level;
+    private final Object                                     key;
+    private final BandwidthBucket                            parent;
+    private final ConcurrentHashMap<Object, BandwidthBucket> children       = new ConcurrentHashMap<Object, BandwidthBucket>();
+    private final AtomicLong                                 traffic        = new AtomicLong(0l);
+    private volatile int                                     speed          = 0;
+    private volatile int                                     cap            = 0;
+    private volatile int                                     allocation     = 0;
+    /* traffic of the current round */
+    private long                                             roundTraffic   = 0;
+    private long                                             round          = -1;
+    private long                                             demand         = 0;
+    private boolean                                          priority       = false;
+    /* last known transfered bytes of the connection */
+    protected long                                           lastTransfered = -1;
+
+    protected BandwidthBucket(final Level level, final Object key, final BandwidthBucket parent) {
+        this.level = level;
+        this.key = key;
+        this.parent = parent;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return host, FilePackage, DownloadLink/ManagedThrottledConnectionHandler or ThrottledConnection of this bucket
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    public BandwidthBucket getParent() {
+        return parent;
+    }
+
+    public Collection<BandwidthBucket> getChildren() {
+        return children.values();
+    }
+
+    public BandwidthBucket getChild(final Object key) {
+        return key == null ? null : children.get(key);
+    }
+
+    /**
+     * @return current speed of this bucket in bytes/s
+     */
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return bytes transfered by this bucket
+     */
+    public long getTraffic() {
+        return traffic.get();
+    }
+
+    /**
+     * @return cap of this bucket in bytes/s, 0 = no cap
+     */
+    public int getCap() {
+        return cap;
+    }
+
+    /**
+     * @return bandwidth assigned to this bucket in the last round in bytes/s, 0 = unlimited
+     */
+    public int getAllocation() {
+        return allocation;
+    }
+
+    protected BandwidthBucket getOrCreateChild(final Level level, final Object key, final long round) {
+        BandwidthBucket child = children.get(key);
+        if (child == null) {
+            child = new BandwidthBucket(level, key, this);
+            children.put(key, child);
+        }
+        child.touch(round);
+        return child;
+    }
+
+    protected void touch(final long round) {
+        if (this.round != round) {
+            this.round = round;
+            this.roundTraffic = 0;
+        }
+    }
+
+    protected void setPriority(final boolean priority) {
+        this.priority = priority;
+    }
+
+    public boolean isPriority() {
+        return priority;
+    }
+
+    protected void setCap(final int cap) {
+        this.cap = Math.max(0, cap);
+    }
+
+    /**
+     * adds traffic of this round to this bucket only, used by connections as their traffic is already counted by their link
+     */
+    protected void addLocalTraffic(final long bytes) {
+        if (bytes > 0) {
+            roundTraffic += bytes;
+            traffic.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * adds traffic of this round to this bucket and all its parents
+     */
+    protected void addTraffic(final long bytes) {
+        if (bytes > 0) {
+            BandwidthBucket bucket = this;
+            while (bucket != null) {
+                bucket.roundTraffic += bytes;
+                bucket.traffic.addAndGet(bytes);
+                bucket = bucket.parent;
+            }
+        }
+    }
+
+    /**
+     * updates the speed meters of this subtree and removes buckets that were not part of this round
+     */
+    protected void finishRound(final long round, final long duration) {
+        if (duration > 0) {
+            final double rate = roundTraffic * 1000d / duration;
+            final double alpha = 1d - Math.exp(-duration / METER_TAU);
+            speed = (int) Math.min(Integer.MAX_VALUE, Math.round(speed + (rate - speed) * alpha));
+        }
+        final Iterator<BandwidthBucket> it = children.values().iterator();
+        while (it.hasNext()) {
+            final BandwidthBucket child = it.next();
+            if (child.round != round) {
+                it.remove();
+            } else {
+                child.finishRound(round, duration);
+            }
+        }
+    }
+
+    /**
+     * calculates the demand of this subtree in bytes/s. a connection that used (nearly) all of its limit is hungry, else it needs a bit more
+     * than its current speed
+     */
+    protected long updateDemand(final long duration) {
+        if (level == Level.CONNECTION) {
+            final long rate = duration > 0 ? roundTraffic * 1000 / duration : 0;
+            if (allocation <= 0 || rate * 10 >= allocation * 9l) {
+                demand = UNLIMITED;
+            } else {
+                demand = Math.max(MIN_DEMAND, rate + rate / 4);
+            }
+        } else {
+            long sum = 0;
+            for (final BandwidthBucket child : children.values()) {
+                final long childDemand = child.updateDemand(duration);
+                sum = UNLIMITED - sum <= childDemand ? UNLIMITED : sum + childDemand;
+            }
+            demand = sum;
+        }
+        if (cap > 0) {
+            demand = Math.min(demand, cap);
+        }
+        return demand;
+    }
+
+    /**
+     * assigns the given budget to this subtree and sets the limits of the connections
+     *
+     * @param budget
+     *            bytes/s, 0 = unlimited
+     */
+    protected void allocate(long budget) {
+        if (cap > 0) {
+            budget = budget > 0 ? Math.min(budget, cap) : cap;
+        }
+        allocation = (int) Math.min(Integer.MAX_VALUE, budget);
+        if (level == Level.CONNECTION) {
+            final int newLimit = budget > 0 ? Math.max(MIN_LIMIT, allocation) : 0;
+            final ThrottledConnection connection = (ThrottledConnection) key;
+            if (connection.getLimit() != newLimit) {
+                connection.setLimit(newLimit);
+            }
+            return;
+        }
+        final BandwidthBucket[] buckets = children.values().toArray(new BandwidthBucket[0]);
+        if (buckets.length == 0) {
+            return;
+        }
+        if (budget <= 0) {
+            for (final BandwidthBucket child : buckets) {
+                child.allocate(0);
+            }
+            return;
+        }
+        /* max-min fair share, satisfied children first so their unused share goes to the others */
+        Arrays.sort(buckets, DEMAND_ASC);
+        final long[] shares = new long[buckets.length];
+        long left = budget;
+        int fairBuckets = buckets.length;
+        for (int index = 0; index < buckets.length; index++) {
+            if (buckets[index].priority) {
+                /* priority children take what they need before the others share the rest */
+                shares[index] = Math.min(buckets[index].demand, left);
+                left -= shares[index];
+                fairBuckets--;
+            }
+        }
+        for (int index = 0, served = 0; index < buckets.length; index++) {
+            if (!buckets[index].priority) {
+                final long fairShare = left / (fairBuckets - served++);
+                shares[index] = Math.min(buckets[index].demand, fairShare);
+                left -= shares[index];
+            }
+        }
+        if (left > 0) {
+            /* everybody is satisfied, spread the rest as headroom */
+            final ArrayList<Integer> growable = new ArrayList<Integer>();
+            for (int index = 0; index < buckets.length; index++) {
+                if (buckets[index].cap <= 0 || shares[index] < buckets[index].cap) {
+                    growable.add(index);
+                }
+            }
+            for (int index = 0; index < growable.size(); index++) {
+                final int bucketIndex = growable.get(index);
+                long extra = left / (growable.size() - index);
+                if (buckets[bucketIndex].cap > 0) {
+                    extra = Math.min(extra, buckets[bucketIndex].cap - shares[bucketIndex]);
+                }
+                shares[bucketIndex] += extra;
+                left -= extra;
+            }
+        }
+        for (int index = 0; index < buckets.length; index++) {
+            /* never hand out 0, it would mean unlimited */
+            buckets[index].allocate(Math.max(1, shares[index]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return level + ":" + key + "|Speed:" + speed + "|Cap:" + cap + "|Allocation:" + allocation;
+    }
+}
@@ -2,11 +2,20 @@ package jd.controlling.downloadcontroller;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.appwork.storage.config.JsonConfig;
 import org.appwork.utils.Application;
@@ -18,6 +27,12 @@ import org.jdownloader.settings.GeneralSettings;
 
 import de.javasoft.util.OS;
 
+/**
+ * checks and reserves disk space per filestore(mount root). the mount table and the resolved roots are cached and invalidated when the
+ * mount table changes, the usable space of a filestore is sampled asynchronously once it is older than FREESPACE_TTL and reservations only
+ * lock the filestore they belong to. the bytes written by the reservations since the last sample are subtracted from it, as the
+ * reservations shrink while their downloads write.
+ */
 public class DiskSpaceManager {
 
     public static enum DISKSPACERESERVATIONRESULT {
@@ -27,26 +42,224 @@ public class DiskSpaceManager {
         FAILED
     }
 
-    private final HashMap<DiskSpaceReservation, Object> reservations;
-    private final GeneralSettings                       config;
-    private final AtomicBoolean                         SUPPORTED = new AtomicBoolean(Application.getJavaVersion() >= Application.JAVA16);
+    public static class Filestore {
+        private final String                                        root;
+        /* reservation -> its size at the last sample or when reserved after it */
+        private final ConcurrentHashMap<DiskSpaceReservation, Long> reservations = new ConcurrentHashMap<DiskSpaceReservation, Long>();
+        /* bytes written since the last sample by reservations that have been freed */
+        private final AtomicLong                                    released     = new AtomicLong(0);
+        private final AtomicBoolean                                 sampling     = new AtomicBoolean(false);
+        private volatile long                                       usableSpace  = 0;
+        private volatile long                                       sampleTime   = -1;
+
+        private Filestore(String root) {
+            this.root = root;
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        /**
+         * @return last sampled usable space minus the bytes written by reservations since, negative for unlimited
+         */
+        public long getUsableSpace() {
+            final long ret = usableSpace;
+            if (ret < 0) {
+                return ret;
+            }
+            return Math.max(0, ret - getWrittenSinceSample());
+        }
+
+        /**
+         * @return bytes the current and freed reservations have shrunk by since the last sample
+         */
+        private long getWrittenSinceSample() {
+            long ret = released.get();
+            for (final Entry<DiskSpaceReservation, Long> reservation : reservations.entrySet()) {
+                ret += Math.max(0, reservation.getValue() - Math.max(0, reservation.getKey().getSize()));
+            }
+            return ret;
+        }
+
+        private void reserve(final DiskSpaceReservation reservation) {
+            reservations.put(reservation, Math.max(0, reservation.getSize()));
+        }
+
+        private void free(final DiskSpaceReservation reservation) {
+            final Long size = reservations.remove(reservation);
+            if (size != null) {
+                released.addAndGet(Math.max(0, size - Math.max(0, reservation.getSize())));
+            }
+        }
+
+        /**
+         * @return timestamp of the last sample, -1 if not sampled yet
+         */
+        public long getSampleTime() {
+            return sampleTime;
+        }
+
+        /**
+         * @return sum of all current reservations in bytes
+         */
+        public long getReservedSpace() {
+            long ret = 0;
+            for (final DiskSpaceReservation reservation : reservations.keySet()) {
+                ret += Math.max(0, reservation.getSize());
+            }
+            return ret;
+        }
+
+        public int getReservations() {
+            return reservations.size();
+        }
+
+        private void sample() {
+            /* sizes before the sample, bytes written meanwhile are counted twice rather than not at all */
+            final HashMap<DiskSpaceReservation, Long> sizes = new HashMap<DiskSpaceReservation, Long>();
+            for (final DiskSpaceReservation reservation : reservations.keySet()) {
+                sizes.put(reservation, Math.max(0, reservation.getSize()));
+            }
+            final long releasedBefore = released.get();
+            long freeDiskSpace = new File(root).getUsableSpace();
+            if (freeDiskSpace == 0) {
+                switch (CrossSystem.getOSFamily()) {
+                case WINDOWS:
+                    // File.getUsableSpace fails for subst drives, workaround is to call File.getUsableSpace on one of its directories
+                    final File[] checks = new File(root).listFiles();
+                    if (checks != null) {
+                        for (final File check : checks) {
+                            if (check.isDirectory()) {
+                                freeDiskSpace = check.getUsableSpace();
+                                break;
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+            synchronized (this) {
+                for (final Entry<DiskSpaceReservation, Long> size : sizes.entrySet()) {
+                    if (reservations.containsKey(size.getKey())) {
+                        reservations.put(size.getKey(), size.getValue());
+                    }
+                }
+                released.addAndGet(-releasedBefore);
+                usableSpace = freeDiskSpace;
+                sampleTime = System.currentTimeMillis();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Filestore:" + root + "|Usable:" + getUsableSpace() + "|Reserved:" + getReservedSpace();
+        }
+    }
+
+    private static class MountTable {
+        private final List<ProcMounts> mounts;
+        private final String           signature;
+        private final long             timestamp;
+
+        private MountTable(List<ProcMounts> mounts, String signature, long timestamp) {
+            this.mounts = mounts;
+            this.signature = signature;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static final long                                         MOUNTTABLE_TTL = 10 * 1000l;
+    private static final long                                         FREESPACE_TTL  = 2 * 1000l;
+    private static final int                                          MAX_ROOTS      = 4096;
+    private static volatile MountTable                                MOUNTTABLE     = null;
+    /* absolute path -> root, cleared when the mount table changes */
+    private static final ConcurrentHashMap<String, String>            ROOTS          = new ConcurrentHashMap<String, String>();
+    private static final ConcurrentHashMap<String, String>            FILESTOREROOTS = new ConcurrentHashMap<String, String>();
+
+    private final ConcurrentHashMap<DiskSpaceReservation, Object>     reservations   = new ConcurrentHashMap<DiskSpaceReservation, Object>();
+    private final ConcurrentHashMap<DiskSpaceReservation, Filestore>  reservedOn     = new ConcurrentHashMap<DiskSpaceReservation, Filestore>();
+    private final ConcurrentHashMap<String, Filestore>                filestores     = new ConcurrentHashMap<String, Filestore>();
+    private final GeneralSettings                                     config;
+    private final AtomicBoolean                                       SUPPORTED      = new AtomicBoolean(Application.getJavaVersion() >= Application.JAVA16);
+    private final ThreadPoolExecutor                                  sampler;
 
     public DiskSpaceManager() {
-        reservations = new HashMap<DiskSpaceReservation, Object>();
         config = JsonConfig.create(GeneralSettings.class);
+        final AtomicInteger threadIDs = new AtomicInteger(0);
+        sampler = new ThreadPoolExecutor(4, 4, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "DiskSpaceSampler:" + threadIDs.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sampler.allowCoreThreadTimeOut(true);
     }
 
-    public synchronized DISKSPACERESERVATIONRESULT check(DiskSpaceReservation reservation) {
+    public DISKSPACERESERVATIONRESULT check(DiskSpaceReservation reservation) {
         return checkAndReserve(reservation, null);
     }
 
+    /**
+     * @return the cached mount table, reread after MOUNTTABLE_TTL. cached roots are invalidated if the mount table changed
+     */
+    private static List<ProcMounts> getMounts() throws IOException {
+        MountTable mountTable = MOUNTTABLE;
+        final long now = System.currentTimeMillis();
+        if (mountTable != null && now - mountTable.timestamp < MOUNTTABLE_TTL) {
+            return mountTable.mounts;
+        }
+        synchronized (ROOTS) {
+            mountTable = MOUNTTABLE;
+            if (mountTable != null && now - mountTable.timestamp < MOUNTTABLE_TTL) {
+                return mountTable.mounts;
+            }
+            final List<ProcMounts> mounts = ProcMounts.list();
+            final StringBuilder signature = new StringBuilder();
+            if (mounts != null) {
+                for (final ProcMounts mount : mounts) {
+                    signature.append(mount.toString()).append(mount.isReadOnly()).append('\n');
+                }
+            }
+            if (mountTable == null || !mountTable.signature.equals(signature.toString())) {
+                invalidateRoots();
+            }
+            MOUNTTABLE = new MountTable(mounts == null ? null : Collections.unmodifiableList(mounts), signature.toString(), now);
+            return mounts;
+        }
+    }
+
+    /**
+     * clears all cached roots, eg after mount changes
+     */
+    public static void invalidateRoots() {
+        ROOTS.clear();
+        FILESTOREROOTS.clear();
+    }
+
+    private static void cacheRoot(final ConcurrentHashMap<String, String> cache, final String destination, final String root) {
+        if (cache.size() >= MAX_ROOTS) {
+            cache.clear();
+        }
+        cache.put(destination, root);
+    }
+
     public static String getRootFor(File file) {
-        String bestRootMatch = null;
+        final String destination = file.getAbsolutePath();
         if (CrossSystem.isUnix()) {
             try {
-                final List<ProcMounts> procMounts = ProcMounts.list();
+                final List<ProcMounts> procMounts = getMounts();
+                final String cachedRoot = ROOTS.get(destination);
+                if (cachedRoot != null) {
+                    return cachedRoot;
+                }
+                String bestRootMatch = null;
                 if (procMounts != null) {
-                    final String destination = file.getAbsolutePath();
                     for (final ProcMounts procMount : procMounts) {
                         if (!procMount.isReadOnly() && destination.startsWith(procMount.getMountPoint())) {
                             if (bestRootMatch == null || (procMount.getMountPoint().length() > bestRootMatch.length())) {
@@ -55,49 +268,122 @@ public class DiskSpaceManager {
                         }
                     }
                 }
+                if (bestRootMatch != null) {
+                    cacheRoot(ROOTS, destination, bestRootMatch);
+                    return bestRootMatch;
+                }
             } catch (IOException e) {
                 LogController.CL().log(e);
             }
         }
-        if (bestRootMatch == null) {
-            // fallback to File.listRoots
-            final String destination = file.getAbsolutePath();
-            if (!destination.startsWith("\\")) {
-                final File[] roots = File.listRoots();
-                if (roots != null) {
-                    for (final File root : roots) {
-                        final String rootString = root.getAbsolutePath();
-                        final boolean startsWith;
-                        if (CrossSystem.isWindows()) {
-                            startsWith = StringUtils.startsWithCaseInsensitive(destination, rootString);
-                        } else {
-                            startsWith = destination.startsWith(rootString);
-                        }
-                        if (startsWith) {
-                            bestRootMatch = rootString;
-                            break;
-                        }
+        String bestRootMatch = null;
+        // fallback to File.listRoots
+        if (!destination.startsWith("\\")) {
+            final File[] roots = File.listRoots();
+            if (roots != null) {
+                for (final File root : roots) {
+                    final String rootString = root.getAbsolutePath();
+                    final boolean startsWith;
+                    if (CrossSystem.isWindows()) {
+                        startsWith = StringUtils.startsWithCaseInsensitive(destination, rootString);
+                    } else {
+                        startsWith = destination.startsWith(rootString);
                     }
-                }
-            } else {
-                // simple unc support (netshares without assigned drive letter)
-                File existingFile = file;
-                while (existingFile != null) {
-                    if (existingFile.exists()) {
-                        bestRootMatch = existingFile.getAbsolutePath();
+                    if (startsWith) {
+                        bestRootMatch = rootString;
+                        break;
                     }
-                    existingFile = existingFile.getParentFile();
                 }
             }
+        } else {
+            // simple unc support (netshares without assigned drive letter)
+            File existingFile = file;
+            while (existingFile != null) {
+                if (existingFile.exists()) {
+                    bestRootMatch = existingFile.getAbsolutePath();
+                }
+                existingFile = existingFile.getParentFile();
+            }
         }
         return bestRootMatch;
     }
 
+    private String getFileStoreRootFor(final File file) throws IOException {
+        final String destination = file.getAbsolutePath();
+        if (CrossSystem.isUnix()) {
+            /* validates the cached roots against the mount table */
+            getMounts();
+        }
+        final String cachedRoot = FILESTOREROOTS.get(destination);
+        if (cachedRoot != null) {
+            return cachedRoot;
+        }
+        final String ret = FileStoreHacks.getRootFor(file);
+        if (ret != null) {
+            cacheRoot(FILESTOREROOTS, destination, ret);
+        }
+        return ret;
+    }
+
     public boolean isSupported() {
         return SUPPORTED.get();
     }
 
-    public synchronized DISKSPACERESERVATIONRESULT checkAndReserve(DiskSpaceReservation reservation, Object requestor) {
+    private Filestore getFilestore(final String root) {
+        Filestore ret = filestores.get(root);
+        if (ret == null) {
+            ret = new Filestore(root);
+            final Filestore existing = filestores.putIfAbsent(root, ret);
+            if (existing != null) {
+                ret = existing;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return usable space of the filestore, sampled synchronously the first time and asynchronously once the sample is older than
+     *         FREESPACE_TTL. bytes written by reservations since the sample are subtracted
+     */
+    private long getUsableSpace(final Filestore filestore) {
+        final long sampleTime = filestore.sampleTime;
+        if (sampleTime < 0) {
+            synchronized (filestore) {
+                if (filestore.sampleTime < 0) {
+                    filestore.sample();
+                }
+            }
+        } else if (System.currentTimeMillis() - sampleTime > FREESPACE_TTL && filestore.sampling.compareAndSet(false, true)) {
+            try {
+                sampler.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            filestore.sample();
+                        } catch (final Throwable e) {
+                            LogController.CL().log(e);
+                        } finally {
+                            filestore.sampling.set(false);
+                        }
+                    }
+                });
+            } catch (final RuntimeException e) {
+                filestore.sampling.set(false);
+                throw e;
+            }
+        }
+        return filestore.getUsableSpace();
+    }
+
+    /**
+     * @return all known filestores with their sampled usable space and reservations
+     */
+    public List<Filestore> getFilestores() {
+        return new ArrayList<Filestore>(filestores.values());
+    }
+
+    public DISKSPACERESERVATIONRESULT checkAndReserve(DiskSpaceReservation reservation, Object requestor) {
         if (reservation == null) {
             throw new IllegalArgumentException("reservation must not be null!");
         }
@@ -116,7 +402,7 @@ public class DiskSpaceManager {
         String bestRootMatch = null;
         if (Application.getJavaVersion() >= Application.JAVA17 && (CrossSystem.isUnix() || CrossSystem.isMac())) {
             try {
-                bestRootMatch = FileStoreHacks.getRootFor(reservation.getDestination());
+                bestRootMatch = getFileStoreRootFor(reservation.getDestination());
             } catch (final IOException e) {
                 LogController.CL().log(e);
                 if (OS.FreeBSD.equals(CrossSystem.getOS()) && StringUtils.containsIgnoreCase(e.getMessage(), "mount point not found")) {
@@ -130,29 +416,13 @@ public class DiskSpaceManager {
             bestRootMatch = getRootFor(reservation.getDestination());
         }
         if (bestRootMatch == null || !new File(bestRootMatch).exists()) {
+            invalidateRoots();
             return DISKSPACERESERVATIONRESULT.INVALIDDESTINATION;
         }
+        final Filestore filestore = getFilestore(bestRootMatch);
         final long forcedFreeSpaceOnDisk = Math.max(0l, config.getForcedFreeSpaceOnDisk() * 1024l * 1024l);
         long requestedDiskSpace = Math.max(0, reservation.getSize()) + forcedFreeSpaceOnDisk;
-        long freeDiskSpace = new File(bestRootMatch).getUsableSpace();
-        if (freeDiskSpace == 0) {
-            switch (CrossSystem.getOSFamily()) {
-            case WINDOWS:
-                // File.getUsableSpace fails for subst drives, workaround is to call File.getUsableSpace on one of its directories
-                final File[] checks = new File(bestRootMatch).listFiles();
-                if (checks != null) {
-                    for (final File check : checks) {
-                        if (check.isDirectory()) {
-                            freeDiskSpace = check.getUsableSpace();
-                            break;
-                        }
-                    }
-                }
-                break;
-            default:
-                break;
-            }
-        }
+        final long freeDiskSpace = getUsableSpace(filestore);
         if (freeDiskSpace < 0) {
             // unlimited, for example a virtual (distributed) filesystem
             return DISKSPACERESERVATIONRESULT.OK;
@@ -160,62 +430,66 @@ public class DiskSpaceManager {
         if (freeDiskSpace < requestedDiskSpace) {
             return DISKSPACERESERVATIONRESULT.FAILED;
         }
-        for (final DiskSpaceReservation reserved : reservations.keySet()) {
-            final boolean startsWith;
-            if (CrossSystem.isWindows()) {
-                startsWith = StringUtils.startsWithCaseInsensitive(reserved.getDestination().getAbsolutePath(), bestRootMatch);
-            } else {
-                startsWith = reserved.getDestination().getAbsolutePath().startsWith(bestRootMatch);
-            }
-            if (startsWith) {
+        /* only reservations on the same filestore have to be serialized */
+        synchronized (filestore) {
+            for (final DiskSpaceReservation reserved : filestore.reservations.keySet()) {
                 requestedDiskSpace += Math.max(0, reserved.getSize());
                 if (freeDiskSpace < requestedDiskSpace) {
                     return DISKSPACERESERVATIONRESULT.FAILED;
                 }
             }
-        }
-        if (requestor != null) {
-            reservations.put(reservation, requestor);
+            if (requestor != null) {
+                final Filestore previous = reservedOn.put(reservation, filestore);
+                if (previous != null && previous != filestore) {
+                    previous.free(reservation);
+                }
+                reservations.put(reservation, requestor);
+                if (previous != filestore || !filestore.reservations.containsKey(reservation)) {
+                    filestore.reserve(reservation);
+                }
+            }
         }
         return DISKSPACERESERVATIONRESULT.OK;
     }
 
-    public synchronized boolean free(DiskSpaceReservation reservation, Object requestor) {
-        final Object currentHolder = getRequestor(reservation);
-        if (currentHolder != null && requestor == currentHolder) {
-            reservations.remove(reservation);
+    public boolean free(DiskSpaceReservation reservation, Object requestor) {
+        if (requestor != null && reservations.remove(reservation, requestor)) {
+            final Filestore filestore = reservedOn.remove(reservation);
+            if (filestore != null) {
+                filestore.free(reservation);
+            }
             return true;
         } else {
             return false;
         }
     }
 
-    public synchronized boolean isReservedBy(DiskSpaceReservation reservation, Object requestor) {
+    public boolean isReservedBy(DiskSpaceReservation reservation, Object requestor) {
         if (requestor == null) {
             return false;
         }
         return reservations.get(reservation) == requestor;
     }
 
-    public synchronized boolean holdsReservations(Object requestor) {
+    public boolean holdsReservations(Object requestor) {
         return reservations.containsValue(requestor);
     }
 
-    public synchronized void freeAllReservationsBy(Object requestor) {
+    public void freeAllReservationsBy(Object requestor) {
         final Iterator<Entry<DiskSpaceReservation, Object>> it = reservations.entrySet().iterator();
         while (it.hasNext()) {
             final Entry<DiskSpaceReservation, Object> next = it.next();
             if (next.getValue() == requestor) {
-                it.remove();
+                free(next.getKey(), requestor);
             }
         }
     }
 
-    public synchronized Object getRequestor(DiskSpaceReservation reservation) {
+    public Object getRequestor(DiskSpaceReservation reservation) {
         return reservations.get(reservation);
     }
 
-    public synchronized boolean isReserved(DiskSpaceReservation reservation) {
+    public boolean isReserved(DiskSpaceReservation reservation) {
         return reservations.containsKey(reservation);
     }
 
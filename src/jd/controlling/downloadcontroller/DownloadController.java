@@ -18,7 +18,6 @@ package jd.controlling.downloadcontroller;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,18 +30,22 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.regex.Matcher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import jd.config.NoOldJDDataBaseFoundException;
 import jd.controlling.packagecontroller.AbstractNode;
 import jd.controlling.packagecontroller.AbstractPackageChildrenNodeFilter;
 import jd.controlling.packagecontroller.PackageController;
+import jd.controlling.packagecontroller.PackageControllerIndex;
+import jd.controlling.packagecontroller.PackageControllerListLoader;
 import jd.parser.Regex;
 import jd.plugins.DownloadLink;
 import jd.plugins.DownloadLinkProperty;
@@ -53,7 +56,6 @@ import jd.plugins.PluginForHost;
 import jd.utils.JDUtilities;
 
 import org.appwork.controlling.SingleReachableState;
-import org.appwork.exceptions.WTFException;
 import org.appwork.scheduler.DelayedRunnable;
 import org.appwork.shutdown.ShutdownController;
 import org.appwork.shutdown.ShutdownEvent;
@@ -104,12 +106,36 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
 
     private final DupeManager                             dupeController;
 
+    private final PackageControllerIndex<FilePackage, DownloadLink> index = new PackageControllerIndex<FilePackage, DownloadLink>(this) {
+
+        @Override
+        protected String getHost(DownloadLink child) {
+            return child.getHost();
+        }
+
+        @Override
+        protected long getJobID(DownloadLink child) {
+            return child.getJobID();
+        }
+
+        @Override
+        protected Object getState(DownloadLink child) {
+            return child.getFinalLinkState();
+        }
+    };
+
     public static final SingleReachableState              DOWNLOADLIST_LOADED = new SingleReachableState("DOWNLOADLIST_COMPLETE");
 
     private static final DownloadController               INSTANCE            = new DownloadController();
 
     private static final Object                           SAVELOADLOCK        = new Object();
 
+    /* journal of the current downloadList, guarded by SAVELOADLOCK */
+    private DownloadListJournal                           journal             = null;
+    private final Set<DownloadLink>                       journalDirtyLinks    = Collections.newSetFromMap(new ConcurrentHashMap<DownloadLink, Boolean>());
+    private final Set<FilePackage>                        journalDirtyPackages = Collections.newSetFromMap(new ConcurrentHashMap<FilePackage, Boolean>());
+    private static final long                             JOURNAL_MIN_SIZE     = 1024 * 1024l;
+
     /**
      * darf erst nachdem der JDController init wurde, aufgerufen werden
      */
@@ -133,6 +159,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                     list.add(dl);
                 }
                 DownloadController.super.moveOrAddAt(pkg, movechildren, moveChildrenindex, pkgIndex);
+                dupeController.add(movechildren);
                 for (final Entry<FilePackage, List<DownloadLink>> s : sourceMap.entrySet()) {
                     DownloadWatchDog.getInstance().handleMovedDownloadLinks(pkg, s.getKey(), s.getValue());
                 }
@@ -153,7 +180,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
             @Override
             public void onShutdown(final ShutdownRequest shutdownRequest) {
                 final boolean idle = DownloadWatchDog.getInstance().isIdle();
-                saveDownloadLinks();
+                saveDownloadLinks(true);
                 if (!idle) {
                     int retry = 10;
                     while (retry > 0) {
@@ -170,7 +197,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                         }
                         retry--;
                     }
-                    saveDownloadLinks();
+                    saveDownloadLinks(true);
                 }
             }
 
@@ -251,21 +278,25 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
 
             @Override
             public void onDownloadControllerUpdatedData(DownloadLink downloadlink, DownloadLinkProperty property) {
+                journalDirtyLinks.add(downloadlink);
                 changesSaver.run();
             }
 
             @Override
             public void onDownloadControllerUpdatedData(FilePackage pkg, FilePackageProperty property) {
+                journalDirtyPackages.add(pkg);
                 changesSaver.run();
             }
 
             @Override
             public void onDownloadControllerUpdatedData(DownloadLink downloadlink) {
+                journalDirtyLinks.add(downloadlink);
                 changesSaver.run();
             }
 
             @Override
             public void onDownloadControllerUpdatedData(FilePackage pkg) {
+                journalDirtyPackages.add(pkg);
                 changesSaver.run();
             }
         });
@@ -276,9 +307,25 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
         downloadSaver.run();
     }
 
+    /**
+     * marks the link as changed for the next journal append, for changes that fire no event(eg setProperty)
+     */
+    public void markDirty(final DownloadLink downloadlink) {
+        journalDirtyLinks.add(downloadlink);
+        changesSaver.run();
+    }
+
+    /**
+     * marks the package as changed for the next journal append, for changes that fire no event(eg setProperty)
+     */
+    public void markDirty(final FilePackage pkg) {
+        journalDirtyPackages.add(pkg);
+        changesSaver.run();
+    }
+
     @Override
     protected void _controllerPackageNodeAdded(FilePackage pkg, QueuePriority priority) {
-        dupeController.invalidate();
+        dupeController.addPackage(pkg);
         eventSender.fireEvent(new DownloadControllerEventStructureRefresh());
         eventSender.fireEvent(new DownloadControllerEventAddedPackage(pkg));
     }
@@ -295,7 +342,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
 
     @Override
     protected void _controllerParentlessLinks(final List<DownloadLink> links, QueuePriority priority) {
-        dupeController.invalidate();
+        dupeController.remove(links);
         eventSender.fireEvent(new DownloadControllerEventRemovedLinkList(new ArrayList<DownloadLink>(links)));
     }
 
@@ -556,7 +603,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                         writeUnlock();
                     }
                     updateUniqueAlltimeIDMaps(lpackages);
-                    dupeController.invalidate();
+                    dupeController.addPackages(lpackages);
                     final long version = backendChanged.incrementAndGet();
                     childrenChanged.set(version);
                     structureChanged.set(version);
@@ -567,31 +614,19 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
         });
     }
 
-    private class LoadedPackage {
-        private FilePackage                          filePackage   = null;
-        private final HashMap<Integer, DownloadLink> downloadLinks = new HashMap<Integer, DownloadLink>();
-
-        private FilePackage getLoadedPackage() {
-            if (filePackage != null) {
-                if (filePackage.getChildren().size() == 0) {
-                    final List<Integer> childIndices = new ArrayList<Integer>(downloadLinks.keySet());
-                    Collections.sort(childIndices);
-                    for (final Integer childIndex : childIndices) {
-                        final DownloadLink child = downloadLinks.get(childIndex);
-                        filePackage.getChildren().add(child);
-                        child.setParentNode(filePackage);
-                    }
-                }
-                return filePackage;
-            }
-            return null;
-        }
-    }
-
     private LinkedList<FilePackage> load(final File file) {
         synchronized (SAVELOADLOCK) {
             try {
-                return loadFile(file);
+                final LinkedList<FilePackage> ret = loadFile(file);
+                if (ret != null) {
+                    try {
+                        return DownloadListJournal.replay(file, ret, logger);
+                    } catch (final Throwable e) {
+                        logger.severe("Could not replay journal of " + file);
+                        logger.log(e);
+                    }
+                }
+                return ret;
             } catch (final Throwable e) {
                 final File renameTo = new File(file.getAbsolutePath() + ".backup");
                 boolean backup = false;
@@ -615,187 +650,78 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
         logger.info("Load List: " + file);
         LinkedList<FilePackage> ret = null;
         if (file != null && file.exists()) {
-            FileInputStream fis = null;
-            ZipInputStream zis = null;
+            final AtomicReference<DownloadControllerStorable> dcs = new AtomicReference<DownloadControllerStorable>();
+            final TypeRef<DownloadLinkStorable> downloadLinkStorableTypeRef = new TypeRef<DownloadLinkStorable>() {
+            };
+            final TypeRef<FilePackageStorable> filePackageStorable = new TypeRef<FilePackageStorable>() {
+            };
+            final TypeRef<DownloadControllerStorable> downloadControllerStorable = new TypeRef<DownloadControllerStorable>() {
+            };
+            /* lets restore the FilePackages from Json */
+            final List<FilePackage> ret2;
             try {
-                fis = new FileInputStream(file);
-                zis = new ZipInputStream(fis);
-                /* lets restore the FilePackages from Json */
-                final HashMap<Integer, LoadedPackage> packageMap = new HashMap<Integer, LoadedPackage>();
-                DownloadControllerStorable dcs = null;
-                final TypeRef<DownloadLinkStorable> downloadLinkStorableTypeRef = new TypeRef<DownloadLinkStorable>() {
-                };
-                final TypeRef<FilePackageStorable> filePackageStorable = new TypeRef<FilePackageStorable>() {
-                };
-                final TypeRef<DownloadControllerStorable> downloadControllerStorable = new TypeRef<DownloadControllerStorable>() {
-                };
-                ZipEntry entry = null;
-                final ZipInputStream finalZis = zis;
-                final InputStream entryInputStream = new InputStream() {
+                ret2 = new PackageControllerListLoader<FilePackage, DownloadLink>(logger) {
 
                     @Override
-                    public int read() throws IOException {
-                        return finalZis.read();
+                    protected FilePackage restorePackage(InputStream is) throws Exception {
+                        final FilePackageStorable storable = JSonStorage.getMapper().inputStreamToObject(is, filePackageStorable);
+                        return storable != null ? storable._getFilePackage() : null;
                     }
 
                     @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        return finalZis.read(b, off, len);
+                    protected DownloadLink restoreChild(InputStream is) throws Exception {
+                        final DownloadLinkStorable storable = JSonStorage.getMapper().inputStreamToObject(is, downloadLinkStorableTypeRef);
+                        return storable != null ? storable._getDownloadLink() : null;
                     }
 
                     @Override
-                    public long skip(long n) throws IOException {
-                        return finalZis.skip(n);
+                    protected void restoreExtraInfo(InputStream is) throws Exception {
+                        dcs.set(JSonStorage.getMapper().inputStreamToObject(is, downloadControllerStorable));
                     }
-
-                    @Override
-                    public int available() throws IOException {
-                        return finalZis.available();
-                    }
-
-                    @Override
-                    public boolean markSupported() {
-                        return false;
-                    }
-
-                    @Override
-                    public void close() throws IOException {
-                    }
-
-                    @Override
-                    public synchronized void mark(int readlimit) {
-                    }
-                };
-                int entries = 0;
-                final Pattern entryType = Pattern.compile("(\\d+)(?:_(\\d+))?|extraInfo", Pattern.CASE_INSENSITIVE);
-                while ((entry = zis.getNextEntry()) != null) {
-                    try {
-                        entries++;
-                        final Matcher entryName = entryType.matcher(entry.getName());
-                        if (entryName.matches()) {
-                            if (entryName.group(2) != null) {
-                                // \\d+_\\d+ DownloadLinkStorable
-                                final Integer packageIndex = Integer.valueOf(entryName.group(1));
-                                final Integer childIndex = Integer.valueOf(entryName.group(2));
-                                LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                                if (loadedPackage == null) {
-                                    loadedPackage = new LoadedPackage();
-                                    packageMap.put(packageIndex, loadedPackage);
-                                }
-                                final DownloadLinkStorable storable = JSonStorage.getMapper().inputStreamToObject(entryInputStream, downloadLinkStorableTypeRef);
-                                if (storable != null) {
-                                    loadedPackage.downloadLinks.put(childIndex, storable._getDownloadLink());
-                                } else {
-                                    throw new WTFException("restored a null DownloadLinkLinkStorable");
+                }.load(file);
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw new IOException(e);
+            }
+            if (dcs.get() != null && JsonConfig.create(GeneralSettings.class).isConvertRelativePathsJDRoot()) {
+                try {
+                    final String oldRootPath = dcs.get().getRootPath();
+                    if (!StringUtils.isEmpty(oldRootPath)) {
+                        final String newRoot = JDUtilities.getJDHomeDirectoryFromEnvironment().getAbsolutePath();
+                        if (!oldRootPath.equals(newRoot)) {
+                            /*
+                             * convert paths relative to JDownloader root,only in jared version
+                             */
+                            for (final FilePackage pkg : ret2) {
+                                if (!CrossSystem.isAbsolutePath(pkg.getDownloadDirectory())) {
+                                    /* no need to convert relative paths */
+                                    continue;
                                 }
-                            } else if (entryName.group(1) != null) {
-                                // \\d+ FilePackageStorable
-                                final Integer packageIndex = Integer.valueOf(entry.getName());
-                                final FilePackageStorable storable = JSonStorage.getMapper().inputStreamToObject(entryInputStream, filePackageStorable);
-                                if (storable != null) {
-                                    LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                                    if (loadedPackage == null) {
-                                        loadedPackage = new LoadedPackage();
-                                        packageMap.put(packageIndex, loadedPackage);
+                                final String pkgPath = LinkTreeUtils.getDownloadDirectory(pkg).getAbsolutePath();
+                                if (pkgPath.startsWith(oldRootPath + "/") || pkgPath.startsWith(oldRootPath + "\\")) {
+                                    /*
+                                     * folder is inside JDRoot, lets update it
+                                     */
+                                    String restPath = pkgPath.substring(oldRootPath.length());
+                                    // cut of leading path seperator
+                                    restPath = restPath.replaceFirst("^(/+|\\\\+)", "");
+                                    // fix path seperators
+                                    restPath = CrossSystem.fixPathSeparators(restPath);
+                                    final String newPath = new File(newRoot, restPath).getAbsolutePath();
+                                    if (!StringUtils.equals(pkgPath, newPath)) {
+                                        pkg.setDownloadDirectory(newPath);
                                     }
-                                    loadedPackage.filePackage = storable._getFilePackage();
-                                } else {
-                                    throw new WTFException("restored a null FilePackageStorable");
                                 }
-                            } else {
-                                // extraInfo
-                                dcs = JSonStorage.getMapper().inputStreamToObject(entryInputStream, downloadControllerStorable);
                             }
                         }
-                    } catch (Throwable e) {
-                        logger.log(e);
-                        if (entry != null) {
-                            logger.info("Entry:" + entry + "|Size:" + entry.getSize() + "|Compressed Size:" + entry.getCompressedSize());
-                        }
-                        throw e;
                     }
-                }
-                if (entries == 0) {
-                    throw new WTFException("Empty/Invalid Zip:" + file + "|Size:" + file.length());
-                }
-                /* sort positions */
-                final List<Integer> packageIndices = new ArrayList<Integer>(packageMap.keySet());
-                Collections.sort(packageIndices);
-                /* build final ArrayList of CrawledPackage */
-                final List<FilePackage> ret2 = new ArrayList<FilePackage>(packageIndices.size());
-                for (final Integer packageIndex : packageIndices) {
-                    final LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                    final FilePackage filePackage = loadedPackage.getLoadedPackage();
-                    if (filePackage != null) {
-                        ret2.add(filePackage);
-                    } else {
-                        throw new WTFException("FilePackage at Index " + packageIndex + " is missing!");
-                    }
-                }
-                if (dcs != null && JsonConfig.create(GeneralSettings.class).isConvertRelativePathsJDRoot()) {
-                    try {
-                        final String oldRootPath = dcs.getRootPath();
-                        if (!StringUtils.isEmpty(oldRootPath)) {
-                            final String newRoot = JDUtilities.getJDHomeDirectoryFromEnvironment().getAbsolutePath();
-                            if (!oldRootPath.equals(newRoot)) {
-                                /*
-                                 * convert paths relative to JDownloader root,only in jared version
-                                 */
-                                for (final FilePackage pkg : ret2) {
-                                    if (!CrossSystem.isAbsolutePath(pkg.getDownloadDirectory())) {
-                                        /* no need to convert relative paths */
-                                        continue;
-                                    }
-                                    final String pkgPath = LinkTreeUtils.getDownloadDirectory(pkg).getAbsolutePath();
-                                    if (pkgPath.startsWith(oldRootPath + "/") || pkgPath.startsWith(oldRootPath + "\\")) {
-                                        /*
-                                         * folder is inside JDRoot, lets update it
-                                         */
-                                        String restPath = pkgPath.substring(oldRootPath.length());
-                                        // cut of leading path seperator
-                                        restPath = restPath.replaceFirst("^(/+|\\\\+)", "");
-                                        // fix path seperators
-                                        restPath = CrossSystem.fixPathSeparators(restPath);
-                                        final String newPath = new File(newRoot, restPath).getAbsolutePath();
-                                        if (!StringUtils.equals(pkgPath, newPath)) {
-                                            pkg.setDownloadDirectory(newPath);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    } catch (final Throwable e) {
-                        /* this method can throw exceptions, eg in SVN */
-                        logger.log(e);
-                    }
-                }
-                ret = new LinkedList<FilePackage>(ret2);
-            } catch (final Throwable e) {
-                try {
-                    if (zis != null) {
-                        zis.close();
-                        zis = null;
-                        fis = null;
-                    } else if (fis != null) {
-                        fis.close();
-                        fis = null;
-                    }
-                } catch (final Throwable ignore) {
-                }
-                if (e instanceof IOException) {
-                    throw (IOException) e;
-                }
-                throw new IOException(e);
-            } finally {
-                try {
-                    if (zis != null) {
-                        zis.close();
-                    } else if (fis != null) {
-                        fis.close();
-                    }
-                } catch (final Throwable ignore) {
+                } catch (final Throwable e) {
+                    /* this method can throw exceptions, eg in SVN */
+                    logger.log(e);
                 }
             }
+            ret = new LinkedList<FilePackage>(ret2);
         }
         return ret;
     }
@@ -935,6 +861,8 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
         final PluginFinder pluginFinder = new PluginFinder(logger);
         boolean cleanupStartup = allowCleanup && CleanAfterDownloadAction.CLEANUP_ONCE_AT_STARTUP.equals(org.jdownloader.settings.staticreferences.CFG_GENERAL.CFG.getCleanupAfterDownloadAction());
         boolean cleanupFileExists = JsonConfig.create(GeneralSettings.class).getCleanupFileExists();
+        long assignDuration = 0;
+        int assignedLinks = 0;
         while (iterator.hasNext()) {
             final FilePackage fp = iterator.next();
             if (fp.getChildren() != null) {
@@ -957,7 +885,10 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                      * reset not if already exist, offline or finished. plugin errors will be reset here because plugin can be fixed again
                      */
                     processFinalLinkState(localLink);
+                    final long assignStart = System.nanoTime();
                     pluginFinder.assignPlugin(localLink, true);
+                    assignDuration += System.nanoTime() - assignStart;
+                    assignedLinks++;
                 }
                 if (removeList.size() > 0) {
                     fp.getChildren().removeAll(removeList);
@@ -969,6 +900,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                 continue;
             }
         }
+        logger.info("Plugin assignment: " + assignedLinks + " links in " + TimeUnit.NANOSECONDS.toMillis(assignDuration) + "ms");
     }
 
     public void removeListener(final DownloadControllerListener l) {
@@ -983,6 +915,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
      */
     private boolean save(java.util.List<FilePackage> packages, File file) throws IOException {
         synchronized (SAVELOADLOCK) {
+            final DownloadListJournal.SnapshotState snapshotState = new DownloadListJournal.SnapshotState();
             if (file == null) {
                 if (downloadLists.size() > 0) {
                     String counter = new Regex(downloadLists.get(0).getName(), "downloadList(\\d+)\\.zip").getMatch(0);
@@ -1021,6 +954,10 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                         throw new IOException("Could not create parentFolder for file " + file);
                     }
                 }
+                final File journalFile = DownloadListJournal.getJournalFile(file);
+                if (journalFile.exists() && FileCreationManager.getInstance().delete(journalFile, null) == false) {
+                    throw new IOException("Could not delete stale journal " + journalFile);
+                }
                 /* prepare formatter(001,0001...) for package filenames in zipfiles */
                 final String packageFormat;
                 if (packages.size() >= 10) {
@@ -1099,6 +1036,7 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                                 JSonStorage.getMapper().writeObject(entryOutputStream, linkStorable);
                                 zos.closeEntry();
                             }
+                            snapshotState.add(pkg, pkg.getChildren());
                         } finally {
                             pkg.getModifyLock().readUnlock(readL);
                         }
@@ -1129,6 +1067,10 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                             for (int removeIndex = downloadLists.size() - 1; removeIndex >= keepXOld; removeIndex--) {
                                 final File remove = downloadLists.remove(removeIndex);
                                 if (remove != null) {
+                                    final File removeJournal = DownloadListJournal.getJournalFile(remove);
+                                    if (removeJournal.exists()) {
+                                        FileCreationManager.getInstance().delete(removeJournal, null);
+                                    }
                                     final boolean delete = FileCreationManager.getInstance().delete(remove, null);
                                     if (LogController.getInstance().isDebugMode()) {
                                         logger.info("Delete outdated DownloadList: " + remove + " " + delete);
@@ -1141,6 +1083,10 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
                     } finally {
                         downloadLists.add(0, file);
                     }
+                    if (journal != null) {
+                        journal.close();
+                    }
+                    journal = snapshotState.createJournal(file);
                     return true;
                 } catch (final Throwable e) {
                     logger.log(e);
@@ -1171,27 +1117,97 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
      * save the current FilePackages/DownloadLinks controlled by this DownloadController
      */
     public void saveDownloadLinks() {
+        saveDownloadLinks(false);
+    }
+
+    /**
+     * @param compact
+     *            true = always write a new downloadList, false = append changes to the journal if possible
+     */
+    public void saveDownloadLinks(final boolean compact) {
         if (allowSaving()) {
-            /* save as new Json ZipFile */
             try {
-                save(getPackagesCopy(), null);
+                synchronized (SAVELOADLOCK) {
+                    if (!compact && appendJournal()) {
+                        return;
+                    }
+                    /* save as new Json ZipFile */
+                    journalDirtyLinks.clear();
+                    journalDirtyPackages.clear();
+                    save(getPackagesCopy(), null);
+                }
             } catch (Throwable e) {
                 logger.log(e);
             }
         }
     }
 
+    /**
+     * append changes since last save to the journal
+     *
+     * @return false if the journal is disabled, missing, failed or needs compaction
+     */
+    private boolean appendJournal() {
+        synchronized (SAVELOADLOCK) {
+            final DownloadListJournal journal = this.journal;
+            if (journal == null) {
+                return false;
+            }
+            if (!CFG_GENERAL.CFG.isDownloadListJournalEnabled()) {
+                return false;
+            }
+            if (journal.getSize() > Math.max(JOURNAL_MIN_SIZE, journal.getSnapshot().length())) {
+                return false;
+            }
+            if (System.currentTimeMillis() - journal.getCreated() > CFG_GENERAL.CFG.getDownloadListJournalCompactionInterval() * 60 * 1000l) {
+                return false;
+            }
+            final HashSet<DownloadLink> dirtyLinks = new HashSet<DownloadLink>();
+            final Iterator<DownloadLink> linksIt = journalDirtyLinks.iterator();
+            while (linksIt.hasNext()) {
+                dirtyLinks.add(linksIt.next());
+                linksIt.remove();
+            }
+            for (final SingleDownloadController controller : DownloadWatchDog.getInstance().getRunningDownloadLinks()) {
+                /* download progress does not fire events */
+                dirtyLinks.add(controller.getDownloadLink());
+            }
+            final HashSet<FilePackage> dirtyPackages = new HashSet<FilePackage>();
+            final Iterator<FilePackage> packagesIt = journalDirtyPackages.iterator();
+            while (packagesIt.hasNext()) {
+                dirtyPackages.add(packagesIt.next());
+                packagesIt.remove();
+            }
+            try {
+                final int records = journal.append(getPackagesCopy(), dirtyPackages, dirtyLinks);
+                if (LogController.getInstance().isDebugMode()) {
+                    logger.info("Appended " + records + " records to " + journal.getFile() + "|Size:" + journal.getSize());
+                }
+                return true;
+            } catch (final Throwable e) {
+                /* journal may contain an incomplete record now, compact into new downloadList */
+                logger.log(e);
+                journal.close();
+                this.journal = null;
+                return false;
+            }
+        }
+    }
+
     @Override
     public void nodeUpdated(AbstractNode source, jd.controlling.packagecontroller.AbstractNodeNotifier.NOTIFY notify, Object param) {
         super.nodeUpdated(source, notify, param);
         switch (notify) {
         case PROPERTY_CHANCE:
+            index.onChildUpdated(source);
             if (param instanceof DownloadLinkProperty) {
                 DownloadLinkProperty eventPropery = (DownloadLinkProperty) param;
                 switch (eventPropery.getProperty()) {
                 case VARIANT:
                 case URL_CONTENT:
-                    dupeController.invalidate();
+                case LINKID:
+                    /* linkID may have changed */
+                    dupeController.update(eventPropery.getDownloadLink());
                     break;
                 case NAME:
                 case RESET:
@@ -1214,6 +1230,14 @@ public class DownloadController extends PackageController<FilePackage, DownloadL
 
     }
 
+    /**
+     * @return index over the DownloadLinks, state is the FinalLinkState
+     */
+    @Override
+    public PackageControllerIndex<FilePackage, DownloadLink> getIndex() {
+        return index;
+    }
+
     @Override
     protected void _controllerPackageNodeStructureChanged(FilePackage pkg, QueuePriority priority) {
         eventSender.fireEvent(new DownloadControllerEventStructureRefresh(pkg));
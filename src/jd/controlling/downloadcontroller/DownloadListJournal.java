@@ -0,0 +1,435 @@
+package jd.controlling.downloadcontroller;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import jd.plugins.DownloadLink;
+import jd.plugins.DownloadLinkStorable;
+import jd.plugins.FilePackage;
+
+import org.appwork.storage.JSonStorage;
+import org.appwork.storage.TypeRef;
+import org.appwork.utils.logging2.LogSource;
+
+/**
+ * Append-only change journal that belongs to one downloadList*.zip snapshot.
+ *
+ * The journal remembers the package order and the children (UIDs) of every package as they were persisted last time. On
+ * {@link #append(List, Collection, Collection)} only the differences get written: changed package order, changed children order, new or
+ * changed packages and new or changed links. Each record is protected by a CRC32 so a torn write at the end (crash while appending) only
+ * loses the last incomplete batch, the snapshot itself is never modified.
+ *
+ * Record layout: int length, byte type, payload[length], long crc32(type+payload)
+ */
+public class DownloadListJournal {
+
+    private static final int                           MAGIC            = 0x4a444a31;
+    private static final byte                          RECORD_PACKAGE   = 1;
+    private static final byte                          RECORD_LINK      = 2;
+    private static final byte                          RECORD_CHILDREN  = 3;
+    private static final byte                          RECORD_PACKAGES  = 4;
+
+    private static final TypeRef<FilePackageStorable>  PACKAGE_TYPE_REF = new TypeRef<FilePackageStorable>() {
+                                                                        };
+    private static final TypeRef<DownloadLinkStorable> LINK_TYPE_REF    = new TypeRef<DownloadLinkStorable>() {
+                                                                        };
+
+    private final File                                 snapshot;
+    private final File                                 file;
+    private final long                                 created          = System.currentTimeMillis();
+    private final HashMap<Long, long[]>                persistedChildren;
+    private long[]                                     persistedPackages;
+    private RandomAccessFile                           raf              = null;
+    private FileChannel                                channel          = null;
+    private long                                       size             = 0;
+    private long                                       records          = 0;
+
+    public static File getJournalFile(final File snapshot) {
+        final String name = snapshot.getName().replaceFirst("(?i)\\.zip$", "");
+        return new File(snapshot.getParentFile(), name + ".journal");
+    }
+
+    /**
+     * @param snapshot
+     *            the snapshot this journal belongs to
+     * @param persistedPackages
+     *            UIDs of the packages in the order they were written to the snapshot
+     * @param persistedChildren
+     *            package UID -> UIDs of the children in the order they were written to the snapshot
+     */
+    public DownloadListJournal(final File snapshot, final long[] persistedPackages, final HashMap<Long, long[]> persistedChildren) {
+        this.snapshot = snapshot;
+        this.file = getJournalFile(snapshot);
+        this.persistedPackages = persistedPackages;
+        this.persistedChildren = persistedChildren;
+    }
+
+    public File getSnapshot() {
+        return snapshot;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Could not delete stale journal " + file);
+            }
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            final ByteBuffer header = ByteBuffer.allocate(4);
+            header.putInt(MAGIC);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            size = channel.position();
+        }
+        return channel;
+    }
+
+    /**
+     * appends all differences between the last persisted state and the given packages
+     *
+     * @param packages
+     *            current packages of the DownloadController
+     * @param dirtyPackages
+     *            packages with changed properties
+     * @param dirtyLinks
+     *            links with changed properties/progress
+     * @return number of written records
+     * @throws IOException
+     */
+    public int append(final List<FilePackage> packages, final Collection<FilePackage> dirtyPackages, final Collection<DownloadLink> dirtyLinks) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream(32768);
+        final DataOutputStream dos = new DataOutputStream(bos);
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(1024);
+        final HashMap<Long, long[]> newChildren = new HashMap<Long, long[]>();
+        final HashSet<DownloadLink> writtenLinks = new HashSet<DownloadLink>();
+        final HashSet<FilePackage> currentPackages = new HashSet<FilePackage>(packages);
+        int count = 0;
+        final long[] packageUIDs = new long[packages.size()];
+        int packageIndex = 0;
+        for (final FilePackage pkg : packages) {
+            final long packageUID = pkg.getUniqueID().getID();
+            packageUIDs[packageIndex++] = packageUID;
+            final long[] previousChildren = persistedChildren.get(packageUID);
+            if (previousChildren == null || dirtyPackages.contains(pkg)) {
+                payload.reset();
+                JSonStorage.getMapper().writeObject(payload, new FilePackageStorable(pkg, false));
+                writeRecord(dos, RECORD_PACKAGE, payload);
+                count++;
+            }
+            final boolean readL = pkg.getModifyLock().readLock();
+            try {
+                final List<DownloadLink> children = pkg.getChildren();
+                final long[] childrenUIDs = new long[children.size()];
+                int childIndex = 0;
+                for (final DownloadLink link : children) {
+                    childrenUIDs[childIndex++] = link.getUniqueID().getID();
+                }
+                if (!Arrays.equals(previousChildren, childrenUIDs)) {
+                    final long[] sortedPreviousChildren;
+                    if (previousChildren != null) {
+                        sortedPreviousChildren = previousChildren.clone();
+                        Arrays.sort(sortedPreviousChildren);
+                    } else {
+                        sortedPreviousChildren = new long[0];
+                    }
+                    for (final DownloadLink link : children) {
+                        if (Arrays.binarySearch(sortedPreviousChildren, link.getUniqueID().getID()) < 0 && writtenLinks.add(link)) {
+                            /* new/moved link */
+                            payload.reset();
+                            JSonStorage.getMapper().writeObject(payload, new DownloadLinkStorable(link));
+                            writeRecord(dos, RECORD_LINK, payload);
+                            count++;
+                        }
+                    }
+                    payload.reset();
+                    final DataOutputStream childrenPayload = new DataOutputStream(payload);
+                    childrenPayload.writeLong(packageUID);
+                    writeUIDs(childrenPayload, childrenUIDs);
+                    writeRecord(dos, RECORD_CHILDREN, payload);
+                    count++;
+                    newChildren.put(packageUID, childrenUIDs);
+                }
+            } finally {
+                pkg.getModifyLock().readUnlock(readL);
+            }
+        }
+        for (final DownloadLink link : dirtyLinks) {
+            if (currentPackages.contains(link.getParentNode()) && writtenLinks.add(link)) {
+                payload.reset();
+                JSonStorage.getMapper().writeObject(payload, new DownloadLinkStorable(link));
+                writeRecord(dos, RECORD_LINK, payload);
+                count++;
+            }
+        }
+        if (!Arrays.equals(persistedPackages, packageUIDs)) {
+            payload.reset();
+            writeUIDs(new DataOutputStream(payload), packageUIDs);
+            writeRecord(dos, RECORD_PACKAGES, payload);
+            count++;
+        }
+        if (count > 0) {
+            dos.flush();
+            final FileChannel channel = getChannel();
+            final ByteBuffer buffer = ByteBuffer.wrap(bos.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            size = channel.position();
+            records += count;
+            /* only update the persisted state after the records are on disk */
+            if (!Arrays.equals(persistedPackages, packageUIDs)) {
+                final HashSet<Long> removed = new HashSet<Long>();
+                for (final long uid : persistedPackages) {
+                    removed.add(uid);
+                }
+                for (final long uid : packageUIDs) {
+                    removed.remove(uid);
+                }
+                for (final Long uid : removed) {
+                    persistedChildren.remove(uid);
+                }
+                persistedPackages = packageUIDs;
+            }
+            persistedChildren.putAll(newChildren);
+        }
+        return count;
+    }
+
+    private void writeUIDs(final DataOutputStream dos, final long[] uids) throws IOException {
+        dos.writeInt(uids.length);
+        for (final long uid : uids) {
+            dos.writeLong(uid);
+        }
+        dos.flush();
+    }
+
+    private void writeRecord(final DataOutputStream dos, final byte type, final ByteArrayOutputStream payload) throws IOException {
+        final byte[] data = payload.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+        dos.writeInt(data.length);
+        dos.writeByte(type);
+        dos.write(data);
+        dos.writeLong(crc.getValue());
+    }
+
+    public void close() {
+        try {
+            if (raf != null) {
+                raf.close();
+            }
+        } catch (final IOException ignore) {
+        } finally {
+            raf = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * applies the journal of the given snapshot to the already loaded packages of the snapshot.
+     *
+     * @return the resulting packages, the given list if there is no journal
+     */
+    public static LinkedList<FilePackage> replay(final File snapshot, final LinkedList<FilePackage> packages, final LogSource logger) throws IOException {
+        final File file = getJournalFile(snapshot);
+        if (!file.isFile() || file.length() <= 4) {
+            return packages;
+        }
+        final LinkedHashMap<Long, FilePackage> packageMap = new LinkedHashMap<Long, FilePackage>();
+        final HashMap<Long, DownloadLink> linkMap = new HashMap<Long, DownloadLink>();
+        final HashMap<Long, long[]> childrenMap = new HashMap<Long, long[]>();
+        for (final FilePackage pkg : packages) {
+            final long packageUID = pkg.getUniqueID().getID();
+            packageMap.put(packageUID, pkg);
+            final List<DownloadLink> children = pkg.getChildren();
+            final long[] childrenUIDs = new long[children.size()];
+            int childIndex = 0;
+            for (final DownloadLink link : children) {
+                final long linkUID = link.getUniqueID().getID();
+                childrenUIDs[childIndex++] = linkUID;
+                linkMap.put(linkUID, link);
+            }
+            childrenMap.put(packageUID, childrenUIDs);
+        }
+        long[] packageOrder = null;
+        int records = 0;
+        final DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 32768));
+        try {
+            if (dis.readInt() != MAGIC) {
+                throw new IOException("Invalid journal header:" + file);
+            }
+            while (true) {
+                final int length;
+                try {
+                    length = dis.readInt();
+                } catch (final EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > 64 * 1024 * 1024) {
+                    logger.severe("Journal " + file + " has invalid record length " + length + " after " + records + " records");
+                    break;
+                }
+                final byte[] data = new byte[length];
+                final byte type;
+                final long crcValue;
+                try {
+                    type = dis.readByte();
+                    dis.readFully(data);
+                    crcValue = dis.readLong();
+                } catch (final EOFException e) {
+                    logger.info("Journal " + file + " ends with incomplete record after " + records + " records");
+                    break;
+                }
+                final CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(data);
+                if (crc.getValue() != crcValue) {
+                    logger.severe("Journal " + file + " has corrupt record after " + records + " records");
+                    break;
+                }
+                records++;
+                switch (type) {
+                case RECORD_PACKAGE: {
+                    final FilePackageStorable storable = JSonStorage.getMapper().inputStreamToObject(new ByteArrayInputStream(data), PACKAGE_TYPE_REF);
+                    final FilePackage pkg = storable._getFilePackage();
+                    final long packageUID = pkg.getUniqueID().getID();
+                    final FilePackage existing = packageMap.put(packageUID, pkg);
+                    if (existing == null && !childrenMap.containsKey(packageUID)) {
+                        childrenMap.put(packageUID, new long[0]);
+                    }
+                    break;
+                }
+                case RECORD_LINK: {
+                    final DownloadLinkStorable storable = JSonStorage.getMapper().inputStreamToObject(new ByteArrayInputStream(data), LINK_TYPE_REF);
+                    final DownloadLink link = storable._getDownloadLink();
+                    linkMap.put(link.getUniqueID().getID(), link);
+                    break;
+                }
+                case RECORD_CHILDREN: {
+                    final DataInputStream payload = new DataInputStream(new ByteArrayInputStream(data));
+                    final long packageUID = payload.readLong();
+                    childrenMap.put(packageUID, readUIDs(payload));
+                    break;
+                }
+                case RECORD_PACKAGES: {
+                    packageOrder = readUIDs(new DataInputStream(new ByteArrayInputStream(data)));
+                    break;
+                }
+                default:
+                    logger.severe("Journal " + file + " has unknown record type " + type);
+                    break;
+                }
+            }
+        } finally {
+            dis.close();
+        }
+        if (packageOrder == null) {
+            packageOrder = new long[packageMap.size()];
+            int index = 0;
+            for (final Long packageUID : packageMap.keySet()) {
+                packageOrder[index++] = packageUID;
+            }
+        }
+        final LinkedList<FilePackage> ret = new LinkedList<FilePackage>();
+        final Set<Long> usedLinks = new HashSet<Long>();
+        for (final long packageUID : packageOrder) {
+            final FilePackage pkg = packageMap.get(packageUID);
+            final long[] childrenUIDs = childrenMap.get(packageUID);
+            if (pkg == null || childrenUIDs == null) {
+                continue;
+            }
+            final List<DownloadLink> children = new ArrayList<DownloadLink>(childrenUIDs.length);
+            for (final long linkUID : childrenUIDs) {
+                final DownloadLink link = linkMap.get(linkUID);
+                if (link != null && usedLinks.add(linkUID)) {
+                    children.add(link);
+                }
+            }
+            pkg.getChildren().clear();
+            for (final DownloadLink link : children) {
+                pkg.getChildren().add(link);
+                link.setParentNode(pkg);
+            }
+            ret.add(pkg);
+        }
+        logger.info("Replayed " + records + " journal records of " + file);
+        return ret;
+    }
+
+    private static long[] readUIDs(final DataInputStream dis) throws IOException {
+        final int count = dis.readInt();
+        final long[] ret = new long[count];
+        for (int index = 0; index < count; index++) {
+            ret[index] = dis.readLong();
+        }
+        return ret;
+    }
+
+    /**
+     * collects the persisted state while a snapshot is written
+     */
+    public static class SnapshotState {
+        private final List<Long>            packages = new ArrayList<Long>();
+        private final HashMap<Long, long[]> children = new HashMap<Long, long[]>();
+
+        public void add(final FilePackage pkg, final List<DownloadLink> links) {
+            final long packageUID = pkg.getUniqueID().getID();
+            final long[] childrenUIDs = new long[links.size()];
+            int index = 0;
+            for (final DownloadLink link : links) {
+                childrenUIDs[index++] = link.getUniqueID().getID();
+            }
+            packages.add(packageUID);
+            children.put(packageUID, childrenUIDs);
+        }
+
+        public DownloadListJournal createJournal(final File snapshot) {
+            final long[] packageUIDs = new long[packages.size()];
+            int index = 0;
+            for (final Long packageUID : packages) {
+                packageUIDs[index++] = packageUID;
+            }
+            return new DownloadListJournal(snapshot, packageUIDs, children);
+        }
+    }
+}
@@ -2,49 +2,39 @@ package jd.controlling.downloadcontroller;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import jd.controlling.downloadcontroller.BandwidthBucket.Level;
+import jd.plugins.DownloadLink;
+import jd.plugins.FilePackage;
+
 import org.appwork.utils.NullsafeAtomicReference;
 import org.appwork.utils.net.throttledconnection.ThrottledConnection;
 import org.appwork.utils.speedmeter.AverageSpeedMeter;
 import org.appwork.utils.speedmeter.SpeedMeterInterface;
-import org.jdownloader.logging.LogController;
+import org.jdownloader.settings.staticreferences.CFG_GENERAL;
 
+/**
+ * meters and limits the bandwidth of all downloads. the connections are organized in a tree of {@link BandwidthBucket}s (global -> host ->
+ * package -> link -> connection), several times per second the watchdog meters every bucket and splits the global limit max-min fair
+ * through the tree, respecting the caps of hosts, packages and links. bandwidth that a connection does not use is given to the others in
+ * the next round
+ */
 public class DownloadSpeedManager {
 
-    private static class ManagedThrottledConnectionHelper {
-
-        protected final ManagedThrottledConnectionHandler manager;
-
-        private ManagedThrottledConnectionHelper(ManagedThrottledConnectionHandler manager) {
-            this.manager = manager;
-        }
-
-        protected final HashMap<ThrottledConnection, ThrottledConnectionHelp> connections   = new HashMap<ThrottledConnection, DownloadSpeedManager.ThrottledConnectionHelp>();
-        protected final AtomicLong                                            lastTraffic   = new AtomicLong(0l);
-        protected final AtomicLong                                            lastTimeStamp = new AtomicLong(0l);
-    }
-
-    private static class ThrottledConnectionHelp {
-        protected final ThrottledConnection connection;
-
-        private ThrottledConnectionHelp(ThrottledConnection connection) {
-            this.connection = connection;
-        }
-
-        // protected long lastLimit = 0;
-        protected int              currentLimit  = 0;
-        // protected long lastSpeed = 0;
-        protected final AtomicLong lastTraffic   = new AtomicLong(0l);
-        protected final AtomicLong lastTimeStamp = new AtomicLong(0l);
-    }
+    private static final String                                           UNKNOWN_HOST       = "unknown";
 
     private final CopyOnWriteArrayList<ManagedThrottledConnectionHandler> connectionHandlers = new CopyOnWriteArrayList<ManagedThrottledConnectionHandler>();
     private final CopyOnWriteArrayList<ManagedThrottledConnectionHandler> removedHandlers    = new CopyOnWriteArrayList<ManagedThrottledConnectionHandler>();
 
     private NullsafeAtomicReference<Thread>                               watchDogThread     = new NullsafeAtomicReference<Thread>(null);
+    /**
+     * interval of the speedMeter in ms
+     */
     protected final int                                                   updateSpeed        = 2000;
     /**
      * download speed in bytes
@@ -58,6 +48,7 @@ public class DownloadSpeedManager {
     protected final AtomicInteger                                         connections        = new AtomicInteger(0);
 
     protected final AtomicInteger                                         limit              = new AtomicInteger(0);
+    private volatile BandwidthBucket                                      root               = new BandwidthBucket(Level.GLOBAL, null, null);
 
     public void addConnectionHandler(ManagedThrottledConnectionHandler handler) {
         if (handler != null && connectionHandlers.addIfAbsent(handler)) {
@@ -90,10 +81,14 @@ public class DownloadSpeedManager {
                         this.setName("DownloadSpeedManager");
                         /* reset SpeedMeter */
                         speedMeter.resetSpeedMeter();
-                        final HashMap<ManagedThrottledConnectionHandler, ManagedThrottledConnectionHelper> speedAssignHelpMap = new HashMap<ManagedThrottledConnectionHandler, ManagedThrottledConnectionHelper>();
-                        java.util.List<ManagedThrottledConnectionHandler> removedHandlers = new ArrayList<ManagedThrottledConnectionHandler>();
-                        java.util.List<ThrottledConnectionHelp> currentHelpers = new ArrayList<ThrottledConnectionHelp>();
-
+                        final BandwidthBucket root = new BandwidthBucket(Level.GLOBAL, null, null);
+                        DownloadSpeedManager.this.root = root;
+                        final java.util.List<ManagedThrottledConnectionHandler> removedHandlers = new ArrayList<ManagedThrottledConnectionHandler>();
+                        final HashMap<ManagedThrottledConnectionHandler, Long> handlerTraffic = new HashMap<ManagedThrottledConnectionHandler, Long>();
+                        long round = 0;
+                        long lastTimeStamp = System.currentTimeMillis();
+                        long meterTraffic = 0;
+                        long meterTime = 0;
                         while (true) {
                             synchronized (watchDogThread) {
                                 if (connectionHandlers.size() == 0 && DownloadSpeedManager.this.removedHandlers.size() == 0) {
@@ -101,135 +96,66 @@ public class DownloadSpeedManager {
                                         bandwidth.set(0);
                                         connections.set(0);
                                         speedMeter.resetSpeedMeter();
+                                        DownloadSpeedManager.this.root = new BandwidthBucket(Level.GLOBAL, null, null);
                                     }
                                     break;
                                 }
                             }
-                            final long sleepTime = Math.max(1000, updateSpeed);
                             try {
-                                Thread.sleep(sleepTime);
+                                Thread.sleep(Math.max(50, CFG_GENERAL.CFG.getDownloadSpeedManagerInterval()));
                             } catch (final InterruptedException e) {
-                                 org.appwork.utils.logging2.extmanager.LoggerFactory.getDefaultLogger().log(e);
+                                org.appwork.utils.logging2.extmanager.LoggerFactory.getDefaultLogger().log(e);
                             }
-
-                            int newBandwidth = 0;
+                            final long now = System.currentTimeMillis();
+                            final long duration = Math.max(1, now - lastTimeStamp);
+                            lastTimeStamp = now;
+                            round++;
+                            root.touch(round);
+                            root.setCap(limit.get());
+                            final HashMap<String, Integer> hostLimits = CFG_GENERAL.CFG.getDownloadSpeedLimitByHostMap();
                             final long lastRoundTraffic = traffic.get();
-                            currentHelpers.clear();
                             removedHandlers.clear();
-                            /* fetch live stats from all connections */
+                            /* fetch final stats of removed handlers */
                             for (final ManagedThrottledConnectionHandler manager : DownloadSpeedManager.this.removedHandlers) {
                                 removedHandlers.add(manager);
-                                ManagedThrottledConnectionHelper managerHelper = speedAssignHelpMap.remove(manager);
-                                long trafficDifference = 0;
-                                long bandWidth = 0;
-                                if (managerHelper != null) {
-                                    long latestTimeStamp = managerHelper.lastTimeStamp.getAndSet(System.currentTimeMillis());
-                                    long latestTraffic = managerHelper.lastTraffic.getAndSet(manager.getTraffic());
-                                    trafficDifference = Math.max(0, managerHelper.lastTraffic.get() - latestTraffic);
-                                    long timeDifference = Math.max(0, managerHelper.lastTimeStamp.get() - latestTimeStamp);
-                                    if (timeDifference > 0) {
-                                        bandWidth = (int) (trafficDifference * 1000 / timeDifference);
-                                    }
-                                } else {
-                                    trafficDifference = manager.getTraffic();
-                                    bandWidth = trafficDifference * 1000 / sleepTime;
-                                }
-                                newBandwidth += bandWidth;
-                                traffic.addAndGet(trafficDifference);
+                                final BandwidthBucket linkBucket = getLinkBucket(root, manager, hostLimits, round);
+                                measure(linkBucket, handlerTraffic.remove(manager), manager.getTraffic());
                             }
                             DownloadSpeedManager.this.removedHandlers.removeAll(removedHandlers);
-
+                            int numberOfConnections = 0;
                             for (final ManagedThrottledConnectionHandler manager : connectionHandlers) {
-                                /* manager handling */
-                                ManagedThrottledConnectionHelper managerHelper = speedAssignHelpMap.get(manager);
-                                if (managerHelper == null) {
-                                    managerHelper = new ManagedThrottledConnectionHelper(manager);
-                                    speedAssignHelpMap.put(manager, managerHelper);
-                                    managerHelper.lastTimeStamp.set(System.currentTimeMillis());
-                                    managerHelper.lastTraffic.set(manager.getTraffic());
-                                } else {
-                                    long latestTimeStamp = managerHelper.lastTimeStamp.getAndSet(System.currentTimeMillis());
-                                    long latestTraffic = managerHelper.lastTraffic.getAndSet(manager.getTraffic());
-                                    long trafficDifference = Math.max(0, managerHelper.lastTraffic.get() - latestTraffic);
-                                    long timeDifference = Math.max(0, managerHelper.lastTimeStamp.get() - latestTimeStamp);
-                                    if (timeDifference > 0) {
-                                        newBandwidth += (int) (trafficDifference * 1000 / timeDifference);
+                                final BandwidthBucket linkBucket = getLinkBucket(root, manager, hostLimits, round);
+                                final long managerTraffic = manager.getTraffic();
+                                measure(linkBucket, handlerTraffic.put(manager, managerTraffic), managerTraffic);
+                                for (final ThrottledConnection connection : manager.getConnections()) {
+                                    final BandwidthBucket connectionBucket = linkBucket.getOrCreateChild(Level.CONNECTION, connection, round);
+                                    connectionBucket.setPriority(connection == manager.getPriorityConnection());
+                                    final long transfered = connection.transfered();
+                                    if (connectionBucket.lastTransfered >= 0) {
+                                        connectionBucket.addLocalTraffic(Math.max(0, transfered - connectionBucket.lastTransfered));
                                     }
-                                    traffic.addAndGet(trafficDifference);
-                                }
-                                /* connection handling */
-                                for (ThrottledConnection connection : manager.getConnections()) {
-                                    ThrottledConnectionHelp connectionHelper = managerHelper.connections.get(connection);
-                                    if (connectionHelper == null) {
-                                        connectionHelper = new ThrottledConnectionHelp(connection);
-                                        connectionHelper.lastTimeStamp.set(System.currentTimeMillis());
-                                        connectionHelper.lastTraffic.set(connection.transfered());
-                                    } else {
-                                        connectionHelper.lastTimeStamp.getAndSet(System.currentTimeMillis());
-                                        connectionHelper.lastTraffic.getAndSet(connection.transfered());
-                                        // long trafficDifference = Math.max(0, connectionHelper.lastTraffic.get() - latestTraffic);
-                                        // long timeDifference = Math.max(0, connectionHelper.lastTimeStamp.get() - latestTimeStamp);
-                                        // connectionHelper.lastSpeed = (int) (trafficDifference * 1000 / timeDifference);
-                                    }
-                                    currentHelpers.add(connectionHelper);
+                                    connectionBucket.lastTransfered = transfered;
+                                    numberOfConnections++;
                                 }
                             }
-                            bandwidth.set(newBandwidth);
-                            speedMeter.putSpeedMeter(Math.max(0, traffic.get() - lastRoundTraffic), sleepTime);
-                            connections.set(currentHelpers.size());
-                            int left = currentHelpers.size();
-                            final int currentLimit = limit.get();
-                            int limitLeft = currentLimit;
-                            // int step = 1024 * 50;
-                            /* recalculate new speed limits for each connection */
-                            for (final ThrottledConnectionHelp helper : currentHelpers) {
-                                /* calculate new speed limit for this connection */
-                                int newLimit = limitLeft / left;
-                                // int lastLimit = helper.currentLimit;
-                                if (currentLimit > 0) {
-                                    // /*
-                                    // * only calculate this stuff when we have an
-                                    // * active speed limit
-                                    // */
-                                    // if (helper.lastSpeed <= newLimit) {
-                                    // /* last round was slower than minimum */
-                                    // System.out.println("last round was slower");
-                                    // final int limit2 = Math.min((int)
-                                    // helper.lastLimit, newLimit);
-                                    // if (helper.lastSpeed + step <= limit2) {
-                                    // System.out.println("last round was slower: we can decrease minimum");
-                                    // newLimit = limit2 - step;
-                                    // } else {
-                                    // if (helper.lastSpeed > newLimit) {
-                                    // System.out.println("speed is fine, no need to increase");
-                                    // } else {
-                                    // System.out.println("last round was slower: increase maybe it can be faster");
-                                    // newLimit = limit2 + step;
-                                    // }
-                                    // }
-                                    // } else {
-                                    // newLimit = Math.max((int) helper.lastLimit,
-                                    // newLimit);
-                                    // }
-                                    helper.currentLimit = Math.max(10, newLimit);
-                                } else {
-                                    helper.currentLimit = 0;
-                                }
-                                // helper.lastLimit = lastLimit;
-                                /*
-                                 * this speed limit can be assigned to rest of connections
-                                 */
-                                left--;
-                                // System.out.println(helper.currentLimit);
-                                limitLeft -= helper.currentLimit;
-                            }
-                            /* assign new speed limits to each connection */
-                            for (final ThrottledConnectionHelp helper : currentHelpers) {
-                                helper.connection.setLimit(helper.currentLimit);
+                            /* update meters, remove finished buckets */
+                            root.finishRound(round, duration);
+                            splitPackageCaps(root);
+                            bandwidth.set(root.getSpeed());
+                            connections.set(numberOfConnections);
+                            meterTraffic += Math.max(0, traffic.get() - lastRoundTraffic);
+                            meterTime += duration;
+                            if (meterTime >= updateSpeed) {
+                                speedMeter.putSpeedMeter(meterTraffic, meterTime);
+                                meterTraffic = 0;
+                                meterTime = 0;
                             }
+                            /* redistribute the bandwidth */
+                            root.updateDemand(duration);
+                            root.allocate(0);
                         }
                     } catch (Throwable e) {
-                         org.appwork.utils.logging2.extmanager.LoggerFactory.getDefaultLogger().log(e);
+                        org.appwork.utils.logging2.extmanager.LoggerFactory.getDefaultLogger().log(e);
                     }
                 }
             };
@@ -239,6 +165,121 @@ public class DownloadSpeedManager {
 
     }
 
+    /**
+     * adds the traffic since last round to the bucket of the link and its parents
+     */
+    private void measure(final BandwidthBucket linkBucket, final Long lastTransfered, final long transfered) {
+        /* first round of the handler counts everything, the handler may have been added right after the last round */
+        final long trafficDifference = Math.max(0, transfered - (lastTransfered != null ? lastTransfered.longValue() : 0));
+        linkBucket.addTraffic(trafficDifference);
+        traffic.addAndGet(trafficDifference);
+    }
+
+    private BandwidthBucket getLinkBucket(final BandwidthBucket root, final ManagedThrottledConnectionHandler manager, final Map<String, Integer> hostLimits, final long round) {
+        final DownloadLink link = manager.getDownloadLink();
+        final String host;
+        final FilePackage filePackage;
+        if (link != null) {
+            host = link.getHost() != null ? link.getHost() : UNKNOWN_HOST;
+            filePackage = link.getFilePackage();
+        } else {
+            host = UNKNOWN_HOST;
+            filePackage = FilePackage.getDefaultFilePackage();
+        }
+        final BandwidthBucket hostBucket = root.getOrCreateChild(Level.HOST, host, round);
+        final Integer hostLimit = hostLimits != null ? hostLimits.get(host) : null;
+        hostBucket.setCap(hostLimit != null ? hostLimit.intValue() : 0);
+        final BandwidthBucket packageBucket = hostBucket.getOrCreateChild(Level.PACKAGE, filePackage, round);
+        packageBucket.setCap(filePackage != null ? filePackage.getCustomSpeedLimit() : 0);
+        final BandwidthBucket linkBucket = packageBucket.getOrCreateChild(Level.LINK, link != null ? link : manager, round);
+        linkBucket.setCap(manager.getLimit());
+        return linkBucket;
+    }
+
+    /**
+     * a package with running downloads of several hosts has a bucket below each host, they share the cap of the package evenly
+     */
+    private void splitPackageCaps(final BandwidthBucket root) {
+        final HashMap<FilePackage, List<BandwidthBucket>> cappedPackages = new HashMap<FilePackage, List<BandwidthBucket>>();
+        for (final BandwidthBucket hostBucket : root.getChildren()) {
+            for (final BandwidthBucket packageBucket : hostBucket.getChildren()) {
+                if (packageBucket.getCap() > 0) {
+                    final FilePackage filePackage = (FilePackage) packageBucket.getKey();
+                    List<BandwidthBucket> buckets = cappedPackages.get(filePackage);
+                    if (buckets == null) {
+                        buckets = new ArrayList<BandwidthBucket>();
+                        cappedPackages.put(filePackage, buckets);
+                    }
+                    buckets.add(packageBucket);
+                }
+            }
+        }
+        for (final Map.Entry<FilePackage, List<BandwidthBucket>> entry : cappedPackages.entrySet()) {
+            final List<BandwidthBucket> buckets = entry.getValue();
+            if (buckets.size() > 1) {
+                final int cap = Math.max(1, entry.getKey().getCustomSpeedLimit() / buckets.size());
+                for (final BandwidthBucket packageBucket : buckets) {
+                    packageBucket.setCap(cap);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the bucket of all downloads, its children are the buckets of the hosts
+     */
+    public BandwidthBucket getBucket() {
+        return root;
+    }
+
+    /**
+     * @return the bucket of the given host or null if there is no download of this host
+     */
+    public BandwidthBucket getBucket(final String host) {
+        return root.getChild(host);
+    }
+
+    /**
+     * @return the bucket of the given link or null if the link is not downloading
+     */
+    public BandwidthBucket getBucket(final DownloadLink link) {
+        if (link == null) {
+            return null;
+        }
+        final BandwidthBucket hostBucket = root.getChild(link.getHost() != null ? link.getHost() : UNKNOWN_HOST);
+        if (hostBucket == null) {
+            return null;
+        }
+        final BandwidthBucket packageBucket = hostBucket.getChild(link.getFilePackage());
+        return packageBucket != null ? packageBucket.getChild(link) : null;
+    }
+
+    /**
+     * @return current download speed of all hosts with running downloads in bytes/s
+     */
+    public HashMap<String, Integer> getHostSpeeds() {
+        final HashMap<String, Integer> ret = new HashMap<String, Integer>();
+        for (final BandwidthBucket hostBucket : root.getChildren()) {
+            ret.put((String) hostBucket.getKey(), hostBucket.getSpeed());
+        }
+        return ret;
+    }
+
+    /**
+     * @return current download speed of the given package in bytes/s, -1 if the package has no running downloads
+     */
+    public int getSpeed(final FilePackage filePackage) {
+        int ret = -1;
+        for (final BandwidthBucket hostBucket : root.getChildren()) {
+            /* a package may have running downloads of several hosts */
+            final BandwidthBucket packageBucket = hostBucket.getChild(filePackage);
+            if (packageBucket != null) {
+                ret = Math.max(0, ret) + packageBucket.getSpeed();
+            }
+        }
+        return ret;
+    }
+
     public void setLimit(final int newLimit) {
         limit.set(Math.max(0, newLimit));
     }
@@ -247,6 +288,26 @@ public class DownloadSpeedManager {
         return limit.get();
     }
 
+    /**
+     * @return true if the connections of the given handler are limited by the global limit or a cap of their host or package
+     */
+    protected boolean isLimited(final ManagedThrottledConnectionHandler handler) {
+        if (getLimit() > 0) {
+            return true;
+        }
+        final DownloadLink link = handler.getDownloadLink();
+        if (link == null) {
+            return false;
+        }
+        final HashMap<String, Integer> hostLimits = CFG_GENERAL.CFG.getDownloadSpeedLimitByHostMap();
+        final Integer hostLimit = hostLimits != null && link.getHost() != null ? hostLimits.get(link.getHost()) : null;
+        if (hostLimit != null && hostLimit.intValue() > 0) {
+            return true;
+        }
+        final FilePackage filePackage = link.getFilePackage();
+        return filePackage != null && filePackage.getCustomSpeedLimit() > 0;
+    }
+
     /**
      * @return the current download speed in bytes
      */
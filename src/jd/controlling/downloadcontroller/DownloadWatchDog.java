@@ -1879,18 +1879,7 @@ public class DownloadWatchDog implements DownloadControllerListener, StateMachin
     }
 
     public long getDownloadSpeedbyFilePackage(FilePackage pkg) {
-        long speed = -1;
-        for (SingleDownloadController con : getSession().getControllers()) {
-            if (con.getDownloadLink().getFilePackage() != pkg) {
-                continue;
-            }
-            DownloadInterface dli = con.getDownloadInstance();
-            if (dli == null) {
-                continue;
-            }
-            speed += dli.getManagedConnetionHandler().getSpeed();
-        }
-        return speed;
+        return dsm.getSpeed(pkg);
     }
 
     public int getDownloadsbyFilePackage(FilePackage pkg) {
@@ -0,0 +1,302 @@
+package jd.controlling.downloadcontroller;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jd.plugins.PluginProgress;
+import jd.plugins.download.Downloadable;
+import jd.plugins.download.HashInfo;
+import jd.plugins.download.HashResult;
+import jd.plugins.download.IncrementalHash;
+
+import org.appwork.storage.config.JsonConfig;
+import org.appwork.utils.formatter.SizeFormatter;
+import org.appwork.utils.logging2.LogInterface;
+import org.jdownloader.plugins.HashCheckPluginProgress;
+import org.jdownloader.settings.GeneralSettings;
+
+/**
+ * limits the number of concurrent hash checks, globally and per disk(mount root of the file), and hashes files with large buffered
+ * FileChannel reads.
+ */
+public class HashCheckManager {
+
+    private static final HashCheckManager INSTANCE    = new HashCheckManager();
+    /*
+     * pooled heap buffers on purpose: IncrementalHash consumes byte[](CRC32 has no ByteBuffer update in java 6 and MessageDigest copies
+     * direct buffers into a temporary array), so direct buffers only add a copy. mapped files stay locked on windows until gc and would
+     * block the rename/move of the file after the hash check.
+     */
+    private static final int              BUFFER_SIZE = 1024 * 1024;
+    private static final int              MAX_BUFFERS = 8;
+
+    public static HashCheckManager getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Permits extends Semaphore {
+        private static final long serialVersionUID = 6434536183457437021L;
+        private int               size             = 0;
+
+        private Permits() {
+            super(0, true);
+        }
+
+        private synchronized Permits resize(int newSize) {
+            newSize = Math.max(1, newSize);
+            if (newSize > size) {
+                release(newSize - size);
+            } else if (newSize < size) {
+                /* permits held by running hash checks are given back later */
+                reducePermits(size - newSize);
+            }
+            size = newSize;
+            return this;
+        }
+    }
+
+    private final GeneralSettings                     config;
+    private final Permits                             globalPermits = new Permits();
+    private final ConcurrentHashMap<String, Permits>  diskPermits   = new ConcurrentHashMap<String, Permits>();
+    private final ConcurrentLinkedQueue<ByteBuffer>   buffers       = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger                       waiting       = new AtomicInteger(0);
+    private final AtomicInteger                       running       = new AtomicInteger(0);
+    private final AtomicLong                          hashedFiles   = new AtomicLong(0);
+    private final AtomicLong                          hashedBytes   = new AtomicLong(0);
+    private final AtomicLong                          hashDuration  = new AtomicLong(0);
+
+    private HashCheckManager() {
+        config = JsonConfig.create(GeneralSettings.class);
+    }
+
+    private Permits getDiskPermits(final File file) {
+        String root = null;
+        try {
+            root = DiskSpaceManager.getRootFor(file);
+        } catch (final Throwable e) {
+        }
+        if (root == null) {
+            root = "";
+        }
+        Permits ret = diskPermits.get(root);
+        if (ret == null) {
+            ret = new Permits();
+            final Permits existing = diskPermits.putIfAbsent(root, ret);
+            if (existing != null) {
+                ret = existing;
+            }
+        }
+        return ret.resize(config.getMaxParallelHashChecksPerDisk());
+    }
+
+    /**
+     * waits for a free hash check slot and returns the HashResult of the given file, null if hash check is disabled
+     */
+    public HashResult getHashResult(final Downloadable downloadable, final File file, final LogInterface logger) throws InterruptedException {
+        return getHashResult(downloadable, file, logger, null);
+    }
+
+    /**
+     * same as {@link #getHashResult(Downloadable, File, LogInterface)} but continues the given incremental hash of the download, only the
+     * not yet hashed tail of the file is read again
+     */
+    public HashResult getHashResult(final Downloadable downloadable, final File file, final LogInterface logger, final IncrementalHash incrementalHash) throws InterruptedException {
+        if (!config.isHashCheckEnabled() || !downloadable.isHashCheckEnabled()) {
+            return null;
+        }
+        HashInfo hashInfo = null;
+        final long fileSize = file.length();
+        if (incrementalHash != null && incrementalHash.isValid() && incrementalHash.getPosition() <= fileSize) {
+            hashInfo = downloadable.getHashInfo();
+            if (hashInfo != null && hashInfo.getType() == incrementalHash.getType()) {
+                if (incrementalHash.getPosition() == fileSize) {
+                    /* all bytes got hashed while downloading */
+                    final HashResult hashResult = new HashResult(hashInfo, incrementalHash.finish());
+                    if (logger != null) {
+                        logger.info(hashResult.toString() + "|Size:" + SizeFormatter.formatBytes(fileSize) + "|Inline");
+                    }
+                    return hashResult;
+                }
+            } else {
+                hashInfo = null;
+            }
+        }
+        globalPermits.resize(config.getMaxParallelHashChecks());
+        final Semaphore disk = getDiskPermits(file);
+        final PluginProgress waitProgress = new HashCheckPluginProgress(null, Color.YELLOW.darker().darker(), null);
+        boolean diskAcquired = false;
+        boolean globalAcquired = false;
+        waiting.incrementAndGet();
+        try {
+            diskAcquired = disk.tryAcquire();
+            globalAcquired = diskAcquired && globalPermits.tryAcquire();
+            if (!diskAcquired || !globalAcquired) {
+                downloadable.addPluginProgress(waitProgress);
+                try {
+                    if (!diskAcquired) {
+                        disk.acquire();
+                        diskAcquired = true;
+                    }
+                    globalPermits.acquire();
+                    globalAcquired = true;
+                } finally {
+                    downloadable.removePluginProgress(waitProgress);
+                }
+            }
+            waiting.decrementAndGet();
+            running.incrementAndGet();
+            try {
+                final long startTimeStamp = System.nanoTime();
+                final HashResult hashResult;
+                final long hashed;
+                if (hashInfo != null) {
+                    /* continue incremental hash with the tail of the file */
+                    hashed = fileSize - incrementalHash.getPosition();
+                    hashResult = getHashResult(downloadable, hashInfo, incrementalHash, file, logger);
+                } else {
+                    hashed = fileSize;
+                    hashResult = downloadable.getHashResult(downloadable.getHashInfo(), file);
+                }
+                if (hashResult != null && logger != null) {
+                    final long duration = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeStamp));
+                    logger.info(hashResult.toString() + "|Size:" + SizeFormatter.formatBytes(fileSize) + "|Read:" + SizeFormatter.formatBytes(hashed) + "|Duration:" + duration + "ms|Throughput:" + SizeFormatter.formatBytes((hashed * 1000) / duration) + "/s|Running:" + running.get() + "|Waiting:" + waiting.get());
+                }
+                return hashResult;
+            } finally {
+                running.decrementAndGet();
+            }
+        } finally {
+            if (!diskAcquired || !globalAcquired) {
+                waiting.decrementAndGet();
+            }
+            if (globalAcquired) {
+                globalPermits.release();
+            }
+            if (diskAcquired) {
+                disk.release();
+            }
+        }
+    }
+
+    private HashResult getHashResult(final Downloadable downloadable, final HashInfo hashInfo, final IncrementalHash incrementalHash, final File file, final LogInterface logger) {
+        final PluginProgress hashProgress = new HashCheckPluginProgress(file, Color.YELLOW.darker(), hashInfo.getType());
+        hashProgress.setProgressSource(downloadable);
+        try {
+            downloadable.addPluginProgress(hashProgress);
+            String hash = null;
+            try {
+                hash = hash(incrementalHash, file, hashProgress);
+            } catch (final Throwable e) {
+                if (logger != null) {
+                    logger.log(e);
+                }
+            }
+            return new HashResult(hashInfo, hash);
+        } finally {
+            downloadable.removePluginProgress(hashProgress);
+        }
+    }
+
+    /**
+     * hashes the given file and returns the hex encoded hash, null for HashInfo.TYPE.NONE
+     */
+    public String hash(final HashInfo.TYPE type, final File file, final PluginProgress progress) throws IOException {
+        final IncrementalHash incrementalHash = IncrementalHash.create(type);
+        if (incrementalHash == null) {
+            return null;
+        }
+        return hash(incrementalHash, file, progress);
+    }
+
+    /**
+     * continues the given incremental hash with the bytes of the file from {@link IncrementalHash#getPosition()} on and returns the hex
+     * encoded hash
+     */
+    public String hash(final IncrementalHash incrementalHash, final File file, final PluginProgress progress) throws IOException {
+        final long startTimeStamp = System.nanoTime();
+        final FileInputStream fis = new FileInputStream(file);
+        final ByteBuffer buffer = borrowBuffer();
+        long done = incrementalHash.getPosition();
+        final long start = done;
+        try {
+            final FileChannel channel = fis.getChannel();
+            channel.position(done);
+            final byte[] array = buffer.array();
+            int read = 0;
+            while (true) {
+                buffer.clear();
+                read = channel.read(buffer);
+                if (read == -1) {
+                    break;
+                } else if (read > 0) {
+                    incrementalHash.update(array, 0, read);
+                    done += read;
+                    if (progress != null) {
+                        progress.setCurrent(done);
+                    }
+                }
+            }
+        } finally {
+            try {
+                fis.close();
+            } finally {
+                returnBuffer(buffer);
+                hashedFiles.incrementAndGet();
+                hashedBytes.addAndGet(done - start);
+                hashDuration.addAndGet(System.nanoTime() - startTimeStamp);
+            }
+        }
+        return incrementalHash.finish();
+    }
+
+    private ByteBuffer borrowBuffer() {
+        final ByteBuffer ret = buffers.poll();
+        if (ret != null) {
+            return ret;
+        }
+        return ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void returnBuffer(final ByteBuffer buffer) {
+        if (buffers.size() < MAX_BUFFERS) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int getRunningHashChecks() {
+        return running.get();
+    }
+
+    public int getWaitingHashChecks() {
+        return waiting.get();
+    }
+
+    public long getHashedFiles() {
+        return hashedFiles.get();
+    }
+
+    public long getHashedBytes() {
+        return hashedBytes.get();
+    }
+
+    /**
+     * @return average throughput in bytes/s of a single hash check, concurrent checks on different disks add up
+     */
+    public long getThroughput() {
+        final long duration = TimeUnit.NANOSECONDS.toMillis(hashDuration.get());
+        if (duration <= 0) {
+            return 0;
+        }
+        return (hashedBytes.get() * 1000) / duration;
+    }
+}
@@ -13,23 +13,48 @@ import org.appwork.utils.speedmeter.SpeedMeterInterface;
 
 public class ManagedThrottledConnectionHandler implements ThrottledConnectionHandler {
 
-    private CopyOnWriteArrayList<ThrottledConnection> connections = new CopyOnWriteArrayList<ThrottledConnection>();
-    private AtomicInteger                             limit       = new AtomicInteger(0);
-    private AtomicLong                                traffic     = new AtomicLong(0l);
+    private CopyOnWriteArrayList<ThrottledConnection> connections        = new CopyOnWriteArrayList<ThrottledConnection>();
+    private AtomicInteger                             limit              = new AtomicInteger(0);
+    private AtomicLong                                traffic            = new AtomicLong(0l);
 
-    private DownloadSpeedManager                      managedBy   = null;
+    private DownloadSpeedManager                      managedBy          = null;
+    private volatile DownloadLink                     downloadLink       = null;
+    private volatile ThrottledConnection              priorityConnection = null;
 
     public ManagedThrottledConnectionHandler() {
     }
 
     @Deprecated
     public ManagedThrottledConnectionHandler(DownloadLink link) {
+        this.downloadLink = link;
+    }
+
+    /**
+     * @return the link of this handler, the DownloadSpeedManager uses its host and package for the bandwidth buckets
+     */
+    public DownloadLink getDownloadLink() {
+        return downloadLink;
+    }
+
+    public void setDownloadLink(DownloadLink downloadLink) {
+        this.downloadLink = downloadLink;
+    }
+
+    /**
+     * @return connection that is served first within the bandwidth of this handler, eg the chunk a stream is waiting for
+     */
+    public ThrottledConnection getPriorityConnection() {
+        return priorityConnection;
+    }
+
+    public void setPriorityConnection(ThrottledConnection priorityConnection) {
+        this.priorityConnection = priorityConnection;
     }
 
     public void addThrottledConnection(ThrottledConnection con) {
         if (connections.addIfAbsent(con)) {
             DownloadSpeedManager lmanagedBy = managedBy;
-            if (lmanagedBy != null && lmanagedBy.getLimit() > 0 || getLimit() > 0) con.setLimit(10);
+            if (lmanagedBy != null && lmanagedBy.isLimited(this) || getLimit() > 0) con.setLimit(10);
             con.setHandler(this);
         }
     }
@@ -60,6 +85,9 @@ public class ManagedThrottledConnectionHandler implements ThrottledConnectionHan
 
     public void removeThrottledConnection(ThrottledConnection con) {
         if (connections.remove(con)) {
+            if (priorityConnection == con) {
+                priorityConnection = null;
+            }
             traffic.addAndGet(con.transfered());
             con.setHandler(null);
         }
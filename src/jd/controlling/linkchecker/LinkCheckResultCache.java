@@ -0,0 +1,325 @@
+package jd.controlling.linkchecker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jd.plugins.DownloadLink;
+import jd.plugins.DownloadLink.AvailableStatus;
+import jd.plugins.PluginForHost;
+import jd.plugins.download.HashInfo;
+
+import org.appwork.shutdown.ShutdownController;
+import org.appwork.shutdown.ShutdownEvent;
+import org.appwork.shutdown.ShutdownRequest;
+import org.appwork.storage.JSonStorage;
+import org.appwork.storage.TypeRef;
+import org.appwork.storage.config.JsonConfig;
+import org.appwork.utils.Application;
+import org.appwork.utils.IO;
+import org.appwork.utils.StringUtils;
+import org.jdownloader.logging.LogController;
+import org.jdownloader.plugins.FinalLinkState;
+
+/**
+ * size bounded cache of linkcheck results(AvailableStatus, name, size and hash) by plugin and linkID. results are stored when the
+ * LinkChecker finished checking a link and expire after the ttl of the plugin, see
+ * {@link PluginForHost#getLinkCheckResultTTL(DownloadLink, AvailableStatus, long)}. online results are persisted to
+ * cfg/linkcheckresults.json on shutdown, offline results only live for a short time and are not persisted
+ */
+public class LinkCheckResultCache {
+    private static final LinkCheckResultCache INSTANCE = new LinkCheckResultCache();
+
+    public static LinkCheckResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /* key -> result in access order, guarded by itself */
+    private final LinkedHashMap<String, LinkCheckResultStorable> cache           = new LinkedHashMap<String, LinkCheckResultStorable>(16, 0.75f, true);
+    private final LinkCheckerConfig                              config;
+    private final AtomicLong                                     hits            = new AtomicLong(0);
+    private final AtomicLong                                     misses          = new AtomicLong(0);
+    private final AtomicLong                                     expired         = new AtomicLong(0);
+    private boolean                                              loaded          = false;
+    private boolean                                              changed         = false;
+    /* see logStatistics, guarded by cache */
+    private long                                                 loggedRequests  = 0;
+    private long                                                 loggedTimeStamp = 0;
+
+    private LinkCheckResultCache() {
+        config = JsonConfig.create(LinkCheckerConfig.class);
+        ShutdownController.getInstance().addShutdownEvent(new ShutdownEvent() {
+
+            @Override
+            public void onShutdown(ShutdownRequest shutdownRequest) {
+                save();
+            }
+
+            @Override
+            public String toString() {
+                return "ShutdownEvent: Save LinkCheckResultCache";
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return config.isResultCacheEnabled() && config.getResultCacheMaxSize() > 0;
+    }
+
+    private File getFile() {
+        return Application.getResource("cfg/linkcheckresults.json");
+    }
+
+    private String getKey(final DownloadLink link) {
+        final PluginForHost plugin = link.getDefaultPlugin();
+        if (plugin == null) {
+            return null;
+        }
+        final String linkID = link.getLinkID();
+        if (StringUtils.isEmpty(linkID)) {
+            return null;
+        }
+        return plugin.getHost() + "|" + linkID;
+    }
+
+    /**
+     * applies the cached result to the given link
+     *
+     * @return true if the link has been answered from cache, false if the link has to be checked
+     */
+    public boolean apply(final DownloadLink link) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final String key = getKey(link);
+        if (key == null) {
+            return false;
+        }
+        final LinkCheckResultStorable result;
+        synchronized (cache) {
+            load();
+            final LinkCheckResultStorable cached = cache.get(key);
+            if (cached != null && cached.getExpireTimeStamp() < System.currentTimeMillis()) {
+                /* stale entry, revalidate */
+                cache.remove(key);
+                changed = true;
+                expired.incrementAndGet();
+                result = null;
+            } else {
+                result = cached;
+            }
+        }
+        final AvailableStatus availableStatus = result == null ? null : getAvailableStatus(result);
+        if (availableStatus == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        if (result.getFinalFileName() != null) {
+            link.setFinalFileName(result.getFinalFileName());
+        } else if (result.getName() != null && link.getRawName() == null) {
+            link.setName(result.getName());
+        }
+        if (result.getVerifiedFileSize() >= 0) {
+            link.setVerifiedFileSize(result.getVerifiedFileSize());
+        } else if (result.getDownloadSize() >= 0) {
+            link.setDownloadSize(result.getDownloadSize());
+        }
+        if (result.getHashInfo() != null && link.getHashInfo() == null) {
+            final HashInfo hashInfo = HashInfo.importFromString(result.getHashInfo());
+            if (hashInfo != null) {
+                link.setHashInfo(hashInfo);
+            }
+        }
+        if (AvailableStatus.TRUE.equals(availableStatus) && FinalLinkState.OFFLINE.equals(link.getFinalLinkState())) {
+            link.setFinalLinkState(null);
+        }
+        link.setAvailableStatus(availableStatus);
+        return true;
+    }
+
+    private AvailableStatus getAvailableStatus(final LinkCheckResultStorable result) {
+        try {
+            return AvailableStatus.valueOf(result.getAvailableStatus());
+        } catch (final Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * stores the result of a finished linkcheck, only TRUE and FALSE results are cached
+     */
+    public void put(final DownloadLink link) {
+        if (!isEnabled()) {
+            return;
+        }
+        final AvailableStatus availableStatus = link.getAvailableStatus();
+        if (!AvailableStatus.TRUE.equals(availableStatus) && !AvailableStatus.FALSE.equals(availableStatus)) {
+            return;
+        }
+        final String key = getKey(link);
+        if (key == null) {
+            return;
+        }
+        final long defaultTTL = (AvailableStatus.FALSE.equals(availableStatus) ? config.getResultCacheOfflineTTL() : config.getResultCacheTTL()) * 60 * 1000l;
+        final long ttl = link.getDefaultPlugin().getLinkCheckResultTTL(link, availableStatus, defaultTTL);
+        if (ttl <= 0) {
+            remove(link);
+            return;
+        }
+        final LinkCheckResultStorable result = new LinkCheckResultStorable();
+        result.setKey(key);
+        result.setAvailableStatus(availableStatus.name());
+        result.setName(link.getRawName());
+        result.setFinalFileName(link.getFinalFileName());
+        result.setDownloadSize(link.getDownloadSize());
+        result.setVerifiedFileSize(link.getVerifiedFileSize());
+        final HashInfo hashInfo = link.getHashInfo();
+        if (hashInfo != null && !hashInfo.isNone()) {
+            result.setHashInfo(hashInfo.exportAsString());
+        }
+        result.setTimeStamp(System.currentTimeMillis());
+        result.setExpireTimeStamp(result.getTimeStamp() + ttl);
+        synchronized (cache) {
+            load();
+            cache.put(key, result);
+            trim();
+            changed = true;
+        }
+    }
+
+    public void remove(final DownloadLink link) {
+        final String key = getKey(link);
+        if (key != null) {
+            synchronized (cache) {
+                load();
+                if (cache.remove(key) != null) {
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            loaded = true;
+            cache.clear();
+            changed = true;
+        }
+    }
+
+    private void trim() {
+        final int maxSize = Math.max(0, config.getResultCacheMaxSize());
+        final Iterator<LinkCheckResultStorable> it = cache.values().iterator();
+        while (cache.size() > maxSize && it.hasNext()) {
+            /* access order, first one is the least recently used result */
+            it.next();
+            it.remove();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of stale results that had to be revalidated
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            load();
+            return cache.size();
+        }
+    }
+
+    /**
+     * logs hits, misses and expired results, at most once a minute and only when there have been new requests
+     */
+    public void logStatistics() {
+        final long requests = hits.get() + misses.get();
+        final long now = System.currentTimeMillis();
+        synchronized (cache) {
+            if (requests == loggedRequests || now - loggedTimeStamp < 60 * 1000l) {
+                return;
+            }
+            loggedRequests = requests;
+            loggedTimeStamp = now;
+        }
+        LogController.CL().info(toString());
+    }
+
+    @Override
+    public String toString() {
+        return "LinkCheckResultCache|Hits:" + getHits() + "|Misses:" + getMisses() + "|Expired:" + getExpired() + "|Size:" + size();
+    }
+
+    private boolean isPersistent(final LinkCheckResultStorable result) {
+        return AvailableStatus.TRUE.name().equals(result.getAvailableStatus());
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        final File file = getFile();
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            final ArrayList<LinkCheckResultStorable> results = JSonStorage.restoreFromString(IO.readFileToString(file), new TypeRef<ArrayList<LinkCheckResultStorable>>() {
+            });
+            if (results != null) {
+                final long now = System.currentTimeMillis();
+                for (final LinkCheckResultStorable result : results) {
+                    if (result != null && result.getKey() != null && result.getExpireTimeStamp() >= now && isPersistent(result)) {
+                        cache.put(result.getKey(), result);
+                    }
+                }
+                trim();
+            }
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        }
+    }
+
+    protected void save() {
+        final ArrayList<LinkCheckResultStorable> results;
+        synchronized (cache) {
+            if (!changed) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            results = new ArrayList<LinkCheckResultStorable>(cache.size());
+            for (final LinkCheckResultStorable result : cache.values()) {
+                if (result.getExpireTimeStamp() >= now && isPersistent(result)) {
+                    results.add(result);
+                }
+            }
+            changed = false;
+        }
+        if (hits.get() + misses.get() > 0) {
+            LogController.CL().info(toString());
+        }
+        try {
+            final File file = getFile();
+            if (results.size() == 0) {
+                file.delete();
+            } else {
+                IO.secureWrite(file, JSonStorage.serializeToJson(results).getBytes("UTF-8"));
+            }
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        }
+    }
+}
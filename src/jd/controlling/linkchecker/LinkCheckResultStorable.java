@@ -0,0 +1,99 @@
+package jd.controlling.linkchecker;
+
+import org.appwork.storage.Storable;
+
+/**
+ * cached linkcheck result of a link, see {@link LinkCheckResultCache}
+ */
+public class LinkCheckResultStorable implements Storable {
+    private String key              = null;
+    private String availableStatus  = null;
+    private String name             = null;
+    private String finalFileName    = null;
+    private long   downloadSize     = -1;
+    private long   verifiedFileSize = -1;
+    private String hashInfo         = null;
+    private long   timeStamp        = -1;
+    private long   expireTimeStamp  = -1;
+
+    public LinkCheckResultStorable(/* Storable */) {
+    }
+
+    /**
+     * @return host of the plugin and linkID of the link
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getAvailableStatus() {
+        return availableStatus;
+    }
+
+    public void setAvailableStatus(String availableStatus) {
+        this.availableStatus = availableStatus;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFinalFileName() {
+        return finalFileName;
+    }
+
+    public void setFinalFileName(String finalFileName) {
+        this.finalFileName = finalFileName;
+    }
+
+    public long getDownloadSize() {
+        return downloadSize;
+    }
+
+    public void setDownloadSize(long downloadSize) {
+        this.downloadSize = downloadSize;
+    }
+
+    public long getVerifiedFileSize() {
+        return verifiedFileSize;
+    }
+
+    public void setVerifiedFileSize(long verifiedFileSize) {
+        this.verifiedFileSize = verifiedFileSize;
+    }
+
+    /**
+     * @return HashInfo in its exported form, see {@link jd.plugins.download.HashInfo#exportAsString()}
+     */
+    public String getHashInfo() {
+        return hashInfo;
+    }
+
+    public void setHashInfo(String hashInfo) {
+        this.hashInfo = hashInfo;
+    }
+
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    public void setTimeStamp(long timeStamp) {
+        this.timeStamp = timeStamp;
+    }
+
+    public long getExpireTimeStamp() {
+        return expireTimeStamp;
+    }
+
+    public void setExpireTimeStamp(long expireTimeStamp) {
+        this.expireTimeStamp = expireTimeStamp;
+    }
+}
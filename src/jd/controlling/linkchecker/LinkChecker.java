@@ -83,8 +83,9 @@ public class LinkChecker<E extends CheckableLink> {
     private final static AtomicInteger                                                                 CHECKER                = new AtomicInteger(0);
     private final static AtomicLong                                                                    LINKCHECKER_THREAD_NUM = new AtomicLong(0);
     private final static int                                                                           MAX_THREADS;
+    private final static int                                                                           MAX_THREADS_PER_HOST;
     private final static int                                                                           KEEP_ALIVE;
-    private final static HashMap<String, Thread>                                                       CHECK_THREADS          = new HashMap<String, Thread>();
+    private final static HashMap<String, LinkCheckerHost>                                              CHECK_HOSTS            = new HashMap<String, LinkCheckerHost>();
     private final static HashMap<String, WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>>> LINKCHECKER            = new HashMap<String, WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>>>();
     private final static Object                                                                        LOCK                   = new Object();
 
@@ -94,6 +95,7 @@ public class LinkChecker<E extends CheckableLink> {
     private LinkCheckerHandler<E>                                                                      handler                = null;
     private final static int                                                                           ROUNDSIZE              = 80;
     private final static LinkCheckerEventSender                                                        EVENTSENDER            = new LinkCheckerEventSender();
+    private final static LinkCheckResultCache                                                          RESULTCACHE            = LinkCheckResultCache.getInstance();
     protected final AtomicLong                                                                         checkerGeneration      = new AtomicLong(0);
     protected final AtomicBoolean                                                                      runningState           = new AtomicBoolean(false);
 
@@ -104,6 +106,7 @@ public class LinkChecker<E extends CheckableLink> {
     static {
         MAX_THREADS = Math.max(JsonConfig.create(LinkCheckerConfig.class).getMaxThreads(), 1);
         KEEP_ALIVE = Math.max(JsonConfig.create(LinkCheckerConfig.class).getThreadKeepAlive(), 100);
+        MAX_THREADS_PER_HOST = Math.max(JsonConfig.create(LinkCheckerConfig.class).getMaxThreadsPerHost(), 1);
     }
 
     public LinkChecker() {
@@ -142,6 +145,7 @@ public class LinkChecker<E extends CheckableLink> {
             }
             if (stopEvent) {
                 EVENTSENDER.fireEvent(new LinkCheckerEvent(this, LinkCheckerEvent.Type.STOPPED));
+                RESULTCACHE.logStatistics();
             }
         }
     }
@@ -163,6 +167,7 @@ public class LinkChecker<E extends CheckableLink> {
                 }
                 if (stopEvent) {
                     EVENTSENDER.fireEvent(new LinkCheckerEvent(this, LinkCheckerEvent.Type.STOPPED));
+                    RESULTCACHE.logStatistics();
                 }
             }
             final LinkCheckerHandler<E> h = handler;
@@ -221,11 +226,8 @@ public class LinkChecker<E extends CheckableLink> {
             }
             list.add(checkableLink);
             /* notify linkcheckThread or try to start new one */
-            final Thread thread = CHECK_THREADS.get(host);
-            if (thread == null) {
-                startNewThreads();
-            } else if (thread.isAlive() == false) {
-                CHECK_THREADS.remove(host);
+            final LinkCheckerHost checkHost = CHECK_HOSTS.get(host);
+            if (checkHost == null || checkHost.getAliveWorkers() == 0) {
                 startNewThreads();
             }
         }
@@ -262,12 +264,36 @@ public class LinkChecker<E extends CheckableLink> {
         return isRunning() == false;
     }
 
-    /* start a new linkCheckThread for the given host */
+    private static int getCheckThreads() {
+        int ret = 0;
+        for (final LinkCheckerHost checkHost : CHECK_HOSTS.values()) {
+            ret += checkHost.getWorkers().size();
+        }
+        return ret;
+    }
+
+    private static int getQueued(final WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>> map) {
+        int ret = 0;
+        if (map != null) {
+            for (final ArrayDeque<InternCheckableLink> list : map.values()) {
+                ret += list.size();
+            }
+        }
+        return ret;
+    }
+
+    /* start a new linkCheckThread for the given host, a host can have several threads, see LinkCheckerHost */
     private static void startNewThread(final String threadHost) {
         synchronized (LOCK) {
-            if (CHECK_THREADS.size() >= MAX_THREADS) {
+            if (getCheckThreads() >= MAX_THREADS) {
                 return;
             }
+            LinkCheckerHost host = CHECK_HOSTS.get(threadHost);
+            if (host == null) {
+                host = new LinkCheckerHost(threadHost, ROUNDSIZE);
+                CHECK_HOSTS.put(threadHost, host);
+            }
+            final LinkCheckerHost checkHost = host;
             final LinkCheckerThread newThread = new LinkCheckerThread() {
 
                 public void run() {
@@ -282,18 +308,21 @@ public class LinkChecker<E extends CheckableLink> {
                                 synchronized (LOCK) {
                                     final WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>> map = LINKCHECKER.get(threadHost);
                                     final ArrayList<Iterator<InternCheckableLink>> its = new ArrayList<Iterator<InternCheckableLink>>();
-                                    for (final ArrayDeque<InternCheckableLink> list : map.values()) {
-                                        if (list.size() > 0) {
-                                            its.add(list.iterator());
+                                    if (map != null) {
+                                        for (final ArrayDeque<InternCheckableLink> list : map.values()) {
+                                            if (list.size() > 0) {
+                                                its.add(list.iterator());
+                                            }
                                         }
                                     }
+                                    final int batchSize = checkHost.getBatchSize();
                                     if (its.size() > 0) {
                                         if (its.size() == 1) {
                                             final Iterator<InternCheckableLink> it = its.get(0);
                                             while (it.hasNext()) {
                                                 checkableLinks.add(it.next());
                                                 it.remove();
-                                                if (checkableLinks.size() > ROUNDSIZE) {
+                                                if (checkableLinks.size() >= batchSize) {
                                                     break;
                                                 }
                                             }
@@ -307,10 +336,10 @@ public class LinkChecker<E extends CheckableLink> {
                                                 if (it.hasNext()) {
                                                     again = size;
                                                     checkableLinks.add(it.next());
-                                                    if (checkableLinks.size() > ROUNDSIZE) {
+                                                    it.remove();
+                                                    if (checkableLinks.size() >= batchSize) {
                                                         break;
                                                     }
-                                                    it.remove();
                                                 } else {
                                                     if (--again == 0) {
                                                         break;
@@ -318,6 +347,10 @@ public class LinkChecker<E extends CheckableLink> {
                                                 }
                                             }
                                         }
+                                        if (checkHost.needsWorker(getQueued(map))) {
+                                            /* more links queued than the current workers can take, add a worker */
+                                            startNewThread(threadHost);
+                                        }
                                     }
                                 }
                                 if (checkableLinks.size() > 0) {
@@ -329,6 +362,12 @@ public class LinkChecker<E extends CheckableLink> {
                                                  * linkChecker instance is set to forceRecheck
                                                  */
                                                 link.getCheckableLink().getDownloadLink().setAvailableStatus(AvailableStatus.UNCHECKED);
+                                            } else {
+                                                final DownloadLink dlLink = link.getCheckableLink().getDownloadLink();
+                                                if (dlLink.getAvailableStatus() == AvailableStatus.UNCHECKED) {
+                                                    /* answer from LinkCheckResultCache, stale results are checked again */
+                                                    RESULTCACHE.apply(dlLink);
+                                                }
                                             }
                                         }
                                     }
@@ -346,6 +385,9 @@ public class LinkChecker<E extends CheckableLink> {
                                             ((BrowserSettingsThread) Thread.currentThread()).setLogger(logger);
                                             this.plugin.setBrowser(new Browser());
                                             this.plugin.init();
+                                            synchronized (LOCK) {
+                                                checkHost.setLimits(this.plugin, MAX_THREADS_PER_HOST);
+                                            }
                                         } catch (final Throwable e) {
                                             LogController.CL().log(e);
                                         } finally {
@@ -354,6 +396,11 @@ public class LinkChecker<E extends CheckableLink> {
                                             }
                                         }
                                     }
+                                    /* statistics of this round for LinkCheckerHost */
+                                    final long roundStarted = System.currentTimeMillis();
+                                    int roundChecked = 0;
+                                    int roundErrors = 0;
+                                    boolean massCheckFailed = false;
                                     try {
                                         if (this.plugin == null) {
                                             for (final InternCheckableLink link : checkableLinks) {
@@ -383,12 +430,21 @@ public class LinkChecker<E extends CheckableLink> {
                                                         this.plugin.reset();
                                                     }
                                                     if (downloadLinks.size() == 0 || this.plugin.checkLinks(downloadLinks.toArray(new DownloadLink[downloadLinks.size()]))) {
+                                                        for (final DownloadLink dlLink : downloadLinks) {
+                                                            roundChecked++;
+                                                            if (dlLink.getAvailableStatus() == AvailableStatus.UNCHECKABLE) {
+                                                                roundErrors++;
+                                                            }
+                                                            RESULTCACHE.put(dlLink);
+                                                        }
                                                         for (final InternCheckableLink link : checkableLinks) {
                                                             link.getLinkChecker().linkChecked(link);
                                                         }
                                                         continue;
                                                     }
+                                                    massCheckFailed = true;
                                                 } catch (final Throwable e) {
+                                                    massCheckFailed = true;
                                                     logger.log(e);
                                                     logger.flush();
                                                 } finally {
@@ -406,8 +462,13 @@ public class LinkChecker<E extends CheckableLink> {
                                                     /*
                                                      * this will check the link, if not already checked
                                                      */
-                                                    if (dupCheck.add(link.getCheckableLink().getDownloadLink())) {
-                                                        LinkChecker.updateAvailableStatus(this.plugin, link.getCheckableLink().getDownloadLink(), logger);
+                                                    final DownloadLink dlLink = link.getCheckableLink().getDownloadLink();
+                                                    if (dupCheck.add(dlLink) && LinkChecker.updateAvailableStatus(this.plugin, dlLink, logger)) {
+                                                        roundChecked++;
+                                                        if (dlLink.getAvailableStatus() == AvailableStatus.UNCHECKABLE) {
+                                                            roundErrors++;
+                                                        }
+                                                        RESULTCACHE.put(dlLink);
                                                     }
                                                 }
                                                 link.getLinkChecker().linkChecked(link);
@@ -421,6 +482,9 @@ public class LinkChecker<E extends CheckableLink> {
                                         } catch (final Throwable e) {
                                         }
                                         resetLinkStatus();
+                                        synchronized (LOCK) {
+                                            checkHost.onRoundFinished(roundChecked, roundErrors, massCheckFailed, System.currentTimeMillis() - roundStarted);
+                                        }
                                     }
                                 }
                             } catch (Throwable e) {
@@ -431,7 +495,7 @@ public class LinkChecker<E extends CheckableLink> {
                             } catch (InterruptedException e) {
                                 LogController.CL().log(e);
                                 synchronized (LOCK) {
-                                    CHECK_THREADS.remove(threadHost);
+                                    removeWorker();
                                     return;
                                 }
                             }
@@ -440,11 +504,17 @@ public class LinkChecker<E extends CheckableLink> {
                                 if (map == null || !isNotEmpty(map.values())) {
                                     stopDelay--;
                                     if (stopDelay < 0) {
-                                        LINKCHECKER.remove(threadHost);
-                                        CHECK_THREADS.remove(threadHost);
+                                        if (removeWorker() == 0) {
+                                            LINKCHECKER.remove(threadHost);
+                                        }
                                         startNewThreads();
                                         return;
                                     }
+                                } else if (checkHost.hasSurplusWorkers()) {
+                                    /* host backs off, stop this worker */
+                                    removeWorker();
+                                    startNewThreads();
+                                    return;
                                 }
                             }
                         }
@@ -461,6 +531,18 @@ public class LinkChecker<E extends CheckableLink> {
                     }
                 }
 
+                /**
+                 * @return number of remaining workers of this host
+                 */
+                private final int removeWorker() {
+                    checkHost.getWorkers().remove(this);
+                    final int ret = checkHost.getAliveWorkers();
+                    if (ret == 0 && CHECK_HOSTS.get(threadHost) == checkHost) {
+                        CHECK_HOSTS.remove(threadHost);
+                    }
+                    return ret;
+                }
+
                 private final boolean isNotEmpty(Collection<ArrayDeque<InternCheckableLink>> values) {
                     if (values != null) {
                         for (final ArrayDeque<InternCheckableLink> list : values) {
@@ -486,7 +568,7 @@ public class LinkChecker<E extends CheckableLink> {
             newThread.setName("LinkChecker: " + LINKCHECKER_THREAD_NUM.incrementAndGet() + ":" + threadHost);
             newThread.setDaemon(true);
             newThread.setPriority(Thread.MIN_PRIORITY);
-            CHECK_THREADS.put(threadHost, newThread);
+            checkHost.getWorkers().add(newThread);
             newThread.start();
         }
     }
@@ -499,9 +581,9 @@ public class LinkChecker<E extends CheckableLink> {
             final Set<Entry<String, WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>>>> allTodos = LINKCHECKER.entrySet();
             for (final Entry<String, WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>>> set : allTodos) {
                 final String host = set.getKey();
-                final Thread thread = CHECK_THREADS.get(host);
-                if (thread == null || !thread.isAlive()) {
-                    CHECK_THREADS.remove(host);
+                final LinkCheckerHost checkHost = CHECK_HOSTS.get(host);
+                if (checkHost == null || checkHost.getAliveWorkers() == 0) {
+                    CHECK_HOSTS.remove(host);
                     final WeakHashMap<LinkChecker<?>, ArrayDeque<InternCheckableLink>> map = set.getValue();
                     if (map != null) {
                         final Iterator<ArrayDeque<InternCheckableLink>> linkCheckerIt = map.values().iterator();
@@ -521,7 +603,7 @@ public class LinkChecker<E extends CheckableLink> {
                     }
                     if (map == null || map.size() == 0) {
                         removeHosts.add(host);
-                    } else if (CHECK_THREADS.size() < MAX_THREADS) {
+                    } else if (getCheckThreads() < MAX_THREADS) {
                         startNewThread(host);
                     } else {
                         break;
@@ -537,11 +619,14 @@ public class LinkChecker<E extends CheckableLink> {
         }
     }
 
-    private static void updateAvailableStatus(PluginForHost plgToUse, DownloadLink link, LogSource logger) {
+    /**
+     * @return true if the link has been checked, false if it was already checked
+     */
+    private static boolean updateAvailableStatus(PluginForHost plgToUse, DownloadLink link, LogSource logger) {
         if (link.getAvailableStatus() != AvailableStatus.UNCHECKED) {
             logger.info("Link " + link.getPluginPatternMatcher() + " is(already) " + link.getAvailableStatus());
             logger.clear();
-            return;
+            return false;
         }
         AvailableStatus availableStatus = null;
         try {
@@ -602,6 +687,7 @@ public class LinkChecker<E extends CheckableLink> {
             }
             link.setAvailableStatus(availableStatus);
         }
+        return true;
     }
 
     public static boolean isForcedLinkCheck(CheckableLink downloadLink) {
@@ -2,9 +2,11 @@ package jd.controlling.linkchecker;
 
 import org.appwork.storage.config.ConfigInterface;
 import org.appwork.storage.config.annotations.AboutConfig;
+import org.appwork.storage.config.annotations.DefaultBooleanValue;
 import org.appwork.storage.config.annotations.DefaultIntValue;
 import org.appwork.storage.config.annotations.DescriptionForConfigEntry;
 import org.appwork.storage.config.annotations.RequiresRestart;
+import org.appwork.storage.config.annotations.SpinnerValidator;
 
 public interface LinkCheckerConfig extends ConfigInterface {
 
@@ -16,6 +18,15 @@ public interface LinkCheckerConfig extends ConfigInterface {
 
     void setMaxThreads(int i);
 
+    @DefaultIntValue(3)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 32)
+    @RequiresRestart("A JDownloader Restart is Required")
+    @DescriptionForConfigEntry("max. number of linkchecking threads per host. every host starts with one thread, more are added while latency and errors of the host stay low and removed again when they rise. plugins may declare their own limit")
+    int getMaxThreadsPerHost();
+
+    void setMaxThreadsPerHost(int i);
+
     @DefaultIntValue(250)
     @AboutConfig
     @RequiresRestart("A JDownloader Restart is Required")
@@ -24,4 +35,35 @@ public interface LinkCheckerConfig extends ConfigInterface {
 
     void setThreadKeepAlive(int i);
 
+    @DefaultBooleanValue(true)
+    @AboutConfig
+    @DescriptionForConfigEntry("reuse cached linkcheck results(online status, name, size and hash) instead of checking the same link again")
+    boolean isResultCacheEnabled();
+
+    void setResultCacheEnabled(boolean b);
+
+    @DefaultIntValue(60)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 7 * 24 * 60)
+    @DescriptionForConfigEntry("default time in minutes a cached linkcheck result is valid, plugins may use a different time")
+    int getResultCacheTTL();
+
+    void setResultCacheTTL(int minutes);
+
+    @DefaultIntValue(5)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 7 * 24 * 60)
+    @DescriptionForConfigEntry("default time in minutes a cached offline result is valid, offline results are not kept across restarts")
+    int getResultCacheOfflineTTL();
+
+    void setResultCacheOfflineTTL(int minutes);
+
+    @DefaultIntValue(50000)
+    @AboutConfig
+    @SpinnerValidator(min = 0, max = 1000000)
+    @DescriptionForConfigEntry("max. number of cached linkcheck results")
+    int getResultCacheMaxSize();
+
+    void setResultCacheMaxSize(int i);
+
 }
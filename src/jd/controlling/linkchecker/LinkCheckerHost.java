@@ -0,0 +1,167 @@
+package jd.controlling.linkchecker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import jd.plugins.LinkCheckLimits;
+import jd.plugins.PluginForHost;
+
+/**
+ * scheduling state of a LinkChecker host: the workers checking its links, how many workers are wanted and how many links a worker takes per
+ * round. starts with one worker and adapts workers and batch size to latency and error rate of the finished rounds, within the limits of the
+ * plugin, see {@link LinkCheckLimits}. guarded by the lock of the LinkChecker
+ */
+public class LinkCheckerHost {
+    /* weight of the last round */
+    private static final double ALPHA            = 0.3d;
+    /* min. latency per link in ms used as baseline */
+    private static final double MIN_LATENCY      = 100d;
+    /* default batch size of plugins without checkLinks(DownloadLink[]) */
+    private static final int    SINGLE_BATCHSIZE = 20;
+
+    private final String        host;
+    private final List<Thread>  workers          = new ArrayList<Thread>();
+    private boolean             limitsSet        = false;
+    private int                 maxWorkers       = 1;
+    private int                 maxBatchSize;
+    private int                 targetWorkers    = 1;
+    private int                 batchSize;
+    private double              latency          = -1;
+    private double              baselineLatency  = -1;
+    private double              errorRate        = 0;
+    private int                 healthyRounds    = 0;
+
+    protected LinkCheckerHost(final String host, final int defaultBatchSize) {
+        this.host = host;
+        this.maxBatchSize = Math.max(1, defaultBatchSize);
+        this.batchSize = maxBatchSize;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    protected List<Thread> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * removes dead workers
+     *
+     * @return number of alive workers
+     */
+    protected int getAliveWorkers() {
+        final Iterator<Thread> it = workers.iterator();
+        while (it.hasNext()) {
+            if (!it.next().isAlive()) {
+                it.remove();
+            }
+        }
+        return workers.size();
+    }
+
+    /**
+     * sets the limits of the given plugin, only the first call has an effect
+     */
+    protected void setLimits(final PluginForHost plugin, final int defaultMaxWorkers) {
+        if (limitsSet || plugin == null) {
+            return;
+        }
+        limitsSet = true;
+        final LinkCheckLimits limits = plugin.getClass().getAnnotation(LinkCheckLimits.class);
+        if (limits != null) {
+            maxWorkers = Math.max(1, limits.maxConcurrency());
+            maxBatchSize = Math.max(1, limits.maxBatchSize());
+        } else {
+            maxWorkers = Math.max(1, defaultMaxWorkers);
+            if (!PluginForHost.implementsCheckLinks(plugin)) {
+                /* single checks, smaller rounds spread better over the workers */
+                maxBatchSize = Math.min(maxBatchSize, SINGLE_BATCHSIZE);
+            }
+        }
+        batchSize = Math.min(batchSize, maxBatchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getTargetWorkers() {
+        return targetWorkers;
+    }
+
+    /**
+     * @return average time per link in ms, -1 if unknown
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return average ratio of links that could not be checked
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @param queued
+     *            number of links waiting for this host
+     * @return true if another worker should be started
+     */
+    protected boolean needsWorker(final int queued) {
+        return workers.size() < targetWorkers && queued > workers.size() * batchSize;
+    }
+
+    /**
+     * @return true if there are more workers than wanted, eg after backing off
+     */
+    protected boolean hasSurplusWorkers() {
+        return workers.size() > targetWorkers;
+    }
+
+    /**
+     * @param links
+     *            number of links checked by the plugin in this round
+     * @param errors
+     *            number of links that could not be checked, eg temporarily unavailable or banned
+     * @param massCheckFailed
+     *            checkLinks(DownloadLink[]) failed and links had to be checked one by one
+     * @param duration
+     *            duration of the round in ms
+     */
+    protected void onRoundFinished(final int links, final int errors, final boolean massCheckFailed, final long duration) {
+        if (massCheckFailed) {
+            batchSize = Math.max(1, batchSize / 2);
+        }
+        if (links <= 0) {
+            return;
+        }
+        final double roundLatency = Math.max(0, duration) / (double) links;
+        latency = latency < 0 ? roundLatency : latency * (1 - ALPHA) + roundLatency * ALPHA;
+        if (baselineLatency < 0 || roundLatency < baselineLatency) {
+            baselineLatency = roundLatency;
+        }
+        errorRate = errorRate * (1 - ALPHA) + (errors / (double) links) * ALPHA;
+        final double baseline = Math.max(baselineLatency, MIN_LATENCY);
+        if (errorRate > 0.25d || latency > 4 * baseline) {
+            /* host is struggling or banning us, back off */
+            targetWorkers = Math.max(1, targetWorkers / 2);
+            healthyRounds = 0;
+        } else if (errorRate < 0.05d && latency < 2 * baseline && !massCheckFailed) {
+            if (++healthyRounds >= 2) {
+                healthyRounds = 0;
+                batchSize = Math.min(maxBatchSize, batchSize * 2);
+                targetWorkers = Math.min(maxWorkers, targetWorkers + 1);
+            }
+        } else {
+            healthyRounds = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Host:" + host + "|Workers:" + workers.size() + "/" + targetWorkers + "/" + maxWorkers + "|BatchSize:" + batchSize + "|Latency:" + (long) latency + "|ErrorRate:" + errorRate;
+    }
+}
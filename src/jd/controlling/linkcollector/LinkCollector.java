@@ -3,7 +3,6 @@ package jd.controlling.linkcollector;
 import java.awt.Toolkit;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -11,11 +10,14 @@ import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -25,14 +27,13 @@ import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import jd.controlling.TaskQueue;
@@ -59,6 +60,8 @@ import jd.controlling.linkcrawler.PackageInfo;
 import jd.controlling.packagecontroller.AbstractNode;
 import jd.controlling.packagecontroller.AbstractPackageChildrenNodeFilter;
 import jd.controlling.packagecontroller.PackageController;
+import jd.controlling.packagecontroller.PackageControllerIndex;
+import jd.controlling.packagecontroller.PackageControllerListLoader;
 import jd.gui.swing.jdgui.JDGui;
 import jd.gui.swing.jdgui.WarnLevel;
 import jd.http.Browser;
@@ -71,7 +74,6 @@ import jd.plugins.PluginForHost;
 import jd.utils.JDUtilities;
 
 import org.appwork.controlling.SingleReachableState;
-import org.appwork.exceptions.WTFException;
 import org.appwork.scheduler.DelayedRunnable;
 import org.appwork.shutdown.ShutdownController;
 import org.appwork.shutdown.ShutdownEvent;
@@ -452,11 +454,46 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
 
     private final DelayedRunnable                                               asyncCacheCleanup;
     private final AtomicLong                                                    collectingID       = new AtomicLong(0);
+    /**
+     * links waiting for batched ingestion, ingestionScheduled is guarded by ingestionQueue
+     */
+    private final ArrayDeque<CrawledLink>                                       ingestionQueue     = new ArrayDeque<CrawledLink>();
+    private boolean                                                             ingestionScheduled = false;
+    /**
+     * NOTE: only access inside the IOEQ
+     */
+    private IngestionBlock                                                      ingestionBlock     = null;
 
     public long getCollectingID() {
         return collectingID.get();
     }
 
+    private final PackageControllerIndex<CrawledPackage, CrawledLink> index = new PackageControllerIndex<CrawledPackage, CrawledLink>(this) {
+
+        @Override
+        protected String getHost(CrawledLink child) {
+            return child.getHost();
+        }
+
+        @Override
+        protected long getJobID(CrawledLink child) {
+            return child.getJobID();
+        }
+
+        @Override
+        protected Object getState(CrawledLink child) {
+            return child.getLinkState();
+        }
+    };
+
+    /**
+     * @return index over the CrawledLinks, state is the AvailableLinkState
+     */
+    @Override
+    public PackageControllerIndex<CrawledPackage, CrawledLink> getIndex() {
+        return index;
+    }
+
     private final AutoStartManager autoStartManager;
 
     private LinkCollector() {
@@ -657,6 +694,12 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
 
     @Override
     protected void _controllerStructureChanged(QueuePriority priority) {
+        final IngestionBlock block = ingestionBlock;
+        if (block != null) {
+            /* coalesced, fired once at the end of the ingestion block */
+            block.structureChanged = true;
+            return;
+        }
         eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.REFRESH_STRUCTURE, priority));
     }
 
@@ -790,361 +833,517 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
         return list;
     }
 
-    public void addCrawledLink(final CrawledLink link) {
-        final LinkCollectingInformation info = link.getCollectingInfo();
-        /* try to find good matching package or create new one */
-        QUEUE.add(new QueueAction<Void, RuntimeException>() {
+    private static final Pattern TRAILING_SEPARATORS = Pattern.compile("(.+?)(/|\\\\)+$");
 
-            private LinkCollectingInformation lci = info;
+    /**
+     * state of the ingestion block that is currently processed. moveOrAddAt of the block is collected per package and executed once at the
+     * end of the block, structure events are coalesced into a single one.
+     *
+     * NOTE: only access inside the IOEQ
+     */
+    private static class IngestionBlock {
+        private final String                                           defaultDownloadFolder;
+        private final HashMap<String, Boolean>                         customDownloadFolders = new HashMap<String, Boolean>();
+        private final LinkedHashMap<CrawledPackage, List<CrawledLink>> adds                  = new LinkedHashMap<CrawledPackage, List<CrawledLink>>();
+        private final IdentityHashMap<CrawledLink, CrawledPackage>     addTargets            = new IdentityHashMap<CrawledLink, CrawledPackage>();
+        private final List<CrawledLink>                                added                 = new ArrayList<CrawledLink>();
+        private boolean                                                structureChanged      = false;
 
-            @Override
-            protected void onEnqueu(Queue queue) {
-                if (info != null) {
-                    info.enqueu(this, link);
+        private IngestionBlock() {
+            this.defaultDownloadFolder = removeTrailingSeparators(JsonConfig.create(GeneralSettings.class).getDefaultDownloadFolder());
+        }
+
+        /**
+         * @return true if the given downloadFolder differs from the default downloadFolder
+         */
+        private boolean isCustomDownloadFolder(final String downloadFolder) {
+            Boolean ret = customDownloadFolders.get(downloadFolder);
+            if (ret == null) {
+                /* check for custom downloadFolder. let's not use various package then */
+                final String compareCustom = removeTrailingSeparators(downloadFolder);
+                if (CrossSystem.isWindows()) {
+                    ret = !compareCustom.equalsIgnoreCase(defaultDownloadFolder);
+                } else {
+                    ret = !compareCustom.equals(defaultDownloadFolder);
                 }
+                customDownloadFolders.put(downloadFolder, ret);
             }
+            return ret.booleanValue();
+        }
 
-            @Override
-            protected void postRun() {
-                dequeu();
+        private void moveOrAddAt(final CrawledPackage pkg, final List<CrawledLink> links) {
+            List<CrawledLink> pkgAdds = adds.get(pkg);
+            if (pkgAdds == null) {
+                pkgAdds = new ArrayList<CrawledLink>();
+                adds.put(pkg, pkgAdds);
             }
-
-            private void dequeu() {
-                final LinkCollectingInformation info = this.lci;
-                this.lci = null;
-                if (info != null) {
-                    info.dequeu(this, link);
+            for (final CrawledLink link : links) {
+                final CrawledPackage previous = addTargets.put(link, pkg);
+                if (previous != null && previous != pkg) {
+                    /* link got moved to another package within this block */
+                    final List<CrawledLink> previousAdds = adds.get(previous);
+                    if (previousAdds != null) {
+                        previousAdds.remove(link);
+                    }
+                } else if (previous == pkg) {
+                    continue;
                 }
+                pkgAdds.add(link);
             }
+        }
 
-            private void addToNewPackage(final List<CrawledLink> links, String newPackageName, final CrawledPackageMappingID crawledPackageMappingID) {
-                final CrawledPackage pkg = new CrawledPackage();
-                pkg.setExpanded(CFG_LINKCOLLECTOR.CFG.isPackageAutoExpanded());
-                pkg.setName(newPackageName);
-                pkg.setDownloadFolder(crawledPackageMappingID.getDownloadFolderRaw());
-                packageMap.put(crawledPackageMappingID, pkg);
-                if (links != null && links.size() > 0) {
-                    LinkCollector.this.moveOrAddAt(pkg, links, -1);
-                }
-                if (crawledPackageMappingID.getPackageName() != null) {
-                    // check if we have matching links in offline maper
-                    final List<CrawledLink> offline = offlineMap.remove(crawledPackageMappingID);
-                    if (offline != null && offline.size() > 0) {
-                        LinkCollector.this.moveOrAddAt(pkg, offline, -1);
-                    }
-                    final List<CrawledLink> various = variousMap.remove(crawledPackageMappingID);
-                    if (various != null && various.size() > 0) {
-                        LinkCollector.this.moveOrAddAt(pkg, various, -1);
+        private void remove(final CrawledLink link) {
+            final CrawledPackage pkg = addTargets.remove(link);
+            if (pkg != null) {
+                adds.get(pkg).remove(link);
+            }
+        }
+
+        /**
+         * @return links that will be added to the given package at the end of this block
+         */
+        private List<CrawledLink> getAdds(final CrawledPackage pkg) {
+            final List<CrawledLink> ret = adds.get(pkg);
+            if (ret == null) {
+                return Collections.emptyList();
+            }
+            return ret;
+        }
+    }
+
+    private static String removeTrailingSeparators(final String folder) {
+        if (folder == null) {
+            return null;
+        }
+        /** this regex cuts of trailing / and \ for equals check **/
+        return TRAILING_SEPARATORS.matcher(folder).replaceAll("$1");
+    }
+
+    /**
+     * adds the given CrawledLink to the ingestion queue. queued links are drained in blocks of IngestionBlockSize, see
+     * {@link #addCrawledLinks(List)}
+     */
+    public void addCrawledLink(final CrawledLink link) {
+        if (link != null) {
+            addCrawledLinks(Collections.singletonList(link));
+        }
+    }
+
+    /**
+     * adds the given CrawledLinks to the ingestion queue. a single QueueAction drains the ingestion queue in blocks, resolves the package
+     * mappings of the whole block and fires one coalesced structure event per block
+     */
+    public void addCrawledLinks(final List<CrawledLink> links) {
+        if (links == null || links.size() == 0) {
+            return;
+        }
+        for (final CrawledLink link : links) {
+            final LinkCollectingInformation info = link.getCollectingInfo();
+            if (info != null) {
+                info.enqueu(null, link);
+            }
+        }
+        final boolean schedule;
+        synchronized (ingestionQueue) {
+            ingestionQueue.addAll(links);
+            schedule = !ingestionScheduled;
+            ingestionScheduled = true;
+        }
+        if (schedule) {
+            scheduleIngestion();
+        }
+    }
+
+    private void scheduleIngestion() {
+        QUEUE.addAsynch(new QueueAction<Void, RuntimeException>() {
+
+            @Override
+            protected Void run() throws RuntimeException {
+                final int blockSize = Math.max(1, CFG_LINKCOLLECTOR.CFG.getIngestionBlockSize());
+                final List<CrawledLink> block;
+                final boolean more;
+                synchronized (ingestionQueue) {
+                    block = new ArrayList<CrawledLink>(Math.min(blockSize, ingestionQueue.size()));
+                    while (block.size() < blockSize && !ingestionQueue.isEmpty()) {
+                        block.add(ingestionQueue.poll());
                     }
-                    final List<CrawledLink> bad = getBadMappings(crawledPackageMappingID, pkg);
-                    if (bad != null && bad.size() > 0) {
-                        LinkCollector.this.moveOrAddAt(pkg, bad, -1);
+                    more = !ingestionQueue.isEmpty();
+                    ingestionScheduled = more;
+                }
+                try {
+                    ingest(block);
+                } finally {
+                    if (more) {
+                        /* requeue so other QueueActions are not blocked by large containers */
+                        scheduleIngestion();
                     }
-                } else {
-                    putBadMappings(newPackageName, crawledPackageMappingID, links);
                 }
+                return null;
             }
+        });
+    }
 
-            private void addToExistingPackage(final List<CrawledLink> links, CrawledPackage pkg, final CrawledPackageMappingID crawledPackageMappingID) {
-                final String packageName = pkg.getName();
-                if (links != null && links.size() > 0) {
-                    LinkCollector.this.moveOrAddAt(pkg, links, -1);
-                }
-                if (crawledPackageMappingID.getPackageName() != null) {
-                    if (!TYPE.VARIOUS.equals(pkg.getType())) {
-                        // check if we have matching links in offline maper
-                        final List<CrawledLink> offline = offlineMap.remove(crawledPackageMappingID);
-                        if (offline != null && offline.size() > 0) {
-                            LinkCollector.this.moveOrAddAt(pkg, offline, -1);
-                        }
-                        final List<CrawledLink> various = variousMap.remove(crawledPackageMappingID);
-                        if (various != null && various.size() > 0) {
-                            LinkCollector.this.moveOrAddAt(pkg, various, -1);
-                        }
-                        final List<CrawledLink> bad = getBadMappings(crawledPackageMappingID, pkg);
-                        if (bad != null && bad.size() > 0) {
-                            LinkCollector.this.moveOrAddAt(pkg, bad, -1);
-                        }
+    /**
+     * NOTE: only call inside the IOEQ
+     */
+    private void ingest(final List<CrawledLink> links) {
+        final IngestionBlock block = new IngestionBlock();
+        ingestionBlock = block;
+        try {
+            for (final CrawledLink link : links) {
+                final LinkCollectingInformation info = link.getCollectingInfo();
+                try {
+                    if (ingest(block, link, info)) {
+                        block.added.add(link);
+                        continue;
                     }
-                } else {
-                    putBadMappings(packageName, crawledPackageMappingID, links);
+                } catch (Throwable e) {
+                    block.remove(link);
+                    removeCrawledLinkByLinkID(link);
+                    logger.log(e);
+                }
+                if (info != null) {
+                    info.dequeu(null, link);
                 }
+                /* clear references */
+                clearCrawledLinkReferences(link);
             }
+            for (final Entry<CrawledPackage, List<CrawledLink>> add : block.adds.entrySet()) {
+                if (add.getValue().size() > 0) {
+                    LinkCollector.this.moveOrAddAt(add.getKey(), add.getValue(), -1);
+                }
+            }
+        } finally {
+            ingestionBlock = null;
+            for (final CrawledLink link : block.added) {
+                final LinkCollectingInformation info = link.getCollectingInfo();
+                if (info != null) {
+                    info.dequeu(null, link);
+                }
+                eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.ADDED_LINK, link, QueuePriority.NORM));
+                autoStartManager.onLinkAdded(link);
+                /* clear references */
+                clearCrawledLinkReferences(link);
+            }
+            if (block.structureChanged) {
+                eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.REFRESH_STRUCTURE, QueuePriority.NORM));
+            }
+        }
+    }
 
-            private void putBadMappings(String newPackageName, CrawledPackageMappingID crawledPackageMappingID, List<CrawledLink> links) {
-                final CrawledPackageMappingID badID = new CrawledPackageMappingID(crawledPackageMappingID.getId(), null, crawledPackageMappingID.getDownloadFolderRaw());
-                List<CrawledLink> badMappings = badMappingMap.get(badID);
-                if (links != null) {
-                    for (CrawledLink link : links) {
-                        final DownloadLink dlLink = link.getDownloadLink();
-                        if (dlLink.getContainerUrl() != null || dlLink.getOriginUrl() != null) {
-                            if (badMappings == null) {
-                                badMappings = new ArrayList<CrawledLink>();
-                                badMappingMap.put(badID, badMappings);
-                            }
-                            badMappings.add(link);
-                        }
-                    }
+    private void addToNewPackage(final IngestionBlock block, final List<CrawledLink> links, String newPackageName, final CrawledPackageMappingID crawledPackageMappingID) {
+        final CrawledPackage pkg = new CrawledPackage();
+        pkg.setExpanded(CFG_LINKCOLLECTOR.CFG.isPackageAutoExpanded());
+        pkg.setName(newPackageName);
+        pkg.setDownloadFolder(crawledPackageMappingID.getDownloadFolderRaw());
+        packageMap.put(crawledPackageMappingID, pkg);
+        if (links != null && links.size() > 0) {
+            block.moveOrAddAt(pkg, links);
+        }
+        if (crawledPackageMappingID.getPackageName() != null) {
+            // check if we have matching links in offline maper
+            final List<CrawledLink> offline = offlineMap.remove(crawledPackageMappingID);
+            if (offline != null && offline.size() > 0) {
+                block.moveOrAddAt(pkg, offline);
+            }
+            final List<CrawledLink> various = variousMap.remove(crawledPackageMappingID);
+            if (various != null && various.size() > 0) {
+                block.moveOrAddAt(pkg, various);
+            }
+            final List<CrawledLink> bad = getBadMappings(block, crawledPackageMappingID, pkg);
+            if (bad != null && bad.size() > 0) {
+                block.moveOrAddAt(pkg, bad);
+            }
+        } else {
+            putBadMappings(newPackageName, crawledPackageMappingID, links);
+        }
+    }
+
+    private void addToExistingPackage(final IngestionBlock block, final List<CrawledLink> links, CrawledPackage pkg, final CrawledPackageMappingID crawledPackageMappingID) {
+        final String packageName = pkg.getName();
+        if (links != null && links.size() > 0) {
+            block.moveOrAddAt(pkg, links);
+        }
+        if (crawledPackageMappingID.getPackageName() != null) {
+            if (!TYPE.VARIOUS.equals(pkg.getType())) {
+                // check if we have matching links in offline maper
+                final List<CrawledLink> offline = offlineMap.remove(crawledPackageMappingID);
+                if (offline != null && offline.size() > 0) {
+                    block.moveOrAddAt(pkg, offline);
+                }
+                final List<CrawledLink> various = variousMap.remove(crawledPackageMappingID);
+                if (various != null && various.size() > 0) {
+                    block.moveOrAddAt(pkg, various);
+                }
+                final List<CrawledLink> bad = getBadMappings(block, crawledPackageMappingID, pkg);
+                if (bad != null && bad.size() > 0) {
+                    block.moveOrAddAt(pkg, bad);
                 }
             }
+        } else {
+            putBadMappings(packageName, crawledPackageMappingID, links);
+        }
+    }
 
-            private List<CrawledLink> getBadMappings(CrawledPackageMappingID crawledPackageMappingID, CrawledPackage pkg) {
-                final List<CrawledLink> ret = new ArrayList<CrawledLink>();
-                final CrawledPackageMappingID badID = new CrawledPackageMappingID(crawledPackageMappingID.getId(), null, crawledPackageMappingID.getDownloadFolderRaw());
-                List<CrawledLink> badMappings = badMappingMap.get(badID);
-                if (badMappings != null) {
-                    final HashSet<String> searchFor = new HashSet<String>();
-                    final boolean readL = pkg.getModifyLock().readLock();
-                    try {
-                        for (final CrawledLink cLink : pkg.getChildren()) {
-                            final DownloadLink dlLink = cLink.getDownloadLink();
-                            searchFor.add(dlLink.getContainerUrl());
-                            searchFor.add(dlLink.getOriginUrl());
-                        }
-                    } finally {
-                        pkg.getModifyLock().readUnlock(readL);
-                    }
-                    searchFor.remove(null);
-                    for (final CrawledLink cLink : badMappings) {
-                        final DownloadLink dlLink = cLink.getDownloadLink();
-                        if (searchFor.contains(dlLink.getContainerUrl()) || searchFor.contains(dlLink.getOriginUrl())) {
-                            ret.add(cLink);
-                        }
-                    }
-                    badMappings.removeAll(ret);
-                    if (badMappings.size() == 0) {
-                        badMappingMap.remove(badID);
+    private void putBadMappings(String newPackageName, CrawledPackageMappingID crawledPackageMappingID, List<CrawledLink> links) {
+        final CrawledPackageMappingID badID = new CrawledPackageMappingID(crawledPackageMappingID.getId(), null, crawledPackageMappingID.getDownloadFolderRaw());
+        List<CrawledLink> badMappings = badMappingMap.get(badID);
+        if (links != null) {
+            for (CrawledLink link : links) {
+                final DownloadLink dlLink = link.getDownloadLink();
+                if (dlLink.getContainerUrl() != null || dlLink.getOriginUrl() != null) {
+                    if (badMappings == null) {
+                        badMappings = new ArrayList<CrawledLink>();
+                        badMappingMap.put(badID, badMappings);
                     }
+                    badMappings.add(link);
                 }
-                return ret;
             }
+        }
+    }
 
-            private CrawledPackage getCrawledPackage(CrawledPackageMappingID crawledPackageMappingID, CrawledLink mappingLink) {
-                CrawledPackage ret = packageMap.get(crawledPackageMappingID);
-                if (ret == null && crawledPackageMappingID.getPackageName() == null) {
-                    final String containerURL = mappingLink.getDownloadLink().getContainerUrl();
-                    final String originURL = mappingLink.getDownloadLink().getOriginUrl();
-                    if (containerURL != null || originURL != null) {
-                        final HashMap<Integer, HashMap<CrawledPackageMappingID, CrawledPackage>> bestMappings = new HashMap<Integer, HashMap<CrawledPackageMappingID, CrawledPackage>>();
-                        for (final Entry<CrawledPackageMappingID, CrawledPackage> chance : packageMap.entrySet()) {
-                            int equals = 0;
-                            if (StringUtils.equals(crawledPackageMappingID.getId(), chance.getKey().getId())) {
-                                equals++;
-                            }
-                            if (StringUtils.equals(crawledPackageMappingID.getDownloadFolder(), chance.getKey().getDownloadFolder())) {
-                                equals++;
-                            }
-                            if (equals > 0) {
-                                HashMap<CrawledPackageMappingID, CrawledPackage> mappings = bestMappings.get(new Integer(equals));
-                                if (mappings == null) {
-                                    mappings = new HashMap<CrawledPackageMappingID, CrawledPackage>();
-                                    bestMappings.put(new Integer(equals), mappings);
-                                }
-                                mappings.put(chance.getKey(), chance.getValue());
-                            }
-                        }
-                        for (int x = 2; x > 0; x--) {
-                            HashMap<CrawledPackageMappingID, CrawledPackage> mappings = bestMappings.get(new Integer(x));
-                            if (mappings != null) {
-                                for (final Entry<CrawledPackageMappingID, CrawledPackage> mapping : mappings.entrySet()) {
-                                    final CrawledPackage pkg = mapping.getValue();
-                                    final boolean readL = pkg.getModifyLock().readLock();
-                                    try {
-                                        for (final CrawledLink cLink : pkg.getChildren()) {
-                                            final DownloadLink dlLink = cLink.getDownloadLink();
-                                            if (dlLink != null && ((containerURL != null && StringUtils.equals(dlLink.getContainerUrl(), containerURL)) || (originURL != null && StringUtils.equals(dlLink.getOriginUrl(), originURL)))) {
-                                                final CrawledPackageMappingID id = mapping.getKey();
-                                                if (id.getPackageName() != null) {
-                                                    return pkg;
-                                                } else if (ret != null) {
-                                                    ret = pkg;
-                                                }
-                                            }
-                                        }
-                                    } finally {
-                                        pkg.getModifyLock().readUnlock(readL);
-                                    }
-                                }
-                            }
-                        }
-                    }
+    private List<CrawledLink> getBadMappings(final IngestionBlock block, CrawledPackageMappingID crawledPackageMappingID, CrawledPackage pkg) {
+        final List<CrawledLink> ret = new ArrayList<CrawledLink>();
+        final CrawledPackageMappingID badID = new CrawledPackageMappingID(crawledPackageMappingID.getId(), null, crawledPackageMappingID.getDownloadFolderRaw());
+        List<CrawledLink> badMappings = badMappingMap.get(badID);
+        if (badMappings != null) {
+            final HashSet<String> searchFor = new HashSet<String>();
+            final boolean readL = pkg.getModifyLock().readLock();
+            try {
+                for (final CrawledLink cLink : pkg.getChildren()) {
+                    final DownloadLink dlLink = cLink.getDownloadLink();
+                    searchFor.add(dlLink.getContainerUrl());
+                    searchFor.add(dlLink.getOriginUrl());
+                }
+            } finally {
+                pkg.getModifyLock().readUnlock(readL);
+            }
+            for (final CrawledLink cLink : block.getAdds(pkg)) {
+                final DownloadLink dlLink = cLink.getDownloadLink();
+                searchFor.add(dlLink.getContainerUrl());
+                searchFor.add(dlLink.getOriginUrl());
+            }
+            searchFor.remove(null);
+            for (final CrawledLink cLink : badMappings) {
+                final DownloadLink dlLink = cLink.getDownloadLink();
+                if (searchFor.contains(dlLink.getContainerUrl()) || searchFor.contains(dlLink.getOriginUrl())) {
+                    ret.add(cLink);
                 }
-                return ret;
             }
+            badMappings.removeAll(ret);
+            if (badMappings.size() == 0) {
+                badMappingMap.remove(badID);
+            }
+        }
+        return ret;
+    }
 
-            @Override
-            protected Void run() throws RuntimeException {
-                try {
-                    String linkID = link.getLinkID();
-                    CrawledLink existingLink = getCrawledLinkByLinkID(linkID);
-                    // give the hPLugin a chance to fix this;
-                    while (existingLink != null) {
-                        PluginForHost hPlugin = link.gethPlugin();
-                        if (hPlugin == null || !hPlugin.onLinkCollectorDupe(existingLink, link)) {
-                            break;
-                        }
-                        linkID = link.getLinkID();
-                        existingLink = getCrawledLinkByLinkID(linkID);
+    private boolean isMatchingMapping(final CrawledLink cLink, final String containerURL, final String originURL) {
+        final DownloadLink dlLink = cLink.getDownloadLink();
+        return dlLink != null && ((containerURL != null && StringUtils.equals(dlLink.getContainerUrl(), containerURL)) || (originURL != null && StringUtils.equals(dlLink.getOriginUrl(), originURL)));
+    }
+
+    private CrawledPackage getCrawledPackage(final IngestionBlock block, CrawledPackageMappingID crawledPackageMappingID, CrawledLink mappingLink) {
+        CrawledPackage ret = packageMap.get(crawledPackageMappingID);
+        if (ret == null && crawledPackageMappingID.getPackageName() == null) {
+            final String containerURL = mappingLink.getDownloadLink().getContainerUrl();
+            final String originURL = mappingLink.getDownloadLink().getOriginUrl();
+            if (containerURL != null || originURL != null) {
+                final HashMap<Integer, HashMap<CrawledPackageMappingID, CrawledPackage>> bestMappings = new HashMap<Integer, HashMap<CrawledPackageMappingID, CrawledPackage>>();
+                for (final Entry<CrawledPackageMappingID, CrawledPackage> chance : packageMap.entrySet()) {
+                    int equals = 0;
+                    if (StringUtils.equals(crawledPackageMappingID.getId(), chance.getKey().getId())) {
+                        equals++;
                     }
-                    if (existingLink != null && existingLink != link) {
-                        /* clear references */
-                        clearCrawledLinkReferences(link);
-                        eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.DUPE_LINK, link, QueuePriority.NORM));
-                        return null;
+                    if (StringUtils.equals(crawledPackageMappingID.getDownloadFolder(), chance.getKey().getDownloadFolder())) {
+                        equals++;
                     }
-                    if (info == null || info.isCollectingIDValid()) {
-                        putCrawledLinkByLinkID(linkID, link);
-                        if (link.getDownloadLink() != null) {
-                            /* set CrawledLink as changeListener to its DownloadLink */
-                            link.getDownloadLink().setNodeChangeListener(link);
+                    if (equals > 0) {
+                        HashMap<CrawledPackageMappingID, CrawledPackage> mappings = bestMappings.get(new Integer(equals));
+                        if (mappings == null) {
+                            mappings = new HashMap<CrawledPackageMappingID, CrawledPackage>();
+                            bestMappings.put(new Integer(equals), mappings);
                         }
-                        PackageInfo dpi = link.getDesiredPackageInfo();
-                        UniqueAlltimeID uID = null;
-                        String crawledPackageName = null;
-                        String crawledPackageID = null;
-                        boolean ignoreSpecialPackages = dpi != null && (dpi.isPackagizerRuleMatched() || Boolean.TRUE.equals(dpi.isIgnoreVarious()));
-                        final String downloadFolder;
-                        if (dpi != null) {
-                            crawledPackageName = dpi.getName();
-                            downloadFolder = dpi.getDestinationFolder();
-                            if (downloadFolder != null && ignoreSpecialPackages == false) {
-                                /** this regex cuts of trailing / and \ for equals check **/
-                                final String compareCustom = downloadFolder.replaceAll("(.+?)(/|\\\\)+$", "$1");
-                                String compareDefault = JsonConfig.create(GeneralSettings.class).getDefaultDownloadFolder();
-                                if (compareDefault != null) {
-                                    compareDefault = compareDefault.replaceAll("(.+?)(/|\\\\)+$", "$1");
-                                }
-                                /* check for custom downloadFolder. let's not use various package then */
-                                // if (CrossSystem.isWindows() ||
-                                // JsonConfig.create(GeneralSettings.class).isForceMirrorDetectionCaseInsensitive()) {
-                                if (CrossSystem.isWindows()) {
-                                    if (!compareCustom.equalsIgnoreCase(compareDefault)) {
-                                        ignoreSpecialPackages = true;
+                        mappings.put(chance.getKey(), chance.getValue());
+                    }
+                }
+                for (int x = 2; x > 0; x--) {
+                    HashMap<CrawledPackageMappingID, CrawledPackage> mappings = bestMappings.get(new Integer(x));
+                    if (mappings != null) {
+                        for (final Entry<CrawledPackageMappingID, CrawledPackage> mapping : mappings.entrySet()) {
+                            final CrawledPackage pkg = mapping.getValue();
+                            boolean matches = false;
+                            final boolean readL = pkg.getModifyLock().readLock();
+                            try {
+                                for (final CrawledLink cLink : pkg.getChildren()) {
+                                    if (isMatchingMapping(cLink, containerURL, originURL)) {
+                                        matches = true;
+                                        break;
                                     }
-                                } else if (!compareCustom.equals(compareDefault)) {
-                                    ignoreSpecialPackages = true;
-                                }
-                            }
-                            if ((uID = dpi.getUniqueId()) != null) {
-                                crawledPackageID = dpi.getUniqueId().toString();
-                                if (ignoreSpecialPackages && LinkCrawler.PERMANENT_OFFLINE_ID == uID) {
-                                    crawledPackageID = null;
                                 }
+                            } finally {
+                                pkg.getModifyLock().readUnlock(readL);
                             }
-                        } else {
-                            downloadFolder = null;
-                        }
-                        if (crawledPackageName == null) {
-                            final DownloadLink dlLink = link.getDownloadLink();
-                            final String fileName;
-                            if (link.isNameSet() || dlLink.isNameSet()) {
-                                fileName = link.getName();
-                            } else {
-                                fileName = LinkCrawler.getUnsafeName(link.getName(), null);
-                            }
-                            if (fileName != null) {
-                                if (AvailableLinkState.ONLINE.equals(link.getLinkState())) {
-                                    crawledPackageName = fileName;
-                                } else {
-                                    final ExtensionsFilterInterface extension = link.getLinkInfo().getExtension();
-                                    if (!"".equalsIgnoreCase(extension.name())) {
-                                        if (!DocumentExtensions.HTML.equals(extension)) {
-                                            crawledPackageName = fileName;
-                                        } else {
-                                            final String tmpFileName = fileName.replaceFirst("\\.html?$", "");
-                                            final ExtensionsFilterInterface tmpExtension = CompiledFiletypeFilter.getExtensionsFilterInterface(Files.getExtension(tmpFileName));
-                                            if (tmpExtension != null) {
-                                                crawledPackageName = tmpFileName;
-                                            }
-                                        }
+                            if (!matches) {
+                                /* links of this block are not yet added to the package */
+                                for (final CrawledLink cLink : block.getAdds(pkg)) {
+                                    if (isMatchingMapping(cLink, containerURL, originURL)) {
+                                        matches = true;
+                                        break;
                                     }
                                 }
                             }
-                            if (crawledPackageName != null) {
-                                crawledPackageName = LinknameCleaner.cleanFileName(crawledPackageName, false, false, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_ALL, true);
-                            }
-                        }
-                        if (crawledPackageName == null && link.getLinkInfo().getExtension() instanceof ArchiveExtensions) {
-                            final ExtractionExtension lArchiver = archiver;
-                            if (lArchiver != null && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.ARCHIVE_PACKAGIZER_ENABLED.isEnabled()) {
-                                final CrawledLinkFactory clf = new CrawledLinkFactory(link);
-                                final Archive archive = lArchiver.buildArchive(clf);
-                                if (archive != null && archive.getArchiveFiles().size() > 1) {
-                                    if (crawledPackageID == null) {
-                                        crawledPackageID = archive.getArchiveID();
-                                    }
-                                    if (crawledPackageName == null) {
-                                        crawledPackageName = _JDT.T.LinkCollector_archiv(LinknameCleaner.cleanFileName(archive.getName(), false, true, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_KNOWN, true));
-                                    }
+                            if (matches) {
+                                final CrawledPackageMappingID id = mapping.getKey();
+                                if (id.getPackageName() != null) {
+                                    return pkg;
+                                } else if (ret != null) {
+                                    ret = pkg;
                                 }
                             }
                         }
-                        final CrawledPackageMappingID crawledPackageMapID = new CrawledPackageMappingID(crawledPackageID, crawledPackageName, downloadFolder);
+                    }
+                }
+            }
+        }
+        return ret;
+    }
 
-                        String newPackageName = crawledPackageName;
-                        if (newPackageName == null) {
-                            newPackageName = link.getName();
-                            if (newPackageName != null) {
-                                newPackageName = LinknameCleaner.cleanFileName(newPackageName, false, true, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_ALL, true);
-                            }
-                            if (StringUtils.isEmpty(newPackageName)) {
-                                newPackageName = _JDT.T.LinkCollector_addCrawledLink_offlinepackage();
-                            }
-                        }
-                        final CrawledPackage pkg = getCrawledPackage(crawledPackageMapID, link);
-                        if (pkg == null) {
-                            if (!ignoreSpecialPackages && LinkCrawler.PERMANENT_OFFLINE_ID == uID) {
-                                /* these links will never come back online */
-                                final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
-                                add.add(link);
-                                LinkCollector.this.moveOrAddAt(getPermanentOfflineCrawledPackage(), add, -1);
-                            } else if (!ignoreSpecialPackages && link.getLinkState() == AvailableLinkState.OFFLINE && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.OFFLINE_PACKAGE_ENABLED.isEnabled()) {
-                                final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
-                                add.add(link);
-                                LinkCollector.this.moveOrAddAt(getOfflineCrawledPackage(), add, -1);
-                            } else if (!ignoreSpecialPackages && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.VARIOUS_PACKAGE_LIMIT.getValue() > 0 && CFG_LINKGRABBER.VARIOUS_PACKAGE_ENABLED.isEnabled()) {
-                                final List<CrawledLink> list;
-                                if (!crawledPackageMapID.isNull() || !AvailableLinkState.OFFLINE.equals(link.getLinkState())) {
-                                    list = getIdentifiedMap(crawledPackageMapID, variousMap);
-                                    list.add(link);
-                                } else {
-                                    list = null;
-                                }
-                                if (list != null && list.size() > org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.VARIOUS_PACKAGE_LIMIT.getValue()) {
-                                    addToNewPackage(list, newPackageName, crawledPackageMapID);
-                                } else {
-                                    final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
-                                    add.add(link);
-                                    addToExistingPackage(add, getVariousCrawledPackage(), crawledPackageMapID);
-                                }
-                            } else {
-                                final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
-                                add.add(link);
-                                addToNewPackage(add, newPackageName, crawledPackageMapID);
-                            }
+    /**
+     * @return true if the link got added, false if it is a dupe or its collecting information is no longer valid
+     */
+    private boolean ingest(final IngestionBlock block, final CrawledLink link, final LinkCollectingInformation info) {
+        String linkID = link.getLinkID();
+        CrawledLink existingLink = getCrawledLinkByLinkID(linkID);
+        // give the hPLugin a chance to fix this;
+        while (existingLink != null) {
+            PluginForHost hPlugin = link.gethPlugin();
+            if (hPlugin == null || !hPlugin.onLinkCollectorDupe(existingLink, link)) {
+                break;
+            }
+            linkID = link.getLinkID();
+            existingLink = getCrawledLinkByLinkID(linkID);
+        }
+        if (existingLink != null && existingLink != link) {
+            eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.DUPE_LINK, link, QueuePriority.NORM));
+            return false;
+        }
+        if (info != null && !info.isCollectingIDValid()) {
+            return false;
+        }
+        putCrawledLinkByLinkID(linkID, link);
+        if (link.getDownloadLink() != null) {
+            /* set CrawledLink as changeListener to its DownloadLink */
+            link.getDownloadLink().setNodeChangeListener(link);
+        }
+        PackageInfo dpi = link.getDesiredPackageInfo();
+        UniqueAlltimeID uID = null;
+        String crawledPackageName = null;
+        String crawledPackageID = null;
+        boolean ignoreSpecialPackages = dpi != null && (dpi.isPackagizerRuleMatched() || Boolean.TRUE.equals(dpi.isIgnoreVarious()));
+        final String downloadFolder;
+        if (dpi != null) {
+            crawledPackageName = dpi.getName();
+            downloadFolder = dpi.getDestinationFolder();
+            if (downloadFolder != null && ignoreSpecialPackages == false && block.isCustomDownloadFolder(downloadFolder)) {
+                /* check for custom downloadFolder. let's not use various package then */
+                ignoreSpecialPackages = true;
+            }
+            if ((uID = dpi.getUniqueId()) != null) {
+                crawledPackageID = dpi.getUniqueId().toString();
+                if (ignoreSpecialPackages && LinkCrawler.PERMANENT_OFFLINE_ID == uID) {
+                    crawledPackageID = null;
+                }
+            }
+        } else {
+            downloadFolder = null;
+        }
+        if (crawledPackageName == null) {
+            final DownloadLink dlLink = link.getDownloadLink();
+            final String fileName;
+            if (link.isNameSet() || dlLink.isNameSet()) {
+                fileName = link.getName();
+            } else {
+                fileName = LinkCrawler.getUnsafeName(link.getName(), null);
+            }
+            if (fileName != null) {
+                if (AvailableLinkState.ONLINE.equals(link.getLinkState())) {
+                    crawledPackageName = fileName;
+                } else {
+                    final ExtensionsFilterInterface extension = link.getLinkInfo().getExtension();
+                    if (!"".equalsIgnoreCase(extension.name())) {
+                        if (!DocumentExtensions.HTML.equals(extension)) {
+                            crawledPackageName = fileName;
                         } else {
-                            final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
-                            add.add(link);
-                            addToExistingPackage(add, pkg, crawledPackageMapID);
+                            final String tmpFileName = fileName.replaceFirst("\\.html?$", "");
+                            final ExtensionsFilterInterface tmpExtension = CompiledFiletypeFilter.getExtensionsFilterInterface(Files.getExtension(tmpFileName));
+                            if (tmpExtension != null) {
+                                crawledPackageName = tmpFileName;
+                            }
                         }
-                        dequeu();
-                        eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.ADDED_LINK, link, QueuePriority.NORM));
-                        autoStartManager.onLinkAdded(link);
                     }
-                    return null;
-                } catch (Throwable e) {
-                    removeCrawledLinkByLinkID(link);
-                    logger.log(e);
-                    if (e instanceof RuntimeException) {
-                        throw (RuntimeException) e;
+                }
+            }
+            if (crawledPackageName != null) {
+                crawledPackageName = LinknameCleaner.cleanFileName(crawledPackageName, false, false, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_ALL, true);
+            }
+        }
+        if (crawledPackageName == null && link.getLinkInfo().getExtension() instanceof ArchiveExtensions) {
+            final ExtractionExtension lArchiver = archiver;
+            if (lArchiver != null && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.ARCHIVE_PACKAGIZER_ENABLED.isEnabled()) {
+                final CrawledLinkFactory clf = new CrawledLinkFactory(link);
+                final Archive archive = lArchiver.buildArchive(clf);
+                if (archive != null && archive.getArchiveFiles().size() > 1) {
+                    if (crawledPackageID == null) {
+                        crawledPackageID = archive.getArchiveID();
+                    }
+                    if (crawledPackageName == null) {
+                        crawledPackageName = _JDT.T.LinkCollector_archiv(LinknameCleaner.cleanFileName(archive.getName(), false, true, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_KNOWN, true));
                     }
-                    throw new RuntimeException(e);
-                } finally {
-                    /* clear references */
-                    clearCrawledLinkReferences(link);
                 }
             }
-        });
+        }
+        final CrawledPackageMappingID crawledPackageMapID = new CrawledPackageMappingID(crawledPackageID, crawledPackageName, downloadFolder);
+
+        String newPackageName = crawledPackageName;
+        if (newPackageName == null) {
+            newPackageName = link.getName();
+            if (newPackageName != null) {
+                newPackageName = LinknameCleaner.cleanFileName(newPackageName, false, true, LinknameCleaner.EXTENSION_SETTINGS.REMOVE_ALL, true);
+            }
+            if (StringUtils.isEmpty(newPackageName)) {
+                newPackageName = _JDT.T.LinkCollector_addCrawledLink_offlinepackage();
+            }
+        }
+        final List<CrawledLink> add = new ArrayList<CrawledLink>(1);
+        add.add(link);
+        final CrawledPackage pkg = getCrawledPackage(block, crawledPackageMapID, link);
+        if (pkg == null) {
+            if (!ignoreSpecialPackages && LinkCrawler.PERMANENT_OFFLINE_ID == uID) {
+                /* these links will never come back online */
+                block.moveOrAddAt(getPermanentOfflineCrawledPackage(), add);
+            } else if (!ignoreSpecialPackages && link.getLinkState() == AvailableLinkState.OFFLINE && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.OFFLINE_PACKAGE_ENABLED.isEnabled()) {
+                block.moveOrAddAt(getOfflineCrawledPackage(), add);
+            } else if (!ignoreSpecialPackages && org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.VARIOUS_PACKAGE_LIMIT.getValue() > 0 && CFG_LINKGRABBER.VARIOUS_PACKAGE_ENABLED.isEnabled()) {
+                final List<CrawledLink> list;
+                if (!crawledPackageMapID.isNull() || !AvailableLinkState.OFFLINE.equals(link.getLinkState())) {
+                    list = getIdentifiedMap(crawledPackageMapID, variousMap);
+                    list.add(link);
+                } else {
+                    list = null;
+                }
+                if (list != null && list.size() > org.jdownloader.settings.staticreferences.CFG_LINKGRABBER.VARIOUS_PACKAGE_LIMIT.getValue()) {
+                    addToNewPackage(block, list, newPackageName, crawledPackageMapID);
+                } else {
+                    addToExistingPackage(block, add, getVariousCrawledPackage(), crawledPackageMapID);
+                }
+            } else {
+                addToNewPackage(block, add, newPackageName, crawledPackageMapID);
+            }
+        } else {
+            addToExistingPackage(block, add, pkg, crawledPackageMapID);
+        }
+        return true;
     }
 
     private CrawledPackage getPermanentOfflineCrawledPackage() {
@@ -1551,8 +1750,8 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
                                 pc.runByUrl(link);
                             }
                             applyJobCrawledLinkModifier(link, false);
-                            dequeu();
                             addCrawledLink(link);
+                            dequeu();
                         }
                         return null;
                     }
@@ -1904,6 +2103,8 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
         }
         final Iterator<CrawledPackage> iterator = fps.iterator();
         final PluginFinder pluginFinder = new PluginFinder(logger);
+        long assignDuration = 0;
+        int assignedLinks = 0;
         while (iterator.hasNext()) {
             final CrawledPackage fp = iterator.next();
             if (fp.getChildren() != null) {
@@ -1918,7 +2119,10 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
                         continue;
                     }
                     /* assign defaultPlugin matching the hostname */
+                    final long assignStart = System.nanoTime();
                     pluginFinder.assignPlugin(dlLink, true);
+                    assignDuration += System.nanoTime() - assignStart;
+                    assignedLinks++;
                 }
             }
             if (fp.getChildren() == null || fp.getChildren().size() == 0) {
@@ -1927,6 +2131,7 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
                 continue;
             }
         }
+        logger.info("Plugin assignment: " + assignedLinks + " links in " + TimeUnit.NANOSECONDS.toMillis(assignDuration) + "ms");
     }
 
     public void checkPluginUpdates() {
@@ -1986,27 +2191,6 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
         }
     }
 
-    private class LoadedPackage {
-        private CrawledPackage                      crawledPackage = null;
-        private final HashMap<Integer, CrawledLink> crawledLinks   = new HashMap<Integer, CrawledLink>();
-
-        private CrawledPackage getLoadedPackage() {
-            if (crawledPackage != null) {
-                if (crawledPackage.getChildren().size() == 0) {
-                    final List<Integer> childIndices = new ArrayList<Integer>(crawledLinks.keySet());
-                    Collections.sort(childIndices);
-                    for (final Integer childIndex : childIndices) {
-                        final CrawledLink child = crawledLinks.get(childIndex);
-                        crawledPackage.getChildren().add(child);
-                        child.setParentNode(crawledPackage);
-                    }
-                }
-                return crawledPackage;
-            }
-            return null;
-        }
-    }
-
     private LinkedList<CrawledPackage> load(File file, HashMap<CrawledPackage, CrawledPackageStorable> restoreMap) {
         try {
             return loadFile(file, restoreMap);
@@ -2048,193 +2232,89 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
         return null;
     }
 
-    public LinkedList<CrawledPackage> loadFile(File file, Map<CrawledPackage, CrawledPackageStorable> restoreMap) throws IOException {
+    public LinkedList<CrawledPackage> loadFile(File file, final Map<CrawledPackage, CrawledPackageStorable> restoreMap) throws IOException {
         LinkedList<CrawledPackage> ret = null;
         if (file != null && file.exists()) {
-            FileInputStream fis = null;
-            ZipInputStream zis = null;
+            final AtomicReference<LinkCollectorStorable> lcs = new AtomicReference<LinkCollectorStorable>();
+            final TypeRef<CrawledLinkStorable> crawledLinkStorable = new TypeRef<CrawledLinkStorable>() {
+            };
+            final TypeRef<CrawledPackageStorable> crawledPackageStorable = new TypeRef<CrawledPackageStorable>() {
+            };
+            final TypeRef<LinkCollectorStorable> linkCollectorStorable = new TypeRef<LinkCollectorStorable>() {
+            };
+            /* lets restore the CrawledPackages from Json */
+            final List<CrawledPackage> ret2;
             try {
-                fis = new FileInputStream(file);
-                zis = new ZipInputStream(fis);
-                /* lets restore the CrawledPackages from Json */
-                final HashMap<Integer, LoadedPackage> packageMap = new HashMap<Integer, LoadedPackage>();
-                LinkCollectorStorable lcs = null;
-                final TypeRef<CrawledLinkStorable> crawledLinkStorable = new TypeRef<CrawledLinkStorable>() {
-                };
-                final TypeRef<CrawledPackageStorable> crawledPackageStorable = new TypeRef<CrawledPackageStorable>() {
-                };
-                final TypeRef<LinkCollectorStorable> linkCollectorStorable = new TypeRef<LinkCollectorStorable>() {
-                };
-                ZipEntry entry = null;
-                final ZipInputStream finalZis = zis;
-                final InputStream entryInputStream = new InputStream() {
+                ret2 = new PackageControllerListLoader<CrawledPackage, CrawledLink>(logger) {
 
                     @Override
-                    public int read() throws IOException {
-                        return finalZis.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        return finalZis.read(b, off, len);
-                    }
-
-                    @Override
-                    public long skip(long n) throws IOException {
-                        return finalZis.skip(n);
-                    }
-
-                    @Override
-                    public int available() throws IOException {
-                        return finalZis.available();
-                    }
-
-                    @Override
-                    public boolean markSupported() {
-                        return false;
+                    protected CrawledPackage restorePackage(InputStream is) throws Exception {
+                        final CrawledPackageStorable storable = JSonStorage.getMapper().inputStreamToObject(is, crawledPackageStorable);
+                        if (storable != null) {
+                            if (restoreMap != null) {
+                                synchronized (restoreMap) {
+                                    restoreMap.put(storable._getCrawledPackage(), storable);
+                                }
+                            }
+                            return storable._getCrawledPackage();
+                        }
+                        return null;
                     }
 
                     @Override
-                    public void close() throws IOException {
+                    protected CrawledLink restoreChild(InputStream is) throws Exception {
+                        final CrawledLinkStorable storable = JSonStorage.getMapper().inputStreamToObject(is, crawledLinkStorable);
+                        return storable != null ? storable._getCrawledLink() : null;
                     }
 
                     @Override
-                    public synchronized void mark(int readlimit) {
+                    protected void restoreExtraInfo(InputStream is) throws Exception {
+                        lcs.set(JSonStorage.getMapper().inputStreamToObject(is, linkCollectorStorable));
                     }
-                };
-                int entries = 0;
-                final Pattern entryType = Pattern.compile("(\\d+)(?:_(\\d+))?|extraInfo", Pattern.CASE_INSENSITIVE);
-                while ((entry = zis.getNextEntry()) != null) {
-                    try {
-                        entries++;
-                        final Matcher entryName = entryType.matcher(entry.getName());
-                        if (entryName.matches()) {
-                            if (entryName.group(2) != null) {
-                                // \\d+_\\d+ CrawledLinkStorable
-                                final Integer packageIndex = Integer.valueOf(entryName.group(1));
-                                final Integer childIndex = Integer.valueOf(entryName.group(2));
-                                LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                                if (loadedPackage == null) {
-                                    loadedPackage = new LoadedPackage();
-                                    packageMap.put(packageIndex, loadedPackage);
-                                }
-                                final CrawledLinkStorable storable = JSonStorage.getMapper().inputStreamToObject(entryInputStream, crawledLinkStorable);
-                                if (storable != null) {
-                                    loadedPackage.crawledLinks.put(childIndex, storable._getCrawledLink());
-                                } else {
-                                    throw new WTFException("restored a null CrawledLinkStorable");
-                                }
-                            } else if (entryName.group(1) != null) {
-                                // \\d+ CrawledPackageStorable
-                                final Integer packageIndex = Integer.valueOf(entry.getName());
-                                final CrawledPackageStorable storable = JSonStorage.getMapper().inputStreamToObject(entryInputStream, crawledPackageStorable);
-                                if (storable != null) {
-                                    LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                                    if (loadedPackage == null) {
-                                        loadedPackage = new LoadedPackage();
-                                        packageMap.put(packageIndex, loadedPackage);
-                                    }
-                                    loadedPackage.crawledPackage = storable._getCrawledPackage();
-                                    if (restoreMap != null) {
-                                        restoreMap.put(storable._getCrawledPackage(), storable);
-                                    }
-                                } else {
-                                    throw new WTFException("restored a null CrawledPackageStorable");
+                }.load(file);
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw new IOException(e);
+            }
+            if (lcs.get() != null && JsonConfig.create(GeneralSettings.class).isConvertRelativePathsJDRoot()) {
+                try {
+                    final String oldRootPath = lcs.get().getRootPath();
+                    if (!StringUtils.isEmpty(oldRootPath)) {
+                        final String newRoot = JDUtilities.getJDHomeDirectoryFromEnvironment().getAbsolutePath();
+                        if (!oldRootPath.equals(newRoot)) {
+                            /*
+                             * convert paths relative to JDownloader root,only in jared version
+                             */
+                            for (final CrawledPackage pkg : ret2) {
+                                if (!CrossSystem.isAbsolutePath(pkg.getDownloadFolder())) {
+                                    /* no need to convert relative paths */
+                                    continue;
                                 }
-                            } else {
-                                // extraInfo
-                                lcs = JSonStorage.getMapper().inputStreamToObject(entryInputStream, linkCollectorStorable);
-                            }
-                        }
-                    } catch (final Throwable e) {
-                        logger.log(e);
-                        if (entry != null) {
-                            logger.info("Entry:" + entry + "|Size:" + entry.getSize() + "|Compressed Size:" + entry.getCompressedSize());
-                        }
-                        throw e;
-                    }
-                }
-                if (entries == 0) {
-                    throw new WTFException("Empty/Invalid Zip:" + file + "|Size:" + file.length());
-                }
-                /* sort positions */
-                final List<Integer> packageIndices = new ArrayList<Integer>(packageMap.keySet());
-                Collections.sort(packageIndices);
-                /* build final ArrayList of CrawledPackage */
-                final List<CrawledPackage> ret2 = new ArrayList<CrawledPackage>(packageIndices.size());
-                for (final Integer packageIndex : packageIndices) {
-                    final LoadedPackage loadedPackage = packageMap.get(packageIndex);
-                    final CrawledPackage crawledPackage = loadedPackage.getLoadedPackage();
-                    if (crawledPackage != null) {
-                        ret2.add(crawledPackage);
-                    } else {
-                        throw new WTFException("CrawledPackage at Index " + packageIndex + " is missing!");
-                    }
-                }
-                if (lcs != null && JsonConfig.create(GeneralSettings.class).isConvertRelativePathsJDRoot()) {
-                    try {
-                        final String oldRootPath = lcs.getRootPath();
-                        if (!StringUtils.isEmpty(oldRootPath)) {
-                            final String newRoot = JDUtilities.getJDHomeDirectoryFromEnvironment().getAbsolutePath();
-                            if (!oldRootPath.equals(newRoot)) {
-                                /*
-                                 * convert paths relative to JDownloader root,only in jared version
-                                 */
-                                for (final CrawledPackage pkg : ret2) {
-                                    if (!CrossSystem.isAbsolutePath(pkg.getDownloadFolder())) {
-                                        /* no need to convert relative paths */
-                                        continue;
-                                    }
-                                    final String pkgPath = LinkTreeUtils.getDownloadDirectory(pkg).toString();
-                                    if (pkgPath.startsWith(oldRootPath + "/") || pkgPath.startsWith(oldRootPath + "\\")) {
-                                        /*
-                                         * folder is inside JDRoot, lets update it
-                                         */
-                                        String restPath = pkgPath.substring(oldRootPath.length());
-                                        // cut of leading path seperator
-                                        restPath = restPath.replaceFirst("^(/+|\\\\+)", "");
-                                        // fix path seperators
-                                        restPath = CrossSystem.fixPathSeparators(restPath);
-                                        final String newPath = new File(newRoot, restPath).toString();
-                                        if (!StringUtils.equals(pkgPath, newPath)) {
-                                            pkg.setDownloadFolder(newPath);
-                                        }
+                                final String pkgPath = LinkTreeUtils.getDownloadDirectory(pkg).toString();
+                                if (pkgPath.startsWith(oldRootPath + "/") || pkgPath.startsWith(oldRootPath + "\\")) {
+                                    /*
+                                     * folder is inside JDRoot, lets update it
+                                     */
+                                    String restPath = pkgPath.substring(oldRootPath.length());
+                                    // cut of leading path seperator
+                                    restPath = restPath.replaceFirst("^(/+|\\\\+)", "");
+                                    // fix path seperators
+                                    restPath = CrossSystem.fixPathSeparators(restPath);
+                                    final String newPath = new File(newRoot, restPath).toString();
+                                    if (!StringUtils.equals(pkgPath, newPath)) {
+                                        pkg.setDownloadFolder(newPath);
                                     }
                                 }
                             }
                         }
-                    } catch (final Throwable e) {
-                        /* this method can throw exceptions, eg in SVN */
-                        logger.log(e);
                     }
-                }
-                ret = new LinkedList<CrawledPackage>(ret2);
-            } catch (final Throwable e) {
-                try {
-                    if (zis != null) {
-                        zis.close();
-                        zis = null;
-                        fis = null;
-                    } else if (fis != null) {
-                        fis.close();
-                        fis = null;
-                    }
-                } catch (final Throwable ignore) {
-                }
-                if (e instanceof IOException) {
-                    throw (IOException) e;
-                }
-                throw new IOException(e);
-            } finally {
-                try {
-                    if (zis != null) {
-                        zis.close();
-                    } else if (fis != null) {
-                        fis.close();
-                    }
-                } catch (final Throwable ignore) {
+                } catch (final Throwable e) {
+                    /* this method can throw exceptions, eg in SVN */
+                    logger.log(e);
                 }
             }
+            ret = new LinkedList<CrawledPackage>(ret2);
         }
         return ret;
     }
@@ -2484,6 +2564,7 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
         super.nodeUpdated(source, notify, param);
         switch (notify) {
         case PROPERTY_CHANCE:
+            index.onChildUpdated(source);
             if (param instanceof CrawledLinkProperty) {
                 CrawledLinkProperty eventPropery = (CrawledLinkProperty) param;
                 switch (eventPropery.getProperty()) {
@@ -2505,6 +2586,12 @@ public class LinkCollector extends PackageController<CrawledPackage, CrawledLink
 
     @Override
     protected void _controllerPackageNodeStructureChanged(CrawledPackage pkg, QueuePriority priority) {
+        final IngestionBlock block = ingestionBlock;
+        if (block != null) {
+            /* coalesced, fired once at the end of the ingestion block */
+            block.structureChanged = true;
+            return;
+        }
         eventsender.fireEvent(new LinkCollectorEvent(LinkCollector.this, LinkCollectorEvent.TYPE.REFRESH_STRUCTURE, pkg, priority));
     }
 
@@ -3,9 +3,11 @@ package jd.controlling.linkcollector;
 import org.appwork.storage.config.ConfigInterface;
 import org.appwork.storage.config.annotations.AboutConfig;
 import org.appwork.storage.config.annotations.DefaultBooleanValue;
+import org.appwork.storage.config.annotations.DefaultIntValue;
 import org.appwork.storage.config.annotations.DefaultLongValue;
 import org.appwork.storage.config.annotations.DescriptionForConfigEntry;
 import org.appwork.storage.config.annotations.RequiresRestart;
+import org.appwork.storage.config.annotations.SpinnerValidator;
 
 public interface LinkCollectorConfig extends ConfigInterface {
 
@@ -46,4 +48,12 @@ public interface LinkCollectorConfig extends ConfigInterface {
 
     void setMaximumSaveDelay(long delay);
 
+    @AboutConfig
+    @DefaultIntValue(500)
+    @SpinnerValidator(min = 1, max = 10000)
+    @DescriptionForConfigEntry("max. number of crawled links added to the linkcollector within one block")
+    int getIngestionBlockSize();
+
+    void setIngestionBlockSize(int size);
+
 }
\ No newline at end of file
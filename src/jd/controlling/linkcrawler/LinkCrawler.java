@@ -15,7 +15,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -82,6 +81,7 @@ import org.jdownloader.images.AbstractIcon;
 import org.jdownloader.logging.LogController;
 import org.jdownloader.plugins.controller.LazyPlugin;
 import org.jdownloader.plugins.controller.LazyPluginClass;
+import org.jdownloader.plugins.controller.LazyPluginDispatchIndex;
 import org.jdownloader.plugins.controller.PluginClassLoader;
 import org.jdownloader.plugins.controller.PluginClassLoader.PluginClassLoaderChild;
 import org.jdownloader.plugins.controller.UpdateRequiredClassNotFoundException;
@@ -144,6 +144,11 @@ public class LinkCrawler {
     private final String                                   defaultDownloadFolder;
     private final AtomicReference<List<LazyCrawlerPlugin>> sortedLazyCrawlerPlugins    = new AtomicReference<List<LazyCrawlerPlugin>>();
     private final AtomicReference<List<LazyHostPlugin>>    sortedLazyHostPlugins       = new AtomicReference<List<LazyHostPlugin>>();
+    private final AtomicReference<LazyPluginDispatchIndex<LazyCrawlerPlugin>> lazyCrawlerPluginDispatchIndex = new AtomicReference<LazyPluginDispatchIndex<LazyCrawlerPlugin>>();
+    private final AtomicReference<LazyPluginDispatchIndex<LazyHostPlugin>>    lazyHostPluginDispatchIndex    = new AtomicReference<LazyPluginDispatchIndex<LazyHostPlugin>>();
+    /* built once per plugin set, the per crawler indexes above are views for their sort order */
+    private static final AtomicReference<LazyPluginDispatchIndex<LazyCrawlerPlugin>> CRAWLER_PLUGIN_DISPATCH_INDEX = new AtomicReference<LazyPluginDispatchIndex<LazyCrawlerPlugin>>();
+    private static final AtomicReference<LazyPluginDispatchIndex<LazyHostPlugin>>    HOST_PLUGIN_DISPATCH_INDEX    = new AtomicReference<LazyPluginDispatchIndex<LazyHostPlugin>>();
 
     private final List<LinkCrawlerRule>                    linkCrawlerRules;
     private LinkCrawlerDeepInspector                       deepInspector               = null;
@@ -1472,16 +1477,16 @@ public class LinkCrawler {
                                 /*
                                  * first we will walk through all available decrypter plugins
                                  */
-                                final List<LazyCrawlerPlugin> lazyCrawlerPlugins = getSortedLazyCrawlerPlugins();
-                                final ListIterator<LazyCrawlerPlugin> it = lazyCrawlerPlugins.listIterator();
-                                loop: while (it.hasNext()) {
-                                    final LazyCrawlerPlugin pDecrypt = it.next();
+                                final LazyPluginDispatchIndex<LazyCrawlerPlugin> dispatchIndex = getLazyCrawlerPluginDispatchIndex();
+                                final List<LazyCrawlerPlugin> lazyCrawlerPlugins = dispatchIndex.getPlugins();
+                                loop: for (final int position : dispatchIndex.getCandidates(url)) {
+                                    final LazyCrawlerPlugin pDecrypt = lazyCrawlerPlugins.get(position);
                                     final DISTRIBUTE ret = distributePluginForDecrypt(pDecrypt, generation, url, possibleCryptedLink);
                                     switch (ret) {
                                     case STOP:
                                         return;
                                     case NEXT:
-                                        if (it.previousIndex() > lazyCrawlerPlugins.size() / 50) {
+                                        if (position > lazyCrawlerPlugins.size() / 50) {
                                             resetSortedLazyCrawlerPlugins(lazyCrawlerPlugins);
                                         }
                                         continue mainloop;
@@ -1492,16 +1497,16 @@ public class LinkCrawler {
                             }
                             {
                                 /* now we will walk through all available hoster plugins */
-                                final List<LazyHostPlugin> sortedLazyHostPlugins = getSortedLazyHostPlugins();
-                                final ListIterator<LazyHostPlugin> it = sortedLazyHostPlugins.listIterator();
-                                loop: while (it.hasNext()) {
-                                    final LazyHostPlugin pHost = it.next();
+                                final LazyPluginDispatchIndex<LazyHostPlugin> dispatchIndex = getLazyHostPluginDispatchIndex();
+                                final List<LazyHostPlugin> sortedLazyHostPlugins = dispatchIndex.getPlugins();
+                                loop: for (final int position : dispatchIndex.getCandidates(url)) {
+                                    final LazyHostPlugin pHost = sortedLazyHostPlugins.get(position);
                                     final DISTRIBUTE ret = distributePluginForHost(pHost, generation, url, possibleCryptedLink);
                                     switch (ret) {
                                     case STOP:
                                         return;
                                     case NEXT:
-                                        if (it.previousIndex() > sortedLazyHostPlugins.size() / 50) {
+                                        if (position > sortedLazyHostPlugins.size() / 50) {
                                             resetSortedLazyHostPlugins(sortedLazyHostPlugins);
                                         }
                                         continue mainloop;
@@ -1852,6 +1857,55 @@ public class LinkCrawler {
         return ret;
     }
 
+    /**
+     * @return {@link LazyPluginDispatchIndex} for the current {@link #getSortedLazyCrawlerPlugins()}
+     */
+    protected LazyPluginDispatchIndex<LazyCrawlerPlugin> getLazyCrawlerPluginDispatchIndex() {
+        final LinkCrawler parent = getParent();
+        if (parent != null) {
+            return parent.getLazyCrawlerPluginDispatchIndex();
+        }
+        final List<LazyCrawlerPlugin> plugins = getSortedLazyCrawlerPlugins();
+        LazyPluginDispatchIndex<LazyCrawlerPlugin> ret = lazyCrawlerPluginDispatchIndex.get();
+        if (ret == null || ret.getPlugins() != plugins) {
+            final List<LazyCrawlerPlugin> source = CrawlerPluginController.getInstance().list();
+            ret = getDispatchIndex(CRAWLER_PLUGIN_DISPATCH_INDEX, source, source).sortedBy(plugins);
+            lazyCrawlerPluginDispatchIndex.set(ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return {@link LazyPluginDispatchIndex} for the current {@link #getSortedLazyHostPlugins()}
+     */
+    protected LazyPluginDispatchIndex<LazyHostPlugin> getLazyHostPluginDispatchIndex() {
+        final LinkCrawler parent = getParent();
+        if (parent != null) {
+            return parent.getLazyHostPluginDispatchIndex();
+        }
+        final List<LazyHostPlugin> plugins = getSortedLazyHostPlugins();
+        LazyPluginDispatchIndex<LazyHostPlugin> ret = lazyHostPluginDispatchIndex.get();
+        if (ret == null || ret.getPlugins() != plugins) {
+            final Map<String, LazyHostPlugin> source = HostPluginController.getInstance().ensureLoaded();
+            ret = getDispatchIndex(HOST_PLUGIN_DISPATCH_INDEX, source, source.values()).sortedBy(plugins);
+            lazyHostPluginDispatchIndex.set(ret);
+        }
+        return ret;
+    }
+
+    /**
+     * @return the shared index of the given plugin set, rebuilt when the plugins have been reloaded or the setting has changed
+     */
+    private static <T extends LazyPlugin<?>> LazyPluginDispatchIndex<T> getDispatchIndex(final AtomicReference<LazyPluginDispatchIndex<T>> cache, final Object source, final Collection<T> plugins) {
+        final boolean enabled = CONFIG.isPluginDispatchIndexEnabled();
+        LazyPluginDispatchIndex<T> ret = cache.get();
+        if (ret == null || !ret.isIndexOf(source, enabled)) {
+            ret = new LazyPluginDispatchIndex<T>(new ArrayList<T>(plugins), enabled, source);
+            cache.set(ret);
+        }
+        return ret;
+    }
+
     protected boolean resetSortedLazyCrawlerPlugins(List<LazyCrawlerPlugin> resetSortedLazyCrawlerPlugins) {
         final LinkCrawler parent = getParent();
         if (parent != null) {
@@ -84,4 +84,11 @@ public interface LinkCrawlerConfig extends ConfigInterface {
 
     public void setAutoImportContainer(boolean b);
 
+    @AboutConfig
+    @DefaultBooleanValue(true)
+    @DescriptionForConfigEntry("use a host/domain index of all plugin patterns to find the plugins that might handle an url instead of testing each plugin pattern")
+    boolean isPluginDispatchIndexEnabled();
+
+    void setPluginDispatchIndexEnabled(boolean b);
+
 }
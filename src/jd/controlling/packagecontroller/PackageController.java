@@ -32,6 +32,27 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
         return backendChanged.get();
     }
 
+    /**
+     * @return index over the children that is kept up to date by this PackageController, null for none
+     */
+    public PackageControllerIndex<PackageType, ChildType> getIndex() {
+        return null;
+    }
+
+    private void indexPackagesChanged() {
+        final PackageControllerIndex<PackageType, ChildType> index = getIndex();
+        if (index != null) {
+            index.onPackagesChanged();
+        }
+    }
+
+    private void indexChildrenChanged(final PackageType pkg) {
+        final PackageControllerIndex<PackageType, ChildType> index = getIndex();
+        if (index != null) {
+            index.onChildrenChanged(pkg);
+        }
+    }
+
     protected final AtomicLong                                contentChanged             = new AtomicLong(System.currentTimeMillis());
 
     protected final LogSource                                 logger                     = LogController.CL();
@@ -197,6 +218,7 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                     } catch (final Throwable e) {
                         LogController.CL(true).log(e);
                     }
+                    indexChildrenChanged(pkg);
                     structureChanged.set(backendChanged.incrementAndGet());
                     _controllerPackageNodeStructureChanged(pkg, this.getQueuePrio());
                     return null;
@@ -276,6 +298,7 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                     } finally {
                         writeUnlock();
                     }
+                    indexPackagesChanged();
                     getMapLock().writeLock();
                     try {
                         /*
@@ -390,6 +413,10 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                         }
                     }
                     if (removed) {
+                        final PackageControllerIndex<PackageType, ChildType> index = controller.getIndex();
+                        if (index != null) {
+                            index.onPackageRemoved(pkg);
+                        }
                         final List<ChildType> remove = getChildrenCopy(pkg);
                         getMapLock().writeLock();
                         try {
@@ -727,6 +754,7 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                         pkg.getModifyLock().writeUnlock();
                         pkg.nodeUpdated(pkg, NOTIFY.STRUCTURE_CHANCE, null);
                     }
+                    indexChildrenChanged(pkg);
                     getMapLock().writeLock();
                     try {
                         for (ChildType child : elementsToMove) {
@@ -803,6 +831,12 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                             pkg.nodeUpdated(pkg, NOTIFY.STRUCTURE_CHANCE, null);
                         }
                     }
+                    if (notifyStructureChanges) {
+                        final PackageControllerIndex<PackageType, ChildType> index = controller.getIndex();
+                        if (index != null) {
+                            index.onChildrenChanged(pkg);
+                        }
+                    }
                     if (links.size() > 0) {
                         final long version = backendChanged.incrementAndGet();
                         controller.structureChanged.set(version);
@@ -1030,6 +1064,7 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                                     pkg.getModifyLock().writeUnlock();
                                     pkg.nodeUpdated(pkg, NOTIFY.STRUCTURE_CHANCE, null);
                                 }
+                                indexChildrenChanged(pkg);
                             }
                         } finally {
                             structureChanged.set(backendChanged.incrementAndGet());
@@ -1042,6 +1077,7 @@ public abstract class PackageController<PackageType extends AbstractPackageNode<
                     } finally {
                         writeUnlock();
                     }
+                    indexPackagesChanged();
                     structureChanged.set(backendChanged.incrementAndGet());
                     if (sortPackages) {
                         for (final PackageType pkg : lpackages) {
@@ -0,0 +1,471 @@
+package jd.controlling.packagecontroller;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * secondary indexes(host, job and state) over the children of a PackageController. every package has its own index, the children are
+ * indexed by their position in the package. the PackageController drops the index of a package whenever its children change(see
+ * {@link #onChildrenChanged(AbstractPackageNode)}), so only changed packages are reindexed on the next query. the state index is updated
+ * incrementally by {@link #onChildUpdated(AbstractNode)}
+ */
+public abstract class PackageControllerIndex<PackageType extends AbstractPackageNode<ChildType, PackageType>, ChildType extends AbstractPackageChildrenNode<PackageType>> {
+
+    public static class Query<ChildType extends AbstractPackageChildrenNode<?>> {
+        private long[]                                       packageUUIDs = null;
+        private long[]                                       jobUUIDs     = null;
+        private String[]                                     hosts        = null;
+        private Object[]                                     states       = null;
+        private AbstractPackageChildrenNodeFilter<ChildType> filter       = null;
+        private Comparator<ChildType>                        comparator   = null;
+        private int                                          startAt      = 0;
+        private int                                          maxResults   = -1;
+
+        public long[] getPackageUUIDs() {
+            return packageUUIDs;
+        }
+
+        public void setPackageUUIDs(long[] packageUUIDs) {
+            this.packageUUIDs = packageUUIDs;
+        }
+
+        public long[] getJobUUIDs() {
+            return jobUUIDs;
+        }
+
+        public void setJobUUIDs(long[] jobUUIDs) {
+            this.jobUUIDs = jobUUIDs;
+        }
+
+        public String[] getHosts() {
+            return hosts;
+        }
+
+        public void setHosts(String[] hosts) {
+            this.hosts = hosts;
+        }
+
+        public Object[] getStates() {
+            return states;
+        }
+
+        /**
+         * @param states
+         *            accepted states, see {@link PackageControllerIndex#getState(AbstractPackageChildrenNode)}
+         */
+        public void setStates(Object[] states) {
+            this.states = states;
+        }
+
+        public AbstractPackageChildrenNodeFilter<ChildType> getFilter() {
+            return filter;
+        }
+
+        /**
+         * @param filter
+         *            additional filter for the indexed candidates, returnMaxResults is ignored
+         */
+        public void setFilter(AbstractPackageChildrenNodeFilter<ChildType> filter) {
+            this.filter = filter;
+        }
+
+        public Comparator<ChildType> getComparator() {
+            return comparator;
+        }
+
+        /**
+         * @param comparator
+         *            sort order of the results, null for list order
+         */
+        public void setComparator(Comparator<ChildType> comparator) {
+            this.comparator = comparator;
+        }
+
+        public int getStartAt() {
+            return startAt;
+        }
+
+        public void setStartAt(int startAt) {
+            this.startAt = startAt;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        /**
+         * @param maxResults
+         *            max results, -1 for all
+         */
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+
+    private class PackageIndex {
+        private final List<ChildType>                     children;
+        private final IdentityHashMap<ChildType, Integer> positions;
+        private final HashMap<String, BitSet>             hostIndex  = new HashMap<String, BitSet>();
+        private final HashMap<Long, BitSet>               jobIndex   = new HashMap<Long, BitSet>();
+        /* guarded by this */
+        private final Object[]                            states;
+        private final HashMap<Object, BitSet>             stateIndex = new HashMap<Object, BitSet>();
+
+        private PackageIndex(final PackageType pkg) {
+            final boolean readL = pkg.getModifyLock().readLock();
+            try {
+                children = new ArrayList<ChildType>(pkg.getChildren());
+            } finally {
+                pkg.getModifyLock().readUnlock(readL);
+            }
+            positions = new IdentityHashMap<ChildType, Integer>(children.size());
+            states = new Object[children.size()];
+            for (int position = 0; position < children.size(); position++) {
+                final ChildType child = children.get(position);
+                positions.put(child, position);
+                set(hostIndex, toHostKey(getHost(child)), position);
+                set(jobIndex, getJobID(child), position);
+                final Object state = getState(child);
+                states[position] = state;
+                set(stateIndex, state, position);
+            }
+        }
+
+        /**
+         * updates the states that have changed before this index has been published
+         */
+        private synchronized void refreshStates() {
+            for (int position = 0; position < children.size(); position++) {
+                updateState(position);
+            }
+        }
+
+        private synchronized void updateState(final int position) {
+            final Object state = getState(children.get(position));
+            final Object oldState = states[position];
+            if (state == oldState || (state != null && state.equals(oldState))) {
+                return;
+            }
+            final BitSet oldStates = stateIndex.get(oldState);
+            if (oldStates != null) {
+                oldStates.clear(position);
+            }
+            states[position] = state;
+            set(stateIndex, state, position);
+        }
+
+        private synchronized BitSet getStates(final Object[] states) {
+            final BitSet ret = new BitSet();
+            for (final Object state : states) {
+                final BitSet positions = stateIndex.get(state);
+                if (positions != null) {
+                    ret.or(positions);
+                }
+            }
+            return ret;
+        }
+    }
+
+    private class PackageList {
+        private final List<PackageType>      packages;
+        private final HashMap<Long, Integer> packageIndex = new HashMap<Long, Integer>();
+
+        private PackageList(final List<PackageType> packages) {
+            this.packages = Collections.unmodifiableList(packages);
+            for (int index = 0; index < packages.size(); index++) {
+                packageIndex.put(packages.get(index).getUniqueID().getID(), index);
+            }
+        }
+    }
+
+    private final PackageController<PackageType, ChildType>  controller;
+    /* guarded by this */
+    private final IdentityHashMap<PackageType, PackageIndex> packageIndexes = new IdentityHashMap<PackageType, PackageIndex>();
+    private volatile PackageList                             packageList    = null;
+    /* incremented by every change notification, indexes built meanwhile are not cached. guarded by this */
+    private long                                             modifications  = 0;
+
+    public PackageControllerIndex(PackageController<PackageType, ChildType> controller) {
+        this.controller = controller;
+    }
+
+    protected abstract String getHost(ChildType child);
+
+    protected abstract long getJobID(ChildType child);
+
+    /**
+     * @return the indexed state of the child, eg FinalLinkState or AvailableLinkState. may be null
+     */
+    protected abstract Object getState(ChildType child);
+
+    private static <T> void set(final Map<T, BitSet> index, final T key, final int position) {
+        BitSet positions = index.get(key);
+        if (positions == null) {
+            positions = new BitSet();
+            index.put(key, positions);
+        }
+        positions.set(position);
+    }
+
+    private static String toHostKey(final String host) {
+        return host == null ? null : host.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * called by the PackageController after packages have been added, removed or moved
+     */
+    public synchronized void onPackagesChanged() {
+        modifications++;
+        packageList = null;
+    }
+
+    /**
+     * called by the PackageController after children of the package have been added, removed or moved
+     */
+    public synchronized void onChildrenChanged(final PackageType pkg) {
+        modifications++;
+        packageIndexes.remove(pkg);
+    }
+
+    /**
+     * called by the PackageController after the package has been removed
+     */
+    public synchronized void onPackageRemoved(final PackageType pkg) {
+        modifications++;
+        packageIndexes.remove(pkg);
+        packageList = null;
+    }
+
+    /**
+     * updates the state index of the given node, called for every property change
+     */
+    public void onChildUpdated(final AbstractNode node) {
+        if (!(node instanceof AbstractPackageChildrenNode)) {
+            return;
+        }
+        final Object parent = ((AbstractPackageChildrenNode<?>) node).getParentNode();
+        final PackageIndex packageIndex;
+        synchronized (this) {
+            packageIndex = packageIndexes.get(parent);
+        }
+        if (packageIndex != null) {
+            final Integer position = packageIndex.positions.get(node);
+            if (position != null) {
+                packageIndex.updateState(position.intValue());
+            }
+        }
+    }
+
+    private PackageList getPackageList() {
+        PackageList ret = packageList;
+        if (ret != null) {
+            return ret;
+        }
+        final long modifications;
+        synchronized (this) {
+            modifications = this.modifications;
+        }
+        final boolean readL = controller.readLock();
+        try {
+            ret = new PackageList(new ArrayList<PackageType>(controller.getPackages()));
+        } finally {
+            controller.readUnlock(readL);
+        }
+        synchronized (this) {
+            if (modifications == this.modifications) {
+                packageList = ret;
+            }
+        }
+        return ret;
+    }
+
+    private PackageIndex getPackageIndex(final PackageType pkg) {
+        final long modifications;
+        synchronized (this) {
+            final PackageIndex ret = packageIndexes.get(pkg);
+            if (ret != null) {
+                return ret;
+            }
+            modifications = this.modifications;
+        }
+        final PackageIndex ret = new PackageIndex(pkg);
+        synchronized (this) {
+            if (modifications == this.modifications && pkg.getControlledBy() == controller) {
+                packageIndexes.put(pkg, ret);
+            }
+        }
+        /* states are initialized before publishing, changes until now have not been seen by onChildUpdated */
+        ret.refreshStates();
+        return ret;
+    }
+
+    /**
+     * @return unmodifiable list of all packages in list order
+     */
+    public List<PackageType> getPackages() {
+        return getPackageList().packages;
+    }
+
+    /**
+     * @return the packages with the given uuids in list order, all packages for null or empty uuids
+     */
+    public List<PackageType> getPackages(final long[] packageUUIDs) {
+        final PackageList packageList = getPackageList();
+        if (packageUUIDs == null || packageUUIDs.length == 0) {
+            return packageList.packages;
+        }
+        final BitSet indexes = new BitSet();
+        for (final long packageUUID : packageUUIDs) {
+            final Integer index = packageList.packageIndex.get(packageUUID);
+            if (index != null) {
+                indexes.set(index.intValue());
+            }
+        }
+        final List<PackageType> ret = new ArrayList<PackageType>(indexes.cardinality());
+        for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1)) {
+            ret.add(packageList.packages.get(index));
+        }
+        return ret;
+    }
+
+    /**
+     * @return number of children
+     */
+    public int size() {
+        int ret = 0;
+        for (final PackageType pkg : getPackages()) {
+            ret += getPackageIndex(pkg).children.size();
+        }
+        return ret;
+    }
+
+    /**
+     * @return number of children matching the given query, startAt, maxResults and comparator are ignored
+     */
+    public int count(final Query<ChildType> query) {
+        final AbstractPackageChildrenNodeFilter<ChildType> filter = query.getFilter();
+        int ret = 0;
+        for (final PackageType pkg : getPackages(query.getPackageUUIDs())) {
+            final PackageIndex packageIndex = getPackageIndex(pkg);
+            final BitSet candidates = getCandidates(packageIndex, query);
+            if (filter == null) {
+                ret += candidates.cardinality();
+            } else {
+                for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+                    if (filter.acceptNode(packageIndex.children.get(position))) {
+                        ret++;
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @return the requested page of children matching the given query. without comparator only the packages up to the end of the page
+     *         are visited
+     */
+    public List<ChildType> query(final Query<ChildType> query) {
+        final AbstractPackageChildrenNodeFilter<ChildType> filter = query.getFilter();
+        final Comparator<ChildType> comparator = query.getComparator();
+        final int startAt = Math.max(0, query.getStartAt());
+        final int maxResults = query.getMaxResults() < 0 ? Integer.MAX_VALUE : query.getMaxResults();
+        final List<ChildType> ret = new ArrayList<ChildType>();
+        if (maxResults == 0) {
+            return ret;
+        }
+        if (comparator == null) {
+            int skip = startAt;
+            for (final PackageType pkg : getPackages(query.getPackageUUIDs())) {
+                final PackageIndex packageIndex = getPackageIndex(pkg);
+                final BitSet candidates = getCandidates(packageIndex, query);
+                if (filter == null && skip >= candidates.cardinality()) {
+                    skip -= candidates.cardinality();
+                    continue;
+                }
+                for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+                    final ChildType child = packageIndex.children.get(position);
+                    if (filter != null && !filter.acceptNode(child)) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    ret.add(child);
+                    if (ret.size() >= maxResults) {
+                        return ret;
+                    }
+                }
+            }
+            return ret;
+        }
+        final List<ChildType> matches = new ArrayList<ChildType>();
+        for (final PackageType pkg : getPackages(query.getPackageUUIDs())) {
+            final PackageIndex packageIndex = getPackageIndex(pkg);
+            final BitSet candidates = getCandidates(packageIndex, query);
+            for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+                final ChildType child = packageIndex.children.get(position);
+                if (filter == null || filter.acceptNode(child)) {
+                    matches.add(child);
+                }
+            }
+        }
+        if (startAt >= matches.size()) {
+            return ret;
+        }
+        Collections.sort(matches, comparator);
+        ret.addAll(matches.subList(startAt, (int) Math.min(matches.size(), (long) startAt + maxResults)));
+        return ret;
+    }
+
+    private BitSet getCandidates(final PackageIndex packageIndex, final Query<ChildType> query) {
+        BitSet ret = null;
+        final long[] jobUUIDs = query.getJobUUIDs();
+        if (jobUUIDs != null && jobUUIDs.length > 0) {
+            final BitSet jobs = new BitSet();
+            for (final long jobUUID : jobUUIDs) {
+                final BitSet positions = packageIndex.jobIndex.get(jobUUID);
+                if (positions != null) {
+                    jobs.or(positions);
+                }
+            }
+            ret = jobs;
+        }
+        final String[] hosts = query.getHosts();
+        if (hosts != null && hosts.length > 0) {
+            final BitSet hostPositions = new BitSet();
+            for (final String host : hosts) {
+                final BitSet positions = packageIndex.hostIndex.get(toHostKey(host));
+                if (positions != null) {
+                    hostPositions.or(positions);
+                }
+            }
+            ret = and(ret, hostPositions);
+        }
+        final Object[] states = query.getStates();
+        if (states != null) {
+            ret = and(ret, packageIndex.getStates(states));
+        }
+        if (ret == null) {
+            ret = new BitSet(packageIndex.children.size());
+            ret.set(0, packageIndex.children.size());
+        }
+        return ret;
+    }
+
+    private static BitSet and(final BitSet current, final BitSet positions) {
+        if (current == null) {
+            return positions;
+        }
+        current.and(positions);
+        return current;
+    }
+}
@@ -0,0 +1,303 @@
+package jd.controlling.packagecontroller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.appwork.exceptions.WTFException;
+import org.appwork.utils.logging2.LogSource;
+
+/**
+ * restores the zipped json lists written by DownloadController/LinkCollector.
+ *
+ * the entries(package, package_child and extraInfo) get inflated and parsed by a bounded worker pool, the nodes are created by the workers
+ * and get collected by the calling thread as soon as their job has finished. finally the packages and children are linked in package/child
+ * index order.
+ */
+public abstract class PackageControllerListLoader<PackageType extends AbstractPackageNode<ChildType, PackageType>, ChildType extends AbstractPackageChildrenNode<PackageType>> {
+
+    private static final Pattern ENTRY_TYPE      = Pattern.compile("(\\d+)(?:_(\\d+))?|extraInfo", Pattern.CASE_INSENSITIVE);
+    /* lists with less entries are restored in calling thread */
+    private static final int     MIN_PARALLEL    = 128;
+    private static final int     ENTRIES_PER_JOB = 64;
+
+    private static enum EntryType {
+        PACKAGE,
+        CHILD,
+        EXTRAINFO
+    }
+
+    private static class LoaderEntry {
+        private final ZipEntry  zipEntry;
+        private final EntryType type;
+        private final int       packageIndex;
+        private final int       childIndex;
+        private Object          node = null;
+
+        private LoaderEntry(ZipEntry zipEntry, EntryType type, int packageIndex, int childIndex) {
+            this.zipEntry = zipEntry;
+            this.type = type;
+            this.packageIndex = packageIndex;
+            this.childIndex = childIndex;
+        }
+    }
+
+    /**
+     * collects the restored nodes in package/child index order
+     */
+    private class Assembler {
+        private final TreeMap<Integer, PackageType>             packageMap  = new TreeMap<Integer, PackageType>();
+        private final Map<Integer, TreeMap<Integer, ChildType>> childrenMap = new TreeMap<Integer, TreeMap<Integer, ChildType>>();
+
+        @SuppressWarnings("unchecked")
+        private void add(final List<LoaderEntry> entries, final int from, final int to) {
+            for (int index = from; index < to; index++) {
+                final LoaderEntry entry = entries.get(index);
+                switch (entry.type) {
+                case PACKAGE:
+                    packageMap.put(entry.packageIndex, (PackageType) entry.node);
+                    break;
+                case CHILD:
+                    TreeMap<Integer, ChildType> children = childrenMap.get(entry.packageIndex);
+                    if (children == null) {
+                        children = new TreeMap<Integer, ChildType>();
+                        childrenMap.put(entry.packageIndex, children);
+                    }
+                    children.put(entry.childIndex, (ChildType) entry.node);
+                    break;
+                default:
+                    break;
+                }
+                entry.node = null;
+            }
+        }
+
+        private List<PackageType> finish() {
+            for (final Integer packageIndex : childrenMap.keySet()) {
+                if (!packageMap.containsKey(packageIndex)) {
+                    throw new WTFException("Package at Index " + packageIndex + " is missing!");
+                }
+            }
+            final List<PackageType> ret = new ArrayList<PackageType>(packageMap.size());
+            for (final Map.Entry<Integer, PackageType> packageEntry : packageMap.entrySet()) {
+                final PackageType pkg = packageEntry.getValue();
+                final TreeMap<Integer, ChildType> children = childrenMap.get(packageEntry.getKey());
+                if (children != null && pkg.getChildren().size() == 0) {
+                    for (final ChildType child : children.values()) {
+                        pkg.getChildren().add(child);
+                        child.setParentNode(pkg);
+                    }
+                }
+                ret.add(pkg);
+            }
+            return ret;
+        }
+    }
+
+    protected final LogSource logger;
+    private final int         maxThreads;
+    private final AtomicLong  inflateDuration = new AtomicLong(0);
+    private final AtomicLong  parseDuration   = new AtomicLong(0);
+    private final AtomicLong  inflatedBytes   = new AtomicLong(0);
+
+    public PackageControllerListLoader(final LogSource logger) {
+        this(logger, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public PackageControllerListLoader(final LogSource logger, final int maxThreads) {
+        this.logger = logger;
+        this.maxThreads = Math.max(1, maxThreads);
+    }
+
+    /**
+     * restores the package node from json, called by worker threads
+     */
+    protected abstract PackageType restorePackage(InputStream is) throws Exception;
+
+    /**
+     * restores the child node from json, called by worker threads
+     */
+    protected abstract ChildType restoreChild(InputStream is) throws Exception;
+
+    /**
+     * restores the extraInfo from json, called by worker threads
+     */
+    protected abstract void restoreExtraInfo(InputStream is) throws Exception;
+
+    public long getInflateDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(inflateDuration.get());
+    }
+
+    public long getParseDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(parseDuration.get());
+    }
+
+    public List<PackageType> load(final File file) throws IOException {
+        final long startTimeStamp = System.currentTimeMillis();
+        final ZipFile zipFile = new ZipFile(file);
+        ThreadPoolExecutor threadPool = null;
+        try {
+            final List<LoaderEntry> entries = new ArrayList<LoaderEntry>();
+            final Enumeration<? extends ZipEntry> it = zipFile.entries();
+            int zipEntries = 0;
+            while (it.hasMoreElements()) {
+                final ZipEntry zipEntry = it.nextElement();
+                zipEntries++;
+                final Matcher entryName = ENTRY_TYPE.matcher(zipEntry.getName());
+                if (entryName.matches()) {
+                    if (entryName.group(2) != null) {
+                        // \\d+_\\d+ child
+                        entries.add(new LoaderEntry(zipEntry, EntryType.CHILD, Integer.parseInt(entryName.group(1)), Integer.parseInt(entryName.group(2))));
+                    } else if (entryName.group(1) != null) {
+                        // \\d+ package
+                        entries.add(new LoaderEntry(zipEntry, EntryType.PACKAGE, Integer.parseInt(entryName.group(1)), -1));
+                    } else {
+                        entries.add(new LoaderEntry(zipEntry, EntryType.EXTRAINFO, -1, -1));
+                    }
+                }
+            }
+            if (zipEntries == 0) {
+                throw new WTFException("Empty/Invalid Zip:" + file + "|Size:" + file.length());
+            }
+            final Assembler assembler = new Assembler();
+            final int threads;
+            if (entries.size() < MIN_PARALLEL || maxThreads == 1) {
+                threads = 1;
+                try {
+                    restore(zipFile, entries, 0, entries.size());
+                } catch (final IOException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new IOException(e);
+                }
+                assembler.add(entries, 0, entries.size());
+            } else {
+                threads = Math.min(maxThreads, (entries.size() + ENTRIES_PER_JOB - 1) / ENTRIES_PER_JOB);
+                threadPool = new ThreadPoolExecutor(threads, threads, 1000, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private final AtomicInteger counter = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "ListLoader:" + file.getName() + ":" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                final CompletionService<int[]> jobs = new ExecutorCompletionService<int[]>(threadPool);
+                int pending = 0;
+                for (int index = 0; index < entries.size(); index += ENTRIES_PER_JOB) {
+                    final int from = index;
+                    final int to = Math.min(entries.size(), index + ENTRIES_PER_JOB);
+                    jobs.submit(new Callable<int[]>() {
+
+                        @Override
+                        public int[] call() throws Exception {
+                            restore(zipFile, entries, from, to);
+                            return new int[] { from, to };
+                        }
+                    });
+                    pending++;
+                }
+                while (pending-- > 0) {
+                    try {
+                        /* collect the nodes of finished jobs while the others are still running */
+                        final int[] range = jobs.take().get();
+                        assembler.add(entries, range[0], range[1]);
+                    } catch (final InterruptedException e) {
+                        throw new IOException(e);
+                    } catch (final ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        }
+                        throw new IOException(cause);
+                    }
+                }
+            }
+            final List<PackageType> ret = assembler.finish();
+            if (logger != null) {
+                logger.info("Restored " + file + "|Packages:" + ret.size() + "|Entries:" + entries.size() + "|Threads:" + threads + "|Inflated:" + inflatedBytes.get() + "|Inflate:" + getInflateDuration() + "ms|Parse:" + getParseDuration() + "ms|Total:" + (System.currentTimeMillis() - startTimeStamp) + "ms");
+            }
+            return ret;
+        } finally {
+            if (threadPool != null) {
+                threadPool.shutdownNow();
+            }
+            try {
+                zipFile.close();
+            } catch (final Throwable ignore) {
+            }
+        }
+    }
+
+    private void restore(final ZipFile zipFile, final List<LoaderEntry> entries, final int from, final int to) throws Exception {
+        final byte[] buffer = new byte[32767];
+        for (int index = from; index < to; index++) {
+            final LoaderEntry entry = entries.get(index);
+            try {
+                final long inflateStart = System.nanoTime();
+                final ByteArrayOutputStream bos = new ByteArrayOutputStream(entry.zipEntry.getSize() > 0 ? (int) entry.zipEntry.getSize() : 1024);
+                final InputStream is = zipFile.getInputStream(entry.zipEntry);
+                try {
+                    int read = 0;
+                    while ((read = is.read(buffer)) != -1) {
+                        if (read > 0) {
+                            bos.write(buffer, 0, read);
+                        }
+                    }
+                } finally {
+                    is.close();
+                }
+                final long parseStart = System.nanoTime();
+                inflateDuration.addAndGet(parseStart - inflateStart);
+                inflatedBytes.addAndGet(bos.size());
+                final InputStream json = new ByteArrayInputStream(bos.toByteArray());
+                switch (entry.type) {
+                case PACKAGE:
+                    entry.node = restorePackage(json);
+                    if (entry.node == null) {
+                        throw new WTFException("restored a null package");
+                    }
+                    break;
+                case CHILD:
+                    entry.node = restoreChild(json);
+                    if (entry.node == null) {
+                        throw new WTFException("restored a null child");
+                    }
+                    break;
+                case EXTRAINFO:
+                    restoreExtraInfo(json);
+                    break;
+                }
+                parseDuration.addAndGet(System.nanoTime() - parseStart);
+            } catch (final Exception e) {
+                if (logger != null) {
+                    logger.log(e);
+                    logger.info("Entry:" + entry.zipEntry + "|Size:" + entry.zipEntry.getSize() + "|Compressed Size:" + entry.zipEntry.getCompressedSize());
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -2,16 +2,18 @@ package jd.gui.swing.jdgui.views.settings.panels.linkgrabberfilter;
 
 import java.awt.Component;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.MouseEvent;
+import java.util.Locale;
 
-import javax.swing.Box;
 import javax.swing.Icon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
@@ -26,6 +28,7 @@ import org.appwork.utils.swing.dialog.DialogCanceledException;
 import org.appwork.utils.swing.dialog.DialogClosedException;
 import org.jdownloader.actions.AppAction;
 import org.jdownloader.controlling.filter.LinkFilterController;
+import org.jdownloader.controlling.filter.LinkFilterRuleSet;
 import org.jdownloader.controlling.filter.LinkgrabberFilterRule;
 import org.jdownloader.gui.IconKey;
 import org.jdownloader.gui.translate._GUI;
@@ -59,6 +62,9 @@ public class LinkgrabberFilter extends JPanel implements SettingsComponent {
     private ExtButton                      btTest;
 
     private JTabbedPane                    tab;
+
+    private JLabel                         lblStatistics;
+    private Timer                          statisticsTimer;
     private static final LinkgrabberFilter INSTANCE         = new LinkgrabberFilter();
 
     public static LinkgrabberFilter getInstance() {
@@ -140,7 +146,7 @@ public class LinkgrabberFilter extends JPanel implements SettingsComponent {
         add(buttonbar, "spanx, height 26!");
         buttonbar.add(btadd, "height 26!,sg 2");
         buttonbar.add(btRemove, "height 26!,sg 2");
-        buttonbar.add(Box.createHorizontalGlue());
+        buttonbar.add(lblStatistics);
 
         buttonbar.add(btImport, "height 26!,sg 1");
         buttonbar.add(btExport, "height 26!,sg 1");
@@ -277,6 +283,40 @@ public class LinkgrabberFilter extends JPanel implements SettingsComponent {
         btImport = new ExtButton(new ImportAction(this));
         btExport = new ExtButton(new ExportAction(this));
 
+        lblStatistics = new JLabel();
+        lblStatistics.setHorizontalAlignment(JLabel.CENTER);
+        lblStatistics.setEnabled(false);
+        statisticsTimer = new Timer(1000, new ActionListener() {
+
+            public void actionPerformed(ActionEvent e) {
+                updateStatistics();
+            }
+        });
+    }
+
+    protected void updateStatistics() {
+        final LinkFilterRuleSet ruleSet = LinkFilterController.getInstance().getDenyRuleSet();
+        if (ruleSet == null) {
+            lblStatistics.setText("");
+            return;
+        }
+        final LinkFilterRuleSet.Statistics statistics = ruleSet.getStatistics();
+        final String matchRate = String.format(Locale.ENGLISH, "%.1f", statistics.getMatchRate());
+        final String duration = String.format(Locale.ENGLISH, "%.1f", statistics.getAverageDuration() / 1000d);
+        lblStatistics.setText(_GUI.T.LinkgrabberFilter_statistics(statistics.getPrefilteredRules(), statistics.getRules(), statistics.getCheckedLinks(), matchRate, duration));
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        updateStatistics();
+        statisticsTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        statisticsTimer.stop();
+        super.removeNotify();
     }
 
     public String getConstraints() {
@@ -295,6 +335,13 @@ public class LinkgrabberFilter extends JPanel implements SettingsComponent {
     public void update() {
         filterTable.getModel()._fireTableStructureChanged(LinkFilterController.getInstance().listFilters(), true);
         exceptionsTable.getModel()._fireTableStructureChanged(LinkFilterController.getInstance().listExceptions(), true);
+        new EDTRunner() {
+
+            @Override
+            protected void runInEDT() {
+                updateStatistics();
+            }
+        };
     }
 
     public AbstractFilterTable getTable() {
@@ -18,6 +18,8 @@ package jd.plugins;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -25,8 +27,12 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jd.config.Property;
 import jd.http.Browser;
@@ -44,6 +50,176 @@ import org.jdownloader.plugins.controller.host.PluginFinder;
 
 public class AccountInfo extends Property {
 
+    /**
+     * immutable hash based view of the multiHostSupport list(plus the plugin resolved aliases of the listed hosts), see
+     * {@link AccountInfo#getMultiHostIndex()}
+     */
+    public static final class MultiHostIndex {
+        private static final AtomicLong       VERSION = new AtomicLong(0);
+        private final long                    version;
+        private final List<String>            list;
+        /* modifications of a MultiHostSupportList, else the content of the list */
+        private final int                     modifications;
+        private final Object[]                content;
+        private final Set<String>             hosts;
+        private final HashMap<String, String> aliases;
+
+        private MultiHostIndex(final List<String> list, final Map<String, String> aliases) {
+            this.version = VERSION.incrementAndGet();
+            this.list = list;
+            if (list instanceof MultiHostSupportList) {
+                this.modifications = ((MultiHostSupportList) list).getModifications();
+                this.content = null;
+            } else {
+                this.modifications = -1;
+                this.content = list.toArray();
+            }
+            final HashSet<String> hosts = new HashSet<String>();
+            for (final Object host : content != null ? content : list.toArray()) {
+                if (host != null) {
+                    hosts.add((String) host);
+                }
+            }
+            this.hosts = Collections.unmodifiableSet(hosts);
+            this.aliases = new HashMap<String, String>();
+            if (aliases != null) {
+                for (final Entry<String, String> alias : aliases.entrySet()) {
+                    if (hosts.contains(alias.getValue())) {
+                        this.aliases.put(alias.getKey().toLowerCase(Locale.ENGLISH), alias.getValue());
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return unique version of this index, a new index gets a new version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public Set<String> getHosts() {
+            return hosts;
+        }
+
+        /**
+         * @return the supported plugin host for the given host or alias, null if not supported
+         */
+        public String resolve(final String host) {
+            if (host == null) {
+                return null;
+            } else if (hosts.contains(host)) {
+                return host;
+            } else {
+                return aliases.get(host.toLowerCase(Locale.ENGLISH));
+            }
+        }
+
+        public boolean isSupported(final String host) {
+            return resolve(host) != null;
+        }
+
+        private boolean isIndexOf(final List<String> list) {
+            if (this.list != list) {
+                return false;
+            } else if (content == null) {
+                return modifications == ((MultiHostSupportList) list).getModifications();
+            } else {
+                /* restored list, not set via setProperty */
+                return Arrays.equals(content, list.toArray());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "MultiHostIndex:" + version + "|Hosts:" + hosts.size() + "|Aliases:" + aliases.size();
+        }
+    }
+
+    /**
+     * multiHostSupport list set via {@link AccountInfo#setProperty(String, Object)}, counts modifications so the {@link MultiHostIndex}
+     * does not have to compare the content
+     */
+    private static final class MultiHostSupportList extends CopyOnWriteArrayList<String> {
+        private static final long   serialVersionUID = -3215733456125766417L;
+        private final AtomicInteger modifications    = new AtomicInteger(0);
+
+        private MultiHostSupportList(Collection<String> c) {
+            super(c);
+        }
+
+        private int getModifications() {
+            return modifications.get();
+        }
+
+        private <T> T modified(T ret) {
+            modifications.incrementAndGet();
+            return ret;
+        }
+
+        @Override
+        public boolean add(String e) {
+            return modified(super.add(e));
+        }
+
+        @Override
+        public void add(int index, String element) {
+            super.add(index, element);
+            modified(null);
+        }
+
+        @Override
+        public String set(int index, String element) {
+            return modified(super.set(index, element));
+        }
+
+        @Override
+        public String remove(int index) {
+            return modified(super.remove(index));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return modified(super.remove(o));
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends String> c) {
+            return modified(super.addAll(c));
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends String> c) {
+            return modified(super.addAll(index, c));
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return modified(super.removeAll(c));
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return modified(super.retainAll(c));
+        }
+
+        @Override
+        public boolean addIfAbsent(String e) {
+            return modified(super.addIfAbsent(e));
+        }
+
+        @Override
+        public int addAllAbsent(Collection<? extends String> c) {
+            return modified(super.addAllAbsent(c));
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            modified(null);
+        }
+    }
+
     private static final long serialVersionUID       = 1825140346023286206L;
 
     private long              account_validUntil     = -1;
@@ -65,6 +241,9 @@ public class AccountInfo extends Property {
 
     private boolean           account_trafficRefill  = true;
 
+    private transient volatile Map<String, String> multiHostAliases = null;
+    private transient volatile MultiHostIndex      multiHostIndex   = null;
+
     public boolean isTrafficRefill() {
         return account_trafficRefill;
     }
@@ -408,6 +587,7 @@ public class AccountInfo extends Property {
                 }
             }
             final List<String> multiHostSupport = new ArrayList<String>(supportedHostsSet);
+            final HashMap<String, String> aliases = new HashMap<String, String>();
             supportedHostsSet.clear();
             for (final String host : multiHostSupport) {
                 if (host != null && !supportedHostsSet.contains(host)) {
@@ -419,6 +599,9 @@ public class AccountInfo extends Property {
                     }
                     if (assignedHost != null && !supportedHostsSet.contains(assignedHost)) {
                         final LazyHostPlugin lazyPlugin = hpc.get(assignedHost);
+                        if (lazyPlugin != null && !host.equals(lazyPlugin.getHost())) {
+                            aliases.put(host, lazyPlugin.getHost());
+                        }
                         if (lazyPlugin != null && !lazyPlugin.isOfflinePlugin() && !lazyPlugin.isFallbackPlugin() && !supportedHostsSet.contains(lazyPlugin.getHost())) {
                             try {
                                 if (!lazyPlugin.isHasAllowHandle()) {
@@ -440,14 +623,33 @@ public class AccountInfo extends Property {
                 // sorting will now work properly since they are all pre-corrected to lowercase.
                 final List<String> list = new ArrayList<String>(supportedHostsSet);
                 Collections.sort(list, new NaturalOrderComparator());
-                this.setProperty("multiHostSupport", new CopyOnWriteArrayList<String>(list));
+                this.multiHostAliases = aliases;
+                this.setProperty("multiHostSupport", new MultiHostSupportList(list));
                 return;
             }
         }
+        this.multiHostAliases = null;
         this.setProperty("multiHostSupport", Property.NULL);
 
     }
 
+    @Override
+    public boolean setProperty(final String key, final Object value) {
+        if ("multiHostSupport".equals(key)) {
+            final Object list;
+            if (value instanceof List && !(value instanceof MultiHostSupportList)) {
+                /* list set by a plugin, track its modifications from now on */
+                list = new MultiHostSupportList((List<String>) value);
+            } else {
+                list = value;
+            }
+            final boolean ret = super.setProperty(key, list);
+            multiHostIndex = null;
+            return ret;
+        }
+        return super.setProperty(key, value);
+    }
+
     public List<String> getMultiHostSupport() {
         final Object ret = getProperty("multiHostSupport", null);
         if (ret != null && ret instanceof List) {
@@ -458,4 +660,21 @@ public class AccountInfo extends Property {
         }
         return null;
     }
+
+    /**
+     * @return index of {@link #getMultiHostSupport()}, rebuilt only when the list has been replaced or modified. null if there is no
+     *         multiHostSupport
+     */
+    public MultiHostIndex getMultiHostIndex() {
+        final List<String> list = getMultiHostSupport();
+        if (list == null) {
+            return null;
+        }
+        MultiHostIndex ret = multiHostIndex;
+        if (ret == null || !ret.isIndexOf(list)) {
+            ret = new MultiHostIndex(list, multiHostAliases);
+            multiHostIndex = ret;
+        }
+        return ret;
+    }
 }
@@ -36,6 +36,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import jd.config.Property;
+import jd.controlling.downloadcontroller.DownloadController;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
 import jd.controlling.downloadcontroller.HistoryEntry;
 import jd.controlling.downloadcontroller.SingleDownloadController;
@@ -862,6 +863,21 @@ public class DownloadLink extends Property implements Serializable, AbstractPack
         return lFilePackage;
     }
 
+    /**
+     * property changes fire no event, so mark this link as changed for the journal of the DownloadController
+     */
+    @Override
+    public boolean setProperty(final String key, final Object value) {
+        if (super.setProperty(key, value)) {
+            final FilePackage lFilePackage = filePackage;
+            if (lFilePackage != null && lFilePackage.getControlledBy() instanceof DownloadController) {
+                ((DownloadController) lFilePackage.getControlledBy()).markDirty(this);
+            }
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Gibt den Hoster dieses Links azurueck.
      *
@@ -1101,11 +1117,15 @@ public class DownloadLink extends Property implements Serializable, AbstractPack
      * @since JD2
      */
     public void setLinkID(String id) {
+        final String oldLinkID = getLinkID();
         if (StringUtils.isEmpty(id)) {
             this.setProperty(PROPERTY_LINKDUPEID, Property.NULL);
         } else {
             this.setProperty(PROPERTY_LINKDUPEID, id);
         }
+        if (!StringUtils.equals(oldLinkID, getLinkID())) {
+            firePropertyChanged(DownloadLinkProperty.Property.LINKID, id);
+        }
     }
 
     /*
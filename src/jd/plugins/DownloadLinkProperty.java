@@ -39,7 +39,8 @@ public class DownloadLinkProperty {
         URL_ORIGIN,
         URL_REFERRER,
         URL_CUSTOM,
-        HISTORY;
+        HISTORY,
+        LINKID;
     }
 
     private final Object       value;
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.List;
 
 import jd.config.Property;
+import jd.controlling.downloadcontroller.DownloadController;
 import jd.controlling.packagecontroller.AbstractNode;
 import jd.controlling.packagecontroller.AbstractNodeNotifier;
 import jd.controlling.packagecontroller.AbstractPackageChildrenNode;
@@ -239,17 +240,18 @@ public class FilePackage extends Property implements Serializable, AbstractPacka
         return FP == fp;
     }
 
-    private String                                                 name              = null;
-    private long                                                   created           = -1l;
+    private String                                                 name                = null;
+    private long                                                   created             = -1l;
 
-    private transient Boolean                                      isExpanded        = null;
+    private transient Boolean                                      isExpanded          = null;
 
-    private transient PackageController<FilePackage, DownloadLink> controlledby      = null;
-    private transient volatile UniqueAlltimeID                     uniqueID          = null;
-    private transient volatile ModifyLock                          lock              = null;
-    public static final String                                     PROPERTY_EXPANDED = "EXPANDED";
-    private static final String                                    PROPERTY_COMMENT  = "COMMENT";
-    private static final String                                    PROPERTY_PRIORITY = "PRIORITY";
+    private transient PackageController<FilePackage, DownloadLink> controlledby        = null;
+    private transient volatile UniqueAlltimeID                     uniqueID            = null;
+    private transient volatile ModifyLock                          lock                = null;
+    public static final String                                     PROPERTY_EXPANDED   = "EXPANDED";
+    private static final String                                    PROPERTY_COMMENT    = "COMMENT";
+    private static final String                                    PROPERTY_PRIORITY   = "PRIORITY";
+    private static final String                                    PROPERTY_SPEEDLIMIT = "SPEEDLIMIT";
 
     /**
      * @return the uniqueID
@@ -524,6 +526,28 @@ public class FilePackage extends Property implements Serializable, AbstractPacka
         return this.getStringProperty(PROPERTY_COMMENT, null);
     }
 
+    /**
+     * sets the cap of all running downloads of this package in bytes/s, 0 = no cap
+     */
+    public void setCustomSpeedLimit(int limit) {
+        if (limit == getCustomSpeedLimit()) {
+            return;
+        }
+        if (limit <= 0) {
+            limit = 0;
+            setProperty(PROPERTY_SPEEDLIMIT, Property.NULL);
+        } else {
+            setProperty(PROPERTY_SPEEDLIMIT, limit);
+        }
+        if (hasNotificationListener()) {
+            nodeUpdated(this, AbstractNodeNotifier.NOTIFY.PROPERTY_CHANCE, new FilePackageProperty(this, FilePackageProperty.Property.SPEED_LIMIT, limit));
+        }
+    }
+
+    public int getCustomSpeedLimit() {
+        return this.getIntegerProperty(PROPERTY_SPEEDLIMIT, 0);
+    }
+
     /**
      * set the download folder for this FilePackage
      *
@@ -661,6 +685,21 @@ public class FilePackage extends Property implements Serializable, AbstractPacka
         controlledby = controller;
     }
 
+    /**
+     * property changes fire no event, so mark this package as changed for the journal of the DownloadController
+     */
+    @Override
+    public boolean setProperty(final String key, final Object value) {
+        if (super.setProperty(key, value)) {
+            final PackageController<FilePackage, DownloadLink> n = getControlledBy();
+            if (n instanceof DownloadController) {
+                ((DownloadController) n).markDirty(this);
+            }
+            return true;
+        }
+        return false;
+    }
+
     public void setEnabled(boolean b) {
         final boolean readL = getModifyLock().readLock();
         final ArrayList<DownloadLink> links;
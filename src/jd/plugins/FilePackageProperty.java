@@ -6,7 +6,8 @@ public class FilePackageProperty {
         NAME("name"),
         FOLDER("folder"),
         PRIORITY("priority"),
-        COMMENT("comment");
+        COMMENT("comment"),
+        SPEED_LIMIT("speedLimit");
 
         private final String apiProperty;
 
@@ -0,0 +1,40 @@
+//    jDownloader - Downloadmanager
+//    Copyright (C) 2009  JD-Team support@jdownloader.org
+//
+//    This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package jd.plugins;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * safe linkcheck limits of a host plugin. without this annotation the LinkChecker uses the MaxThreadsPerHost setting and its default batch
+ * size
+ */
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target(value = ElementType.TYPE)
+public @interface LinkCheckLimits {
+    /**
+     * max. number of parallel linkcheck workers for this plugin
+     */
+    int maxConcurrency() default 1;
+
+    /**
+     * max. number of links per round, eg the max. number of links {@link PluginForHost#checkLinks(DownloadLink[])} can check at once
+     */
+    int maxBatchSize() default 80;
+}
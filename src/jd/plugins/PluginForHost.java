@@ -1238,6 +1238,14 @@ public abstract class PluginForHost extends Plugin {
         }
     }
 
+    /**
+     * @return time in ms the LinkChecker may reuse the linkcheck result(AvailableStatus, name, size and hash) of the given link, <=0 to not
+     *         cache the result
+     */
+    public long getLinkCheckResultTTL(DownloadLink link, AvailableStatus availableStatus, long defaultTTL) {
+        return defaultTTL;
+    }
+
     public DownloadLink getDownloadLink() {
         return link;
     }
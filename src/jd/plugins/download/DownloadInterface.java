@@ -16,22 +16,15 @@
 
 package jd.plugins.download;
 
-import java.awt.Color;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicBoolean;
 
+import jd.controlling.downloadcontroller.HashCheckManager;
 import jd.controlling.downloadcontroller.ManagedThrottledConnectionHandler;
 import jd.http.Browser;
 import jd.http.Request;
 import jd.http.URLConnectionAdapter;
-import jd.plugins.PluginProgress;
 import jd.plugins.download.raf.FileBytesMap.FileBytesMapView;
 
-import org.appwork.storage.config.JsonConfig;
-import org.jdownloader.plugins.HashCheckPluginProgress;
-import org.jdownloader.settings.GeneralSettings;
-
 abstract public class DownloadInterface {
 
     @Deprecated
@@ -84,51 +77,8 @@ abstract public class DownloadInterface {
         return null;
     };
 
-    protected static final ArrayList<AtomicBoolean> HASHCHECK_QEUEU = new ArrayList<AtomicBoolean>();
-
     protected HashResult getHashResult(Downloadable downloadable, File file) throws InterruptedException {
-        if (JsonConfig.create(GeneralSettings.class).isHashCheckEnabled() && downloadable.isHashCheckEnabled()) {
-            AtomicBoolean hashCheckLock = new AtomicBoolean(false);
-            synchronized (HASHCHECK_QEUEU) {
-                HASHCHECK_QEUEU.add(hashCheckLock);
-                hashCheckLock.set(HASHCHECK_QEUEU.indexOf(hashCheckLock) != 0);
-            }
-            try {
-                if (hashCheckLock.get()) {
-                    synchronized (hashCheckLock) {
-                        if (hashCheckLock.get()) {
-                            final PluginProgress hashProgress = new HashCheckPluginProgress(null, Color.YELLOW.darker().darker(), null);
-                            try {
-                                downloadable.addPluginProgress(hashProgress);
-                                hashCheckLock.wait();
-                            } finally {
-                                downloadable.removePluginProgress(hashProgress);
-                            }
-                        }
-                    }
-                }
-                final HashInfo hashInfo = downloadable.getHashInfo();
-                final HashResult hashResult = downloadable.getHashResult(hashInfo, file);
-                return hashResult;
-            } finally {
-                synchronized (HASHCHECK_QEUEU) {
-                    boolean callNext = HASHCHECK_QEUEU.indexOf(hashCheckLock) == 0;
-                    HASHCHECK_QEUEU.remove(hashCheckLock);
-                    if (HASHCHECK_QEUEU.size() > 0 && callNext) {
-                        hashCheckLock = HASHCHECK_QEUEU.get(0);
-                    } else {
-                        hashCheckLock = null;
-                    }
-                }
-                if (hashCheckLock != null) {
-                    synchronized (hashCheckLock) {
-                        hashCheckLock.set(false);
-                        hashCheckLock.notifyAll();
-                    }
-                }
-            }
-        }
-        return null;
+        return HashCheckManager.getInstance().getHashResult(downloadable, file, null);
     }
 
     public abstract boolean startDownload() throws Exception;
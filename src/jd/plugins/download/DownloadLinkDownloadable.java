@@ -2,21 +2,17 @@ package jd.plugins.download;
 
 import java.awt.Color;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
-import java.util.zip.CRC32;
-import java.util.zip.CheckedInputStream;
 
 import jd.controlling.downloadcontroller.DiskSpaceManager.DISKSPACERESERVATIONRESULT;
 import jd.controlling.downloadcontroller.DiskSpaceReservation;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
 import jd.controlling.downloadcontroller.ExceptionRunnable;
 import jd.controlling.downloadcontroller.FileIsLockedException;
+import jd.controlling.downloadcontroller.HashCheckManager;
 import jd.controlling.downloadcontroller.ManagedThrottledConnectionHandler;
 import jd.controlling.downloadcontroller.SingleDownloadController;
 import jd.http.Browser;
@@ -33,7 +29,6 @@ import jd.plugins.download.HashInfo.TYPE;
 
 import org.appwork.utils.IO;
 import org.appwork.utils.Regex;
-import org.appwork.utils.formatter.HexFormatter;
 import org.appwork.utils.logging2.LogInterface;
 import org.appwork.utils.logging2.LogSource;
 import org.jdownloader.controlling.FileCreationManager;
@@ -129,6 +124,7 @@ public class DownloadLinkDownloadable implements Downloadable {
 
     @Override
     public void setConnectionHandler(ManagedThrottledConnectionHandler managedConnetionHandler) {
+        managedConnetionHandler.setDownloadLink(downloadLink);
         getDownloadLinkController().getConnectionHandler().addConnectionHandler(managedConnetionHandler);
     }
 
@@ -258,62 +254,11 @@ public class DownloadLinkDownloadable implements Downloadable {
         hashProgress.setProgressSource(this);
         try {
             addPluginProgress(hashProgress);
-            final byte[] b = new byte[32767];
             String hashFile = null;
-            FileInputStream fis = null;
-            int n = 0;
-            int cur = 0;
-            switch (type) {
-            case MD5:
-            case SHA1:
-            case SHA256:
-            case SHA512:
-                DigestInputStream is = null;
-                try {
-                    is = new DigestInputStream(fis = new FileInputStream(outputPartFile), MessageDigest.getInstance(type.getDigest()));
-                    while ((n = is.read(b)) >= 0) {
-                        cur += n;
-                        hashProgress.setCurrent(cur);
-                    }
-                    hashFile = HexFormatter.byteArrayToHex(is.getMessageDigest().digest());
-                } catch (final Throwable e) {
-                    LogSource.exception(getLogger(), e);
-                } finally {
-                    try {
-                        is.close();
-                    } catch (final Throwable e) {
-                    }
-                    try {
-                        fis.close();
-                    } catch (final Throwable e) {
-                    }
-                }
-                break;
-            case CRC32:
-                CheckedInputStream cis = null;
-                try {
-                    fis = new FileInputStream(outputPartFile);
-                    cis = new CheckedInputStream(fis, new CRC32());
-                    while ((n = cis.read(b)) >= 0) {
-                        cur += n;
-                        hashProgress.setCurrent(cur);
-                    }
-                    long value = cis.getChecksum().getValue();
-                    byte[] longBytes = new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
-                    hashFile = HexFormatter.byteArrayToHex(longBytes);
-                } catch (final Throwable e) {
-                    LogSource.exception(getLogger(), e);
-                } finally {
-                    try {
-                        cis.close();
-                    } catch (final Throwable e) {
-                    }
-                    try {
-                        fis.close();
-                    } catch (final Throwable e) {
-                    }
-                }
-                break;
+            try {
+                hashFile = HashCheckManager.getInstance().hash(type, outputPartFile, hashProgress);
+            } catch (final Throwable e) {
+                LogSource.exception(getLogger(), e);
             }
             return new HashResult(hashInfo, hashFile);
         } finally {
@@ -0,0 +1,107 @@
+package jd.plugins.download;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+import org.appwork.utils.formatter.HexFormatter;
+
+/**
+ * digest for all HashInfo.TYPEs that consumes the bytes of a file in file order. bytes written out of order are not hashed, the
+ * remaining tail from {@link #getPosition()} on has to be read from disk.
+ */
+public class IncrementalHash {
+
+    private final HashInfo.TYPE type;
+    private final MessageDigest messageDigest;
+    private final CRC32         crc32;
+    private long                position = 0;
+    private boolean             valid    = true;
+
+    public static IncrementalHash create(final HashInfo.TYPE type) {
+        try {
+            switch (type) {
+            case MD5:
+            case SHA1:
+            case SHA256:
+            case SHA512:
+                return new IncrementalHash(type, MessageDigest.getInstance(type.getDigest()), null);
+            case CRC32:
+                return new IncrementalHash(type, null, new CRC32());
+            default:
+                return null;
+            }
+        } catch (final NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private IncrementalHash(HashInfo.TYPE type, MessageDigest messageDigest, CRC32 crc32) {
+        this.type = type;
+        this.messageDigest = messageDigest;
+        this.crc32 = crc32;
+    }
+
+    public HashInfo.TYPE getType() {
+        return type;
+    }
+
+    /**
+     * @return file position up to which all bytes are hashed
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return false in case already hashed bytes got overwritten
+     */
+    public synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * bytes that got written to the file at the given position
+     *
+     * @return true if the bytes got hashed
+     */
+    public synchronized boolean update(final long filePosition, final byte[] b, final int off, final int len) {
+        if (!valid) {
+            return false;
+        } else if (filePosition < position) {
+            /* already hashed bytes got overwritten */
+            valid = false;
+            return false;
+        } else if (filePosition > position) {
+            /* out of order, will be read from disk later */
+            return false;
+        } else {
+            update(b, off, len);
+            return true;
+        }
+    }
+
+    /**
+     * next bytes in file order
+     */
+    public synchronized void update(final byte[] b, final int off, final int len) {
+        if (messageDigest != null) {
+            messageDigest.update(b, off, len);
+        } else {
+            crc32.update(b, off, len);
+        }
+        position += len;
+    }
+
+    /**
+     * @return the hex encoded hash, the instance must not be used afterwards
+     */
+    public synchronized String finish() {
+        if (messageDigest != null) {
+            return HexFormatter.byteArrayToHex(messageDigest.digest());
+        } else {
+            final long value = crc32.getValue();
+            return HexFormatter.byteArrayToHex(new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value });
+        }
+    }
+}
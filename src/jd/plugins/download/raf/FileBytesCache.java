@@ -3,169 +3,353 @@ package jd.plugins.download.raf;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.jdownloader.logging.LogController;
 
+/**
+ * write cache shared by many writers(FileBytesCacheFlusher). every flusher gets its own stripe of pooled buffers with its own lock, so
+ * writers only wait for their own disk io. expired stripes are flushed by a background thread. the allocated capacity of the buffers is
+ * limited by writeCacheSize, {@link #execute(Runnable)} runs exclusive to all writes and flushes.
+ */
 public class FileBytesCache {
-    protected final byte[]                     writeCache;
-    protected volatile int                     writeCachePosition  = 0;
-    protected volatile long                    lastWriteCacheFlush = -1l;
-    protected final ArrayList<WriteCacheEntry> writeCacheEntries   = new ArrayList<WriteCacheEntry>();
-    protected final int                        flushTimeout;
-    
-    private class WriteThroughEntry extends WriteCacheEntry {
-        
+    /*
+     * pooled heap segments on purpose: FileBytesCacheFlusher and all its implementations(RandomAccessFile, BytesMappedFile, extraction
+     * writers) take byte[], so direct buffers would need an extra copy back to heap on every flush and their memory is not freed with the
+     * cache. the writers fill them with byte[] as well.
+     */
+    private static final int SEGMENT_SIZE = 128 * 1024;
+
+    private static class WriteCacheEntry {
         private final byte[] buffer;
-        
-        protected final byte[] getBuffer() {
-            return buffer;
-        }
-        
-        private WriteThroughEntry(FileBytesCacheFlusher flusher, byte[] buffer, long fileWritePosition) {
-            super(flusher, 0, fileWritePosition);
+        private final long   fileWritePosition;
+        private int          size = 0;
+
+        private WriteCacheEntry(byte[] buffer, long fileWritePosition) {
             this.buffer = buffer;
-        }
-        
-    }
-    
-    private class WriteCacheEntry {
-        private volatile int size;
-        
-        protected final int getSize() {
-            return size;
-        }
-        
-        protected final void increaseSize(int size) {
-            this.size += size;
-        }
-        
-        protected final FileBytesCacheFlusher getFlusher() {
-            return flusher;
-        }
-        
-        private final FileBytesCacheFlusher flusher;
-        private final int                   writeCachePosition;
-        private final long                  fileWritePosition;
-        
-        protected long getFileWritePosition() {
-            return fileWritePosition;
-        }
-        
-        protected final int getWriteCachePosition() {
-            return writeCachePosition;
-        }
-        
-        private WriteCacheEntry(FileBytesCacheFlusher flusher, int writeCachePosition, long fileWritePosition) {
-            this.writeCachePosition = writeCachePosition;
             this.fileWritePosition = fileWritePosition;
-            this.size = 0;
-            this.flusher = flusher;
         }
-        
+
+        private boolean append(long fileWritePosition, byte[] readBuffer, int length) {
+            if (this.fileWritePosition + size == fileWritePosition && buffer.length - size >= length) {
+                System.arraycopy(readBuffer, 0, buffer, size, length);
+                size += length;
+                return true;
+            }
+            return false;
+        }
+
         @Override
         public String toString() {
-            return flusher + ":" + writeCachePosition + "=" + size + "->" + fileWritePosition;
-        }
-    }
-    
-    private final static Comparator<WriteCacheEntry> sorter = new Comparator<WriteCacheEntry>() {
-                                                                
-                                                                private int compare(long x, long y) {
-                                                                    return (x < y) ? -1 : ((x == y) ? 0 : 1);
-                                                                }
-                                                                
-                                                                @Override
-                                                                public int compare(WriteCacheEntry o1, WriteCacheEntry o2) {
-                                                                    return compare(o1.getFileWritePosition(), o2.getFileWritePosition());
-                                                                }
-                                                                
-                                                            };
-    
+            return size + "->" + fileWritePosition;
+        }
+    }
+
+    private static class Stripe {
+        private final FileBytesCacheFlusher      flusher;
+        private final ArrayList<WriteCacheEntry> entries        = new ArrayList<WriteCacheEntry>();
+        private long                             flushTimeStamp = -1;
+        /* allocated capacity of the entries */
+        private int                              size           = 0;
+        private boolean                          sorted         = true;
+        private boolean                          removed        = false;
+
+        private Stripe(FileBytesCacheFlusher flusher) {
+            this.flusher = flusher;
+        }
+    }
+
+    private final static Comparator<WriteCacheEntry>                 sorter         = new Comparator<WriteCacheEntry>() {
+
+                                                                                        private int compare(long x, long y) {
+                                                                                            return (x < y) ? -1 : ((x == y) ? 0 : 1);
+                                                                                        }
+
+                                                                                        @Override
+                                                                                        public int compare(WriteCacheEntry o1, WriteCacheEntry o2) {
+                                                                                            return compare(o1.fileWritePosition, o2.fileWritePosition);
+                                                                                        }
+
+                                                                                    };
+
+    private final ConcurrentHashMap<FileBytesCacheFlusher, Stripe> stripes        = new ConcurrentHashMap<FileBytesCacheFlusher, Stripe>();
+    private final ConcurrentLinkedQueue<byte[]>                      segments       = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger                                      pooledSegments = new AtomicInteger(0);
+    /* allocated capacity of all stripes */
+    private final AtomicLong                                         cached         = new AtomicLong(0);
+    /* shared by writes and flushes, exclusive for execute */
+    private final ReentrantReadWriteLock                             barrier        = new ReentrantReadWriteLock();
+    private final AtomicBoolean                                      flusherRunning = new AtomicBoolean(false);
+    protected final int                                              writeCacheSize;
+    protected final int                                              flushTimeout;
+
     public FileBytesCache(int writeCacheSize, int flushTimeout) {
-        writeCache = new byte[writeCacheSize];
+        this.writeCacheSize = Math.max(SEGMENT_SIZE, writeCacheSize);
         this.flushTimeout = flushTimeout;
     }
-    
-    public synchronized void write(FileBytesCacheFlusher flusher, long fileWritePosition, byte[] readBuffer, int length) {
-        final int writeCacheRemaining = writeCache.length - writeCachePosition;
-        if (length > writeCacheRemaining || lastWriteCacheFlush > 0 && System.currentTimeMillis() > lastWriteCacheFlush) {
-            if (contains(flusher) || lastWriteCacheFlush > 0 && System.currentTimeMillis() > lastWriteCacheFlush) {
-                WriteThroughEntry writeThrough = new WriteThroughEntry(flusher, readBuffer, fileWritePosition);
-                writeThrough.increaseSize(length);
-                writeCacheEntries.add(writeThrough);
-                flush();
-            } else {
-                try {
-                    flusher.flush(readBuffer, 0, length, fileWritePosition);
-                    flusher.flushed();
-                } catch (final Throwable e) {
-                    LogController.CL().log(e);
+
+    private byte[] borrowSegment(int length) {
+        if (length > SEGMENT_SIZE) {
+            return new byte[length];
+        }
+        final byte[] ret = segments.poll();
+        if (ret != null) {
+            pooledSegments.decrementAndGet();
+            return ret;
+        }
+        return new byte[SEGMENT_SIZE];
+    }
+
+    private void returnSegment(byte[] segment) {
+        if (segment.length != SEGMENT_SIZE) {
+            return;
+        } else if (pooledSegments.incrementAndGet() <= writeCacheSize / SEGMENT_SIZE) {
+            segments.offer(segment);
+        } else {
+            pooledSegments.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return true if the capacity has been added to the cached capacity without exceeding writeCacheSize
+     */
+    private boolean reserve(int capacity) {
+        while (true) {
+            final long current = cached.get();
+            if (current + capacity > writeCacheSize) {
+                return false;
+            } else if (cached.compareAndSet(current, current + capacity)) {
+                return true;
+            }
+        }
+    }
+
+    private Stripe getStripe(FileBytesCacheFlusher flusher) {
+        while (true) {
+            Stripe stripe = stripes.get(flusher);
+            if (stripe == null) {
+                stripe = new Stripe(flusher);
+                final Stripe existing = stripes.putIfAbsent(flusher, stripe);
+                if (existing != null) {
+                    stripe = existing;
+                }
+            }
+            synchronized (stripe) {
+                if (!stripe.removed) {
+                    return stripe;
                 }
             }
-            return;
         }
-        WriteCacheEntry entry = null;
-        boolean add = false;
-        if (writeCacheEntries.size() > 0 && (entry = writeCacheEntries.get(writeCacheEntries.size() - 1)) != null && entry.getFlusher() == flusher && entry.getFileWritePosition() + entry.getSize() == fileWritePosition) {
-        } else {
-            entry = new WriteCacheEntry(flusher, writeCachePosition, fileWritePosition);
-            add = true;
+    }
+
+    public void write(FileBytesCacheFlusher flusher, long fileWritePosition, byte[] readBuffer, int length) {
+        boolean startFlusher = false;
+        barrier.readLock().lock();
+        try {
+            startFlusher = writeInternal(flusher, fileWritePosition, readBuffer, length);
+        } finally {
+            barrier.readLock().unlock();
+        }
+        if (startFlusher) {
+            startFlusher();
+        }
+    }
+
+    /**
+     * must be called while holding the read lock of the barrier
+     *
+     * @return true if the background flusher has to be started
+     */
+    private boolean writeInternal(FileBytesCacheFlusher flusher, long fileWritePosition, byte[] readBuffer, int length) {
+        while (true) {
+            final Stripe stripe = getStripe(flusher);
+            synchronized (stripe) {
+                if (stripe.removed) {
+                    /* got removed by background flusher meanwhile */
+                    continue;
+                }
+                return writeInternal(stripe, fileWritePosition, readBuffer, length);
+            }
         }
-        System.arraycopy(readBuffer, 0, writeCache, writeCachePosition, length);
-        writeCachePosition += length;
-        entry.increaseSize(length);
-        if (add) writeCacheEntries.add(entry);
-        if (lastWriteCacheFlush < 0) lastWriteCacheFlush = System.currentTimeMillis() + flushTimeout;
     }
-    
-    private synchronized boolean contains(FileBytesCacheFlusher flusher) {
-        for (WriteCacheEntry writeCacheEntry : writeCacheEntries) {
-            if (writeCacheEntry.getFlusher() == flusher) { return true; }
+
+    /**
+     * must be called while holding the stripe lock
+     */
+    private boolean writeInternal(Stripe stripe, long fileWritePosition, byte[] readBuffer, int length) {
+        final FileBytesCacheFlusher flusher = stripe.flusher;
+        final int entries = stripe.entries.size();
+        final WriteCacheEntry last = entries > 0 ? stripe.entries.get(entries - 1) : null;
+        final boolean appendable = last != null && last.fileWritePosition + last.size == fileWritePosition && last.buffer.length - last.size >= length;
+        final boolean expired = stripe.flushTimeStamp > 0 && System.currentTimeMillis() > stripe.flushTimeStamp;
+        if (expired || (!appendable && !reserve(Math.max(SEGMENT_SIZE, length)))) {
+            /* flush own stripe and write through */
+            flush(stripe, false);
+            try {
+                flusher.flush(readBuffer, 0, length, fileWritePosition);
+                flusher.flushed();
+            } catch (final Throwable e) {
+                LogController.CL().log(e);
+            }
+            removeIfEmpty(stripe);
+            return false;
+        }
+        if (appendable) {
+            last.append(fileWritePosition, readBuffer, length);
+        } else {
+            final WriteCacheEntry entry = new WriteCacheEntry(borrowSegment(length), fileWritePosition);
+            entry.append(fileWritePosition, readBuffer, length);
+            if (last != null && last.fileWritePosition > fileWritePosition) {
+                stripe.sorted = false;
+            }
+            stripe.entries.add(entry);
+            stripe.size += entry.buffer.length;
+        }
+        if (stripe.flushTimeStamp < 0) {
+            stripe.flushTimeStamp = System.currentTimeMillis() + flushTimeout;
+            return flusherRunning.compareAndSet(false, true);
         }
         return false;
     }
-    
-    public synchronized void flushIfContains(FileBytesCacheFlusher flusher) {
-        if (contains(flusher)) flush();
-    }
-    
-    public synchronized void execute(Runnable task) {
-        if (task != null) task.run();
-    }
-    
-    public synchronized void flush() {
-        lastWriteCacheFlush = -1;
-        writeCachePosition = 0;
-        HashMap<FileBytesCacheFlusher, ArrayList<WriteCacheEntry>> writeEntries = new HashMap<FileBytesCacheFlusher, ArrayList<WriteCacheEntry>>();
-        for (WriteCacheEntry writeCacheEntry : writeCacheEntries) {
-            FileBytesCacheFlusher flusher = writeCacheEntry.getFlusher();
-            ArrayList<WriteCacheEntry> cacheList = writeEntries.get(flusher);
-            if (cacheList == null) {
-                cacheList = new ArrayList<FileBytesCache.WriteCacheEntry>();
-                writeEntries.put(flusher, cacheList);
+
+    private void startFlusher() {
+        final Thread thread = new Thread("FileBytesCacheFlusher") {
+            @Override
+            public void run() {
+                final long interval = Math.max(100, Math.min(1000, flushTimeout / 2));
+                while (true) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        flush();
+                        flusherRunning.set(false);
+                        return;
+                    }
+                    flushExpired();
+                    if (stripes.isEmpty()) {
+                        flusherRunning.set(false);
+                        if (stripes.isEmpty() || !flusherRunning.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void flushExpired() {
+        final long now = System.currentTimeMillis();
+        barrier.readLock().lock();
+        try {
+            for (final Stripe stripe : stripes.values()) {
+                synchronized (stripe) {
+                    if (!stripe.removed && (stripe.flushTimeStamp < 0 || now > stripe.flushTimeStamp)) {
+                        flush(stripe, true);
+                        removeIfEmpty(stripe);
+                    }
+                }
+            }
+        } finally {
+            barrier.readLock().unlock();
+        }
+    }
+
+    private void removeIfEmpty(Stripe stripe) {
+        if (stripe.entries.size() == 0 && !stripe.removed) {
+            stripe.removed = true;
+            stripes.remove(stripe.flusher, stripe);
+        }
+    }
+
+    /**
+     * must be called while holding the stripe lock
+     */
+    private void flush(Stripe stripe, boolean callFlushed) {
+        stripe.flushTimeStamp = -1;
+        if (stripe.entries.size() == 0) {
+            return;
+        }
+        if (!stripe.sorted) {
+            Collections.sort(stripe.entries, sorter);
+            stripe.sorted = true;
+        }
+        try {
+            for (final WriteCacheEntry entry : stripe.entries) {
+                stripe.flusher.flush(entry.buffer, 0, entry.size, entry.fileWritePosition);
+            }
+            if (callFlushed) {
+                stripe.flusher.flushed();
+            }
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        } finally {
+            for (final WriteCacheEntry entry : stripe.entries) {
+                returnSegment(entry.buffer);
+            }
+            stripe.entries.clear();
+            cached.addAndGet(-stripe.size);
+            stripe.size = 0;
+        }
+    }
+
+    public void flushIfContains(FileBytesCacheFlusher flusher) {
+        barrier.readLock().lock();
+        try {
+            final Stripe stripe = stripes.get(flusher);
+            if (stripe != null) {
+                synchronized (stripe) {
+                    if (!stripe.removed) {
+                        flush(stripe, true);
+                        removeIfEmpty(stripe);
+                    }
+                }
             }
-            cacheList.add(writeCacheEntry);
+        } finally {
+            barrier.readLock().unlock();
         }
-        writeCacheEntries.clear();
-        for (Entry<FileBytesCacheFlusher, ArrayList<WriteCacheEntry>> writeEntry : writeEntries.entrySet()) {
-            FileBytesCacheFlusher flusher = writeEntry.getKey();
+    }
+
+    /**
+     * runs the task while no write or flush is in progress, the task may call {@link #flushIfContains(FileBytesCacheFlusher)}
+     */
+    public void execute(Runnable task) {
+        if (task != null) {
+            barrier.writeLock().lock();
             try {
-                ArrayList<WriteCacheEntry> cacheEntries = writeEntry.getValue();
-                Collections.sort(cacheEntries, sorter);
-                for (WriteCacheEntry writeCacheEntry : cacheEntries) {
-                    if (writeCacheEntry instanceof WriteThroughEntry) {
-                        WriteThroughEntry writeThrough = (WriteThroughEntry) writeCacheEntry;
-                        flusher.flush(writeThrough.getBuffer(), writeCacheEntry.getWriteCachePosition(), writeCacheEntry.getSize(), writeCacheEntry.getFileWritePosition());
-                    } else {
-                        flusher.flush(writeCache, writeCacheEntry.getWriteCachePosition(), writeCacheEntry.getSize(), writeCacheEntry.getFileWritePosition());
+                task.run();
+            } finally {
+                barrier.writeLock().unlock();
+            }
+        }
+    }
+
+    public void flush() {
+        barrier.readLock().lock();
+        try {
+            for (final Stripe stripe : stripes.values()) {
+                synchronized (stripe) {
+                    if (!stripe.removed) {
+                        flush(stripe, true);
+                        removeIfEmpty(stripe);
                     }
                 }
-                flusher.flushed();
-            } catch (final Throwable e) {
-                LogController.CL().log(e);
             }
+        } finally {
+            barrier.readLock().unlock();
         }
     }
+
+    /**
+     * @return allocated capacity of the cached buffers in bytes
+     */
+    public long getCachedBytes() {
+        return cached.get();
+    }
 }
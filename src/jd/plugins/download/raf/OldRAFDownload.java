@@ -34,6 +34,7 @@ import jd.controlling.downloadcontroller.DiskSpaceReservation;
 import jd.controlling.downloadcontroller.DownloadController;
 import jd.controlling.downloadcontroller.ExceptionRunnable;
 import jd.controlling.downloadcontroller.FileIsLockedException;
+import jd.controlling.downloadcontroller.HashCheckManager;
 import jd.controlling.downloadcontroller.ManagedThrottledConnectionHandler;
 import jd.http.Browser;
 import jd.http.Request;
@@ -44,13 +45,14 @@ import jd.plugins.DownloadLink.AvailableStatus;
 import jd.plugins.LinkStatus;
 import jd.plugins.Plugin;
 import jd.plugins.PluginException;
-import jd.plugins.PluginProgress;
 import jd.plugins.download.DownloadInterface;
 import jd.plugins.download.DownloadLinkDownloadable;
 import jd.plugins.download.Downloadable;
 import jd.plugins.download.HashInfo;
 import jd.plugins.download.HashResult;
+import jd.plugins.download.IncrementalHash;
 import jd.plugins.download.SparseFile;
+import jd.plugins.download.raf.FileBytesMap.FileBytesMapView;
 
 import org.appwork.exceptions.WTFException;
 import org.appwork.storage.config.JsonConfig;
@@ -61,8 +63,8 @@ import org.appwork.utils.StringUtils;
 import org.appwork.utils.formatter.TimeFormatter;
 import org.appwork.utils.logging2.LogInterface;
 import org.appwork.utils.logging2.LogSource;
+import org.appwork.utils.net.throttledconnection.ThrottledConnection;
 import org.jdownloader.plugins.DownloadPluginProgress;
-import org.jdownloader.plugins.HashCheckPluginProgress;
 import org.jdownloader.plugins.SkipReason;
 import org.jdownloader.plugins.SkipReasonException;
 import org.jdownloader.settings.GeneralSettings;
@@ -104,6 +106,9 @@ public class OldRAFDownload extends DownloadInterface {
     protected ManagedThrottledConnectionHandler     connectionHandler        = null;
     private long                                    startTimeStamp           = -1;
     private boolean                                 resumedDownload;
+    private volatile IncrementalHash                incrementalHash          = null;
+    /* areas written to the part file, guarded by itself, notified on every write */
+    private final FileBytesMap                      cacheMap                 = new FileBytesMap();
 
     /**
      * Gibt die Anzahl der Chunks an die dieser Download verwenden soll. Chu8nks koennen nur vor dem Downloadstart gesetzt werden!
@@ -659,6 +664,56 @@ public class OldRAFDownload extends DownloadInterface {
         return this.request;
     }
 
+    @Override
+    public FileBytesMapView getCacheMapView() {
+        return new FileBytesMapView(cacheMap);
+    }
+
+    /**
+     * waits until the byte at offset has been written to the part file
+     *
+     * @return number of bytes available at offset, 0 if not available within timeout or the download has stopped
+     */
+    public long waitForBytes(final long offset, final long timeout) throws InterruptedException {
+        final long waitUntil = System.currentTimeMillis() + Math.max(0, timeout);
+        synchronized (cacheMap) {
+            while (true) {
+                final long available = cacheMap.skippable(offset, Long.MAX_VALUE - offset);
+                if (available > 0 || terminated.get() || abort.get() || (startTimeStamp > 0 && outputPartFileRaf.get() == null)) {
+                    return available;
+                }
+                final long wait = waitUntil - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return 0;
+                }
+                cacheMap.wait(Math.min(wait, 1000));
+            }
+        }
+    }
+
+    /**
+     * gives the connection of the chunk that will load the byte at offset precedence over the other chunks within the bandwidth of this
+     * download, see {@link ManagedThrottledConnectionHandler#setPriorityConnection(ThrottledConnection)}
+     *
+     * @param offset
+     *            -1 to reset
+     */
+    public void prioritize(final long offset) {
+        ThrottledConnection priorityConnection = null;
+        if (offset >= 0 && cacheMap.skippable(offset, 1) == 0) {
+            for (final RAFChunk chunk : chunks) {
+                final long endByte = chunk.getEndByte();
+                if (chunk.isRunning() && chunk.getCurrentBytesPosition() <= offset && (endByte < 0 || offset <= endByte)) {
+                    priorityConnection = chunk.getInputStream();
+                    break;
+                }
+            }
+        }
+        if (connectionHandler.getPriorityConnection() != priorityConnection) {
+            connectionHandler.setPriorityConnection(priorityConnection);
+        }
+    }
+
     @Override
     public URLConnectionAdapter getConnection() {
         return this.connection;
@@ -801,54 +856,10 @@ public class OldRAFDownload extends DownloadInterface {
         this.requestTimeout = requestTimeout;
     }
 
-    public static final ArrayList<AtomicBoolean> HASHCHECK_QEUEU = new ArrayList<AtomicBoolean>();
-
     protected HashResult getHashResult(File file) throws InterruptedException {
-        if (JsonConfig.create(GeneralSettings.class).isHashCheckEnabled() && downloadable.isHashCheckEnabled()) {
-            AtomicBoolean hashCheckLock = new AtomicBoolean(false);
-            synchronized (HASHCHECK_QEUEU) {
-                HASHCHECK_QEUEU.add(hashCheckLock);
-                hashCheckLock.set(HASHCHECK_QEUEU.indexOf(hashCheckLock) != 0);
-            }
-            try {
-                if (hashCheckLock.get()) {
-                    synchronized (hashCheckLock) {
-                        if (hashCheckLock.get()) {
-                            final PluginProgress hashProgress = new HashCheckPluginProgress(null, Color.YELLOW.darker().darker(), null);
-                            try {
-                                downloadable.addPluginProgress(hashProgress);
-                                hashCheckLock.wait();
-                            } finally {
-                                downloadable.removePluginProgress(hashProgress);
-                            }
-                        }
-                    }
-                }
-                HashInfo hashInfo = downloadable.getHashInfo();
-                HashResult hashResult = downloadable.getHashResult(hashInfo, file);
-                if (hashResult != null) {
-                    logger.info(hashResult.toString());
-                }
-                return hashResult;
-            } finally {
-                synchronized (HASHCHECK_QEUEU) {
-                    boolean callNext = HASHCHECK_QEUEU.indexOf(hashCheckLock) == 0;
-                    HASHCHECK_QEUEU.remove(hashCheckLock);
-                    if (HASHCHECK_QEUEU.size() > 0 && callNext) {
-                        hashCheckLock = HASHCHECK_QEUEU.get(0);
-                    } else {
-                        hashCheckLock = null;
-                    }
-                }
-                if (hashCheckLock != null) {
-                    synchronized (hashCheckLock) {
-                        hashCheckLock.set(false);
-                        hashCheckLock.notifyAll();
-                    }
-                }
-            }
-        }
-        return null;
+        final IncrementalHash incrementalHash = this.incrementalHash;
+        this.incrementalHash = null;
+        return HashCheckManager.getInstance().getHashResult(downloadable, file, logger, incrementalHash);
     }
 
     protected HashResult onChunksReady() throws Exception {
@@ -980,6 +991,7 @@ public class OldRAFDownload extends DownloadInterface {
         setChunkNum(chunks);
         logger.finer("Start Download in " + chunks + " chunks. Chunksize: " + partSize);
         downloadable.setChunksProgress(new long[chunkNum]);
+        cacheMap.reset();
         int start = 0;
         long rangePosition = 0;
         int id = 0;
@@ -1044,6 +1056,7 @@ public class OldRAFDownload extends DownloadInterface {
             } catch (IOException e) {
             }
             outputPartFileRaf.set(IO.open(outputPartFile, "rw"));
+            incrementalHash = createIncrementalHash();
 
         } catch (Exception e) {
             LogSource.exception(logger, e);
@@ -1051,12 +1064,35 @@ public class OldRAFDownload extends DownloadInterface {
         }
     }
 
+    /**
+     * hash the bytes while they are written in file order, so the hash check only has to read the out of order tail again
+     */
+    private IncrementalHash createIncrementalHash() {
+        try {
+            final GeneralSettings config = JsonConfig.create(GeneralSettings.class);
+            if (config.isHashCheckEnabled() && config.isIncrementalHashCheckEnabled() && downloadable.isHashCheckEnabled()) {
+                final HashInfo hashInfo = downloadable.getHashInfo();
+                if (hashInfo != null) {
+                    return IncrementalHash.create(hashInfo.getType());
+                }
+            }
+        } catch (final Throwable e) {
+            LogSource.exception(logger, e);
+        }
+        return null;
+    }
+
     private void setupResume() throws FileNotFoundException {
         long parts = getFileSize() / getChunkNum();
         logger.info("Resume: " + getFileSize() + " partsize: " + parts);
         RAFChunk chunk;
         int id = 0;
+        cacheMap.reset();
         for (int i = 0; i < getChunkNum(); i++) {
+            final long loaded = downloadable.getChunksProgress()[i] - i * parts + 1;
+            if (downloadable.getChunksProgress()[i] > 0 && loaded > 0) {
+                cacheMap.mark(i * parts, loaded);
+            }
             if (i == getChunkNum() - 1) {
                 chunk = new RAFChunk(downloadable.getChunksProgress()[i] == 0 ? 0 : downloadable.getChunksProgress()[i] + 1, -1, connection, this, downloadable, id++);
                 chunk.setLoaded((downloadable.getChunksProgress()[i] - i * parts + 1));
@@ -1091,8 +1127,19 @@ public class OldRAFDownload extends DownloadInterface {
         try {
             synchronized (outputPartFile) {
                 final RandomAccessFile raf = outputPartFileRaf.get();
-                raf.seek(chunk.getWritePosition());
+                final long writePosition = chunk.getWritePosition();
+                raf.seek(writePosition);
                 raf.write(chunk.buffer.getInternalBuffer(), 0, chunk.buffer.size());
+                if (chunk.buffer.size() > 0) {
+                    synchronized (cacheMap) {
+                        cacheMap.mark(writePosition, chunk.buffer.size());
+                        cacheMap.notifyAll();
+                    }
+                }
+                final IncrementalHash incrementalHash = this.incrementalHash;
+                if (incrementalHash != null) {
+                    incrementalHash.update(writePosition, chunk.buffer.getInternalBuffer(), 0, chunk.buffer.size());
+                }
                 if (chunk.getID() >= 0) {
                     downloadable.getChunksProgress()[chunk.getID()] = chunk.getCurrentBytesPosition() - 1;
                 }
@@ -1128,6 +1175,10 @@ public class OldRAFDownload extends DownloadInterface {
                 logger.info("Close File. Let AV programs run");
                 loutputPartFileRaf.close();
             }
+            synchronized (cacheMap) {
+                /* wake up waiting streams */
+                cacheMap.notifyAll();
+            }
         } catch (Throwable e) {
             LogSource.exception(logger, e);
         }
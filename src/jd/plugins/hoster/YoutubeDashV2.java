@@ -905,24 +905,7 @@ public class YoutubeDashV2 extends PluginForHost implements YoutubeHostPluginInt
         final LinkStatus videoLinkStatus = new LinkStatus(dashLink);
         final String host = Browser.getHost(streamData.getBaseUrl());
         Downloadable dashDownloadable = new DownloadLinkDownloadable(dashLink) {
-            volatile long[] chunkProgress = null;
-
-            {
-                Object ret = downloadLink.getProperty(dashChunksProperty, null);
-                if (ret != null && ret instanceof long[]) {
-                    chunkProgress = (long[]) ret;
-                } else {
-                    if (ret != null && ret instanceof List) {
-                        /* restored json-object */
-                        List<Object> list = ((List<Object>) ret);
-                        long[] ret2 = new long[list.size()];
-                        for (int i = 0; i < ret2.length; i++) {
-                            ret2[i] = Long.valueOf(list.get(0).toString());
-                        }
-                        chunkProgress = ret2;
-                    }
-                }
-            }
+            volatile long[] chunkProgress = SegmentDownloader.toChunksProgress(downloadLink.getProperty(dashChunksProperty, null));
 
             @Override
             public String getHost() {
@@ -1134,7 +1117,9 @@ public class YoutubeDashV2 extends PluginForHost implements YoutubeHostPluginInt
         }
         String[] segments = streamData.getSegments();
         if (segments != null) {
-            dl = new SegmentDownloader(dashLink, dashDownloadable, br, request.getUrl(), segments);
+            final SegmentDownloader segmentDownloader = new SegmentDownloader(dashLink, dashDownloadable, br, request.getUrl(), segments);
+            segmentDownloader.setMaxConcurrentSegments(getChunksPerStream(youtubeConfig));
+            dl = segmentDownloader;
             boolean ret = dl.startDownload();
             if (dl.externalDownloadStop()) {
                 return null;
@@ -1,5 +1,7 @@
 package org.jdownloader.api.downloads.v2;
 
+import java.util.HashMap;
+
 import org.appwork.remoteapi.RemoteAPIInterface;
 import org.appwork.remoteapi.annotations.APIParameterNames;
 import org.appwork.remoteapi.annotations.ApiNamespace;
@@ -19,6 +21,16 @@ public interface DownloadWatchdogAPI extends RemoteAPIInterface {
      */
     int getSpeedInBps();
 
+    /**
+     * @return current download speed of all hosts with running downloads
+     */
+    HashMap<String, Integer> getSpeedInBpsByHost();
+
+    /**
+     * @return running/waiting hash checks and the throughput of the finished ones
+     */
+    HashCheckStatisticsStorable getHashCheckStatistics();
+
     /*
      * Controlls
      */
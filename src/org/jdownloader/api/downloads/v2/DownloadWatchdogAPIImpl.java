@@ -1,7 +1,10 @@
 package org.jdownloader.api.downloads.v2;
 
+import java.util.HashMap;
+
 import jd.controlling.downloadcontroller.DownloadController;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
+import jd.controlling.downloadcontroller.HashCheckManager;
 import jd.plugins.DownloadLink;
 import jd.plugins.FilePackage;
 
@@ -44,6 +47,24 @@ public class DownloadWatchdogAPIImpl implements DownloadWatchdogAPI {
         return dwd.getDownloadSpeedManager().getSpeed();
     }
 
+    @Override
+    public HashMap<String, Integer> getSpeedInBpsByHost() {
+        DownloadWatchDog dwd = DownloadWatchDog.getInstance();
+        return dwd.getDownloadSpeedManager().getHostSpeeds();
+    }
+
+    @Override
+    public HashCheckStatisticsStorable getHashCheckStatistics() {
+        final HashCheckManager manager = HashCheckManager.getInstance();
+        final HashCheckStatisticsStorable ret = new HashCheckStatisticsStorable();
+        ret.setRunning(manager.getRunningHashChecks());
+        ret.setWaiting(manager.getWaitingHashChecks());
+        ret.setHashedFiles(manager.getHashedFiles());
+        ret.setHashedBytes(manager.getHashedBytes());
+        ret.setThroughput(manager.getThroughput());
+        return ret;
+    }
+
     @Override
     public void forceDownload(final long[] linkIds, final long[] packageIds) {
         DownloadWatchDog dwd = DownloadWatchDog.getInstance();
@@ -90,6 +90,10 @@ public interface DownloadsAPIV2 extends RemoteAPIInterface {
      *            links are returned startAt, Integer, index of first element to be returned maxResults, Integer, total number of elements
      *            to be returned
      *
+     *            Optional filters: filterHosts, String[], filterFinalStates, String[] (FinalLinkState names), filterFinished, Boolean,
+     *            filterEnabled, Boolean. Optional sort: sortBy (NAME, HOST, BYTES_TOTAL, BYTES_LOADED, ADDED_DATE, FINISHED_DATE),
+     *            sortDescending, Boolean
+     *
      *            Optional fields (Boolean): host size done enabled
      *
      * @return
@@ -1,6 +1,9 @@
 package org.jdownloader.api.downloads.v2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +15,8 @@ import jd.controlling.downloadcontroller.DownloadController;
 import jd.controlling.downloadcontroller.DownloadSession.STOPMARK;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
 import jd.controlling.packagecontroller.AbstractNode;
+import jd.controlling.packagecontroller.AbstractPackageChildrenNodeFilter;
+import jd.controlling.packagecontroller.PackageControllerIndex;
 import jd.plugins.DownloadLink;
 import jd.plugins.FilePackage;
 import jd.plugins.FilePackageView;
@@ -52,14 +57,7 @@ public class DownloadsAPIV2Impl implements DownloadsAPIV2 {
         DownloadController dlc = DownloadController.getInstance();
 
         // filter out packages, if specific packageUUIDs given, else return all packages
-        List<FilePackage> packages = null;
-
-        if (queryParams.getPackageUUIDs() != null && queryParams.getPackageUUIDs().length > 0) {
-            packages = packageControllerUtils.getPackages(queryParams.getPackageUUIDs());
-
-        } else {
-            packages = dlc.getPackagesCopy();
-        }
+        final List<FilePackage> packages = dlc.getIndex().getPackages(queryParams.getPackageUUIDs());
 
         List<FilePackageAPIStorableV2> ret = new ArrayList<FilePackageAPIStorableV2>(packages.size());
         if (packages.size() == 0) {
@@ -114,71 +112,147 @@ public class DownloadsAPIV2Impl implements DownloadsAPIV2 {
     }
 
     @Override
-    public List<DownloadLinkAPIStorableV2> queryLinks(LinkQueryStorable queryParams) {
-        List<DownloadLinkAPIStorableV2> result = new ArrayList<DownloadLinkAPIStorableV2>();
-
-        DownloadController dlc = DownloadController.getInstance();
+    public List<DownloadLinkAPIStorableV2> queryLinks(final LinkQueryStorable queryParams) throws BadParameterException {
+        final PackageControllerIndex.Query<DownloadLink> query = new PackageControllerIndex.Query<DownloadLink>();
+        query.setPackageUUIDs(queryParams.getPackageUUIDs());
+        query.setJobUUIDs(queryParams.getJobUUIDs());
+        query.setHosts(queryParams.getFilterHosts());
+        query.setStates(getFinalLinkStates(queryParams));
+        final Boolean enabled = queryParams.getFilterEnabled();
+        if (enabled != null) {
+            query.setFilter(new AbstractPackageChildrenNodeFilter<DownloadLink>() {
+
+                @Override
+                public int returnMaxResults() {
+                    return 0;
+                }
 
-        final List<FilePackage> packages;
-        if (queryParams.getPackageUUIDs() != null && queryParams.getPackageUUIDs().length > 0) {
-            packages = packageControllerUtils.getPackages(queryParams.getPackageUUIDs());
-        } else {
-            packages = dlc.getPackagesCopy();
+                @Override
+                public boolean acceptNode(DownloadLink node) {
+                    return node.isEnabled() == enabled.booleanValue();
+                }
+            });
         }
-        final List<DownloadLink> links = new ArrayList<DownloadLink>();
-        if (queryParams.getJobUUIDs() != null && queryParams.getJobUUIDs().length > 0) {
-            final Set<Long> jobUUIDs = new HashSet<Long>();
-            for (final long id : queryParams.getJobUUIDs()) {
-                jobUUIDs.add(id);
-            }
-            for (FilePackage pkg : packages) {
-                final boolean readL = pkg.getModifyLock().readLock();
+        query.setComparator(getComparator(queryParams.getSortBy(), queryParams.isSortDescending()));
+        query.setStartAt(queryParams.getStartAt());
+        query.setMaxResults(queryParams.getMaxResults());
+        final List<DownloadLink> links = DownloadController.getInstance().getIndex().query(query);
+        final List<DownloadLinkAPIStorableV2> result = new ArrayList<DownloadLinkAPIStorableV2>(links.size());
+        for (final DownloadLink dl : links) {
+            result.add(toStorable(queryParams, dl, this));
+        }
+        return result;
+    }
+
+    /**
+     * @return the accepted FinalLinkStates(null for unfinished links), null to accept all
+     */
+    private static Object[] getFinalLinkStates(final LinkQueryStorable queryParams) throws BadParameterException {
+        final Boolean finished = queryParams.getFilterFinished();
+        final String[] finalStates = queryParams.getFilterFinalStates();
+        if (finished == null && (finalStates == null || finalStates.length == 0)) {
+            return null;
+        }
+        final Set<FinalLinkState> accepted = new HashSet<FinalLinkState>();
+        if (finalStates != null && finalStates.length > 0) {
+            for (final String finalState : finalStates) {
                 try {
-                    for (DownloadLink link : pkg.getChildren()) {
-                        if (jobUUIDs.contains(link.getJobID())) {
-                            links.add(link);
-                        }
-                    }
-                } finally {
-                    pkg.getModifyLock().readUnlock(readL);
+                    accepted.add(FinalLinkState.valueOf(finalState));
+                } catch (final IllegalArgumentException e) {
+                    throw new BadParameterException(e, finalState);
                 }
             }
         } else {
-            // collect children of the selected packages and convert to storables for response
-            for (FilePackage pkg : packages) {
-                final boolean b = pkg.getModifyLock().readLock();
-                try {
-                    links.addAll(pkg.getChildren());
-                } finally {
-                    pkg.getModifyLock().readUnlock(b);
-                }
+            accepted.addAll(Arrays.asList(FinalLinkState.values()));
+        }
+        final List<Object> ret = new ArrayList<Object>();
+        if (finished == null || !finished.booleanValue()) {
+            if (finalStates == null || finalStates.length == 0) {
+                /* links without FinalLinkState */
+                ret.add(null);
             }
         }
-
-        if (links.isEmpty()) {
-            return result;
+        for (final FinalLinkState finalState : accepted) {
+            if (finished == null || finished.booleanValue() == FinalLinkState.CheckFinished(finalState)) {
+                ret.add(finalState);
+            }
         }
+        return ret.toArray(new Object[ret.size()]);
+    }
 
-        int startWith = queryParams.getStartAt();
-        int maxResults = queryParams.getMaxResults();
-
-        if (startWith > links.size() - 1) {
-            return result;
-        }
-        if (startWith < 0) {
-            startWith = 0;
+    private static Comparator<DownloadLink> getComparator(final LinkQueryStorable.SortBy sortBy, final boolean descending) {
+        if (sortBy == null) {
+            return null;
+        }
+        final Comparator<DownloadLink> ret;
+        switch (sortBy) {
+        case HOST:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareStrings(o1.getHost(), o2.getHost());
+                }
+            };
+            break;
+        case BYTES_TOTAL:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareLongs(o1.getView().getBytesTotalEstimated(), o2.getView().getBytesTotalEstimated());
+                }
+            };
+            break;
+        case BYTES_LOADED:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareLongs(o1.getView().getBytesLoaded(), o2.getView().getBytesLoaded());
+                }
+            };
+            break;
+        case ADDED_DATE:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareLongs(o1.getCreated(), o2.getCreated());
+                }
+            };
+            break;
+        case FINISHED_DATE:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareLongs(o1.getFinishedDate(), o2.getFinishedDate());
+                }
+            };
+            break;
+        case NAME:
+        default:
+            ret = new Comparator<DownloadLink>() {
+                @Override
+                public int compare(DownloadLink o1, DownloadLink o2) {
+                    return compareStrings(o1.getName(), o2.getName());
+                }
+            };
+            break;
         }
-        if (maxResults < 0) {
-            maxResults = links.size();
+        if (descending) {
+            return Collections.reverseOrder(ret);
         }
+        return ret;
+    }
 
-        int until = Math.min(startWith + maxResults, links.size());
-        for (int i = startWith; i < until; i++) {
-            final DownloadLink dl = links.get(i);
-            final DownloadLinkAPIStorableV2 dls = toStorable(queryParams, dl, this);
-            result.add(dls);
+    private static int compareStrings(final String x, final String y) {
+        if (x == null) {
+            return y == null ? 0 : -1;
+        } else if (y == null) {
+            return 1;
         }
-        return result;
+        return x.compareToIgnoreCase(y);
+    }
+
+    private static int compareLongs(final long x, final long y) {
+        return (x < y) ? -1 : ((x == y) ? 0 : 1);
     }
 
     public static FilePackageAPIStorableV2 toStorable(PackageQueryStorable queryParams, FilePackage fp, Object caller) {
@@ -0,0 +1,58 @@
+package org.jdownloader.api.downloads.v2;
+
+import org.appwork.storage.Storable;
+
+public class HashCheckStatisticsStorable implements Storable {
+
+    private int  running;
+    private int  waiting;
+    private long hashedFiles;
+    private long hashedBytes;
+    private long throughput;
+
+    public HashCheckStatisticsStorable(/* Storable */) {
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    public long getHashedFiles() {
+        return hashedFiles;
+    }
+
+    public void setHashedFiles(long hashedFiles) {
+        this.hashedFiles = hashedFiles;
+    }
+
+    public long getHashedBytes() {
+        return hashedBytes;
+    }
+
+    public void setHashedBytes(long hashedBytes) {
+        this.hashedBytes = hashedBytes;
+    }
+
+    /**
+     * @return average throughput of a single hash check in bytes/s
+     */
+    public long getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(long throughput) {
+        this.throughput = throughput;
+    }
+}
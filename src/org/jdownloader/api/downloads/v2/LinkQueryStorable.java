@@ -31,8 +31,87 @@ public class LinkQueryStorable extends DownloadLinkQuery implements Storable {
         FULL.setFinishedDate(true);
     }
 
+    public static enum SortBy {
+        NAME,
+        HOST,
+        BYTES_TOTAL,
+        BYTES_LOADED,
+        ADDED_DATE,
+        FINISHED_DATE
+    }
+
+    private String[] filterHosts       = null;
+    private String[] filterFinalStates = null;
+    private Boolean  filterFinished    = null;
+    private Boolean  filterEnabled     = null;
+    private SortBy   sortBy            = null;
+    private boolean  sortDescending    = false;
+
     public LinkQueryStorable() {
         super(/* Storable */);
     }
 
+    /**
+     * @return only links of the given hosts, null for all
+     */
+    public String[] getFilterHosts() {
+        return filterHosts;
+    }
+
+    public void setFilterHosts(String[] filterHosts) {
+        this.filterHosts = filterHosts;
+    }
+
+    /**
+     * @return only links with the given FinalLinkStates, null for all
+     */
+    public String[] getFilterFinalStates() {
+        return filterFinalStates;
+    }
+
+    public void setFilterFinalStates(String[] filterFinalStates) {
+        this.filterFinalStates = filterFinalStates;
+    }
+
+    /**
+     * @return only finished(true) or unfinished(false) links, null for all
+     */
+    public Boolean getFilterFinished() {
+        return filterFinished;
+    }
+
+    public void setFilterFinished(Boolean filterFinished) {
+        this.filterFinished = filterFinished;
+    }
+
+    /**
+     * @return only enabled(true) or disabled(false) links, null for all
+     */
+    public Boolean getFilterEnabled() {
+        return filterEnabled;
+    }
+
+    public void setFilterEnabled(Boolean filterEnabled) {
+        this.filterEnabled = filterEnabled;
+    }
+
+    /**
+     * @return sort order of the links, null for list order
+     */
+    public SortBy getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(SortBy sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public boolean isSortDescending() {
+        return sortDescending;
+    }
+
+    public void setSortDescending(boolean sortDescending) {
+        this.sortDescending = sortDescending;
+    }
+
 }
\ No newline at end of file
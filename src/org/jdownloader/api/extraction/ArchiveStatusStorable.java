@@ -35,6 +35,39 @@ public class ArchiveStatusStorable implements Storable {
         this.controllerId = controllerId;
     }
 
+    private long processedBytes = -1;
+
+    @ApiDoc("-1 or the number of already extracted bytes if the controller is running")
+    public long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public void setProcessedBytes(long processedBytes) {
+        this.processedBytes = processedBytes;
+    }
+
+    private long completeBytes = -1;
+
+    @ApiDoc("-1 or the number of bytes to extract if the controller is running")
+    public long getCompleteBytes() {
+        return completeBytes;
+    }
+
+    public void setCompleteBytes(long completeBytes) {
+        this.completeBytes = completeBytes;
+    }
+
+    private long speed = -1;
+
+    @ApiDoc("-1 or the average extraction speed in bytes/s if the controller is running")
+    public long getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(long speed) {
+        this.speed = speed;
+    }
+
     private String                             archiveName = null;
     private HashMap<String, ArchiveFileStatus> states      = null;
 
@@ -21,6 +21,8 @@ public interface ExtractionAPI extends RemoteAPIInterface {
 
     public List<ArchiveStatusStorable> getQueue();
 
+    public ExtractionQueueStatusStorable getQueueStatus();
+
     @APIParameterNames({ "controllerID" })
     public boolean cancelExtraction(long controllerID);
 
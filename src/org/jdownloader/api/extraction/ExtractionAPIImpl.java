@@ -22,9 +22,11 @@ import org.jdownloader.extensions.extraction.ArchiveController;
 import org.jdownloader.extensions.extraction.ArchiveFile;
 import org.jdownloader.extensions.extraction.ArchiveSettings;
 import org.jdownloader.extensions.extraction.BooleanStatus;
+import org.jdownloader.extensions.extraction.CFG_EXTRACTION;
 import org.jdownloader.extensions.extraction.DummyArchive;
 import org.jdownloader.extensions.extraction.ExtractionController;
 import org.jdownloader.extensions.extraction.ExtractionExtension;
+import org.jdownloader.extensions.extraction.ExtractionQueue;
 import org.jdownloader.extensions.extraction.MissingArchiveFile;
 import org.jdownloader.extensions.extraction.contextmenu.downloadlist.ArchiveValidator;
 import org.jdownloader.extensions.extraction.multi.CheckException;
@@ -164,6 +166,9 @@ public class ExtractionAPIImpl implements ExtractionAPI {
                 archiveStatus.setControllerId(controller.getUniqueID().getID());
                 if (controller.gotStarted()) {
                     archiveStatus.setControllerStatus(ControllerStatus.RUNNING);
+                    archiveStatus.setProcessedBytes(controller.getProcessedBytes());
+                    archiveStatus.setCompleteBytes(controller.getCompleteBytes());
+                    archiveStatus.setSpeed(controller.getSpeed());
                 } else {
                     archiveStatus.setControllerStatus(ControllerStatus.QUEUED);
                 }
@@ -173,6 +178,21 @@ public class ExtractionAPIImpl implements ExtractionAPI {
         return ret;
     }
 
+    @Override
+    public ExtractionQueueStatusStorable getQueueStatus() {
+        final ExtractionQueueStatusStorable ret = new ExtractionQueueStatusStorable();
+        final ExtractionExtension extension = ArchiveValidator.EXTENSION;
+        if (extension != null) {
+            final ExtractionQueue queue = extension.getJobQueue();
+            ret.setQueued(queue.size());
+            ret.setRunning(queue.getRunningJobsCount());
+            ret.setMaxRunning(CFG_EXTRACTION.CFG.getMaxConcurrentExtractions());
+            ret.setMaxRunningPerDisk(CFG_EXTRACTION.CFG.getMaxConcurrentExtractionsPerDisk());
+            ret.setJobs(getQueue());
+        }
+        return ret;
+    }
+
     @Override
     public List<ArchiveSettingsAPIStorable> getArchiveSettings(String[] archiveIds) throws BadParameterException {
         List<ArchiveSettingsAPIStorable> ret = new ArrayList<ArchiveSettingsAPIStorable>();
@@ -0,0 +1,63 @@
+package org.jdownloader.api.extraction;
+
+import java.util.List;
+
+import org.appwork.remoteapi.annotations.ApiDoc;
+import org.appwork.storage.Storable;
+
+public class ExtractionQueueStatusStorable implements Storable {
+
+    private int                         queued            = 0;
+    private int                         running           = 0;
+    private int                         maxRunning        = 0;
+    private int                         maxRunningPerDisk = 0;
+    private List<ArchiveStatusStorable> jobs              = null;
+
+    public ExtractionQueueStatusStorable(/* Storable */) {
+    }
+
+    @ApiDoc("Number of archives waiting for extraction")
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    @ApiDoc("Number of archives currently extracted")
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    @ApiDoc("Max. number of archives extracted at the same time")
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    public void setMaxRunning(int maxRunning) {
+        this.maxRunning = maxRunning;
+    }
+
+    @ApiDoc("Max. number of archives extracted at the same time from/to the same disk")
+    public int getMaxRunningPerDisk() {
+        return maxRunningPerDisk;
+    }
+
+    public void setMaxRunningPerDisk(int maxRunningPerDisk) {
+        this.maxRunningPerDisk = maxRunningPerDisk;
+    }
+
+    @ApiDoc("Running and queued archives, see extraction/getQueue")
+    public List<ArchiveStatusStorable> getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(List<ArchiveStatusStorable> jobs) {
+        this.jobs = jobs;
+    }
+}
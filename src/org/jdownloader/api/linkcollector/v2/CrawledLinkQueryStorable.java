@@ -27,8 +27,73 @@ public class CrawledLinkQueryStorable extends CrawledLinkQuery implements Storab
         FULL.setVariantName(true);
     }
 
+    public static enum SortBy {
+        NAME,
+        HOST,
+        BYTES_TOTAL,
+        ADDED_DATE
+    }
+
+    private String[] filterHosts        = null;
+    private String[] filterAvailability = null;
+    private Boolean  filterEnabled      = null;
+    private SortBy   sortBy             = null;
+    private boolean  sortDescending     = false;
+
     public CrawledLinkQueryStorable() {
         super(/* Storable */);
     }
 
+    /**
+     * @return only links of the given hosts, null for all
+     */
+    public String[] getFilterHosts() {
+        return filterHosts;
+    }
+
+    public void setFilterHosts(String[] filterHosts) {
+        this.filterHosts = filterHosts;
+    }
+
+    /**
+     * @return only links with the given AvailableLinkStates, null for all
+     */
+    public String[] getFilterAvailability() {
+        return filterAvailability;
+    }
+
+    public void setFilterAvailability(String[] filterAvailability) {
+        this.filterAvailability = filterAvailability;
+    }
+
+    /**
+     * @return only enabled(true) or disabled(false) links, null for all
+     */
+    public Boolean getFilterEnabled() {
+        return filterEnabled;
+    }
+
+    public void setFilterEnabled(Boolean filterEnabled) {
+        this.filterEnabled = filterEnabled;
+    }
+
+    /**
+     * @return sort order of the links, null for list order
+     */
+    public SortBy getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(SortBy sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public boolean isSortDescending() {
+        return sortDescending;
+    }
+
+    public void setSortDescending(boolean sortDescending) {
+        this.sortDescending = sortDescending;
+    }
+
 }
\ No newline at end of file
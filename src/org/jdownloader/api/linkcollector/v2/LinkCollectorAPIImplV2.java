@@ -5,6 +5,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +27,8 @@ import jd.controlling.linkcrawler.CrawledLinkModifier;
 import jd.controlling.linkcrawler.CrawledPackage;
 import jd.controlling.linkcrawler.CrawledPackageView;
 import jd.controlling.linkcrawler.PackageInfo;
+import jd.controlling.packagecontroller.AbstractPackageChildrenNodeFilter;
+import jd.controlling.packagecontroller.PackageControllerIndex;
 import jd.plugins.DownloadLink;
 
 import org.appwork.remoteapi.exceptions.BadParameterException;
@@ -52,6 +56,7 @@ import org.jdownloader.myjdownloader.client.bindings.CleanupActionOptions;
 import org.jdownloader.myjdownloader.client.bindings.PriorityStorable;
 import org.jdownloader.myjdownloader.client.bindings.UrlDisplayTypeStorable;
 import org.jdownloader.myjdownloader.client.bindings.interfaces.LinkgrabberInterface;
+import org.jdownloader.myjdownloader.client.json.AvailableLinkState;
 import org.jdownloader.settings.GeneralSettings;
 import org.jdownloader.settings.UrlDisplayType;
 
@@ -72,13 +77,7 @@ public class LinkCollectorAPIImplV2 implements LinkCollectorAPIV2 {
         LinkCollector lc = LinkCollector.getInstance();
 
         // filter out packages, if specific packageUUIDs given, else return all packages
-        List<CrawledPackage> packages;
-        if (queryParams.getPackageUUIDs() != null && queryParams.getPackageUUIDs().length > 0) {
-            packages = packageControllerUtils.getPackages(queryParams.getPackageUUIDs());
-
-        } else {
-            packages = lc.getPackagesCopy();
-        }
+        final List<CrawledPackage> packages = lc.getIndex().getPackages(queryParams.getPackageUUIDs());
 
         if (packages.size() == 0) {
             return result;
@@ -195,75 +194,107 @@ public class LinkCollectorAPIImplV2 implements LinkCollectorAPIV2 {
         return result;
     }
 
-    @SuppressWarnings("rawtypes")
     @Override
-    public ArrayList<CrawledLinkAPIStorableV2> queryLinks(CrawledLinkQueryStorable queryParams) throws BadParameterException {
-        ArrayList<CrawledLinkAPIStorableV2> result = new ArrayList<CrawledLinkAPIStorableV2>();
-        LinkCollector lc = LinkCollector.getInstance();
-
-        final List<CrawledPackage> matched;
-        if (queryParams.getPackageUUIDs() != null && queryParams.getPackageUUIDs().length > 0) {
-            matched = packageControllerUtils.getPackages(queryParams.getPackageUUIDs());
-        } else {
-            matched = lc.getPackagesCopy();
-        }
-        final List<CrawledLink> links = new ArrayList<CrawledLink>();
-        if (queryParams.getJobUUIDs() != null && queryParams.getJobUUIDs().length > 0) {
-            final Set<Long> jobUUIDs = new HashSet<Long>();
-            for (final long id : queryParams.getJobUUIDs()) {
-                jobUUIDs.add(id);
-            }
-            for (CrawledPackage pkg : matched) {
-                final boolean readL = pkg.getModifyLock().readLock();
-                try {
-                    for (CrawledLink link : pkg.getChildren()) {
-                        if (jobUUIDs.contains(link.getJobID())) {
-                            links.add(link);
-                        }
-                    }
-
-                } finally {
-                    pkg.getModifyLock().readUnlock(readL);
-                }
-            }
-        } else {
-            // collect children of the selected packages and convert to storables for response
-            for (CrawledPackage pkg : matched) {
-                final boolean readL = pkg.getModifyLock().readLock();
+    public ArrayList<CrawledLinkAPIStorableV2> queryLinks(final CrawledLinkQueryStorable queryParams) throws BadParameterException {
+        final PackageControllerIndex.Query<CrawledLink> query = new PackageControllerIndex.Query<CrawledLink>();
+        query.setPackageUUIDs(queryParams.getPackageUUIDs());
+        query.setJobUUIDs(queryParams.getJobUUIDs());
+        query.setHosts(queryParams.getFilterHosts());
+        final String[] availability = queryParams.getFilterAvailability();
+        if (availability != null && availability.length > 0) {
+            final Object[] states = new Object[availability.length];
+            for (int index = 0; index < availability.length; index++) {
                 try {
-                    links.addAll(pkg.getChildren());
-                } finally {
-                    pkg.getModifyLock().readUnlock(readL);
+                    states[index] = AvailableLinkState.valueOf(availability[index]);
+                } catch (final IllegalArgumentException e) {
+                    throw new BadParameterException(e, availability[index]);
                 }
             }
+            query.setStates(states);
         }
+        final Boolean enabled = queryParams.getFilterEnabled();
+        if (enabled != null) {
+            query.setFilter(new AbstractPackageChildrenNodeFilter<CrawledLink>() {
 
-        if (links.isEmpty()) {
-            return result;
-        }
+                @Override
+                public int returnMaxResults() {
+                    return 0;
+                }
 
-        int startWith = queryParams.getStartAt();
-        int maxResults = queryParams.getMaxResults();
+                @Override
+                public boolean acceptNode(CrawledLink node) {
+                    return node.isEnabled() == enabled.booleanValue();
+                }
+            });
+        }
+        query.setComparator(getComparator(queryParams.getSortBy(), queryParams.isSortDescending()));
+        query.setStartAt(queryParams.getStartAt());
+        query.setMaxResults(queryParams.getMaxResults());
+        final List<CrawledLink> links = LinkCollector.getInstance().getIndex().query(query);
+        final ArrayList<CrawledLinkAPIStorableV2> result = new ArrayList<CrawledLinkAPIStorableV2>(links.size());
+        for (final CrawledLink cl : links) {
+            result.add(toStorable(queryParams, cl));
+        }
+        return result;
+    }
 
-        if (startWith > links.size() - 1) {
-            return result;
+    private static Comparator<CrawledLink> getComparator(final CrawledLinkQueryStorable.SortBy sortBy, final boolean descending) {
+        if (sortBy == null) {
+            return null;
         }
-        if (startWith < 0) {
-            startWith = 0;
+        final Comparator<CrawledLink> ret;
+        switch (sortBy) {
+        case HOST:
+            ret = new Comparator<CrawledLink>() {
+                @Override
+                public int compare(CrawledLink o1, CrawledLink o2) {
+                    return compareStrings(o1.getHost(), o2.getHost());
+                }
+            };
+            break;
+        case BYTES_TOTAL:
+            ret = new Comparator<CrawledLink>() {
+                @Override
+                public int compare(CrawledLink o1, CrawledLink o2) {
+                    return compareLongs(o1.getSize(), o2.getSize());
+                }
+            };
+            break;
+        case ADDED_DATE:
+            ret = new Comparator<CrawledLink>() {
+                @Override
+                public int compare(CrawledLink o1, CrawledLink o2) {
+                    return compareLongs(o1.getCreated(), o2.getCreated());
+                }
+            };
+            break;
+        case NAME:
+        default:
+            ret = new Comparator<CrawledLink>() {
+                @Override
+                public int compare(CrawledLink o1, CrawledLink o2) {
+                    return compareStrings(o1.getName(), o2.getName());
+                }
+            };
+            break;
         }
-        if (maxResults < 0) {
-            maxResults = links.size();
+        if (descending) {
+            return Collections.reverseOrder(ret);
         }
+        return ret;
+    }
 
-        for (int i = startWith; i < Math.min(startWith + maxResults, links.size()); i++) {
-
-            CrawledLink cl = links.get(i);
-            CrawledLinkAPIStorableV2 cls = toStorable(queryParams, cl);
-
-            result.add(cls);
+    private static int compareStrings(final String x, final String y) {
+        if (x == null) {
+            return y == null ? 0 : -1;
+        } else if (y == null) {
+            return 1;
         }
+        return x.compareToIgnoreCase(y);
+    }
 
-        return result;
+    private static int compareLongs(final long x, final long y) {
+        return (x < y) ? -1 : ((x == y) ? 0 : 1);
     }
 
     public static CrawledLinkAPIStorableV2 toStorable(CrawledLinkQueryStorable queryParams, CrawledLink cl) {
@@ -0,0 +1,70 @@
+package org.jdownloader.api.plugins;
+
+import org.appwork.storage.Storable;
+
+public class PluginMatchStatisticsStorable implements Storable {
+
+    private String className;
+    private String displayName;
+    private String type;
+    private long   matchCalls;
+    private long   matchHits;
+    private long   matchDuration;
+
+    public PluginMatchStatisticsStorable(/* Storable */) {
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return HOST or CRAWLER
+     */
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getMatchCalls() {
+        return matchCalls;
+    }
+
+    public void setMatchCalls(long matchCalls) {
+        this.matchCalls = matchCalls;
+    }
+
+    public long getMatchHits() {
+        return matchHits;
+    }
+
+    public void setMatchHits(long matchHits) {
+        this.matchHits = matchHits;
+    }
+
+    /**
+     * @return time in ms spent matching urls against the plugin pattern
+     */
+    public long getMatchDuration() {
+        return matchDuration;
+    }
+
+    public void setMatchDuration(long matchDuration) {
+        this.matchDuration = matchDuration;
+    }
+}
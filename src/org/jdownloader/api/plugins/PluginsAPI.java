@@ -23,6 +23,19 @@ public interface PluginsAPI extends RemoteAPIInterface {
     @APIParameterNames({ "query" })
     List<PluginAPIStorable> list(PluginsQueryStorable query);
 
+    /**
+     * @return pattern match statistics of all plugins that were asked to handle an url, most expensive first
+     */
+    List<PluginMatchStatisticsStorable> getMatchStatistics();
+
+    /**
+     * match statistics are collected only while enabled, disabled by default
+     */
+    @APIParameterNames({ "enabled" })
+    void setMatchStatisticsEnabled(boolean enabled);
+
+    boolean isMatchStatisticsEnabled();
+
     @AllowStorage(value = { Object.class })
     @AllowNonStorableObjects
     @APIParameterNames({ "interfaceName", "displayName", "key", "newValue" })
@@ -1,8 +1,11 @@
 package org.jdownloader.api.plugins;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.appwork.exceptions.WTFException;
 import org.appwork.remoteapi.exceptions.BadParameterException;
@@ -85,6 +88,44 @@ public class PluginsAPIImpl implements PluginsAPI {
         return result;
     }
 
+    @Override
+    public List<PluginMatchStatisticsStorable> getMatchStatistics() {
+        final ArrayList<PluginMatchStatisticsStorable> result = new ArrayList<PluginMatchStatisticsStorable>();
+        for (final LazyPlugin lazyPlugin : getAllPlugins()) {
+            final long matchCalls = lazyPlugin.getMatchCalls();
+            if (matchCalls > 0) {
+                final PluginMatchStatisticsStorable storable = new PluginMatchStatisticsStorable();
+                storable.setClassName(lazyPlugin.getClassName());
+                storable.setDisplayName(lazyPlugin.getDisplayName());
+                storable.setType(lazyPlugin instanceof LazyHostPlugin ? "HOST" : "CRAWLER");
+                storable.setMatchCalls(matchCalls);
+                storable.setMatchHits(lazyPlugin.getMatchHits());
+                storable.setMatchDuration(TimeUnit.NANOSECONDS.toMillis(lazyPlugin.getMatchDuration()));
+                result.add(storable);
+            }
+        }
+        Collections.sort(result, new Comparator<PluginMatchStatisticsStorable>() {
+
+            @Override
+            public int compare(PluginMatchStatisticsStorable o1, PluginMatchStatisticsStorable o2) {
+                final long x = o1.getMatchDuration();
+                final long y = o2.getMatchDuration();
+                return (x < y) ? 1 : ((x == y) ? 0 : -1);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void setMatchStatisticsEnabled(boolean enabled) {
+        LazyPlugin.setMatchStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public boolean isMatchStatisticsEnabled() {
+        return LazyPlugin.isMatchStatisticsEnabled();
+    }
+
     @Override
     public List<PluginConfigEntryAPIStorable> query(final AdvancedConfigQueryStorable query) throws BadParameterException {
         ArrayList<PluginConfigEntryAPIStorable> result = new ArrayList<PluginConfigEntryAPIStorable>();
@@ -0,0 +1,64 @@
+package org.jdownloader.api.system;
+
+import org.appwork.storage.Storable;
+
+public class DiskSpaceStorable implements Storable {
+
+    private String root;
+    private long   usableSpace;
+    private long   sampleAge;
+    private long   reservedSpace;
+    private int    reservations;
+
+    public DiskSpaceStorable(/* Storable */) {
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    public void setRoot(String root) {
+        this.root = root;
+    }
+
+    /**
+     * @return usable space in bytes, last sample minus the bytes written by reservations since, negative for unlimited
+     */
+    public long getUsableSpace() {
+        return usableSpace;
+    }
+
+    public void setUsableSpace(long usableSpace) {
+        this.usableSpace = usableSpace;
+    }
+
+    /**
+     * @return age of the last sample in ms
+     */
+    public long getSampleAge() {
+        return sampleAge;
+    }
+
+    public void setSampleAge(long sampleAge) {
+        this.sampleAge = sampleAge;
+    }
+
+    /**
+     * @return sum of all current reservations in bytes
+     */
+    public long getReservedSpace() {
+        return reservedSpace;
+    }
+
+    public void setReservedSpace(long reservedSpace) {
+        this.reservedSpace = reservedSpace;
+    }
+
+    public int getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(int reservations) {
+        this.reservations = reservations;
+    }
+}
@@ -28,4 +28,9 @@ public interface SystemAPI extends RemoteAPIInterface {
     @AllowNonStorableObjects
     @APIParameterNames({ "path" })
     public List<StorageInformationStorable> getStorageInfos(final String path);
+
+    /**
+     * @return usable space and reservations of the filestores known to the free space check
+     */
+    public List<DiskSpaceStorable> getDiskSpaceReservations();
 }
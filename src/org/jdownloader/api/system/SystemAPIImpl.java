@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import jd.controlling.downloadcontroller.DiskSpaceManager.Filestore;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
 import jd.controlling.linkcollector.LinkCollector;
 
@@ -91,6 +92,22 @@ public class SystemAPIImpl implements SystemAPI {
         RestartController.getInstance().exitAsynch(new SmartRlyExitRequest());
     }
 
+    public List<DiskSpaceStorable> getDiskSpaceReservations() {
+        final List<DiskSpaceStorable> ret = new ArrayList<DiskSpaceStorable>();
+        final long now = System.currentTimeMillis();
+        for (final Filestore filestore : DownloadWatchDog.getInstance().getSession().getDiskSpaceManager().getFilestores()) {
+            final DiskSpaceStorable storable = new DiskSpaceStorable();
+            storable.setRoot(filestore.getRoot());
+            storable.setUsableSpace(filestore.getUsableSpace());
+            storable.setSampleAge(filestore.getSampleTime() < 0 ? -1 : now - filestore.getSampleTime());
+            storable.setReservedSpace(filestore.getReservedSpace());
+            storable.setReservations(filestore.getReservations());
+            ret.add(storable);
+        }
+        return ret;
+    }
+
+    @Override
     public List<StorageInformationStorable> getStorageInfos(final String path) {
         if (Application.getJavaVersion() >= Application.JAVA17 && DownloadWatchDog.getInstance().getSession().getDiskSpaceManager().isSupported()) {
             return SystemAPIImpl17.getStorageInfos(path);
@@ -4,8 +4,10 @@ import java.util.HashMap;
 
 import org.appwork.storage.config.ConfigInterface;
 import org.appwork.storage.config.annotations.AboutConfig;
+import org.appwork.storage.config.annotations.DefaultIntValue;
 import org.appwork.storage.config.annotations.DefaultStringArrayValue;
 import org.appwork.storage.config.annotations.DescriptionForConfigEntry;
+import org.appwork.storage.config.annotations.SpinnerValidator;
 
 public interface FFmpegSetup extends ConfigInterface {
     @AboutConfig
@@ -68,6 +70,22 @@ public interface FFmpegSetup extends ConfigInterface {
 
     void setDemuxGenericCommand(String[] command);
 
+    @AboutConfig
+    @DefaultIntValue(4)
+    @SpinnerValidator(min = 0, max = 16)
+    @DescriptionForConfigEntry("Number of HLS segments to fetch ahead of ffmpeg (and parallel connections), 0 to disable")
+    int getHLSPrefetchDepth();
+
+    void setHLSPrefetchDepth(int depth);
+
+    @AboutConfig
+    @DefaultIntValue(32 * 1024 * 1024)
+    @SpinnerValidator(min = 0, max = Integer.MAX_VALUE)
+    @DescriptionForConfigEntry("Max. bytes of prefetched HLS segments to keep in memory, further segments are buffered on disk")
+    int getHLSPrefetchMemoryLimit();
+
+    void setHLSPrefetchMemoryLimit(int bytes);
+
     @AboutConfig
     HashMap<String, String> getExtensionToFormatMap();
 
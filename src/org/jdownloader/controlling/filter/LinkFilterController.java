@@ -1,6 +1,7 @@
 package org.jdownloader.controlling.filter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 
@@ -50,6 +51,7 @@ public class LinkFilterController implements LinkCrawlerFilter {
 
     private volatile List<LinkgrabberFilterRuleWrapper> acceptFilters = null;
     private volatile List<LinkgrabberFilterRuleWrapper> denyFilters   = null;
+    private volatile LinkFilterRuleSet                  denyRuleSet   = null;
     private final KeyHandler<Object>                    filterListHandler;
 
     private final ChangeEventSender                     eventSender;
@@ -201,6 +203,7 @@ public class LinkFilterController implements LinkCrawlerFilter {
                 }
             }
         }
+        denyRuleSet = new LinkFilterRuleSet(newDenyFilters);
         denyFilters = newDenyFilters;
         acceptFilters = newAcceptlFilters;
         if (getEventSender().hasListener()) {
@@ -303,15 +306,40 @@ public class LinkFilterController implements LinkCrawlerFilter {
         if (isTestInstance() == false && !org.jdownloader.settings.staticreferences.CFG_LINKFILTER.LINK_FILTER_ENABLED.isEnabled()) {
             return false;
         }
-        for (final LinkgrabberFilterRuleWrapper lgr : denyFilters) {
-            if (matches(link, lgr, false)) {
+        return drop(link, false);
+    }
+
+    /**
+     * checks the deny rules in order, only rules that are candidates of the compiled {@link LinkFilterRuleSet} are checked
+     */
+    private boolean drop(final CrawledLink link, final boolean afterOnlineCheck) {
+        final LinkFilterRuleSet ruleSet = denyRuleSet;
+        if (ruleSet == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        final BitSet candidates = ruleSet.getCandidates(link);
+        int confirmed = 0;
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            final LinkgrabberFilterRuleWrapper lgr = ruleSet.getRule(index);
+            confirmed++;
+            if (matches(link, lgr, afterOnlineCheck)) {
                 link.setMatchingFilter(lgr.getRule());
+                ruleSet.onChecked(System.nanoTime() - start, confirmed, true);
                 return true;
             }
         }
+        ruleSet.onChecked(System.nanoTime() - start, confirmed, false);
         return false;
     }
 
+    /**
+     * @return the compiled deny rules, null if not loaded yet
+     */
+    public LinkFilterRuleSet getDenyRuleSet() {
+        return denyRuleSet;
+    }
+
     private boolean matches(CrawledLink link, LinkgrabberFilterRuleWrapper rule, final boolean afterOnlineCheck) {
         if (!rule.checkHoster(link)) {
             return false;
@@ -361,13 +389,7 @@ public class LinkFilterController implements LinkCrawlerFilter {
         if (link.getDownloadLink() == null) {
             throw new WTFException();
         }
-        for (final LinkgrabberFilterRuleWrapper lgr : denyFilters) {
-            if (matches(link, lgr, true)) {
-                link.setMatchingFilter(lgr.getRule());
-                return true;
-            }
-        }
-        return false;
+        return drop(link, true);
     }
 
     public java.util.List<LinkgrabberFilterRule> listFilters() {
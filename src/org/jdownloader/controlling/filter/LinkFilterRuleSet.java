@@ -0,0 +1,527 @@
+package org.jdownloader.controlling.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jd.controlling.linkcrawler.CrawledLink;
+import jd.plugins.DownloadLink;
+
+import org.jdownloader.controlling.filter.RegexFilter.MatchType;
+
+/**
+ * rule set of LinkgrabberFilterRuleWrappers compiled into one literal index. every rule gets the longest fixed substring its hoster/url and
+ * filename filter requires(prefilter), all prefilters are matched at once with an Aho-Corasick automaton. only rules without prefilter or
+ * with all prefilters found are candidates that have to be confirmed by the full rule check.
+ */
+public class LinkFilterRuleSet {
+
+    private static final int MIN_LITERAL_LENGTH = 3;
+
+    /**
+     * Aho-Corasick automaton over ASCII lower case literals, the same case folding as Pattern.CASE_INSENSITIVE
+     */
+    private static class LiteralIndex {
+        private final char[][] keys;
+        private final int[][]  next;
+        private final int[]    fail;
+        private final int[][]  outputs;
+
+        private LiteralIndex(final List<String> literals) {
+            final List<HashMap<Character, Integer>> trie = new ArrayList<HashMap<Character, Integer>>();
+            final List<List<Integer>> out = new ArrayList<List<Integer>>();
+            trie.add(new HashMap<Character, Integer>());
+            out.add(new ArrayList<Integer>());
+            for (int literalIndex = 0; literalIndex < literals.size(); literalIndex++) {
+                final String literal = literals.get(literalIndex);
+                int node = 0;
+                for (int index = 0; index < literal.length(); index++) {
+                    final Character c = Character.valueOf(toLowerCase(literal.charAt(index)));
+                    Integer child = trie.get(node).get(c);
+                    if (child == null) {
+                        child = Integer.valueOf(trie.size());
+                        trie.get(node).put(c, child);
+                        trie.add(new HashMap<Character, Integer>());
+                        out.add(new ArrayList<Integer>());
+                    }
+                    node = child.intValue();
+                }
+                out.get(node).add(Integer.valueOf(literalIndex));
+            }
+            final int size = trie.size();
+            keys = new char[size][];
+            next = new int[size][];
+            fail = new int[size];
+            outputs = new int[size][];
+            for (int node = 0; node < size; node++) {
+                final HashMap<Character, Integer> children = trie.get(node);
+                final char[] nodeKeys = new char[children.size()];
+                int index = 0;
+                for (final Character c : children.keySet()) {
+                    nodeKeys[index++] = c.charValue();
+                }
+                Arrays.sort(nodeKeys);
+                final int[] nodeNext = new int[nodeKeys.length];
+                for (index = 0; index < nodeKeys.length; index++) {
+                    nodeNext[index] = children.get(Character.valueOf(nodeKeys[index])).intValue();
+                }
+                keys[node] = nodeKeys;
+                next[node] = nodeNext;
+            }
+            /* breadth first fail links, outputs include the outputs of the fail node */
+            final LinkedList<Integer> queue = new LinkedList<Integer>();
+            for (final int child : next[0]) {
+                fail[child] = 0;
+                queue.add(Integer.valueOf(child));
+            }
+            while (!queue.isEmpty()) {
+                final int node = queue.removeFirst().intValue();
+                for (int index = 0; index < keys[node].length; index++) {
+                    final char c = keys[node][index];
+                    final int child = next[node][index];
+                    int state = fail[node];
+                    int target;
+                    while ((target = step(state, c)) < 0 && state != 0) {
+                        state = fail[state];
+                    }
+                    fail[child] = target < 0 || target == child ? 0 : target;
+                    out.get(child).addAll(out.get(fail[child]));
+                    queue.add(Integer.valueOf(child));
+                }
+            }
+            for (int node = 0; node < size; node++) {
+                final List<Integer> nodeOut = out.get(node);
+                final int[] nodeOutputs = new int[nodeOut.size()];
+                for (int index = 0; index < nodeOutputs.length; index++) {
+                    nodeOutputs[index] = nodeOut.get(index).intValue();
+                }
+                outputs[node] = nodeOutputs;
+            }
+        }
+
+        private int step(final int node, final char c) {
+            final int index = Arrays.binarySearch(keys[node], c);
+            return index < 0 ? -1 : next[node][index];
+        }
+
+        /**
+         * sets the bits of all literals found in the given text
+         */
+        private void find(final String text, final BitSet found) {
+            if (text == null) {
+                return;
+            }
+            int state = 0;
+            for (int index = 0; index < text.length(); index++) {
+                final char c = toLowerCase(text.charAt(index));
+                int target;
+                while ((target = step(state, c)) < 0 && state != 0) {
+                    state = fail[state];
+                }
+                state = target < 0 ? 0 : target;
+                for (final int literal : outputs[state]) {
+                    found.set(literal);
+                }
+            }
+        }
+    }
+
+    public static class Statistics {
+        private final AtomicLong checkedLinks    = new AtomicLong(0);
+        private final AtomicLong matchedLinks    = new AtomicLong(0);
+        private final AtomicLong confirmedRules  = new AtomicLong(0);
+        private final AtomicLong duration        = new AtomicLong(0);
+        private final int        rules;
+        private final int        prefilteredRules;
+
+        private Statistics(int rules, int prefilteredRules) {
+            this.rules = rules;
+            this.prefilteredRules = prefilteredRules;
+        }
+
+        public long getCheckedLinks() {
+            return checkedLinks.get();
+        }
+
+        public long getMatchedLinks() {
+            return matchedLinks.get();
+        }
+
+        /**
+         * @return percentage of checked links that matched a rule
+         */
+        public double getMatchRate() {
+            final long checked = getCheckedLinks();
+            if (checked == 0) {
+                return 0;
+            }
+            return (getMatchedLinks() * 100d) / checked;
+        }
+
+        /**
+         * @return average time per checked link in nanoseconds
+         */
+        public long getAverageDuration() {
+            final long checked = getCheckedLinks();
+            if (checked == 0) {
+                return 0;
+            }
+            return duration.get() / checked;
+        }
+
+        /**
+         * @return average number of rules that had to be confirmed by full rule check per link
+         */
+        public double getAverageConfirmedRules() {
+            final long checked = getCheckedLinks();
+            if (checked == 0) {
+                return 0;
+            }
+            return confirmedRules.get() / (double) checked;
+        }
+
+        public int getRules() {
+            return rules;
+        }
+
+        /**
+         * @return number of rules with literal prefilter
+         */
+        public int getPrefilteredRules() {
+            return prefilteredRules;
+        }
+    }
+
+    private final List<LinkgrabberFilterRuleWrapper> rules;
+    /* literal ids per rule, null for rules without prefilter */
+    private final int[][]                            ruleLiterals;
+    private final BitSet                             unfilteredRules = new BitSet();
+    private final LiteralIndex                       hosterIndex;
+    private final LiteralIndex                       fileNameIndex;
+    private final int                                hosterLiterals;
+    private final Statistics                         statistics;
+
+    public LinkFilterRuleSet(final List<LinkgrabberFilterRuleWrapper> rules) {
+        this.rules = new ArrayList<LinkgrabberFilterRuleWrapper>(rules);
+        ruleLiterals = new int[this.rules.size()][];
+        final List<String> hoster = new ArrayList<String>();
+        final List<String> fileName = new ArrayList<String>();
+        final List<int[]> fileNameLiterals = new ArrayList<int[]>();
+        int prefiltered = 0;
+        for (int index = 0; index < this.rules.size(); index++) {
+            final LinkgrabberFilterRuleWrapper rule = this.rules.get(index);
+            final String hosterLiteral = getRequiredLiteral(rule.getHosterRule());
+            final String fileNameLiteral = getRequiredLiteral(rule.getFileNameRule());
+            if (hosterLiteral == null && fileNameLiteral == null) {
+                unfilteredRules.set(index);
+                continue;
+            }
+            prefiltered++;
+            final int hosterID;
+            if (hosterLiteral != null) {
+                hosterID = hoster.size();
+                hoster.add(hosterLiteral);
+            } else {
+                hosterID = -1;
+            }
+            final int fileNameID;
+            if (fileNameLiteral != null) {
+                fileNameID = fileName.size();
+                fileName.add(fileNameLiteral);
+            } else {
+                fileNameID = -1;
+            }
+            fileNameLiterals.add(new int[] { index, hosterID, fileNameID });
+        }
+        hosterLiterals = hoster.size();
+        for (final int[] literals : fileNameLiterals) {
+            /* file name literal ids follow the hoster literal ids */
+            if (literals[1] >= 0 && literals[2] >= 0) {
+                ruleLiterals[literals[0]] = new int[] { literals[1], hosterLiterals + literals[2] };
+            } else if (literals[1] >= 0) {
+                ruleLiterals[literals[0]] = new int[] { literals[1] };
+            } else {
+                ruleLiterals[literals[0]] = new int[] { hosterLiterals + literals[2] };
+            }
+        }
+        hosterIndex = hoster.size() > 0 ? new LiteralIndex(hoster) : null;
+        fileNameIndex = fileName.size() > 0 ? new LiteralIndex(fileName) : null;
+        statistics = new Statistics(this.rules.size(), prefiltered);
+    }
+
+    public List<LinkgrabberFilterRuleWrapper> getRules() {
+        return rules;
+    }
+
+    public LinkgrabberFilterRuleWrapper getRule(final int index) {
+        return rules.get(index);
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return indices of all rules that may match the given link, in rule order
+     */
+    public BitSet getCandidates(final CrawledLink link) {
+        final BitSet ret = (BitSet) unfilteredRules.clone();
+        if (hosterIndex == null && fileNameIndex == null) {
+            return ret;
+        }
+        final BitSet found = new BitSet();
+        if (hosterIndex != null) {
+            final DownloadLink dlLink = link.getDownloadLink();
+            if (dlLink != null && link.gethPlugin() != null) {
+                /* see RuleWrapper.checkHoster */
+                hosterIndex.find(dlLink.getServiceHost(), found);
+                hosterIndex.find(dlLink.getContentUrlOrPatternMatcher(), found);
+            }
+        }
+        if (fileNameIndex != null) {
+            final BitSet fileNameFound = new BitSet();
+            fileNameIndex.find(link.getName(), fileNameFound);
+            for (int index = fileNameFound.nextSetBit(0); index >= 0; index = fileNameFound.nextSetBit(index + 1)) {
+                found.set(hosterLiterals + index);
+            }
+        }
+        if (found.isEmpty()) {
+            return ret;
+        }
+        candidates: for (int index = 0; index < ruleLiterals.length; index++) {
+            final int[] literals = ruleLiterals[index];
+            if (literals != null) {
+                for (final int literal : literals) {
+                    if (!found.get(literal)) {
+                        continue candidates;
+                    }
+                }
+                ret.set(index);
+            }
+        }
+        return ret;
+    }
+
+    public void onChecked(final long duration, final int confirmedRules, final boolean matched) {
+        statistics.checkedLinks.incrementAndGet();
+        statistics.confirmedRules.addAndGet(confirmedRules);
+        statistics.duration.addAndGet(duration);
+        if (matched) {
+            statistics.matchedLinks.incrementAndGet();
+        }
+    }
+
+    private static char toLowerCase(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    /**
+     * @return the longest fixed substring every string matched by the given filter contains, null if unknown or too short
+     */
+    protected static String getRequiredLiteral(final CompiledRegexFilter filter) {
+        if (filter == null) {
+            return null;
+        }
+        final MatchType matchType = filter.getMatchType();
+        if (matchType != MatchType.CONTAINS && matchType != MatchType.EQUALS) {
+            return null;
+        }
+        final String regex = filter.getRegex();
+        if (regex == null) {
+            return null;
+        }
+        String ret = null;
+        if (!filter.isUseRegex()) {
+            /* see RuleWrapper.createPattern, * is the only wildcard */
+            for (final String part : regex.split("\\*+")) {
+                if (ret == null || part.length() > ret.length()) {
+                    ret = part;
+                }
+            }
+        } else {
+            ret = getRequiredLiteral(regex);
+        }
+        if (ret == null || ret.length() < MIN_LITERAL_LENGTH) {
+            return null;
+        }
+        return ret;
+    }
+
+    /**
+     * conservative literal extraction, only literals outside of groups and character classes are used. returns null for top level
+     * alternations, inline flags and escapes that are not understood
+     */
+    private static String getRequiredLiteral(final String regex) {
+        String ret = null;
+        final StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int index = 0;
+        while (index < regex.length()) {
+            final char c = regex.charAt(index);
+            if (c == '\\') {
+                if (index + 1 >= regex.length()) {
+                    return null;
+                }
+                final char escaped = regex.charAt(index + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    switch (escaped) {
+                    case 'd':
+                    case 'D':
+                    case 'w':
+                    case 'W':
+                    case 's':
+                    case 'S':
+                    case 'b':
+                    case 'B':
+                        if (depth == 0) {
+                            ret = longest(ret, run);
+                        }
+                        index += 2;
+                        continue;
+                    default:
+                        return null;
+                    }
+                }
+                index += 2;
+                if (depth == 0) {
+                    if (isOptional(regex, index)) {
+                        ret = longest(ret, run);
+                    } else {
+                        run.append(escaped);
+                    }
+                }
+                continue;
+            }
+            switch (c) {
+            case '[':
+                index = skipCharacterClass(regex, index);
+                if (index < 0) {
+                    return null;
+                }
+                if (depth == 0) {
+                    ret = longest(ret, run);
+                }
+                continue;
+            case '(':
+                if (index + 1 < regex.length() && regex.charAt(index + 1) == '?') {
+                    if (index + 2 >= regex.length()) {
+                        return null;
+                    }
+                    final char type = regex.charAt(index + 2);
+                    if (type != ':' && type != '=' && type != '!' && type != '<') {
+                        /* inline flags, eg (?x) changes the meaning of literals */
+                        return null;
+                    }
+                }
+                if (depth == 0) {
+                    ret = longest(ret, run);
+                }
+                depth++;
+                index++;
+                continue;
+            case ')':
+                depth--;
+                if (depth < 0) {
+                    return null;
+                }
+                index++;
+                continue;
+            case '|':
+                if (depth == 0) {
+                    return null;
+                }
+                index++;
+                continue;
+            case '.':
+            case '^':
+            case '$':
+            case '?':
+            case '*':
+            case '+':
+                if (depth == 0) {
+                    ret = longest(ret, run);
+                }
+                index++;
+                continue;
+            case '{':
+                if (depth == 0) {
+                    ret = longest(ret, run);
+                }
+                index = regex.indexOf('}', index);
+                if (index < 0) {
+                    return null;
+                }
+                index++;
+                continue;
+            case ']':
+            case '}':
+                return null;
+            default:
+                index++;
+                if (depth == 0) {
+                    if (isOptional(regex, index)) {
+                        ret = longest(ret, run);
+                    } else {
+                        run.append(c);
+                    }
+                }
+                continue;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        return longest(ret, run);
+    }
+
+    /**
+     * @return true if the quantifier at the given index allows zero occurrences of the previous char
+     */
+    private static boolean isOptional(final String regex, final int index) {
+        if (index >= regex.length()) {
+            return false;
+        }
+        final char c = regex.charAt(index);
+        return c == '?' || c == '*' || c == '{';
+    }
+
+    private static int skipCharacterClass(final String regex, int index) {
+        int depth = 0;
+        while (index < regex.length()) {
+            final char c = regex.charAt(index);
+            if (c == '\\') {
+                index += 2;
+                continue;
+            } else if (c == '[') {
+                depth++;
+                if (index + 1 < regex.length() && regex.charAt(index + 1) == ']') {
+                    /* ] as first char of the class */
+                    index++;
+                }
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return index + 1;
+                }
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static String longest(final String current, final StringBuilder run) {
+        String ret = current;
+        if (run.length() > 0 && (ret == null || run.length() > ret.length())) {
+            ret = run.toString();
+        }
+        run.setLength(0);
+        return ret;
+    }
+}
@@ -1,110 +1,210 @@
 package org.jdownloader.controlling.lists;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
-import jd.controlling.downloadcontroller.DownloadController;
 import jd.plugins.DownloadLink;
 import jd.plugins.FilePackage;
 
-import org.appwork.scheduler.DelayedRunnable;
 import org.appwork.utils.StringUtils;
 import org.jdownloader.settings.staticreferences.CFG_GENERAL;
 
+/**
+ * linkID index of all links in the DownloadController. the DownloadController updates the index whenever links are added, removed or change
+ * their linkID, so it is never rebuilt. optionally the linkIDs are stored as 64bit hashes, collisions are resolved by comparing the linkIDs
+ * of the indexed links
+ */
 public class DupeManager {
-    private volatile HashMap<String, List<DownloadLink>> map = null;
-    private final DelayedRunnable                        updateDelayer;
-    private final boolean                                enabled;
+    /* key -> DownloadLink or DownloadLink[], values are never modified, writes are guarded by index */
+    private final ConcurrentHashMap<Object, Object>  index = new ConcurrentHashMap<Object, Object>();
+    /* DownloadLink -> key it is indexed by, guarded by index */
+    private final IdentityHashMap<DownloadLink, Object> keys  = new IdentityHashMap<DownloadLink, Object>();
+    private final boolean                            enabled;
+    private final boolean                            compactKeys;
 
     public DupeManager() {
-        map = new HashMap<String, List<DownloadLink>>();
         enabled = CFG_GENERAL.CFG.isDupeManagerEnabled();
-        if (enabled) {
-            updateDelayer = new DelayedRunnable(DownloadController.TIMINGQUEUE, 500, 1000) {
-                @Override
-                public String getID() {
-                    return DupeManager.class.getName();
-                }
+        compactKeys = CFG_GENERAL.CFG.isDupeManagerCompactKeysEnabled();
+    }
 
-                @Override
-                public void delayedrun() {
-                    refreshMap();
-                }
+    private Object getKey(final String linkID) {
+        if (linkID == null) {
+            return null;
+        } else if (!compactKeys) {
+            return linkID;
+        }
+        /* 64bit FNV-1a */
+        long hash = 0xcbf29ce484222325l;
+        for (int index = 0; index < linkID.length(); index++) {
+            hash ^= linkID.charAt(index);
+            hash *= 0x100000001b3l;
+        }
+        return Long.valueOf(hash);
+    }
 
-            };
-        } else {
-            updateDelayer = null;
+    public void addPackages(final List<FilePackage> packages) {
+        if (enabled && packages != null) {
+            for (final FilePackage fpkg : packages) {
+                addPackage(fpkg);
+            }
         }
     }
 
-    public void invalidate() {
-        if (enabled) {
-            updateDelayer.resetAndStart();
+    public void addPackage(final FilePackage fpkg) {
+        if (enabled && fpkg != null) {
+            final List<DownloadLink> links;
+            final boolean readL = fpkg.getModifyLock().readLock();
+            try {
+                links = new ArrayList<DownloadLink>(fpkg.getChildren());
+            } finally {
+                fpkg.getModifyLock().readUnlock(readL);
+            }
+            add(links);
         }
     }
 
-    public boolean hasID(String linkID) {
-        if (enabled) {
-            final HashMap<String, List<DownloadLink>> lMap = map;
-            if (lMap == null) {
-                return false;
+    /**
+     * adds the given links, links that are already indexed are added again with their current linkID
+     */
+    public void add(final List<DownloadLink> links) {
+        if (enabled && links != null) {
+            synchronized (index) {
+                for (final DownloadLink link : links) {
+                    addInternal(link);
+                }
             }
-            final List<DownloadLink> lst = lMap.get(linkID);
-            if (lst == null || lst.size() == 0) {
-                return false;
+        }
+    }
+
+    public void add(final DownloadLink link) {
+        if (enabled && link != null) {
+            synchronized (index) {
+                addInternal(link);
             }
+        }
+    }
 
-            List<DownloadLink> toRemove = null;
-            try {
-                for (final DownloadLink link : lst) {
-                    if (StringUtils.equals(link.getLinkID(), linkID)) {
-                        final FilePackage p = link.getParentNode();
-                        if (p != null && p.getControlledBy() != null) {
-                            return true;
-                        }
+    /**
+     * re-keys the link after its linkID has changed, links that are not indexed or no longer controlled are ignored
+     */
+    public void update(final DownloadLink link) {
+        if (enabled && link != null) {
+            synchronized (index) {
+                if (keys.containsKey(link)) {
+                    final FilePackage p = link.getParentNode();
+                    if (p != null && p.getControlledBy() != null) {
+                        addInternal(link);
+                    } else {
+                        removeInternal(keys.remove(link), link);
                     }
-                    if (toRemove == null) {
-                        toRemove = new ArrayList<DownloadLink>();
-                    }
-                    toRemove.add(link);
                 }
-            } finally {
-                if (toRemove != null) {
-                    lst.removeAll(toRemove);
-                    if (lst.size() == 0) {
-                        lMap.remove(linkID);
-                    }
+            }
+        }
+    }
+
+    /**
+     * removes the given links by identity, independent of their current linkID
+     */
+    public void remove(final List<DownloadLink> links) {
+        if (enabled && links != null) {
+            synchronized (index) {
+                for (final DownloadLink link : links) {
+                    removeInternal(keys.remove(link), link);
                 }
             }
         }
-        return false;
     }
 
-    private HashMap<String, List<DownloadLink>> refreshMap() {
-        if (enabled) {
-            final HashMap<String, List<DownloadLink>> map = new HashMap<String, List<DownloadLink>>();
-            for (final FilePackage fpkg : DownloadController.getInstance().getPackagesCopy()) {
-                final boolean readL2 = fpkg.getModifyLock().readLock();
-                try {
-                    for (final DownloadLink link : fpkg.getChildren()) {
-                        List<DownloadLink> lst = map.get(link.getLinkID());
-                        if (lst == null) {
-                            lst = new ArrayList<DownloadLink>();
-                            map.put(link.getLinkID(), lst);
-                        }
-                        lst.add(link);
-                    }
-                } finally {
-                    fpkg.getModifyLock().readUnlock(readL2);
+    private void addInternal(final DownloadLink link) {
+        final Object key = getKey(link.getLinkID());
+        final Object oldKey = keys.get(link);
+        if (oldKey != null && !oldKey.equals(key)) {
+            removeInternal(oldKey, link);
+        }
+        if (key == null) {
+            keys.remove(link);
+            return;
+        }
+        keys.put(link, key);
+        final Object existing = index.get(key);
+        if (existing == null) {
+            index.put(key, link);
+        } else if (existing instanceof DownloadLink) {
+            if (existing != link) {
+                index.put(key, new DownloadLink[] { (DownloadLink) existing, link });
+            }
+        } else {
+            final DownloadLink[] links = (DownloadLink[]) existing;
+            for (final DownloadLink indexed : links) {
+                if (indexed == link) {
+                    return;
+                }
+            }
+            final DownloadLink[] newLinks = new DownloadLink[links.length + 1];
+            System.arraycopy(links, 0, newLinks, 0, links.length);
+            newLinks[links.length] = link;
+            index.put(key, newLinks);
+        }
+    }
+
+    private void removeInternal(final Object key, final DownloadLink link) {
+        if (key == null) {
+            return;
+        }
+        final Object existing = index.get(key);
+        if (existing == link) {
+            index.remove(key);
+        } else if (existing instanceof DownloadLink[]) {
+            final DownloadLink[] links = (DownloadLink[]) existing;
+            final List<DownloadLink> newLinks = new ArrayList<DownloadLink>(links.length);
+            for (final DownloadLink indexed : links) {
+                if (indexed != link) {
+                    newLinks.add(indexed);
                 }
             }
-            this.map = map;
-            return map;
+            if (newLinks.size() == links.length) {
+                return;
+            } else if (newLinks.size() == 1) {
+                index.put(key, newLinks.get(0));
+            } else {
+                index.put(key, newLinks.toArray(new DownloadLink[newLinks.size()]));
+            }
+        }
+    }
+
+    public boolean hasID(final String linkID) {
+        if (!enabled || linkID == null) {
+            return false;
+        }
+        final Object key = getKey(linkID);
+        final Object existing = index.get(key);
+        if (existing == null) {
+            return false;
+        }
+        final DownloadLink[] links;
+        if (existing instanceof DownloadLink) {
+            links = new DownloadLink[] { (DownloadLink) existing };
         } else {
-            this.map = null;
-            return null;
+            links = (DownloadLink[]) existing;
+        }
+        for (final DownloadLink link : links) {
+            /* compare linkIDs, compact keys may collide */
+            if (StringUtils.equals(link.getLinkID(), linkID)) {
+                final FilePackage p = link.getParentNode();
+                if (p != null && p.getControlledBy() != null) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
+    /**
+     * @return number of indexed linkIDs
+     */
+    public int size() {
+        return index.size();
+    }
 }
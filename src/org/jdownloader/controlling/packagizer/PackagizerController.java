@@ -9,7 +9,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jd.controlling.TaskQueue;
@@ -298,12 +297,12 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                 return SIMPLEDATE;
             }
 
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 if (StringUtils.isNotEmpty(modifiers)) {
                     final String dateString = new SimpleDateFormat(modifiers).format(new Date());
-                    return Pattern.compile("<jd:simpledate:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, dateString)));
+                    return preprocessReplacement(replaceVariable, dateString);
                 }
-                return input;
+                return null;
             }
 
         });
@@ -314,17 +313,15 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                 return SOURCE;
             }
 
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 if (StringUtils.isEmpty(modifiers)) {
-                    return input;
+                    return null;
                 }
                 final int id = Integer.parseInt(modifiers);
-
-                String output = input;
                 // the i counter allows us to write regular expressions that address a certain line only.
-                final String pattern = lgr.getSourceRule().getPattern().pattern();
-                final boolean indexed = pattern.matches("^\\-?\\d+\\\\\\. .+");
-                final boolean inverted = pattern.startsWith("-");
+                final Pattern pattern = lgr.getSourceRule().getPattern();
+                final boolean indexed = lgr.isSourceIndexed();
+                final boolean inverted = lgr.isSourceInverted();
 
                 final String[] sources;
                 if (link.getSourceUrls() != null) {
@@ -345,35 +342,33 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                         continue;
                     }
                     final String toMatch = indexed ? (inverted ? "-" : "") + (i++) + ". " + s : s;
-                    Regex regex = new Regex(toMatch, lgr.getSourceRule().getPattern());
+                    Regex regex = new Regex(toMatch, pattern);
                     String[] values = null;
                     if (regex.matches()) {
                         values = regex.getRow(0);
                     } else {
-                        regex = new Regex(s, lgr.getSourceRule().getPattern());
+                        regex = new Regex(s, pattern);
                         if (regex.matches()) {
                             values = regex.getRow(0);
                         }
                     }
                     if (values != null && values.length > (id - 1)) {
                         final String value = Encoding.urlDecode(stringOrEmpty(values[id - 1]), false);
-                        output = Pattern.compile("<jd:source:" + id + "\\s*/?\\s*>").matcher(output).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, value)));
+                        return preprocessReplacement(replaceVariable, value);
                     }
                 }
-                return output;
+                return null;
             }
         });
 
         addReplacer(new PackagizerReplacer() {
 
-            private final Pattern pat = Pattern.compile("<jd:" + ORGFILENAME + "\\s*/?\\s*>");
-
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 if (StringUtils.isNotEmpty(modifiers)) {
                     final String rep = stringOrEmpty(new Regex(link.getName(), lgr.getFileNameRule().getPattern()).getMatch(Integer.parseInt(modifiers) - 1));
-                    return Pattern.compile("<jd:" + ORGFILENAME + ":" + modifiers + "\\s*/?\\s*>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, rep)));
+                    return preprocessReplacement(replaceVariable, rep);
                 }
-                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, link.getName())));
+                return preprocessReplacement(replaceVariable, link.getName());
             }
 
             public String getID() {
@@ -383,9 +378,7 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
         });
         addReplacer(new PackagizerReplacer() {
 
-            private final Pattern pat = Pattern.compile("<jd:" + ORGPACKAGENAME + "\\s*/?\\s*>");
-
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 String packagename = null;
                 if (link != null) {
                     final CrawledPackage parentNode = link.getParentNode();
@@ -404,10 +397,10 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                 if (StringUtils.isNotEmpty(modifiers)) {
                     final Pattern patt = lgr.getPackageNameRule().getPattern();
                     final String[] matches = new Regex(packagename, patt).getRow(0);
-                    return Pattern.compile("<jd:" + ORGPACKAGENAME + ":" + modifiers + "\\s*/?\\s*>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, stringOrEmpty(matches[Integer.parseInt(modifiers) - 1]))));
+                    return preprocessReplacement(replaceVariable, stringOrEmpty(matches[Integer.parseInt(modifiers) - 1]));
                     //
                 }
-                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, packagename)));
+                return preprocessReplacement(replaceVariable, packagename);
             }
 
             public String getID() {
@@ -418,9 +411,10 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
 
         addReplacer(new PackagizerReplacer() {
 
-            private final Pattern pat = Pattern.compile("<jd:" + DownloadLink.RELATIVE_DOWNLOAD_FOLDER_PATH + "/?>");
-
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    return null;
+                }
                 String subFolder = null;
                 final DownloadLink dlLink = link.getDownloadLink();
 
@@ -448,9 +442,9 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                 }
 
                 if (StringUtils.isEmpty(subFolder)) {
-                    return pat.matcher(input).replaceAll(Matcher.quoteReplacement(""));
+                    return "";
                 } else {
-                    return pat.matcher(input).replaceAll(Matcher.quoteReplacement(subFolder));
+                    return subFolder;
                 }
 
             }
@@ -463,17 +457,15 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
 
         addReplacer(new PackagizerReplacer() {
 
-            private final Pattern pat = Pattern.compile("<jd:orgfiletype/?>");
-
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
-                String fileType = new Regex(link.getName(), "\\.([0-9a-zA-Z]+)$").getMatch(0);
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
+                String fileType = new Regex(link.getName(), FILETYPE).getMatch(0);
                 if (fileType == null) {
                     fileType = "";
                 }
                 if (StringUtils.isNotEmpty(modifiers)) {
-                    return Pattern.compile("<jd:orgfiletype:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, stringOrEmpty(new Regex(fileType, lgr.getFileNameRule().getPattern()).getRow(0)[Integer.parseInt(modifiers) - 1]))));
+                    return preprocessReplacement(replaceVariable, stringOrEmpty(new Regex(fileType, lgr.getFileNameRule().getPattern()).getRow(0)[Integer.parseInt(modifiers) - 1]));
                 } else {
-                    return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, fileType)));
+                    return preprocessReplacement(replaceVariable, fileType);
                 }
             }
 
@@ -485,14 +477,15 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
 
         addReplacer(new PackagizerReplacer() {
 
-            private final Pattern pat = Pattern.compile("<orgfilenamewithoutext/?>");
-
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
-                final String name = new Regex(link.getName(), "(.+)\\.[0-9a-zA-Z]+$").getMatch(0);
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    return null;
+                }
+                final String name = new Regex(link.getName(), FILENAMEWITHOUTEXT).getMatch(0);
                 if (name == null) {
-                    return pat.matcher(input).replaceAll("");
+                    return "";
                 } else {
-                    return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, name)));
+                    return preprocessReplacement(replaceVariable, name);
                 }
             }
 
@@ -504,17 +497,17 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
 
         addReplacer(new PackagizerReplacer() {
 
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 if (StringUtils.isEmpty(modifiers)) {
-                    return input;
+                    return null;
                 }
                 final int id = Integer.parseInt(modifiers);
                 final Regex regex = new Regex(link.getURL(), lgr.getHosterRule().getPattern());
                 if (regex.matches()) {
                     final String[] values = regex.getRow(0);
-                    return Pattern.compile("<jd:hoster:" + id + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, Encoding.urlDecode(stringOrEmpty(values[id - 1]), false))));
+                    return preprocessReplacement(replaceVariable, Encoding.urlDecode(stringOrEmpty(values[id - 1]), false));
                 }
-                return input;
+                return null;
             }
 
             public String getID() {
@@ -525,15 +518,15 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
 
         addReplacer(new PackagizerReplacer() {
 
-            public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+            public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr) {
                 if (StringUtils.isEmpty(modifiers) || link.getDownloadLink() == null) {
-                    return input;
+                    return null;
                 }
                 final Object property = link.getDownloadLink().getProperty(modifiers);
                 if (property == null || (!(property instanceof String) && !(property instanceof Number))) {
-                    return Pattern.compile("<jd:prop:" + modifiers + "/?>").matcher(input).replaceAll("");
+                    return "";
                 } else {
-                    return Pattern.compile("<jd:prop:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, property.toString())));
+                    return preprocessReplacement(replaceVariable, property.toString());
                 }
             }
 
@@ -544,6 +537,9 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
         });
     }
 
+    private static final Pattern FILETYPE           = Pattern.compile("\\.([0-9a-zA-Z]+)$");
+    private static final Pattern FILENAMEWITHOUTEXT = Pattern.compile("(.+)\\.[0-9a-zA-Z]+$");
+
     private String preprocessReplacement(REPLACEVARIABLE replaceVariable, final String string) {
         if (REPLACEVARIABLE.DIRECTORY.equals(replaceVariable)) {
             return CrossSystem.alleviatePathParts(string);
@@ -884,7 +880,7 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
             }
             if (!StringUtils.isEmpty(lgr.getRule().getDownloadDestination())) {
                 /* customize download destination folder */
-                final String path = replaceVariables(REPLACEVARIABLE.DIRECTORY, lgr.getRule().getDownloadDestination(), link, lgr);
+                final String path = replaceVariables(REPLACEVARIABLE.DIRECTORY, lgr.getDownloadDestinationTemplate(), link, lgr);
                 final PackageInfo dpi;
                 if (link.getDesiredPackageInfo() != null) {
                     if (StringUtils.isNotEmpty(path)) {
@@ -910,7 +906,7 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
             }
             if (!StringUtils.isEmpty(lgr.getRule().getPackageName())) {
                 /* customize package name */
-                final String name = replaceVariables(REPLACEVARIABLE.PACKAGENAME, lgr.getRule().getPackageName(), link, lgr);
+                final String name = replaceVariables(REPLACEVARIABLE.PACKAGENAME, lgr.getPackageNameTemplate(), link, lgr);
                 final PackageInfo dpi;
                 if (link.getDesiredPackageInfo() != null) {
                     if (StringUtils.isNotEmpty(name)) {
@@ -938,7 +934,7 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
             if (isTestInstance() == false) {
                 if (!StringUtils.isEmpty(lgr.getRule().getFilename())) {
                     /* customize filename */
-                    final String name = replaceVariables(REPLACEVARIABLE.FILENAME, lgr.getRule().getFilename(), link, lgr);
+                    final String name = replaceVariables(REPLACEVARIABLE.FILENAME, lgr.getFilenameTemplate(), link, lgr);
                     if (StringUtils.isNotEmpty(name)) {
                         link.setName(name);
                     }
@@ -946,7 +942,7 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
             }
             if (!StringUtils.isEmpty(lgr.getRule().getComment())) {
                 /* customize filename */
-                link.setComment(replaceVariables(REPLACEVARIABLE.COMMENT, lgr.getRule().getComment(), link, lgr));
+                link.setComment(replaceVariables(REPLACEVARIABLE.COMMENT, lgr.getCommentTemplate(), link, lgr));
             }
             Boolean b = null;
             if ((b = lgr.getRule().isAutoExtractionEnabled()) != null) {
@@ -969,26 +965,39 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
     }
 
     public String replaceVariables(final REPLACEVARIABLE replaceVariable, String txt, CrawledLink link, PackagizerRuleWrapper lgr) {
-        final String[][] matches = new Regex(txt, "<jd:([^>:]+)(?::(.+?))?\\s*/?\\s*>").getMatches();
-        if (matches != null) {
-            for (String m[] : matches) {
+        return replaceVariables(replaceVariable, PackagizerTemplate.compile(txt), link, lgr);
+    }
+
+    /**
+     * evaluates the given precompiled template, tags without replacer or replacement are kept unchanged
+     */
+    public String replaceVariables(final REPLACEVARIABLE replaceVariable, PackagizerTemplate template, CrawledLink link, PackagizerRuleWrapper lgr) {
+        if (template == null) {
+            return null;
+        }
+        final Object[] tokens = template.getTokens();
+        if (tokens.length == 1 && tokens[0] instanceof String) {
+            return (String) tokens[0];
+        }
+        final StringBuilder sb = new StringBuilder(template.getLiteralLength() + 32);
+        for (final Object token : tokens) {
+            if (token instanceof PackagizerTemplate.Tag) {
+                final PackagizerTemplate.Tag tag = (PackagizerTemplate.Tag) token;
+                String replacement = null;
                 try {
-                    final PackagizerReplacer replacer = replacers.get(m[0].toLowerCase(Locale.ENGLISH));
+                    final PackagizerReplacer replacer = replacers.get(tag.getID());
                     if (replacer != null) {
-                        final String modifier;
-                        if (StringUtils.isEmpty(m[1])) {
-                            modifier = null;
-                        } else {
-                            modifier = m[1];
-                        }
-                        txt = replacer.replace(replaceVariable, modifier, link, txt, lgr);
+                        replacement = replacer.getReplacement(replaceVariable, tag.getModifiers(), link, lgr);
                     }
                 } catch (final Throwable e) {
                     LogController.CL(false).log(e);
                 }
+                sb.append(replacement != null ? replacement : tag.getText());
+            } else {
+                sb.append((String) token);
             }
         }
-        return txt;
+        return sb.toString();
     }
 
     public void onNewFile(Object caller, File[] fileList) {
@@ -1052,15 +1061,13 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
         }
     }
 
-    private final static String ORGPACKAGETAG = "<jd:" + PackagizerController.ORGPACKAGENAME + ">";
-
     private void runAfterExtraction(File file, CrawledLink dummyLink) {
         final String originalFolder = file.getParent();
         String moveToFolder = originalFolder;
         final String originalFileName = dummyLink.getName();
         for (PackagizerRuleWrapper lgr : rules) {
-            String renameRule = lgr.getRule().getRename();
-            String moveRule = lgr.getRule().getMoveto();
+            final String renameRule = lgr.getRule().getRename();
+            final String moveRule = lgr.getRule().getMoveto();
             if (!StringUtils.isEmpty(renameRule) || !StringUtils.isEmpty(moveRule)) {
                 if (lgr.getAlwaysFilter() == null || !lgr.getAlwaysFilter().isEnabled()) {
                     if (!lgr.checkHoster(dummyLink)) {
@@ -1092,12 +1099,10 @@ public class PackagizerController implements PackagizerInterface, FileCreationLi
                     }
                 }
                 if (!StringUtils.isEmpty(renameRule)) {
-                    renameRule = renameRule.replace(PACKAGETAG, ORGPACKAGETAG);
-                    dummyLink.setName(replaceVariables(REPLACEVARIABLE.FILENAME, renameRule, dummyLink, lgr));
+                    dummyLink.setName(replaceVariables(REPLACEVARIABLE.FILENAME, lgr.getRenameTemplate(), dummyLink, lgr));
                 }
                 if (!StringUtils.isEmpty(moveRule)) {
-                    moveRule = moveRule.replace(PACKAGETAG, ORGPACKAGETAG);
-                    moveToFolder = replaceVariables(REPLACEVARIABLE.DIRECTORY, moveRule, dummyLink, lgr);
+                    moveToFolder = replaceVariables(REPLACEVARIABLE.DIRECTORY, lgr.getMovetoTemplate(), dummyLink, lgr);
                 }
             }
         }
@@ -8,6 +8,9 @@ public interface PackagizerReplacer {
 
     public String getID();
 
-    public String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr);
+    /**
+     * @return the replacement for the &lt;jd:id:modifiers&gt; tag, null to keep the tag unchanged
+     */
+    public String getReplacement(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, PackagizerRuleWrapper lgr);
 
 }
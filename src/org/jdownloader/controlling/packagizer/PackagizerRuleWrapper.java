@@ -1,11 +1,75 @@
 package org.jdownloader.controlling.packagizer;
 
+import java.util.regex.Pattern;
+
 import org.jdownloader.controlling.filter.RuleWrapper;
 
 public class PackagizerRuleWrapper extends RuleWrapper<PackagizerRule> {
 
+    private static final Pattern     INDEXED_SOURCE = Pattern.compile("^\\-?\\d+\\\\\\. .+");
+    private static final String      ORGPACKAGETAG  = "<jd:" + PackagizerController.ORGPACKAGENAME + ">";
+
+    private final PackagizerTemplate downloadDestinationTemplate;
+    private final PackagizerTemplate packageNameTemplate;
+    private final PackagizerTemplate filenameTemplate;
+    private final PackagizerTemplate commentTemplate;
+    private final PackagizerTemplate renameTemplate;
+    private final PackagizerTemplate movetoTemplate;
+    private final boolean            sourceIndexed;
+    private final boolean            sourceInverted;
+
     public PackagizerRuleWrapper(PackagizerRule rule) {
         super(rule);
+        downloadDestinationTemplate = PackagizerTemplate.compile(rule.getDownloadDestination());
+        packageNameTemplate = PackagizerTemplate.compile(rule.getPackageName());
+        filenameTemplate = PackagizerTemplate.compile(rule.getFilename());
+        commentTemplate = PackagizerTemplate.compile(rule.getComment());
+        /* after extraction the package is already known, see PackagizerController.runAfterExtraction */
+        renameTemplate = PackagizerTemplate.compile(rule.getRename() == null ? null : rule.getRename().replace(PackagizerController.PACKAGETAG, ORGPACKAGETAG));
+        movetoTemplate = PackagizerTemplate.compile(rule.getMoveto() == null ? null : rule.getMoveto().replace(PackagizerController.PACKAGETAG, ORGPACKAGETAG));
+        if (getSourceRule() != null) {
+            final String pattern = getSourceRule().getPattern().pattern();
+            sourceIndexed = INDEXED_SOURCE.matcher(pattern).matches();
+            sourceInverted = pattern.startsWith("-");
+        } else {
+            sourceIndexed = false;
+            sourceInverted = false;
+        }
+    }
+
+    public PackagizerTemplate getDownloadDestinationTemplate() {
+        return downloadDestinationTemplate;
+    }
+
+    public PackagizerTemplate getPackageNameTemplate() {
+        return packageNameTemplate;
+    }
+
+    public PackagizerTemplate getFilenameTemplate() {
+        return filenameTemplate;
+    }
+
+    public PackagizerTemplate getCommentTemplate() {
+        return commentTemplate;
+    }
+
+    public PackagizerTemplate getRenameTemplate() {
+        return renameTemplate;
+    }
+
+    public PackagizerTemplate getMovetoTemplate() {
+        return movetoTemplate;
+    }
+
+    /**
+     * @return true if the source url pattern addresses a certain line(eg 1\. .*)
+     */
+    public boolean isSourceIndexed() {
+        return sourceIndexed;
+    }
+
+    public boolean isSourceInverted() {
+        return sourceInverted;
     }
 
 }
@@ -0,0 +1,186 @@
+package org.jdownloader.controlling.packagizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * packagizer template(eg downloadfolder, packagename, filename...) that is parsed once into literal text and &lt;jd:id:modifiers&gt; tags.
+ * the tags are resolved by {@link PackagizerController#replaceVariables(PackagizerController.REPLACEVARIABLE, PackagizerTemplate,
+ * jd.controlling.linkcrawler.CrawledLink, PackagizerRuleWrapper)}
+ */
+public class PackagizerTemplate {
+
+    public static class Tag {
+        private final String id;
+        private final String modifiers;
+        private final String text;
+
+        private Tag(String id, String modifiers, String text) {
+            this.id = id;
+            this.modifiers = modifiers;
+            this.text = text;
+        }
+
+        /**
+         * @return lower case id of the tag
+         */
+        public String getID() {
+            return id;
+        }
+
+        /**
+         * @return modifiers of the tag, null if the tag has no modifiers
+         */
+        public String getModifiers() {
+            return modifiers;
+        }
+
+        /**
+         * @return the tag as written in the template
+         */
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private static final String TAG_START = "<jd:";
+
+    private final String        template;
+    /* String or Tag */
+    private final Object[]      tokens;
+    private final int           length;
+
+    private PackagizerTemplate(String template, Object[] tokens, int length) {
+        this.template = template;
+        this.tokens = tokens;
+        this.length = length;
+    }
+
+    public static PackagizerTemplate compile(final String template) {
+        if (template == null) {
+            return null;
+        }
+        final List<Object> tokens = new ArrayList<Object>();
+        int literalLength = 0;
+        int literalStart = 0;
+        int index = 0;
+        while ((index = template.indexOf(TAG_START, index)) >= 0) {
+            final Tag tag = parseTag(template, index);
+            if (tag == null) {
+                index += TAG_START.length();
+                continue;
+            }
+            if (index > literalStart) {
+                tokens.add(template.substring(literalStart, index));
+                literalLength += index - literalStart;
+            }
+            tokens.add(tag);
+            index += tag.getText().length();
+            literalStart = index;
+        }
+        if (literalStart < template.length()) {
+            tokens.add(template.substring(literalStart));
+            literalLength += template.length() - literalStart;
+        }
+        return new PackagizerTemplate(template, tokens.toArray(new Object[tokens.size()]), literalLength);
+    }
+
+    /**
+     * parses &lt;jd:id(:modifiers)?\s*\/?\s*&gt; at the given position
+     */
+    private static Tag parseTag(final String template, final int start) {
+        final int idStart = start + TAG_START.length();
+        int index = idStart;
+        while (index < template.length()) {
+            final char c = template.charAt(index);
+            if (c == '>' || c == ':') {
+                break;
+            }
+            index++;
+        }
+        if (index == idStart || index == template.length()) {
+            return null;
+        }
+        final String id;
+        String modifiers = null;
+        final int end;
+        if (template.charAt(index) == ':') {
+            id = template.substring(idStart, index);
+            final int modifiersStart = index + 1;
+            end = template.indexOf('>', modifiersStart);
+            if (end < 0) {
+                return null;
+            }
+            modifiers = trimTagEnd(template.substring(modifiersStart, end));
+            if (modifiers.length() == 0) {
+                if (end == modifiersStart) {
+                    /* (.+?) requires at least one char */
+                    return null;
+                }
+                modifiers = null;
+            }
+        } else {
+            id = trimTagEnd(template.substring(idStart, index));
+            end = index;
+            if (id.length() == 0) {
+                return null;
+            }
+        }
+        return new Tag(id.toLowerCase(Locale.ENGLISH), modifiers, template.substring(start, end + 1));
+    }
+
+    /**
+     * removes trailing \s*\/?\s* in front of the closing &gt;
+     */
+    private static String trimTagEnd(String value) {
+        int end = value.length();
+        while (end > 0 && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        if (end > 0 && value.charAt(end - 1) == '/') {
+            end--;
+            while (end > 0 && Character.isWhitespace(value.charAt(end - 1))) {
+                end--;
+            }
+        }
+        return value.substring(0, end);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the literal Strings and {@link Tag}s of this template in order
+     */
+    public Object[] getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return length of all literal Strings of this template
+     */
+    public int getLiteralLength() {
+        return length;
+    }
+
+    public boolean hasTags() {
+        for (final Object token : tokens) {
+            if (token instanceof Tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
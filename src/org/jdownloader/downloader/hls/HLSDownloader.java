@@ -60,6 +60,7 @@ import org.jdownloader.controlling.ffmpeg.FFmpegSetup;
 import org.jdownloader.controlling.ffmpeg.FFprobe;
 import org.jdownloader.controlling.ffmpeg.json.Stream;
 import org.jdownloader.controlling.ffmpeg.json.StreamInfo;
+import org.jdownloader.downloader.hls.HLSSegmentPrefetcher.PrefetchedSegment;
 import org.jdownloader.downloader.hls.M3U8Playlist.M3U8Segment;
 import org.jdownloader.plugins.DownloadPluginProgress;
 import org.jdownloader.plugins.SkipReason;
@@ -93,6 +94,7 @@ public class HLSDownloader extends DownloadInterface {
     protected final AtomicReference<byte[]>         instanceBuffer = new AtomicReference<byte[]>();
     private final boolean                           isTwitch;
     private final boolean                           isTwitchOptimized;
+    private volatile HLSSegmentPrefetcher           prefetcher     = null;
 
     public HLSDownloader(final DownloadLink link, Browser br2, String m3uUrl) {
         this.m3uUrl = Request.getLocation(m3uUrl, br2.getRequest());
@@ -141,6 +143,7 @@ public class HLSDownloader extends DownloadInterface {
             this.processID = new UniqueAlltimeID().getID();
             return ffmpeg.getStreamInfo("http://127.0.0.1:" + server.getPort() + "/m3u8?id=" + processID);
         } finally {
+            setPrefetcher(null);
             server.stop();
         }
     }
@@ -295,6 +298,7 @@ public class HLSDownloader extends DownloadInterface {
                 connectionHandler.removeThrottledConnection(meteredThrottledInputStream);
             }
             // link.removePluginProgress(set);
+            setPrefetcher(null);
             server.stop();
         }
     }
@@ -482,6 +486,25 @@ public class HLSDownloader extends DownloadInterface {
 
     private volatile M3U8Playlist m3u8Playlists = new M3U8Playlist();
 
+    /**
+     * replaces the prefetcher and closes the old one
+     */
+    private void setPrefetcher(final HLSSegmentPrefetcher prefetcher) {
+        final HLSSegmentPrefetcher old = this.prefetcher;
+        this.prefetcher = prefetcher;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    protected HLSSegmentPrefetcher createPrefetcher(final M3U8Playlist m3u8Playlists) {
+        final FFmpegSetup config = JsonConfig.create(FFmpegSetup.class);
+        if (config.getHLSPrefetchDepth() <= 0) {
+            return null;
+        }
+        return new HLSSegmentPrefetcher(m3u8Playlists, obr, logger, connectionHandler, config.getHLSPrefetchDepth(), config.getHLSPrefetchMemoryLimit());
+    }
+
     public M3U8Playlist getM3U8Playlist() {
         return m3u8Playlists;
     }
@@ -643,6 +666,7 @@ public class HLSDownloader extends DownloadInterface {
                             sb.append("\n\n");
                         }
                         HLSDownloader.this.m3u8Playlists = m3u8Playlists;
+                        setPrefetcher(createPrefetcher(m3u8Playlists));
                         response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_TYPE, br.getRequest().getHttpConnection().getContentType()));
                         byte[] bytes = sb.toString().getBytes("UTF-8");
                         response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_LENGTH, String.valueOf(bytes.length)));
@@ -657,8 +681,10 @@ public class HLSDownloader extends DownloadInterface {
                             return false;
                         }
                         M3U8Segment segment = null;
+                        int segmentIndex = -1;
                         try {
                             final int index = Integer.parseInt(indexString);
+                            segmentIndex = index;
                             segment = m3u8Playlists.getSegment(index);
                             if (segment == null) {
                                 throw new IndexOutOfBoundsException("Unknown segment:" + index);
@@ -678,6 +704,29 @@ public class HLSDownloader extends DownloadInterface {
                             }
                             return false;
                         }
+                        final HLSSegmentPrefetcher prefetcher = HLSDownloader.this.prefetcher;
+                        if (prefetcher != null && prefetcher.getPlaylist() == m3u8Playlists) {
+                            final PrefetchedSegment prefetchedSegment = prefetcher.get(segmentIndex);
+                            if (prefetchedSegment != null) {
+                                try {
+                                    response.setResponseCode(HTTPConstants.ResponseCode.get(200));
+                                    response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_LENGTH, Long.toString(prefetchedSegment.getSize())));
+                                    if (prefetchedSegment.getContentType() != null) {
+                                        response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_TYPE, prefetchedSegment.getContentType()));
+                                    }
+                                    final OutputStream outputStream = response.getOutputStream(true);
+                                    prefetchedSegment.writeTo(outputStream);
+                                    outputStream.flush();
+                                    outputStream.close();
+                                    segment.setLoaded(true);
+                                    requestOkay = true;
+                                    return true;
+                                } finally {
+                                    prefetcher.release(prefetchedSegment);
+                                }
+                            }
+                            /* prefetch failed, fetch it directly */
+                        }
                         OutputStream outputStream = null;
                         final FileBytesMap fileBytesMap = new FileBytesMap();
                         final Browser br = obr.cloneBrowser();
@@ -963,6 +1012,7 @@ public class HLSDownloader extends DownloadInterface {
             }
             terminate();
         }
+        setPrefetcher(null);
     }
 
     private final AtomicBoolean abort                        = new AtomicBoolean(false);
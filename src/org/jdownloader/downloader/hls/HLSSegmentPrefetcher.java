@@ -0,0 +1,446 @@
+package org.jdownloader.downloader.hls;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jd.controlling.downloadcontroller.ManagedThrottledConnectionHandler;
+import jd.http.Browser;
+import jd.http.URLConnectionAdapter;
+import jd.http.requests.GetRequest;
+
+import org.appwork.net.protocol.http.HTTPConstants;
+import org.appwork.utils.Application;
+import org.appwork.utils.logging2.LogInterface;
+import org.appwork.utils.net.NullInputStream;
+import org.appwork.utils.net.throttledconnection.MeteredThrottledInputStream;
+import org.appwork.utils.speedmeter.AverageSpeedMeter;
+import org.jdownloader.controlling.UniqueAlltimeID;
+import org.jdownloader.downloader.hls.M3U8Playlist.M3U8Segment;
+
+/**
+ * bounded read-ahead of the segments of a {@link M3U8Playlist}. whenever ffmpeg requests a segment, the next segments are fetched in
+ * parallel, so ffmpeg does not pay connection setup and latency for every segment. fetched segments are kept in memory up to the memory
+ * limit, the rest is buffered in temp files. a segment is removed from the buffer once it has been served
+ */
+public class HLSSegmentPrefetcher {
+    private static final int MAX_RETRIES = 10;
+
+    public static class PrefetchedSegment {
+        private final int             index;
+        private ByteArrayOutputStream memory      = new ByteArrayOutputStream(128 * 1024);
+        private File                  file        = null;
+        private OutputStream          fileStream  = null;
+        private long                  size        = 0;
+        /* bytes of memoryUsed held by this segment */
+        private long                  reserved    = 0;
+        private String                contentType = null;
+        private volatile boolean      done        = false;
+        private volatile boolean      failed      = false;
+
+        private PrefetchedSegment(final int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean isBufferedInMemory() {
+            return file == null;
+        }
+
+        private void write(final byte[] buffer, final int len) throws IOException {
+            if (fileStream != null) {
+                fileStream.write(buffer, 0, len);
+            } else {
+                memory.write(buffer, 0, len);
+            }
+            size += len;
+        }
+
+        /**
+         * moves the buffered data to a temp file
+         */
+        private void spill() throws IOException {
+            if (file == null) {
+                file = Application.getTempResource("hls_prefetch_" + UniqueAlltimeID.create());
+                fileStream = new FileOutputStream(file);
+                memory.writeTo(fileStream);
+                memory = null;
+            }
+        }
+
+        private void reset() throws IOException {
+            if (fileStream != null) {
+                fileStream.close();
+                fileStream = new FileOutputStream(file);
+            } else {
+                memory.reset();
+            }
+            size = 0;
+        }
+
+        private void finish() throws IOException {
+            if (fileStream != null) {
+                fileStream.close();
+                fileStream = null;
+            }
+        }
+
+        private void free() {
+            memory = null;
+            try {
+                if (fileStream != null) {
+                    fileStream.close();
+                }
+            } catch (final IOException ignore) {
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+
+        public void writeTo(final OutputStream os) throws IOException {
+            final ByteArrayOutputStream memory = this.memory;
+            if (file == null) {
+                if (memory == null) {
+                    throw new IOException("Segment " + index + " has been released");
+                }
+                memory.writeTo(os);
+            } else {
+                final InputStream is = new FileInputStream(file);
+                try {
+                    final byte[] buffer = new byte[32 * 1024];
+                    int len;
+                    while ((len = is.read(buffer)) != -1) {
+                        os.write(buffer, 0, len);
+                    }
+                } finally {
+                    is.close();
+                }
+            }
+        }
+    }
+
+    private final M3U8Playlist                               playlist;
+    private final Browser                                    obr;
+    private final LogInterface                               logger;
+    private final ManagedThrottledConnectionHandler          connectionHandler;
+    private final int                                        depth;
+    private final long                                       memoryLimit;
+    private final ThreadPoolExecutor                         executor;
+    private final CopyOnWriteArrayList<URLConnectionAdapter> connections = new CopyOnWriteArrayList<URLConnectionAdapter>();
+    /* fetched and pending segments, guarded by itself */
+    private final HashMap<Integer, PrefetchedSegment>        segments    = new HashMap<Integer, PrefetchedSegment>();
+    private volatile boolean                                 closed      = false;
+    /* in memory bytes of all segments, reserved before they are written */
+    private final AtomicLong                                 memoryUsed  = new AtomicLong(0);
+    private final AtomicLong                                 hits        = new AtomicLong(0);
+    private final AtomicLong                                 misses      = new AtomicLong(0);
+    private final AtomicLong                                 stallTime   = new AtomicLong(0);
+    private final AtomicLong                                 spilled     = new AtomicLong(0);
+
+    /**
+     * @param depth
+     *            number of segments to fetch ahead, also the number of parallel connections
+     * @param memoryLimit
+     *            max. bytes to buffer in memory, further segments are buffered on disk
+     */
+    public HLSSegmentPrefetcher(final M3U8Playlist playlist, final Browser br, final LogInterface logger, final ManagedThrottledConnectionHandler connectionHandler, final int depth, final long memoryLimit) {
+        this.playlist = playlist;
+        this.obr = br.cloneBrowser();
+        this.logger = logger;
+        this.connectionHandler = connectionHandler;
+        this.depth = Math.max(1, depth);
+        this.memoryLimit = Math.max(0, memoryLimit);
+        final AtomicInteger threadIDs = new AtomicInteger(0);
+        executor = new ThreadPoolExecutor(this.depth, this.depth, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "HLSSegmentPrefetcher:" + threadIDs.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public M3U8Playlist getPlaylist() {
+        return playlist;
+    }
+
+    /**
+     * returns the given segment and fetches the following segments, waits until the segment has been fetched. the segment must be released
+     * after it has been served
+     *
+     * @return the segment or null if it could not be fetched or the prefetcher has been closed
+     */
+    public PrefetchedSegment get(final int index) throws InterruptedException {
+        final PrefetchedSegment segment;
+        synchronized (segments) {
+            if (closed) {
+                return null;
+            }
+            schedule(index);
+            segment = segments.get(index);
+            if (segment == null) {
+                return null;
+            }
+            if (segment.done) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+                final long start = System.currentTimeMillis();
+                try {
+                    while (!segment.done && !closed) {
+                        segments.wait(1000);
+                    }
+                } finally {
+                    stallTime.addAndGet(System.currentTimeMillis() - start);
+                }
+            }
+        }
+        if (!segment.done || segment.failed) {
+            release(segment);
+            return null;
+        }
+        return segment;
+    }
+
+    /**
+     * removes the served segment from the buffer
+     */
+    public void release(final PrefetchedSegment segment) {
+        synchronized (segments) {
+            if (segments.get(segment.getIndex()) == segment) {
+                segments.remove(segment.getIndex());
+                if (segment.done) {
+                    /* still running fetches free the segment themselves */
+                    unreserve(segment);
+                    segment.free();
+                }
+            }
+            if (!closed) {
+                schedule(segment.getIndex() + 1);
+            }
+        }
+    }
+
+    /**
+     * schedules the given segment and the next segments within the depth, guarded by segments
+     */
+    private void schedule(final int from) {
+        final int to = Math.min(playlist.size() - 1, from + depth);
+        for (int index = Math.max(0, from); index <= to; index++) {
+            if (!segments.containsKey(index)) {
+                final PrefetchedSegment segment = new PrefetchedSegment(index);
+                segments.put(index, segment);
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        fetch(segment);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return true if len more bytes of the segment may be buffered in memory
+     */
+    private boolean reserve(final PrefetchedSegment segment, final int len) {
+        while (true) {
+            final long used = memoryUsed.get();
+            if (used + len > memoryLimit) {
+                return false;
+            } else if (memoryUsed.compareAndSet(used, used + len)) {
+                segment.reserved += len;
+                return true;
+            }
+        }
+    }
+
+    private void unreserve(final PrefetchedSegment segment) {
+        if (segment.reserved > 0) {
+            memoryUsed.addAndGet(-segment.reserved);
+            segment.reserved = 0;
+        }
+    }
+
+    private void fetch(final PrefetchedSegment segment) {
+        final M3U8Segment m3u8Segment = playlist.getSegment(segment.getIndex());
+        final MeteredThrottledInputStream meteredThrottledInputStream = new MeteredThrottledInputStream(new NullInputStream(), new AverageSpeedMeter(10));
+        if (connectionHandler != null) {
+            connectionHandler.addThrottledConnection(meteredThrottledInputStream);
+        }
+        boolean success = false;
+        try {
+            if (m3u8Segment == null || closed) {
+                return;
+            }
+            final byte[] readWriteBuffer = new byte[32 * 1024];
+            final Browser br = obr.cloneBrowser();
+            retryLoop: for (int retry = 0; retry < MAX_RETRIES && !closed; retry++) {
+                final GetRequest getRequest = new GetRequest(m3u8Segment.getUrl());
+                if (segment.getSize() > 0) {
+                    getRequest.getHeaders().put(HTTPConstants.HEADER_REQUEST_RANGE, "bytes=" + segment.getSize() + "-");
+                }
+                URLConnectionAdapter connection = null;
+                try {
+                    connection = br.openRequestConnection(getRequest);
+                    connections.add(connection);
+                    if (connection.getResponseCode() == 200) {
+                        segment.reset();
+                        unreserve(segment);
+                    } else if (connection.getResponseCode() != 206) {
+                        if (connection.getResponseCode() == 504) {
+                            Thread.sleep(250 + (retry * 50));
+                            continue retryLoop;
+                        }
+                        /* let the direct request handle it */
+                        return;
+                    }
+                    segment.contentType = connection.getContentType();
+                    meteredThrottledInputStream.setInputStream(connection.getInputStream());
+                    int len;
+                    while ((len = meteredThrottledInputStream.read(readWriteBuffer)) != -1) {
+                        if (closed) {
+                            return;
+                        }
+                        if (len > 0) {
+                            if (segment.isBufferedInMemory() && !reserve(segment, len)) {
+                                /* memory limit reached, move the segment to disk */
+                                segment.spill();
+                                unreserve(segment);
+                                spilled.incrementAndGet();
+                            }
+                            segment.write(readWriteBuffer, len);
+                        }
+                    }
+                    segment.finish();
+                    m3u8Segment.setSize(Math.max(connection.getCompleteContentLength(), segment.getSize()));
+                    success = true;
+                    return;
+                } catch (IOException e) {
+                    if (logger != null && !closed) {
+                        logger.log(e);
+                    }
+                    Thread.sleep(250 + (retry * 50));
+                } finally {
+                    if (connection != null) {
+                        connections.remove(connection);
+                        connection.disconnect();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            if (logger != null && !closed) {
+                logger.log(e);
+            }
+        } finally {
+            if (connectionHandler != null) {
+                connectionHandler.removeThrottledConnection(meteredThrottledInputStream);
+            }
+            synchronized (segments) {
+                if (!success) {
+                    segment.failed = true;
+                    unreserve(segment);
+                }
+                segment.done = true;
+                if (closed || segments.get(segment.getIndex()) != segment) {
+                    /* closed or released while fetching */
+                    unreserve(segment);
+                    segment.free();
+                }
+                segments.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * stops all fetches and frees the buffer
+     */
+    public void close() {
+        synchronized (segments) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            final Iterator<PrefetchedSegment> it = segments.values().iterator();
+            while (it.hasNext()) {
+                final PrefetchedSegment segment = it.next();
+                if (segment.done) {
+                    unreserve(segment);
+                    segment.free();
+                }
+                it.remove();
+            }
+            segments.notifyAll();
+        }
+        executor.shutdownNow();
+        for (final URLConnectionAdapter connection : connections) {
+            connection.disconnect();
+        }
+        if (logger != null) {
+            logger.info(toString());
+        }
+    }
+
+    /**
+     * @return number of segments that were already fetched when ffmpeg requested them
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of segments ffmpeg had to wait for
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return ms ffmpeg had to wait for segments
+     */
+    public long getStallTime() {
+        return stallTime.get();
+    }
+
+    /**
+     * @return number of segments that had to be buffered on disk
+     */
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    @Override
+    public String toString() {
+        final long requests = hits.get() + misses.get();
+        return "HLSSegmentPrefetcher|Depth:" + depth + "|Hits:" + hits.get() + "/" + requests + "|StallTime:" + stallTime.get() + "ms|Spilled:" + spilled.get();
+    }
+}
@@ -1,15 +1,21 @@
 package org.jdownloader.downloader.segment;
 
 import java.awt.Color;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.appwork.exceptions.WTFException;
+import org.appwork.net.protocol.http.HTTPConstants;
 import org.appwork.utils.StringUtils;
 import org.appwork.utils.logging2.LogInterface;
 import org.appwork.utils.logging2.LogSource;
@@ -39,24 +45,44 @@ import jd.plugins.download.DownloadLinkDownloadable;
 import jd.plugins.download.Downloadable;
 
 //http://tools.ietf.org/html/draft-pantos-http-live-streaming-13
+/**
+ * downloads the segments with several workers at once, the segments are written in order by the download thread. completed segments are
+ * stored in the chunksProgress of the Downloadable({segments, bytes, number of segments, marker}), so resumable downloads continue after
+ * the last written segment. a failed segment is retried with backoff and resumed via range request
+ */
 public class SegmentDownloader extends DownloadInterface {
-
-    private volatile long                     bytesWritten = 0l;
-    private Downloadable                      downloadable;
-    private final DownloadLink                link;
-    private long                              startTimeStamp;
-    private final LogInterface                logger;
-    private volatile URLConnectionAdapter     currentConnection;
-    private ManagedThrottledConnectionHandler connectionHandler;
-    private File                              outputCompleteFile;
-    private File                              outputFinalCompleteFile;
-    private File                              outputPartFile;
-
-    private PluginException                   caughtPluginException;
-
-    private final Browser                     obr;
-
-    private final List<Segment>               segments     = new ArrayList<Segment>();
+    public static final int                                  DEFAULT_CONCURRENT_SEGMENTS = 4;
+    private static final int                                 MAX_RETRIES                 = 10;
+    private static final long                                MAX_BACKOFF                 = 10 * 1000l;
+    /* last element of the resume state, older or mangled chunksProgress is not used */
+    private static final long                                RESUME_STATE_MARKER         = 0x5345474d454e5453l;
+
+    private volatile long                                    bytesWritten                = 0l;
+    private Downloadable                                     downloadable;
+    private final DownloadLink                               link;
+    private long                                             startTimeStamp;
+    private final LogInterface                               logger;
+    private volatile URLConnectionAdapter                    currentConnection;
+    private final CopyOnWriteArrayList<URLConnectionAdapter> connections                 = new CopyOnWriteArrayList<URLConnectionAdapter>();
+    private ManagedThrottledConnectionHandler                connectionHandler;
+    private File                                             outputCompleteFile;
+    private File                                             outputFinalCompleteFile;
+    private File                                             outputPartFile;
+
+    private PluginException                                  caughtPluginException;
+
+    private final Browser                                    obr;
+
+    private final List<Segment>                              segments                    = new ArrayList<Segment>();
+    private int                                              maxConcurrentSegments       = DEFAULT_CONCURRENT_SEGMENTS;
+    private boolean                                          resumed                     = false;
+
+    /* state of the workers, guarded by itself */
+    private final HashMap<Integer, byte[]>                   fetchedSegments             = new HashMap<Integer, byte[]>();
+    private int                                              nextSegment                 = 0;
+    private int                                              writtenSegments             = 0;
+    private volatile boolean                                 workersStopped              = false;
+    private Exception                                        workerException             = null;
 
     public SegmentDownloader(final DownloadLink link, Downloadable dashDownloadable, Browser br2, String baseUrl, String[] segments) {
         for (final String segment : segments) {
@@ -99,73 +125,298 @@ public class SegmentDownloader extends DownloadInterface {
         }
     }
 
+    /**
+     * @param maxConcurrentSegments
+     *            number of segments to download at once, <=0 for default
+     */
+    public void setMaxConcurrentSegments(final int maxConcurrentSegments) {
+        this.maxConcurrentSegments = maxConcurrentSegments > 0 ? maxConcurrentSegments : DEFAULT_CONCURRENT_SEGMENTS;
+    }
+
+    public int getMaxConcurrentSegments() {
+        return maxConcurrentSegments;
+    }
+
+    /**
+     * @return the chunksProgress stored in a link property, the property is a List of numbers after it has been restored from json
+     */
+    public static long[] toChunksProgress(final Object property) {
+        if (property instanceof long[]) {
+            return (long[]) property;
+        } else if (property instanceof List) {
+            final List<?> list = (List<?>) property;
+            final long[] ret = new long[list.size()];
+            for (int index = 0; index < ret.length; index++) {
+                final Object value = list.get(index);
+                if (value instanceof Number) {
+                    ret[index] = ((Number) value).longValue();
+                } else if (value != null) {
+                    ret[index] = Long.parseLong(value.toString());
+                } else {
+                    return null;
+                }
+            }
+            return ret;
+        }
+        return null;
+    }
+
+    static long[] createResumeState(final int segmentsDone, final long bytesWritten, final int numberOfSegments) {
+        return new long[] { segmentsDone, bytesWritten, numberOfSegments, RESUME_STATE_MARKER };
+    }
+
+    /**
+     * @return true if the download can continue after segment state[0] with a part file of the given length
+     */
+    static boolean isValidResumeState(final long[] state, final int numberOfSegments, final long partFileLength) {
+        if (state == null || state.length != 4 || state[3] != RESUME_STATE_MARKER || state[2] != numberOfSegments) {
+            return false;
+        }
+        if (state[0] < 0 || state[0] > numberOfSegments || state[1] < 0 || partFileLength < state[1]) {
+            return false;
+        }
+        /* nothing is truncated from a complete download */
+        return state[0] < numberOfSegments || partFileLength == state[1];
+    }
+
+    /**
+     * @return index of the first segment to download
+     */
+    private int restoreResumeState() {
+        if (downloadable.isResumable()) {
+            final long[] state = downloadable.getChunksProgress();
+            if (isValidResumeState(state, segments.size(), outputPartFile.length())) {
+                if (logger != null) {
+                    logger.info("Resume: segments " + state[0] + "/" + segments.size() + ", bytes " + state[1]);
+                }
+                resumed = state[0] > 0;
+                bytesWritten = state[1];
+                return (int) state[0];
+            }
+        }
+        bytesWritten = 0;
+        return 0;
+    }
+
+    private void saveResumeState(final int segmentsDone) {
+        if (downloadable.isResumable()) {
+            downloadable.setChunksProgress(createResumeState(segmentsDone, bytesWritten, segments.size()));
+        }
+    }
+
     public void run() throws Exception {
         link.setDownloadSize(-1);
-        final MeteredThrottledInputStream meteredThrottledInputStream = new MeteredThrottledInputStream(new NullInputStream(), new AverageSpeedMeter(10));
-        FileOutputStream outputStream = null;
+        final int firstSegment = restoreResumeState();
+        RandomAccessFile outputFile = null;
+        final FileChannel outputChannel;
         try {
-            outputStream = new FileOutputStream(new File(downloadable.getFileOutputPart()));
+            outputFile = new RandomAccessFile(outputPartFile, "rw");
+            /* drop everything after the last written segment */
+            outputFile.setLength(bytesWritten);
+            outputChannel = outputFile.getChannel();
         } catch (IOException e) {
+            close(outputFile);
             throw new SkipReasonException(SkipReason.INVALID_DESTINATION, e);
         }
+        downloadable.setDownloadBytesLoaded(bytesWritten);
+        final List<Thread> workers = new ArrayList<Thread>();
         boolean localIO = false;
         try {
             final String cust = link.getCustomExtension();
             link.setCustomExtension(null);
             link.setCustomExtension(cust);
-            final byte[] readWriteBuffer = new byte[512 * 1024];
-            if (connectionHandler != null) {
-                connectionHandler.addThrottledConnection(meteredThrottledInputStream);
+            synchronized (fetchedSegments) {
+                nextSegment = firstSegment;
+                writtenSegments = firstSegment;
             }
-            for (final Segment seg : segments) {
-                if (abort.get()) {
+            final int numberOfWorkers = Math.min(maxConcurrentSegments, segments.size() - firstSegment);
+            for (int index = 0; index < numberOfWorkers; index++) {
+                final Thread worker = new Thread("SegmentDownloader:" + link.getName() + ":" + index) {
+                    @Override
+                    public void run() {
+                        fetchSegments();
+                    }
+                };
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+            for (int index = firstSegment; index < segments.size(); index++) {
+                final byte[] data = waitForSegment(index);
+                if (data == null) {
                     return;
                 }
-                final Browser br = obr.cloneBrowser();
-
-                final Request getRequest = createSegmentRequest(seg);
-
-                try {
-                    currentConnection = br.openRequestConnection(getRequest);
-                    meteredThrottledInputStream.setInputStream(currentConnection.getInputStream());
-                    while (true) {
-                        if (abort.get()) {
-                            return;
-                        }
-                        final int len = meteredThrottledInputStream.read(readWriteBuffer);
-                        if (len > 0) {
-                            localIO = true;
-                            outputStream.write(readWriteBuffer, 0, len);
-                            localIO = false;
-                            bytesWritten += len;
-                            downloadable.setDownloadBytesLoaded(bytesWritten);
-                        } else if (len == -1) {
-                            break;
-                        }
-                    }
-                } finally {
-                    if (currentConnection != null) {
-                        currentConnection.disconnect();
-                    }
-                    currentConnection = null;
+                localIO = true;
+                final ByteBuffer buffer = ByteBuffer.wrap(data);
+                long position = bytesWritten;
+                while (buffer.hasRemaining()) {
+                    position += outputChannel.write(buffer, position);
+                }
+                localIO = false;
+                bytesWritten += data.length;
+                downloadable.setDownloadBytesLoaded(bytesWritten);
+                synchronized (fetchedSegments) {
+                    writtenSegments = index + 1;
+                    fetchedSegments.notifyAll();
                 }
+                saveResumeState(index + 1);
             }
         } catch (IOException e) {
             if (localIO) {
                 throw new SkipReasonException(SkipReason.DISK_FULL);
             }
             throw e;
+        } catch (PluginException e) {
+            throw e;
         } catch (Throwable e) {
-
             throw new PluginException(LinkStatus.ERROR_PLUGIN_DEFECT, e.getMessage(), -1, e);
         } finally {
-            close(outputStream);
-            if (connectionHandler != null && meteredThrottledInputStream != null) {
+            synchronized (fetchedSegments) {
+                workersStopped = true;
+                fetchedSegments.clear();
+                fetchedSegments.notifyAll();
+            }
+            for (final URLConnectionAdapter connection : connections) {
+                connection.disconnect();
+            }
+            for (final Thread worker : workers) {
+                try {
+                    worker.join(5000);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            close(outputFile);
+        }
+    }
+
+    /**
+     * @return the data of the given segment or null on abort
+     */
+    private byte[] waitForSegment(final int index) throws Exception {
+        synchronized (fetchedSegments) {
+            while (true) {
+                if (workerException != null) {
+                    throw workerException;
+                }
+                final byte[] data = fetchedSegments.remove(index);
+                if (data != null) {
+                    return data;
+                } else if (abort.get()) {
+                    return null;
+                }
+                fetchedSegments.wait(1000);
+            }
+        }
+    }
+
+    /**
+     * worker loop, takes the next segment and hands its data to the download thread. at most 2 segments per worker are waiting to be
+     * written
+     */
+    private void fetchSegments() {
+        final MeteredThrottledInputStream meteredThrottledInputStream = new MeteredThrottledInputStream(new NullInputStream(), new AverageSpeedMeter(10));
+        if (connectionHandler != null) {
+            connectionHandler.addThrottledConnection(meteredThrottledInputStream);
+        }
+        try {
+            final byte[] readWriteBuffer = new byte[128 * 1024];
+            while (true) {
+                final int index;
+                synchronized (fetchedSegments) {
+                    while (!workersStopped && nextSegment < segments.size() && nextSegment - writtenSegments >= 2 * maxConcurrentSegments) {
+                        fetchedSegments.wait(1000);
+                    }
+                    if (workersStopped || abort.get() || nextSegment >= segments.size()) {
+                        return;
+                    }
+                    index = nextSegment++;
+                }
+                final byte[] data = fetchSegment(segments.get(index), meteredThrottledInputStream, readWriteBuffer);
+                synchronized (fetchedSegments) {
+                    if (data == null || workersStopped) {
+                        return;
+                    }
+                    fetchedSegments.put(index, data);
+                    fetchedSegments.notifyAll();
+                }
+            }
+        } catch (Exception e) {
+            synchronized (fetchedSegments) {
+                if (workerException == null && !workersStopped && !abort.get()) {
+                    workerException = e;
+                }
+                fetchedSegments.notifyAll();
+            }
+        } finally {
+            if (connectionHandler != null) {
                 connectionHandler.removeThrottledConnection(meteredThrottledInputStream);
             }
         }
     }
 
+    /**
+     * downloads the given segment, retries with backoff and continues partial segments via range request
+     *
+     * @return data of the segment or null on abort
+     */
+    private byte[] fetchSegment(final Segment seg, final MeteredThrottledInputStream meteredThrottledInputStream, final byte[] readWriteBuffer) throws Exception {
+        final ByteArrayOutputStream data = new ByteArrayOutputStream(readWriteBuffer.length);
+        IOException lastException = null;
+        for (int retry = 0; retry <= MAX_RETRIES; retry++) {
+            if (retry > 0) {
+                Thread.sleep(Math.min(MAX_BACKOFF, 250l << Math.min(retry - 1, 10)));
+            }
+            if (abort.get() || workersStopped) {
+                return null;
+            }
+            final Browser br = obr.cloneBrowser();
+            final Request getRequest = createSegmentRequest(seg);
+            if (data.size() > 0) {
+                if (logger != null) {
+                    logger.info("Resume(" + retry + "): " + seg.getUrl() + " at " + data.size());
+                }
+                getRequest.getHeaders().put(HTTPConstants.HEADER_REQUEST_RANGE, "bytes=" + data.size() + "-");
+            }
+            URLConnectionAdapter connection = null;
+            try {
+                connection = br.openRequestConnection(getRequest);
+                connections.add(connection);
+                currentConnection = connection;
+                if (connection.getResponseCode() == 200) {
+                    /* no range support, start again */
+                    data.reset();
+                } else if (connection.getResponseCode() != 206) {
+                    throw new IOException("ResponseCode must be 200 or 206!");
+                }
+                meteredThrottledInputStream.setInputStream(connection.getInputStream());
+                while (true) {
+                    if (abort.get() || workersStopped) {
+                        return null;
+                    }
+                    final int len = meteredThrottledInputStream.read(readWriteBuffer);
+                    if (len > 0) {
+                        data.write(readWriteBuffer, 0, len);
+                    } else if (len == -1) {
+                        break;
+                    }
+                }
+                return data.toByteArray();
+            } catch (IOException e) {
+                lastException = e;
+                if (logger != null) {
+                    logger.log(e);
+                }
+            } finally {
+                if (connection != null) {
+                    connections.remove(connection);
+                    connection.disconnect();
+                }
+            }
+        }
+        throw lastException;
+    }
+
     private GetRequest createSegmentRequest(Segment seg) throws IOException {
         GetRequest ret = new GetRequest(seg.getUrl());
 
@@ -345,8 +596,8 @@ public class SegmentDownloader extends DownloadInterface {
             }
             terminate();
         }
-        if (currentConnection != null) {
-            currentConnection.disconnect();
+        for (final URLConnectionAdapter connection : connections) {
+            connection.disconnect();
         }
     }
 
@@ -365,9 +616,8 @@ public class SegmentDownloader extends DownloadInterface {
 
     @Override
     public void close() {
-        final URLConnectionAdapter lCurrentConnection = currentConnection;
-        if (lCurrentConnection != null) {
-            lCurrentConnection.disconnect();
+        for (final URLConnectionAdapter connection : connections) {
+            connection.disconnect();
         }
     }
 
@@ -378,7 +628,7 @@ public class SegmentDownloader extends DownloadInterface {
 
     @Override
     public boolean isResumedDownload() {
-        return false;
+        return resumed;
     }
 
 }
@@ -3,6 +3,7 @@ package org.jdownloader.extensions.eventscripter;
 import org.appwork.storage.config.ConfigUtils;
 import org.appwork.storage.config.JsonConfig;
 import org.appwork.storage.config.handler.BooleanKeyHandler;
+import org.appwork.storage.config.handler.IntegerKeyHandler;
 import org.appwork.storage.config.handler.ObjectKeyHandler;
 import org.appwork.storage.config.handler.StorageHandler;
 import org.appwork.utils.Application;
@@ -18,11 +19,15 @@ public class CFG_EVENT_CALLER {
     // let's do this mapping here. If we map all methods to static handlers, access is faster, and we get an error on init if mappings are
     // wrong.
 
-    public static final ObjectKeyHandler                  SCRIPTS       = SH.getKeyHandler("Scripts", ObjectKeyHandler.class);
+    public static final ObjectKeyHandler                  SCRIPTS                   = SH.getKeyHandler("Scripts", ObjectKeyHandler.class);
 
-    public static final BooleanKeyHandler                 FRESH_INSTALL = SH.getKeyHandler("FreshInstall", BooleanKeyHandler.class);
+    public static final BooleanKeyHandler                 FRESH_INSTALL             = SH.getKeyHandler("FreshInstall", BooleanKeyHandler.class);
 
-    public static final BooleanKeyHandler                 ENABLED       = SH.getKeyHandler("Enabled", BooleanKeyHandler.class);
+    public static final BooleanKeyHandler                 ENABLED                   = SH.getKeyHandler("Enabled", BooleanKeyHandler.class);
 
-    public static final BooleanKeyHandler                 GUI_ENABLED   = SH.getKeyHandler("GuiEnabled", BooleanKeyHandler.class);
+    public static final BooleanKeyHandler                 GUI_ENABLED               = SH.getKeyHandler("GuiEnabled", BooleanKeyHandler.class);
+
+    public static final IntegerKeyHandler                 MAX_PARALLEL_SCRIPTS      = SH.getKeyHandler("MaxParallelScripts", IntegerKeyHandler.class);
+
+    public static final BooleanKeyHandler                 OPTIMIZED_SCRIPTS_ENABLED = SH.getKeyHandler("OptimizedScriptsEnabled", BooleanKeyHandler.class);
 }
\ No newline at end of file
@@ -6,6 +6,10 @@ import jd.plugins.ExtensionConfigInterface;
 
 import org.appwork.storage.config.annotations.AboutConfig;
 import org.appwork.storage.config.annotations.AllowStorage;
+import org.appwork.storage.config.annotations.DefaultBooleanValue;
+import org.appwork.storage.config.annotations.DefaultIntValue;
+import org.appwork.storage.config.annotations.DescriptionForConfigEntry;
+import org.appwork.storage.config.annotations.SpinnerValidator;
 
 public interface EventScripterConfig extends ExtensionConfigInterface {
 
@@ -21,4 +25,19 @@ public interface EventScripterConfig extends ExtensionConfigInterface {
 
     void setAPIPanelVisible(boolean b);
 
+    @AboutConfig
+    @DefaultIntValue(4)
+    @SpinnerValidator(min = 1, max = 32)
+    @DescriptionForConfigEntry("Max. number of scripts executed at the same time")
+    int getMaxParallelScripts();
+
+    void setMaxParallelScripts(int i);
+
+    @AboutConfig
+    @DefaultBooleanValue(false)
+    @DescriptionForConfigEntry("Compile scripts to java bytecode. Faster execution of long running scripts, but slower compilation")
+    boolean isOptimizedScriptsEnabled();
+
+    void setOptimizedScriptsEnabled(boolean b);
+
 }
@@ -111,6 +111,29 @@ public class EventScripterExtension extends AbstractExtension<EventScripterConfi
     private final AtomicReference<Subscriber> subscriber  = new AtomicReference<Subscriber>(null);
 
     private IntervalController                intervalController;
+    private volatile ScriptExecutor           scriptExecutor;
+
+    private final GenericConfigEventListener<Integer> maxParallelScriptsListener = new GenericConfigEventListener<Integer>() {
+
+        @Override
+        public void onConfigValueModified(KeyHandler<Integer> keyHandler, Integer newValue) {
+            final ScriptExecutor executor = scriptExecutor;
+            if (executor != null && newValue != null) {
+                executor.setMaxThreads(newValue.intValue());
+            }
+        }
+
+        @Override
+        public void onConfigValidatorError(KeyHandler<Integer> keyHandler, Integer invalidValue, ValidationException validateException) {
+        }
+    };
+
+    /**
+     * @return the executor for scripts, null while the extension is stopped
+     */
+    public ScriptExecutor getScriptExecutor() {
+        return scriptExecutor;
+    }
 
     @Override
     public boolean isHeadlessRunnable() {
@@ -137,12 +160,18 @@ public class EventScripterExtension extends AbstractExtension<EventScripterConfi
         PackagizerController.getInstance().getEventSender().removeListener(this);
         DownloadWatchDog.getInstance().getEventSender().removeListener(this);
         CFG_EVENT_CALLER.SCRIPTS.getEventSender().removeListener(this);
+        CFG_EVENT_CALLER.MAX_PARALLEL_SCRIPTS.getEventSender().removeListener(maxParallelScriptsListener);
         FileCreationManager.getInstance().getEventSender().removeListener(this);
         LinkCollector.getInstance().getEventsender().removeListener(this);
         final Subscriber old = EventScripterExtension.this.subscriber.getAndSet(null);
         if (old != null) {
             RemoteAPIController.getInstance().getEventsapi().removeSubscriber(old);
         }
+        final ScriptExecutor executor = scriptExecutor;
+        scriptExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
+        }
         if (!Application.isHeadless()) {
             MenuManagerTrayIcon.getInstance().unregisterExtender(this);
             MenuManagerMainToolbar.getInstance().unregisterExtender(this);
@@ -193,6 +222,8 @@ public class EventScripterExtension extends AbstractExtension<EventScripterConfi
             }
         });
         CFG_EVENT_CALLER.SCRIPTS.getEventSender().addListener(this);
+        scriptExecutor = new ScriptExecutor(getLogger(), getSettings().getMaxParallelScripts());
+        CFG_EVENT_CALLER.MAX_PARALLEL_SCRIPTS.getEventSender().addListener(maxParallelScriptsListener);
         final List<ScriptEntry> loadedEntries = getSettings().getScripts();
         if (loadedEntries == null) {
             this.entries = new ArrayList<ScriptEntry>();
@@ -472,6 +503,10 @@ public class EventScripterExtension extends AbstractExtension<EventScripterConfi
         } else {
             this.entries = new ArrayList<ScriptEntry>(entries);
         }
+        final ScriptExecutor executor = scriptExecutor;
+        if (executor != null) {
+            executor.retain(this.entries);
+        }
         setupRemoteAPIListener(entries);
         intervalController.update();
     }
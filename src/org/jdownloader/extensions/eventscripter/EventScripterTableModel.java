@@ -167,6 +167,23 @@ public class EventScripterTableModel extends ExtTableModel<ScriptEntry> implemen
                 extension.save(getTableData());
             }
         });
+        this.addColumn(new ExtTextColumn<ScriptEntry>(T.T.script_executions()) {
+
+            @Override
+            public String getStringValue(ScriptEntry value) {
+                final ScriptExecutor executor = extension.getScriptExecutor();
+                final ScriptExecutor.ScriptMetrics metrics = executor == null ? null : executor.getMetrics(value);
+                if (metrics == null) {
+                    return "";
+                }
+                return T.T.script_executions_value(metrics.getExecutions(), metrics.getAverageDuration(), metrics.getMaxDuration());
+            }
+
+            @Override
+            public boolean isEditable(ScriptEntry obj) {
+                return false;
+            }
+        });
 
         this.addColumn(new ExtComponentColumn<ScriptEntry>(T.T.edit_script()) {
             private JButton            editorBtn;
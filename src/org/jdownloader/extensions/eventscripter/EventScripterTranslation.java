@@ -192,4 +192,10 @@ public interface EventScripterTranslation extends TranslateInterface {
     @Default(lngs = { "en" }, values = { "After a Captcha Challenge" })
     String CAPTCHA_CHALLENGE_AFTER();
 
+    @Default(lngs = { "en" }, values = { "Executions" })
+    String script_executions();
+
+    @Default(lngs = { "en" }, values = { "%s1x, avg. %s2 ms, max. %s3 ms" })
+    String script_executions_value(long executions, long average, long max);
+
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+package org.jdownloader.extensions.eventscripter;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Script;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.tools.shell.Global;
+
+import org.appwork.utils.StringUtils;
+import org.appwork.utils.logging2.LogSource;
+import org.jdownloader.scripting.JSShutterDelegate;
+
+/**
+ * runs asynchronous ScriptThreads on a bounded pool of threads. synchronous ScriptThreads run on a separate unbounded pool, so callers
+ * waiting for them never queue behind asynchronous scripts. compiled scripts are cached per ScriptEntry source and the scope with the preloaded
+ * classes and ScriptEnvironment methods is created once per EventTrigger, sealed and shared by all executions as prototype of their
+ * scope.
+ */
+public class ScriptExecutor {
+
+    public static class ScriptMetrics {
+        private long executions    = 0;
+        private long errors        = 0;
+        private long totalDuration = 0;
+        private long maxDuration   = 0;
+
+        private synchronized void add(long duration, boolean failed) {
+            executions++;
+            if (failed) {
+                errors++;
+            }
+            totalDuration += duration;
+            maxDuration = Math.max(maxDuration, duration);
+        }
+
+        public synchronized long getExecutions() {
+            return executions;
+        }
+
+        public synchronized long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return total execution time in ms
+         */
+        public synchronized long getTotalDuration() {
+            return TimeUnit.NANOSECONDS.toMillis(totalDuration);
+        }
+
+        /**
+         * @return average execution time in ms
+         */
+        public synchronized long getAverageDuration() {
+            if (executions == 0) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(totalDuration / executions);
+        }
+
+        /**
+         * @return max execution time in ms
+         */
+        public synchronized long getMaxDuration() {
+            return TimeUnit.NANOSECONDS.toMillis(maxDuration);
+        }
+    }
+
+    private static class CompiledScript {
+        private final String source;
+        private final int    optimizationLevel;
+        private final Script script;
+
+        private CompiledScript(String source, int optimizationLevel, Script script) {
+            this.source = source;
+            this.optimizationLevel = optimizationLevel;
+            this.script = script;
+        }
+    }
+
+    private static class ExecutorThread extends Thread implements JSShutterDelegate {
+        private final ScriptExecutor  executor;
+        private volatile ScriptThread scriptThread = null;
+
+        private ExecutorThread(ScriptExecutor executor, Runnable r, int index) {
+            super(r, "EventScripter:" + index);
+            this.executor = executor;
+            setDaemon(true);
+        }
+
+        @Override
+        public boolean isClassVisibleToScript(boolean trusted, String className) {
+            final ScriptThread scriptThread = this.scriptThread;
+            if (scriptThread != null) {
+                return scriptThread.isClassVisibleToScript(trusted, className);
+            } else if (trusted) {
+                return true;
+            } else {
+                throw ScriptRuntime.constructError("Security Violation", "Security Violation " + className);
+            }
+        }
+    }
+
+    private final LogSource                                logger;
+    private final ThreadPoolExecutor                       threadPool;
+    private final ThreadPoolExecutor                       synchronousThreadPool;
+    private final ConcurrentHashMap<Long, CompiledScript>  compiledScripts = new ConcurrentHashMap<Long, CompiledScript>();
+    private final ConcurrentHashMap<Long, ScriptMetrics>   metrics         = new ConcurrentHashMap<Long, ScriptMetrics>();
+    private final ConcurrentHashMap<EventTrigger, Global>  sharedScopes    = new ConcurrentHashMap<EventTrigger, Global>();
+    private final AtomicInteger                            threadIDs       = new AtomicInteger(0);
+
+    public ScriptExecutor(final LogSource logger, final int maxThreads) {
+        this.logger = logger;
+        final int threads = Math.max(1, maxThreads);
+        threadPool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new ExecutorThread(ScriptExecutor.this, r, threadIDs.incrementAndGet());
+            }
+        });
+        threadPool.allowCoreThreadTimeOut(true);
+        synchronousThreadPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new ExecutorThread(ScriptExecutor.this, r, threadIDs.incrementAndGet());
+            }
+        });
+    }
+
+    /**
+     * @param maxThreads
+     *            max. number of asynchronous scripts executed at the same time
+     */
+    public void setMaxThreads(final int maxThreads) {
+        final int threads = Math.max(1, maxThreads);
+        if (threads > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(threads);
+            threadPool.setCorePoolSize(threads);
+        } else {
+            threadPool.setCorePoolSize(threads);
+            threadPool.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * @return the ScriptThread executed by the calling thread, null if the calling thread is no executor thread
+     */
+    public static ScriptThread getCurrentScriptThread() {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof ExecutorThread) {
+            return ((ExecutorThread) currentThread).scriptThread;
+        }
+        return null;
+    }
+
+    /**
+     * executes the given ScriptThread, waits for synchronous EventTriggers. synchronous scripts triggered by a running script are executed
+     * in the calling thread to avoid waiting for the own pool.
+     */
+    public void execute(final ScriptThread scriptThread) {
+        final boolean synchronous = scriptThread.getScript().getEventTrigger().isSynchronous();
+        final Thread currentThread = Thread.currentThread();
+        if (synchronous && currentThread instanceof ExecutorThread && ((ExecutorThread) currentThread).executor == this) {
+            run((ExecutorThread) currentThread, scriptThread);
+            return;
+        }
+        final ThreadPoolExecutor pool = synchronous ? synchronousThreadPool : threadPool;
+        final Future<?> future = pool.submit(new Runnable() {
+
+            @Override
+            public void run() {
+                ScriptExecutor.this.run((ExecutorThread) Thread.currentThread(), scriptThread);
+            }
+        });
+        if (synchronous) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                logger.log(e.getCause());
+            }
+        }
+    }
+
+    private void run(final ExecutorThread thread, final ScriptThread scriptThread) {
+        final ScriptThread previous = thread.scriptThread;
+        thread.scriptThread = scriptThread;
+        try {
+            scriptThread.run();
+        } finally {
+            thread.scriptThread = previous;
+        }
+    }
+
+    /**
+     * returns the cached compiled script of the ScriptEntry, compiles it again if the source or optimization level changed
+     */
+    public Script getCompiledScript(final Context cx, final ScriptEntry script) {
+        final String source = script.getScript();
+        final int optimizationLevel = cx.getOptimizationLevel();
+        final CompiledScript compiledScript = compiledScripts.get(script.getID());
+        if (compiledScript != null && compiledScript.optimizationLevel == optimizationLevel && StringUtils.equals(compiledScript.source, source)) {
+            return compiledScript.script;
+        }
+        final Script ret = cx.compileString(source == null ? "" : source, "", 1, null);
+        compiledScripts.put(script.getID(), new CompiledScript(source, optimizationLevel, ret));
+        return ret;
+    }
+
+    /**
+     * returns the sealed shared scope for the EventTrigger of the given ScriptThread, creates it if required
+     */
+    public Global getSharedScope(final Context cx, final ScriptThread scriptThread) throws IllegalAccessException {
+        final EventTrigger eventTrigger = scriptThread.getScript().getEventTrigger();
+        Global ret = sharedScopes.get(eventTrigger);
+        if (ret == null) {
+            synchronized (sharedScopes) {
+                ret = sharedScopes.get(eventTrigger);
+                if (ret == null) {
+                    ret = scriptThread.createSharedScope(cx);
+                    sharedScopes.put(eventTrigger, ret);
+                }
+            }
+        }
+        return ret;
+    }
+
+    public void onExecuted(final ScriptEntry script, final long duration, final boolean failed) {
+        ScriptMetrics ret = metrics.get(script.getID());
+        if (ret == null) {
+            ret = new ScriptMetrics();
+            final ScriptMetrics existing = metrics.putIfAbsent(script.getID(), ret);
+            if (existing != null) {
+                ret = existing;
+            }
+        }
+        ret.add(duration, failed);
+    }
+
+    /**
+     * @return the execution metrics of the ScriptEntry, null if it was not executed yet
+     */
+    public ScriptMetrics getMetrics(final ScriptEntry script) {
+        return metrics.get(script.getID());
+    }
+
+    /**
+     * removes compiled scripts and metrics of ScriptEntries that no longer exist
+     */
+    public void retain(final Collection<ScriptEntry> scripts) {
+        final HashSet<Long> ids = new HashSet<Long>();
+        if (scripts != null) {
+            for (final ScriptEntry script : scripts) {
+                ids.add(script.getID());
+            }
+        }
+        for (final Iterator<Long> it = compiledScripts.keySet().iterator(); it.hasNext();) {
+            if (!ids.contains(it.next())) {
+                it.remove();
+            }
+        }
+        for (final Iterator<Long> it = metrics.keySet().iterator(); it.hasNext();) {
+            if (!ids.contains(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    public int getActiveCount() {
+        return threadPool.getActiveCount() + synchronousThreadPool.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return threadPool.getQueue().size();
+    }
+
+    public void shutdown() {
+        threadPool.shutdown();
+        synchronousThreadPool.shutdown();
+    }
+}
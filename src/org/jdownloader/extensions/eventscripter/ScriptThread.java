@@ -59,8 +59,16 @@ public class ScriptThread extends Thread implements JSShutterDelegate {
         this.extension = eventScripterExtension;
     }
 
+    /**
+     * executes the script via the ScriptExecutor of the extension, the ScriptThread itself is only started if there is none
+     */
     @Override
     public void start() {
+        final ScriptExecutor executor = extension.getScriptExecutor();
+        if (executor != null) {
+            executor.execute(this);
+            return;
+        }
         super.start();
         if (script.getEventTrigger().isSynchronous()) {
             try {
@@ -93,34 +101,95 @@ public class ScriptThread extends Thread implements JSShutterDelegate {
             if (!script.isEnabled()) {
                 return;
             }
-            scope = new Global();
+            final ScriptExecutor executor = extension.getScriptExecutor();
+            final long startTimeStamp = System.nanoTime();
+            boolean failed = false;
             cx = Context.enter();
-            cx.setOptimizationLevel(-1);
-            scope.init(cx);
-            cx.setOptimizationLevel(-1);
-            cx.setLanguageVersion(Context.VERSION_1_5);
+            /* synchronous scripts may get executed within the context of the calling script */
+            final int optimizationLevel = cx.getOptimizationLevel();
             try {
-                String preloadClasses = preInitClasses();
-                evalTrusted(preloadClasses);
-                // required by some libraries
-                evalTrusted("global=this;");
-                initEnvironment();
-                cleanupClasses();
-                try {
-                    evalUNtrusted(script.getScript());
-                } finally {
-                    finalizeEnvironment();
+                cx.setOptimizationLevel(-1);
+                cx.setLanguageVersion(Context.VERSION_1_5);
+                if (executor != null) {
+                    /* script scope with the sealed shared scope as prototype */
+                    final Global sharedScope = executor.getSharedScope(cx, this);
+                    scope = new Global();
+                    scope.setPrototype(sharedScope);
+                    scope.setParentScope(null);
+                    // required by some libraries
+                    evalTrusted("global=this;");
+                    initEnvironmentProperties();
+                    if (CFG_EVENT_CALLER.CFG.isOptimizedScriptsEnabled()) {
+                        cx.setOptimizationLevel(9);
+                    }
+                    try {
+                        executor.getCompiledScript(cx, script).exec(cx, scope);
+                    } finally {
+                        finalizeEnvironment();
+                    }
+                } else {
+                    scope = new Global();
+                    scope.init(cx);
+                    String preloadClasses = preInitClasses();
+                    evalTrusted(preloadClasses);
+                    // required by some libraries
+                    evalTrusted("global=this;");
+                    initEnvironmentMethods();
+                    initEnvironmentProperties();
+                    cleanupClasses();
+                    try {
+                        evalUNtrusted(script.getScript());
+                    } finally {
+                        finalizeEnvironment();
+                    }
                 }
                 // ProcessBuilderFactory.runCommand(commandline);
             } catch (Throwable e) {
+                failed = true;
                 logger.log(e);
                 notifyAboutException(e);
             } finally {
+                cx.setOptimizationLevel(optimizationLevel);
                 Context.exit();
+                if (executor != null) {
+                    executor.onExecuted(script, System.nanoTime() - startTimeStamp, failed);
+                }
             }
         }
     }
 
+    /**
+     * creates the scope with preloaded classes and ScriptEnvironment methods for the EventTrigger of this script. the scope and all standard
+     * objects get sealed, so it can be shared as prototype by all scripts with the same EventTrigger
+     */
+    protected Global createSharedScope(Context cx) throws IllegalAccessException {
+        final Global sharedScope = new Global();
+        final Global scope = this.scope;
+        this.scope = sharedScope;
+        try {
+            sharedScope.init(cx);
+            evalTrusted(preInitClasses());
+            initEnvironmentMethods();
+            cleanupClasses();
+            for (final Object id : sharedScope.getAllIds()) {
+                if (id instanceof String) {
+                    final Object value = ScriptableObject.getProperty(sharedScope, (String) id);
+                    if (value instanceof ScriptableObject) {
+                        final Object prototype = ScriptableObject.getProperty((ScriptableObject) value, "prototype");
+                        if (prototype instanceof ScriptableObject) {
+                            ((ScriptableObject) prototype).sealObject();
+                        }
+                        ((ScriptableObject) value).sealObject();
+                    }
+                }
+            }
+            sharedScope.sealObject();
+            return sharedScope;
+        } finally {
+            this.scope = scope;
+        }
+    }
+
     public void notifyAboutException(Throwable e) {
         Dialog.getInstance().showExceptionDialog("An Error Occured", e.getMessage(), e);
         if (script != null) {
@@ -187,12 +256,15 @@ public class ScriptThread extends Thread implements JSShutterDelegate {
         return preloadClasses.toString();
     }
 
-    private void initEnvironment() throws IllegalAccessException {
+    private void initEnvironmentMethods() {
         for (Method f : ScriptEnvironment.class.getDeclaredMethods()) {
             if (f.getAnnotation(ScriptAPI.class) != null) {
                 evalTrusted(f.getName() + "=" + ScriptEnvironment.class.getName() + "." + f.getName() + ";");
             }
         }
+    }
+
+    private void initEnvironmentProperties() throws IllegalAccessException {
         for (Field f : ScriptEnvironment.class.getDeclaredFields()) {
             if (f.getAnnotation(ScriptAPI.class) != null) {
                 ScriptableObject.putProperty(scope, f.getName(), ScriptEnvironment.toJSObject(f.get(null)));
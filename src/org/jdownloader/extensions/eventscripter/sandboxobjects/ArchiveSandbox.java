@@ -8,7 +8,6 @@ import jd.plugins.DownloadLink;
 
 import org.appwork.exceptions.WTFException;
 import org.appwork.utils.IO;
-import org.jdownloader.extensions.eventscripter.ScriptThread;
 import org.jdownloader.extensions.extraction.Archive;
 import org.jdownloader.extensions.extraction.ArchiveFile;
 import org.jdownloader.extensions.extraction.ExtractionExtension;
@@ -68,7 +67,7 @@ public class ArchiveSandbox {
 
     public Object getInfo() {
         if (archive != null) {
-            return ((ScriptThread) Thread.currentThread()).toNative(archive.getSettings());
+            return ScriptEnvironment.getScriptThread().toNative(archive.getSettings());
         }
         return null;
     }
@@ -72,6 +72,7 @@ import org.jdownloader.api.RemoteAPIController;
 import org.jdownloader.extensions.eventscripter.EnvironmentException;
 import org.jdownloader.extensions.eventscripter.ScriptAPI;
 import org.jdownloader.extensions.eventscripter.ScriptEntry;
+import org.jdownloader.extensions.eventscripter.ScriptExecutor;
 import org.jdownloader.extensions.eventscripter.ScriptReferenceThread;
 import org.jdownloader.extensions.eventscripter.ScriptThread;
 import org.jdownloader.extensions.eventscripter.T;
@@ -614,9 +615,12 @@ public class ScriptEnvironment {
         return ret;
     }
 
-    private static ScriptThread getScriptThread() {
+    static ScriptThread getScriptThread() {
         final Thread ct = Thread.currentThread();
-        if (ct instanceof ScriptThread) {
+        final ScriptThread executed = ScriptExecutor.getCurrentScriptThread();
+        if (executed != null) {
+            return executed;
+        } else if (ct instanceof ScriptThread) {
             return (ScriptThread) ct;
         } else if (ct instanceof ScriptReferenceThread) {
             return ((ScriptReferenceThread) ct).getScriptThread();
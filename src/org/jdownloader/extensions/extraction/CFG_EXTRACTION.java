@@ -75,6 +75,26 @@ public class CFG_EXTRACTION {
      **/
     public static final BooleanKeyHandler                PASSWORD_FIND_OPTIMIZATION_ENABLED                               = SH.getKeyHandler("PasswordFindOptimizationEnabled", BooleanKeyHandler.class);
     
+    /**
+     * Check several passwords of the passwordlist at the same time
+     **/
+    public static final BooleanKeyHandler                PARALLEL_PASSWORD_FINDING_ENABLED                                = SH.getKeyHandler("ParallelPasswordFindingEnabled", BooleanKeyHandler.class);
+    
+    /**
+     * Max. number of passwords checked at the same time
+     **/
+    public static final IntegerKeyHandler                MAX_PARALLEL_PASSWORD_CHECKS                                     = SH.getKeyHandler("MaxParallelPasswordChecks", IntegerKeyHandler.class);
+    
+    /**
+     * Max. number of archives extracted at the same time
+     **/
+    public static final IntegerKeyHandler                MAX_CONCURRENT_EXTRACTIONS                                       = SH.getKeyHandler("MaxConcurrentExtractions", IntegerKeyHandler.class);
+    
+    /**
+     * Max. number of archives extracted at the same time from/to the same disk
+     **/
+    public static final IntegerKeyHandler                MAX_CONCURRENT_EXTRACTIONS_PER_DISK                              = SH.getKeyHandler("MaxConcurrentExtractionsPerDisk", IntegerKeyHandler.class);
+    
     public static final BooleanKeyHandler                GUI_ENABLED                                                      = SH.getKeyHandler("GuiEnabled", BooleanKeyHandler.class);
     
     public static final EnumKeyHandler                   CPUPRIORITY                                                      = SH.getKeyHandler("CPUPriority", EnumKeyHandler.class);
@@ -1,5 +1,7 @@
 package org.jdownloader.extensions.extraction;
 
+import java.util.HashMap;
+
 import jd.plugins.ExtensionConfigInterface;
 
 import org.appwork.storage.config.annotations.AboutConfig;
@@ -165,6 +167,43 @@ public interface ExtractionConfig extends ExtensionConfigInterface {
 
     void setPasswordFindOptimizationEnabled(boolean b);
 
+    @DefaultBooleanValue(false)
+    @AboutConfig
+    @DescriptionForConfigEntry("Check several passwords of the passwordlist at the same time")
+    boolean isParallelPasswordFindingEnabled();
+
+    void setParallelPasswordFindingEnabled(boolean b);
+
+    @DefaultIntValue(4)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 32)
+    @DescriptionForConfigEntry("Max. number of passwords checked at the same time")
+    int getMaxParallelPasswordChecks();
+
+    void setMaxParallelPasswordChecks(int i);
+
+    @DefaultIntValue(2)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 16)
+    @DescriptionForConfigEntry("Max. number of archives extracted at the same time")
+    int getMaxConcurrentExtractions();
+
+    void setMaxConcurrentExtractions(int i);
+
+    @DefaultIntValue(1)
+    @AboutConfig
+    @SpinnerValidator(min = 1, max = 16)
+    @DescriptionForConfigEntry("Max. number of archives extracted at the same time from/to the same disk")
+    int getMaxConcurrentExtractionsPerDisk();
+
+    void setMaxConcurrentExtractionsPerDisk(int i);
+
+    @DefaultJsonObject("{}")
+    @DescriptionForConfigEntry("How often a password of the passwordlist was the correct one. Passwords with more hits are tried first")
+    HashMap<String, Integer> getPasswordHitCounts();
+
+    void setPasswordHitCounts(HashMap<String, Integer> map);
+
     @DefaultBooleanValue(true)
     @AboutConfig
     @DescriptionForConfigEntry("Extract Log files in logs/extraction/...")
@@ -21,10 +21,15 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jd.controlling.downloadcontroller.DiskSpaceManager.DISKSPACERESERVATIONRESULT;
 import jd.controlling.downloadcontroller.DiskSpaceReservation;
@@ -84,6 +89,30 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
         return this.processedBytes.addAndGet(Math.max(0, processedBytes));
     }
 
+    private volatile long startTimeStamp = -1;
+
+    /**
+     * @return timestamp when the extraction got started, -1 if still queued
+     */
+    public long getStartTimeStamp() {
+        return startTimeStamp;
+    }
+
+    /**
+     * @return average extraction speed in bytes/s
+     */
+    public long getSpeed() {
+        final long startTimeStamp = this.startTimeStamp;
+        if (startTimeStamp <= 0) {
+            return 0;
+        }
+        final long duration = System.currentTimeMillis() - startTimeStamp;
+        if (duration <= 0) {
+            return 0;
+        }
+        return (getProcessedBytes() * 1000) / duration;
+    }
+
     private final ExtractionExtension extension;
     private final LogSource           logger;
     private FileSignatures            fileSignatures        = null;
@@ -113,7 +142,7 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
         return extractToFolder;
     }
 
-    public FileSignatures getFileSignatures() {
+    public synchronized FileSignatures getFileSignatures() {
         if (fileSignatures == null) {
             fileSignatures = new FileSignatures();
         }
@@ -187,6 +216,92 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
         return extractor.findPassword(this, pw, optimized);
     }
 
+    /**
+     * checks the candidates with several threads, each check opens its own archive. returns the first found password, it still has to be
+     * set via {@link #checkPassword(ExtractLogFileWriter, String, boolean)}
+     */
+    private String findPasswordParallel(final ExtractLogFileWriter crashLog, final List<String> candidates, final int maxThreads, final boolean optimized) throws ExtractionException {
+        final int threads = Math.min(maxThreads, candidates.size());
+        final AtomicInteger next = new AtomicInteger(0);
+        final AtomicReference<String> found = new AtomicReference<String>(null);
+        final AtomicReference<ExtractionException> error = new AtomicReference<ExtractionException>(null);
+        crashLog.write("Parallel password finding with " + threads + " threads for " + candidates.size() + " passwords");
+        final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 1000, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "PasswordFinder:" + archive.getName() + ":" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            for (int index = 0; index < threads; index++) {
+                threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        while (found.get() == null && error.get() == null && !gotKilled()) {
+                            final int index = next.getAndIncrement();
+                            if (index >= candidates.size()) {
+                                return;
+                            }
+                            final String password = candidates.get(index);
+                            synchronized (crashLog) {
+                                crashLog.write("Check Password: '" + password + "'");
+                            }
+                            fireEvent(ExtractionEvent.Type.PASSWORT_CRACKING);
+                            try {
+                                if (extractor.isPasswordValid(ExtractionController.this, password, optimized)) {
+                                    found.compareAndSet(null, password);
+                                }
+                            } catch (final ExtractionException e) {
+                                error.compareAndSet(null, e);
+                            } catch (final Throwable e) {
+                                logger.log(e);
+                                error.compareAndSet(null, new ExtractionException(e, null));
+                            }
+                        }
+                    }
+                });
+            }
+            threadPool.shutdown();
+            /* running native checks cannot be aborted, they finish their current password */
+            while (!threadPool.awaitTermination(1, TimeUnit.SECONDS)) {
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            threadPool.shutdownNow();
+        }
+        if (found.get() == null && error.get() != null) {
+            throw error.get();
+        }
+        return found.get();
+    }
+
+    /**
+     * @return the passwords of passwordList followed by their trimmed variant
+     */
+    private List<String> getPasswordCandidates() {
+        final List<String> ret = new ArrayList<String>();
+        for (final String password : passwordList) {
+            if (StringUtils.isEmpty(password)) {
+                continue;
+            }
+            if (!ret.contains(password)) {
+                ret.add(password);
+            }
+            // try trimmed password
+            final String trimmed = password.trim();
+            if (trimmed.length() != password.length() && trimmed.length() > 0 && !ret.contains(trimmed)) {
+                ret.add(trimmed);
+            }
+        }
+        return ret;
+    }
+
     private void fireEvent(ExtractionEvent.Type event) {
         latestEvent = event;
         ExtractionExtension.getInstance().fireEvent(new ExtractionEvent(this, event));
@@ -198,6 +313,7 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
 
     @Override
     public Void run() {
+        startTimeStamp = System.currentTimeMillis();
         final boolean deleteExtractionLog = !CFG_EXTRACTION.CFG.isWriteExtractionLogEnabled();
         // let's write an info file. and delete if after extraction. this why we have infosfiles if the extraction crashes jd
         final ArchiveFile firstArchiveFile = archive.getArchiveFiles().get(0);
@@ -274,34 +390,32 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
                         }
                         passwordList.addAll(archive.getFactory().getGuessedPasswordList(archive));
                         passwordList.add(archive.getName());
-                        java.util.List<String> pwList = extractor.getConfig().getPasswordList();
-                        if (pwList == null) {
-                            pwList = new ArrayList<String>();
-                        }
-                        passwordList.addAll(pwList);
+                        /* passwords with more hits first */
+                        passwordList.addAll(getExtension().getRankedPasswordList());
                         fireEvent(ExtractionEvent.Type.START_CRACK_PASSWORD);
                         crashLog.write("Start password finding for " + archive);
                         String correctPW = null;
-                        for (final String password : passwordList) {
-                            if (password == null) {
-                                continue;
-                            }
+                        final List<String> candidates = getPasswordCandidates();
+                        final int maxThreads = getExtension().getSettings().getMaxParallelPasswordChecks();
+                        if (getExtension().getSettings().isParallelPasswordFindingEnabled() && extractor.isParallelPasswordCheckSupported() && candidates.size() > 1 && maxThreads > 1) {
+                            final String password = findPasswordParallel(crashLog, candidates, maxThreads, isPasswordFindOptimizationEnabled);
                             if (gotKilled()) {
                                 return null;
                             }
-                            if (checkPassword(crashLog, password, isPasswordFindOptimizationEnabled)) {
+                            /* set the found password in extractor */
+                            if (password != null && checkPassword(crashLog, password, isPasswordFindOptimizationEnabled)) {
                                 correctPW = password;
                                 crashLog.write("Found password: \"" + correctPW + "\"");
-                                break;
-                            } else {
-                                // try trimmed password
-                                final String trimmed = password.trim();
-                                if (trimmed.length() != password.length()) {
-                                    if (checkPassword(crashLog, trimmed, isPasswordFindOptimizationEnabled)) {
-                                        correctPW = trimmed;
-                                        crashLog.write("Found password: \"" + correctPW + "\"");
-                                        break;
-                                    }
+                            }
+                        } else {
+                            for (final String password : candidates) {
+                                if (gotKilled()) {
+                                    return null;
+                                }
+                                if (checkPassword(crashLog, password, isPasswordFindOptimizationEnabled)) {
+                                    correctPW = password;
+                                    crashLog.write("Found password: \"" + correctPW + "\"");
+                                    break;
                                 }
                             }
                         }
@@ -326,6 +440,7 @@ public class ExtractionController extends QueueAction<Void, RuntimeException> {
                     }
                     if (StringUtils.isNotEmpty(archive.getFinalPassword())) {
                         getExtension().addPassword(archive.getFinalPassword());
+                        getExtension().addPasswordHit(archive.getFinalPassword());
                     }
                 }
                 extractToFolder = getExtension().getFinalExtractToFolder(archive, false);
@@ -20,9 +20,13 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.regex.Pattern;
@@ -127,6 +131,8 @@ public class ExtractionExtension extends AbstractExtension<ExtractionConfig, Ext
     private ShutdownVetoListener       listener          = null;
     private boolean                    lazyInitOnStart   = false;
     private final Object               PWLOCK            = new Object();
+    /* max. number of passwords with hit counts */
+    private static final int           MAX_PASSWORD_HITS = 1000;
 
     public ExtractionExtension() throws StartException {
         super();
@@ -381,6 +387,81 @@ public class ExtractionExtension extends AbstractExtension<ExtractionConfig, Ext
         }
     }
 
+    /**
+     * counts a successful use of the given password, see {@link #getRankedPasswordList()}. the password has to be in the password list,
+     * counts of passwords that are no longer in the list are dropped
+     */
+    public void addPasswordHit(String pw) {
+        if (StringUtils.isEmpty(pw)) {
+            return;
+        }
+        synchronized (PWLOCK) {
+            HashMap<String, Integer> hits = getSettings().getPasswordHitCounts();
+            if (hits == null) {
+                hits = new HashMap<String, Integer>();
+            }
+            final Integer count = hits.remove(pw);
+            /* forget passwords that have been removed from the password list */
+            final List<String> pwList = getSettings().getPasswordList();
+            if (pwList != null) {
+                hits.keySet().retainAll(new HashSet<String>(pwList));
+            }
+            if (hits.size() >= MAX_PASSWORD_HITS) {
+                /* keep the passwords with the most hits */
+                final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(hits.entrySet());
+                Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+
+                    @Override
+                    public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
+                        final int h1 = o1.getValue() == null ? 0 : o1.getValue().intValue();
+                        final int h2 = o2.getValue() == null ? 0 : o2.getValue().intValue();
+                        return h1 == h2 ? 0 : (h1 > h2 ? -1 : 1);
+                    }
+                });
+                final HashMap<String, Integer> kept = new HashMap<String, Integer>();
+                for (final Map.Entry<String, Integer> entry : entries.subList(0, MAX_PASSWORD_HITS - 1)) {
+                    kept.put(entry.getKey(), entry.getValue());
+                }
+                hits = kept;
+            }
+            hits.put(pw, count == null ? 1 : count + 1);
+            getSettings().setPasswordHitCounts(hits);
+        }
+    }
+
+    /**
+     * @return the password list, passwords that were the correct one more often come first
+     */
+    public List<String> getRankedPasswordList() {
+        synchronized (PWLOCK) {
+            final List<String> pwList = getSettings().getPasswordList();
+            final List<String> ret = new ArrayList<String>();
+            if (pwList == null) {
+                return ret;
+            }
+            ret.addAll(pwList);
+            final HashMap<String, Integer> hits = getSettings().getPasswordHitCounts();
+            if (hits != null && hits.size() > 0) {
+                /* stable sort, keeps the order of the list for passwords with the same hit count */
+                Collections.sort(ret, new Comparator<String>() {
+
+                    private int getHits(String pw) {
+                        final Integer ret = hits.get(pw);
+                        return ret == null ? 0 : ret.intValue();
+                    }
+
+                    @Override
+                    public int compare(String o1, String o2) {
+                        final int h1 = getHits(o1);
+                        final int h2 = getHits(o2);
+                        return h1 == h2 ? 0 : (h1 > h2 ? -1 : 1);
+                    }
+                });
+            }
+            return ret;
+        }
+    }
+
     @Override
     public boolean isHeadlessRunnable() {
         return true;
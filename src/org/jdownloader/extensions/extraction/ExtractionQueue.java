@@ -1,36 +1,259 @@
 package org.jdownloader.extensions.extraction;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jd.controlling.downloadcontroller.DiskSpaceManager;
 
 import org.appwork.utils.event.queue.Queue;
 import org.appwork.utils.event.queue.QueueAction;
+import org.jdownloader.logging.LogController;
 
+/**
+ * runs up to MaxConcurrentExtractions ExtractionControllers at the same time on a bounded pool of ExtractionThreads. the QueueThread hands
+ * the queued jobs to {@link #startItem(QueueAction, boolean)}, a job is started as soon as the disks(mount roots, see
+ * {@link DiskSpaceManager#getRootFor(File)}) of its archive and its extraction folder have a free slot(MaxConcurrentExtractionsPerDisk),
+ * until then it waits in the dispatch list.
+ */
 public class ExtractionQueue extends Queue {
 
+    public static class ExtractionThread extends Thread {
+        private volatile ExtractionController controller = null;
+
+        private ExtractionThread(Runnable r, int index) {
+            super(r, "ExtractionThread:" + index);
+            setDaemon(true);
+        }
+
+        /**
+         * @return the ExtractionController currently executed by this thread
+         */
+        public ExtractionController getController() {
+            return controller;
+        }
+    }
+
+    /* guarded by queue */
+    private final List<ExtractionController>                     running   = new ArrayList<ExtractionController>();
+    /* taken from the queue, waiting for a free slot. guarded by queue */
+    private final List<ExtractionController>                     waiting   = new ArrayList<ExtractionController>();
+    private final HashMap<String, Integer>                       diskJobs  = new HashMap<String, Integer>();
+    private final ConcurrentHashMap<QueueAction<?, ?>, String[]> diskKeys  = new ConcurrentHashMap<QueueAction<?, ?>, String[]>();
+    private final AtomicInteger                                  threadIDs = new AtomicInteger(0);
+    private final ThreadPoolExecutor                             threadPool;
+
     public ExtractionQueue() {
         super("ExtractionQueue");
+        final int threads = Math.max(1, CFG_EXTRACTION.CFG.getMaxConcurrentExtractions());
+        threadPool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new ExtractionThread(r, threadIDs.incrementAndGet());
+            }
+        });
+        threadPool.allowCoreThreadTimeOut(true);
     }
 
+    /**
+     * @return the ExtractionController of the calling ExtractionThread or the first running one
+     */
     public ExtractionController getCurrentQueueEntry() {
-        return (ExtractionController) this.getCurrentJob();
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof ExtractionThread) {
+            final ExtractionController ret = ((ExtractionThread) currentThread).getController();
+            if (ret != null) {
+                return ret;
+            }
+        }
+        synchronized (queue) {
+            if (running.size() > 0) {
+                return running.get(0);
+            }
+        }
+        return null;
     }
 
+    /**
+     * @return running and queued jobs
+     */
     public List<ExtractionController> getJobs() {
         final List<ExtractionController> ret = new ArrayList<ExtractionController>();
-        for (QueueAction<?, ?> e : getEntries()) {
-            ret.add((ExtractionController) e);
+        synchronized (queue) {
+            ret.addAll(running);
+            ret.addAll(waiting);
+            for (QueueAction<?, ?> e : queue) {
+                ret.add((ExtractionController) e);
+            }
         }
         return ret;
     }
 
+    public List<ExtractionController> getRunningJobs() {
+        synchronized (queue) {
+            return new ArrayList<ExtractionController>(running);
+        }
+    }
+
+    public int getRunningJobsCount() {
+        synchronized (queue) {
+            return running.size();
+        }
+    }
+
     @Override
     public boolean isEmpty() {
-        return this.getCurrentJob() == null && super.isEmpty();
+        synchronized (queue) {
+            return running.size() == 0 && waiting.size() == 0 && queue.size() == 0;
+        }
     }
 
     public boolean isInProgress(ExtractionController p) {
-        return this.getCurrentJob() == p;
+        synchronized (queue) {
+            return running.contains(p);
+        }
+    }
+
+    @Override
+    public void internalAdd(QueueAction<?, ?> action) {
+        if (action instanceof ExtractionController) {
+            diskKeys.put(action, getDiskKeys((ExtractionController) action));
+        }
+        super.internalAdd(action);
     }
 
+    @Override
+    public boolean remove(QueueAction<?, ?> action) {
+        boolean removed = super.remove(action);
+        synchronized (queue) {
+            removed |= waiting.remove(action);
+            if (!removed && !running.contains(action)) {
+                return false;
+            }
+        }
+        if (removed) {
+            diskKeys.remove(action);
+        } else {
+            action.kill();
+        }
+        return true;
+    }
+
+    private String[] getDiskKeys(final ExtractionController controller) {
+        final LinkedHashSet<String> ret = new LinkedHashSet<String>();
+        try {
+            final Archive archive = controller.getArchive();
+            if (archive.getArchiveFiles().size() > 0) {
+                ret.add(getDiskKey(new File(archive.getArchiveFiles().get(0).getFilePath())));
+            }
+            final File extractToFolder = controller.getExtension().getFinalExtractToFolder(archive, true);
+            if (extractToFolder != null) {
+                ret.add(getDiskKey(extractToFolder));
+            }
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        }
+        return ret.toArray(new String[0]);
+    }
+
+    private String getDiskKey(final File file) {
+        final String root = DiskSpaceManager.getRootFor(file);
+        return root == null ? "" : root;
+    }
+
+    /**
+     * called by the QueueThread for every queued job, the job is started by the thread pool once it has a free slot
+     */
+    @Override
+    protected <T extends Throwable> void startItem(QueueAction<?, T> item, boolean callExceptionHandler) throws T {
+        if (!(item instanceof ExtractionController)) {
+            super.startItem(item, callExceptionHandler);
+            return;
+        }
+        synchronized (queue) {
+            waiting.add((ExtractionController) item);
+            dispatch();
+        }
+    }
+
+    /**
+     * starts waiting jobs with a free slot, must be called while holding the queue lock
+     */
+    private void dispatch() {
+        final int maxJobs = Math.max(1, CFG_EXTRACTION.CFG.getMaxConcurrentExtractions());
+        if (threadPool.getMaximumPoolSize() != maxJobs) {
+            if (maxJobs > threadPool.getMaximumPoolSize()) {
+                threadPool.setMaximumPoolSize(maxJobs);
+                threadPool.setCorePoolSize(maxJobs);
+            } else {
+                threadPool.setCorePoolSize(maxJobs);
+                threadPool.setMaximumPoolSize(maxJobs);
+            }
+        }
+        final int maxJobsPerDisk = Math.max(1, CFG_EXTRACTION.CFG.getMaxConcurrentExtractionsPerDisk());
+        final Iterator<ExtractionController> it = waiting.iterator();
+        waiting: while (it.hasNext() && running.size() < maxJobs) {
+            final ExtractionController job = it.next();
+            final String[] disks = diskKeys.get(job);
+            if (disks != null) {
+                for (final String disk : disks) {
+                    final Integer jobs = diskJobs.get(disk);
+                    if (jobs != null && jobs.intValue() >= maxJobsPerDisk) {
+                        continue waiting;
+                    }
+                }
+                for (final String disk : disks) {
+                    final Integer jobs = diskJobs.get(disk);
+                    diskJobs.put(disk, jobs == null ? 1 : jobs.intValue() + 1);
+                }
+            }
+            it.remove();
+            running.add(job);
+            threadPool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    final ExtractionThread thread = (ExtractionThread) Thread.currentThread();
+                    thread.controller = job;
+                    try {
+                        job.start(ExtractionQueue.this);
+                    } catch (final Throwable e) {
+                        LogController.CL().log(e);
+                    } finally {
+                        thread.controller = null;
+                        job.setFinished(true);
+                        onJobFinished(job);
+                    }
+                }
+            });
+        }
+    }
+
+    private void onJobFinished(final ExtractionController job) {
+        final String[] disks = diskKeys.remove(job);
+        synchronized (queue) {
+            running.remove(job);
+            if (disks != null) {
+                for (final String disk : disks) {
+                    final Integer jobs = diskJobs.get(disk);
+                    if (jobs == null || jobs.intValue() <= 1) {
+                        diskJobs.remove(disk);
+                    } else {
+                        diskJobs.put(disk, jobs.intValue() - 1);
+                    }
+                }
+            }
+            dispatch();
+        }
+    }
 }
@@ -154,6 +154,23 @@ public abstract class IExtraction {
      */
     public abstract boolean findPassword(ExtractionController controller, String password, boolean optimized) throws ExtractionException;
 
+    /**
+     * @return true if {@link #isPasswordValid(ExtractionController, String, boolean)} may be called by several threads at the same time
+     */
+    public boolean isParallelPasswordCheckSupported() {
+        return false;
+    }
+
+    /**
+     * Checks a single password without keeping the archive open for extraction. Must be thread safe if
+     * {@link #isParallelPasswordCheckSupported()} returns true.
+     *
+     * @return True if the password is correct.
+     */
+    public boolean isPasswordValid(ExtractionController controller, String password, boolean optimized) throws ExtractionException {
+        return findPassword(controller, password, optimized);
+    }
+
     /**
      * Starts the extraction of an {@link Archive}.
      */
@@ -32,6 +32,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jd.controlling.downloadcontroller.IfFileExistsDialogInterface;
 import net.sf.sevenzipjbinding.ArchiveFormat;
@@ -78,7 +79,7 @@ import org.jdownloader.settings.IfFileExistsAction;
 
 public class Multi extends IExtraction {
 
-    private volatile int               crack = 0;
+    private final AtomicInteger        crack = new AtomicInteger(0);
 
     private SevenZipArchiveWrapper     inArchive;
     private IInStream                  inStream;
@@ -95,7 +96,7 @@ public class Multi extends IExtraction {
     }
 
     public Multi() {
-        crack = 0;
+        crack.set(0);
         inArchive = null;
     }
 
@@ -939,65 +940,128 @@ public class Multi extends IExtraction {
 
     @Override
     public boolean findPassword(final ExtractionController ctl, String password, boolean optimized) throws ExtractionException {
-        final Archive archive = getExtractionController().getArchive();
-        crack++;
+        crack.incrementAndGet();
         if (StringUtils.isEmpty(password)) {
             /* This should never happen */
             password = "";
         }
-        final AtomicBoolean passwordfound = new AtomicBoolean(false);
         try {
-            final ArchiveFile firstArchiveFile = archive.getArchiveFiles().get(0);
-            final ArchiveFormat format = archive.getArchiveFormat();
-            final ReusableByteArrayOutputStream buffer = new ReusableByteArrayOutputStream(64 * 1024);
+            if (inArchive != null) {
+                inArchive.close();
+                inArchive = null;
+            }
+        } catch (Throwable e) {
+        }
+        try {
+            if (closable != null) {
+                closable.close();
+                closable = null;
+            }
+        } catch (final Throwable e) {
+        }
+        final PasswordCheck check = new PasswordCheck();
+        boolean passwordfound = false;
+        try {
+            passwordfound = checkPassword(ctl, check, password, optimized);
+            return passwordfound;
+        } finally {
+            /* keep archive open for extraction */
+            inArchive = check.inArchive;
+            inStream = check.inStream;
+            closable = check.closable;
+            if (passwordfound) {
+                getExtractionController().getArchive().setFinalPassword(password);
+                if (inArchive != null) {
+                    updateContentView(inArchive.getSimpleInterface());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isParallelPasswordCheckSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isPasswordValid(final ExtractionController ctl, String password, boolean optimized) throws ExtractionException {
+        crack.incrementAndGet();
+        if (StringUtils.isEmpty(password)) {
+            password = "";
+        }
+        final PasswordCheck check = new PasswordCheck();
+        try {
+            return checkPassword(ctl, check, password, optimized);
+        } finally {
+            check.close();
+        }
+    }
+
+    /**
+     * streams/archive opened by a password check, owned by the calling thread
+     */
+    private static class PasswordCheck {
+        private SevenZipArchiveWrapper inArchive = null;
+        private IInStream              inStream  = null;
+        private Closeable              closable  = null;
+
+        private void close() {
             try {
                 if (inArchive != null) {
                     inArchive.close();
-                    inArchive = null;
                 }
-            } catch (Throwable e) {
+            } catch (final Throwable e) {
             }
             try {
                 if (closable != null) {
                     closable.close();
-                    closable = null;
                 }
             } catch (final Throwable e) {
             }
+        }
+    }
+
+    private boolean checkPassword(final ExtractionController ctl, final PasswordCheck check, final String password, final boolean optimized) throws ExtractionException {
+        final Archive archive = getExtractionController().getArchive();
+        final AtomicBoolean passwordfound = new AtomicBoolean(false);
+        try {
+            final ArchiveFile firstArchiveFile = archive.getArchiveFiles().get(0);
+            final ArchiveFormat format = archive.getArchiveFormat();
+            final ReusableByteArrayOutputStream buffer = new ReusableByteArrayOutputStream(64 * 1024);
             final IArchiveOpenCallback callBack;
             if (archive.getArchiveFiles().size() == 1) {
                 final RandomAccessFile raf = new RandomAccessFile(firstArchiveFile.getFilePath(), "r");
-                closable = raf;
+                check.closable = raf;
                 callBack = new DummyOpener(password);
-                inStream = new RandomAccessFileInStream(raf);
+                check.inStream = new RandomAccessFileInStream(raf);
             } else {
                 switch (archive.getArchiveType()) {
                 case RAR_MULTI:
                     final RarOpener rarOpener = new RarOpener(archive, password, logger);
-                    closable = rarOpener;
+                    check.closable = rarOpener;
                     callBack = rarOpener;
-                    inStream = rarOpener.getStream(firstArchiveFile);
+                    check.inStream = rarOpener.getStream(firstArchiveFile);
                     break;
                 case SEVENZIP_PARTS:
                     final MultiOpener sevenZipPartsOpener = new MultiOpener(archive, password);
-                    closable = sevenZipPartsOpener;
+                    check.closable = sevenZipPartsOpener;
                     callBack = sevenZipPartsOpener;
-                    inStream = new ModdedVolumedArchiveInStream(firstArchiveFile.getFilePath(), sevenZipPartsOpener);
+                    check.inStream = new ModdedVolumedArchiveInStream(firstArchiveFile.getFilePath(), sevenZipPartsOpener);
                     break;
                 default:
                     final MultiOpener multiOpener = new MultiOpener(archive, password);
-                    closable = multiOpener;
+                    check.closable = multiOpener;
                     callBack = multiOpener;
-                    inStream = multiOpener.getStream(firstArchiveFile);
+                    check.inStream = multiOpener.getStream(firstArchiveFile);
                     break;
                 }
             }
-            if (inStream == null) {
+            if (check.inStream == null) {
                 logger.info("Failed to open Stream: " + firstArchiveFile);
             }
-            if (inStream != null && closable != null) {
+            if (check.inStream != null && check.closable != null) {
                 try {
-                    inArchive = createSevenZipArchiveWrapper(format, inStream, callBack);
+                    check.inArchive = createSevenZipArchiveWrapper(format, check.inStream, callBack);
                 } catch (InvocationTargetException e) {
                     if (e.getTargetException() != null) {
                         throw e.getTargetException();
@@ -1010,7 +1074,7 @@ public class Multi extends IExtraction {
             }
             final HashSet<String> checkedExtensions = new HashSet<String>();
             if (ArchiveFormat.SEVEN_ZIP == format) {
-                final int numberOfItems = inArchive.getNumberOfItems();
+                final int numberOfItems = check.inArchive.getNumberOfItems();
                 if (archive.isPasswordRequiredToOpen() && numberOfItems > 0) {
                     // archive is open. password seems to be ok.
                     passwordfound.set(true);
@@ -1018,10 +1082,10 @@ public class Multi extends IExtraction {
                 }
                 final ArrayList<Integer> allItems = new ArrayList<Integer>();
                 for (int i = 0; i < numberOfItems; i++) {
-                    final Boolean isFolder = inArchive.isFolder(i);
-                    final Boolean itemEncrypted = inArchive.isEncrypted(i);
-                    final Long size = inArchive.getSize(i);
-                    final Long packedSize = inArchive.getPackedSize(i);
+                    final Boolean isFolder = check.inArchive.isFolder(i);
+                    final Boolean itemEncrypted = check.inArchive.isEncrypted(i);
+                    final Long size = check.inArchive.getSize(i);
+                    final Long packedSize = check.inArchive.getPackedSize(i);
                     if (!itemEncrypted || isFolder || size == null || (size == 0 && (packedSize == null || packedSize == 0))) {
                         /*
                          * we also check for items with size ==0, they should have a packedsize>0
@@ -1036,7 +1100,7 @@ public class Multi extends IExtraction {
                     items[index++] = item;
                 }
                 try {
-                    inArchive.extract(items, false, new Seven7PWCallback(ctl, inArchive, passwordfound, password, buffer, getConfig().getMaxCheckedFileSizeDuringOptimizedPasswordFindingInBytes(), ctl.getFileSignatures(), optimized));
+                    check.inArchive.extract(items, false, new Seven7PWCallback(ctl, check.inArchive, passwordfound, password, buffer, getConfig().getMaxCheckedFileSizeDuringOptimizedPasswordFindingInBytes(), ctl.getFileSignatures(), optimized));
                 } catch (SevenZipException e) {
                     e.printStackTrace();
                     // An error will be thrown if the write method
@@ -1045,7 +1109,7 @@ public class Multi extends IExtraction {
                 }
             } else {
                 final SignatureCheckingOutStream signatureOutStream = new SignatureCheckingOutStream(ctl, passwordfound, ctl.getFileSignatures(), buffer, getConfig().getMaxCheckedFileSizeDuringOptimizedPasswordFindingInBytes(), optimized);
-                final ISimpleInArchiveItem[] items = inArchive.getSimpleInterface().getArchiveItems();
+                final ISimpleInArchiveItem[] items = check.inArchive.getSimpleInterface().getArchiveItems();
                 // we found some rar archives, that throw an exception when we try to open it with no or an invalid password, but do not
                 // throw any exceptions if we use - for example - their archive name as password.
                 // in this case, the archive opens fine, but does not show any contents. let's catch this case here
@@ -1116,19 +1180,12 @@ public class Multi extends IExtraction {
             throw new ExtractionException(e, null);
         } catch (Throwable e) {
             throw new ExtractionException(e, null);
-        } finally {
-            if (passwordfound.get()) {
-                archive.setFinalPassword(password);
-                if (inArchive != null) {
-                    updateContentView(inArchive.getSimpleInterface());
-                }
-            }
         }
     }
 
     @Override
     public int getCrackProgress() {
-        return crack;
+        return crack.get();
     }
 
     @Override
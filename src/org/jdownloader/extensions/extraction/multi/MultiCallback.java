@@ -19,6 +19,7 @@ package org.jdownloader.extensions.extraction.multi;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import jd.plugins.download.raf.FileBytesCache;
@@ -135,8 +136,12 @@ class MultiCallback implements ISequentialOutStream, FileBytesCacheFlusher {
     public void flush(byte[] writeCache, int writeCachePosition, int length, long fileWritePosition) {
         if (fileOpen.get()) {
             try {
-                fos.seek(fileWritePosition);
-                fos.write(writeCache, writeCachePosition, length);
+                /* positional write, does not move the file pointer */
+                final ByteBuffer buffer = ByteBuffer.wrap(writeCache, writeCachePosition, length);
+                long position = fileWritePosition;
+                while (buffer.hasRemaining()) {
+                    position += fos.getChannel().write(buffer, position);
+                }
                 flushedBytes += length;
             } catch (final IOException e) {
                 ioException = e;
@@ -21,6 +21,7 @@ import javax.imageio.ImageIO;
 import jd.plugins.DownloadLink;
 import jd.plugins.LinkStatus;
 import jd.plugins.PluginException;
+import jd.plugins.download.raf.OldRAFDownload;
 
 import org.appwork.exceptions.WTFException;
 import org.appwork.net.protocol.http.HTTPConstants;
@@ -191,9 +192,14 @@ public class HttpApiImpl implements HttpRequestHandler {
             //
             // } else {
 
-            StreamFactoryInterface streamfactory = downloadManager.getStreamFactory(dlink);
-            if (isTranscodeRequired) {
-                streamfactory = transcodeManager.getStreamFactory(streamfactory, mediaItem, callingDevice, dlnaProfile);
+            // running downloads are served from their part file, no need for a second connection
+            final OldRAFDownload partFileDownload = isTranscodeRequired ? null : PartFileStreamLinker.getRunningDownload(dlink);
+            StreamFactoryInterface streamfactory = null;
+            if (partFileDownload == null) {
+                streamfactory = downloadManager.getStreamFactory(dlink);
+                if (isTranscodeRequired) {
+                    streamfactory = transcodeManager.getStreamFactory(streamfactory, mediaItem, callingDevice, dlnaProfile);
+                }
             }
 
             // streamingInterface = new PipeStreamingInterface(dlink, new
@@ -224,7 +230,7 @@ public class HttpApiImpl implements HttpRequestHandler {
             if (request instanceof HeadRequest) {
                 System.out.println("HEAD " + request.getRequestHeaders());
                 response.setResponseCode(ResponseCode.SUCCESS_OK);
-                length = streamfactory.getContentLength();
+                length = partFileDownload != null ? partFileDownload.getDownloadable().getVerifiedFileSize() : streamfactory.getContentLength();
                 if (length > 0) response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_LENGTH, length + ""));
                 if (ct != null) response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_TYPE, ct));
                 if (dlnaFeatures != null) response.getResponseHeaders().add(new HTTPHeader(DLNATransportConstants.HEADER_FEATURES, dlnaFeatures));
@@ -237,7 +243,12 @@ public class HttpApiImpl implements HttpRequestHandler {
                 if (ct != null) response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_TYPE, ct));
                 if (dlnaFeatures != null) response.getResponseHeaders().add(new HTTPHeader(DLNATransportConstants.HEADER_FEATURES, dlnaFeatures));
                 if (transferMode != null) response.getResponseHeaders().add(new HTTPHeader(DLNATransportConstants.HEADER_TRANSFERMODE, transferMode));
-                new StreamLinker(response).run(streamfactory, range);
+                if (partFileDownload == null || !new PartFileStreamLinker(response).run(partFileDownload, range)) {
+                    if (streamfactory == null) {
+                        streamfactory = downloadManager.getStreamFactory(dlink);
+                    }
+                    new StreamLinker(response).run(streamfactory, range);
+                }
 
             }
         } catch (final Throwable e) {
@@ -0,0 +1,125 @@
+package org.jdownloader.extensions.streaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import jd.controlling.downloadcontroller.SingleDownloadController;
+import jd.plugins.DownloadLink;
+import jd.plugins.download.DownloadInterface;
+import jd.plugins.download.Downloadable;
+import jd.plugins.download.raf.OldRAFDownload;
+
+import org.appwork.net.protocol.http.HTTPConstants;
+import org.appwork.net.protocol.http.HTTPConstants.ResponseCode;
+import org.appwork.utils.net.HTTPHeader;
+import org.appwork.utils.net.httpserver.responses.HttpResponse;
+
+/**
+ * serves byte ranges of a running download directly from its part file. present areas are sent right away, for missing areas the download
+ * is asked to load the chunk covering them first and the linker waits until they have been written.
+ */
+public class PartFileStreamLinker {
+    /* max. time to wait for a missing area */
+    private static final long WAIT_TIMEOUT = 60 * 1000l;
+    /* max. bytes per transfer, the file is closed in between so the download can rename it when finished */
+    private static final long MAX_TRANSFER = 1024 * 1024;
+    private static final int  BUFFER_SIZE  = 64 * 1024;
+
+    private final HttpResponse response;
+
+    public PartFileStreamLinker(HttpResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * @return the running download of the link, null if the link is not being downloaded by an {@link OldRAFDownload} or its size is
+     *         unknown
+     */
+    public static OldRAFDownload getRunningDownload(DownloadLink link) {
+        final SingleDownloadController controller = link == null ? null : link.getDownloadLinkController();
+        if (controller == null) {
+            return null;
+        }
+        final DownloadInterface downloadInterface = controller.getDownloadInstance();
+        if (downloadInterface instanceof OldRAFDownload && downloadInterface.getDownloadable().getVerifiedFileSize() >= 0) {
+            return (OldRAFDownload) downloadInterface;
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the range cannot be served from the download, nothing has been sent in that case
+     */
+    public boolean run(OldRAFDownload download, ByteRange range) throws IOException, InterruptedException {
+        final Downloadable downloadable = download.getDownloadable();
+        final long fileSize = downloadable.getVerifiedFileSize();
+        final long start = range.getStart();
+        final long end = range.isOpenEnd() ? fileSize - 1 : Math.min(range.getEnd(), fileSize - 1);
+        if (fileSize < 0 || start > end) {
+            return false;
+        }
+        if (range.isValid()) {
+            response.setResponseCode(ResponseCode.SUCCESS_PARTIAL_CONTENT);
+            response.getResponseHeaders().add(new HTTPHeader("Content-Range", "bytes " + start + "-" + end + "/" + fileSize));
+        } else {
+            response.setResponseCode(ResponseCode.SUCCESS_OK);
+        }
+        response.getResponseHeaders().add(new HTTPHeader(HTTPConstants.HEADER_RESPONSE_CONTENT_LENGTH, (end - start + 1) + ""));
+        /*
+         * the response is a stream(chunked/wrapped) on top of a blocking socket, there is no SocketChannel to FileChannel.transferTo into, so
+         * the bytes are copied through one reused buffer
+         */
+        final OutputStream ops = response.getOutputStream(true);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = start;
+        while (position <= end) {
+            long available = download.waitForBytes(position, 0);
+            if (available <= 0) {
+                /* ask the download to load the missing area first */
+                download.prioritize(position);
+                try {
+                    available = download.waitForBytes(position, WAIT_TIMEOUT);
+                } finally {
+                    download.prioritize(-1);
+                }
+                if (available <= 0) {
+                    throw new IOException("Bytes at " + position + " are not available: " + downloadable.getName());
+                }
+            }
+            final long length = Math.min(MAX_TRANSFER, Math.min(available, end - position + 1));
+            transfer(downloadable, position, length, buffer, ops);
+            position += length;
+        }
+        ops.flush();
+        return true;
+    }
+
+    private void transfer(Downloadable downloadable, long position, long length, ByteBuffer buffer, OutputStream target) throws IOException {
+        File file = new File(downloadable.getFileOutputPart());
+        if (!file.exists()) {
+            /* download finished and part file has been renamed */
+            file = new File(downloadable.getFileOutput());
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            long transferred = 0;
+            while (transferred < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - transferred));
+                final int read = channel.read(buffer, position + transferred);
+                if (read <= 0) {
+                    throw new IOException("Unexpected end of file " + file + " at " + (position + transferred));
+                }
+                target.write(buffer.array(), 0, read);
+                transferred += read;
+            }
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -1290,6 +1290,9 @@ public interface GuiTranslation extends TranslateInterface {
     @Default(lngs = { "en" }, values = { "Enter Downloadlink to test Filters..." })
     String LinkgrabberFilter_LinkgrabberFilter_test_help_();
 
+    @Default(lngs = { "en" }, values = { "%s1 of %s2 Filters prefiltered | %s3 Links checked | %s4% filtered | %s5 µs/Link" })
+    String LinkgrabberFilter_statistics(int prefiltered, int rules, long links, String matchRate, String duration);
+
     @Default(lngs = { "en" }, values = { "Test Filters - running" })
     String TestWaitDialog_TestWaitDialog_title_();
 
@@ -1800,6 +1803,18 @@ public interface GuiTranslation extends TranslateInterface {
     @Default(lngs = { "en" }, values = { "Speed Alarm for %s1" })
     String SpeedColumn_onSingleClick_object_(String host);
 
+    @Default(lngs = { "en" }, values = { "Host %s1: %s2/s" })
+    String SpeedColumn_getTooltipText_host(String host, String speed);
+
+    @Default(lngs = { "en" }, values = { "Package: %s1/s" })
+    String SpeedColumn_getTooltipText_package(String speed);
+
+    @Default(lngs = { "en" }, values = { " (max. %s1/s)" })
+    String SpeedColumn_getTooltipText_cap(String cap);
+
+    @Default(lngs = { "en" }, values = { "Package Speed Limit" })
+    String PackageSpeedLimitAction_PackageSpeedLimitAction();
+
     @Default(lngs = { "en" }, values = { "Finished" })
     String TaskColumn_getStringValue_finished_();
 
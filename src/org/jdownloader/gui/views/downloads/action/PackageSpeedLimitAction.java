@@ -0,0 +1,50 @@
+package org.jdownloader.gui.views.downloads.action;
+
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.appwork.utils.swing.dialog.Dialog;
+import org.appwork.utils.swing.dialog.DialogNoAnswerException;
+import org.jdownloader.controlling.contextmenu.CustomizableTableContextAppAction;
+import org.jdownloader.gui.IconKey;
+import org.jdownloader.gui.translate._GUI;
+import org.jdownloader.gui.views.SelectionInfo;
+import org.jdownloader.gui.views.SelectionInfo.PackageView;
+import org.jdownloader.gui.views.downloads.table.SpeedLimitator;
+
+import jd.controlling.packagecontroller.AbstractNode;
+import jd.plugins.DownloadLink;
+import jd.plugins.FilePackage;
+
+/**
+ * sets the cap of the selected packages, see {@link FilePackage#setCustomSpeedLimit(int)}
+ */
+public class PackageSpeedLimitAction extends CustomizableTableContextAppAction<FilePackage, DownloadLink> {
+
+    private static final long serialVersionUID = 4917523481658316521L;
+
+    public PackageSpeedLimitAction() {
+        setName(_GUI.T.PackageSpeedLimitAction_PackageSpeedLimitAction());
+        setIconKey(IconKey.ICON_SPEED);
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        if (!isEnabled()) {
+            return;
+        }
+        final SelectionInfo<FilePackage, DownloadLink> selection = getSelection();
+        final List<AbstractNode> packages = new ArrayList<AbstractNode>();
+        for (final PackageView<FilePackage, DownloadLink> packageView : selection.getPackageViews()) {
+            packages.add(packageView.getPackage());
+        }
+        if (packages.size() == 0) {
+            return;
+        }
+        try {
+            Dialog.getInstance().showDialog(new SpeedLimitator(packages.get(0), packages));
+        } catch (DialogNoAnswerException e1) {
+        }
+    }
+
+}
@@ -32,6 +32,8 @@ import org.jdownloader.premium.PremiumInfoDialog;
 import org.jdownloader.settings.GraphicalUserInterfaceSettings;
 import org.jdownloader.settings.staticreferences.CFG_GUI;
 
+import jd.controlling.downloadcontroller.BandwidthBucket;
+import jd.controlling.downloadcontroller.DownloadSpeedManager;
 import jd.controlling.downloadcontroller.DownloadWatchDog;
 import jd.controlling.downloadcontroller.SingleDownloadController;
 import jd.controlling.packagecontroller.AbstractNode;
@@ -149,7 +151,9 @@ public class SpeedColumn extends ExtTextColumn<AbstractNode> {
                 /* no account support yet for this plugin */
                 return false;
             }
-            long limit = dlc.getConnectionHandler().getLimit();
+            /* bandwidth assigned to the link, its share of the global limit and of the caps of its host, package and link */
+            final BandwidthBucket bucket = dlc.getConnectionHandler().getBucket(dl);
+            long limit = bucket != null ? bucket.getAllocation() : dlc.getConnectionHandler().getLimit();
             if (limit > 0 && limit < 50 * 1024) {
                 /* we have an active limit that is smaller than our warn speed */
                 return false;
@@ -164,9 +168,52 @@ public class SpeedColumn extends ExtTextColumn<AbstractNode> {
         return false;
     }
 
+    /**
+     * @return speeds and caps of the host and package of a running link or package, null if it is not running
+     */
+    private String getBucketSpeeds(AbstractNode value) {
+        final DownloadSpeedManager dsm = DownloadWatchDog.getInstance().getDownloadSpeedManager();
+        if (value instanceof DownloadLink) {
+            final DownloadLink link = (DownloadLink) value;
+            final BandwidthBucket linkBucket = dsm.getBucket(link);
+            if (linkBucket == null) {
+                return null;
+            }
+            final BandwidthBucket hostBucket = linkBucket.getParent().getParent();
+            String ret = _GUI.T.SpeedColumn_getTooltipText_host(String.valueOf(hostBucket.getKey()), SizeFormatter.formatBytes(hostBucket.getSpeed()));
+            if (hostBucket.getCap() > 0) {
+                ret += _GUI.T.SpeedColumn_getTooltipText_cap(SizeFormatter.formatBytes(hostBucket.getCap()));
+            }
+            final String packageSpeed = link.getFilePackage() != null ? getPackageSpeed(dsm, link.getFilePackage()) : null;
+            if (packageSpeed != null) {
+                ret += "\r\n" + packageSpeed;
+            }
+            return ret;
+        } else if (value instanceof FilePackage) {
+            return getPackageSpeed(dsm, (FilePackage) value);
+        }
+        return null;
+    }
+
+    private String getPackageSpeed(DownloadSpeedManager dsm, FilePackage filePackage) {
+        final int speed = dsm.getSpeed(filePackage);
+        if (speed < 0) {
+            return null;
+        }
+        String ret = _GUI.T.SpeedColumn_getTooltipText_package(SizeFormatter.formatBytes(speed));
+        if (filePackage.getCustomSpeedLimit() > 0) {
+            ret += _GUI.T.SpeedColumn_getTooltipText_cap(SizeFormatter.formatBytes(filePackage.getCustomSpeedLimit()));
+        }
+        return ret;
+    }
+
     @Override
     protected String getTooltipText(AbstractNode obj) {
-        final String ret = super.getTooltipText(obj);
+        String ret = super.getTooltipText(obj);
+        final String speeds = getBucketSpeeds(obj);
+        if (speeds != null) {
+            ret = ret != null ? speeds + "\r\n" + ret : speeds;
+        }
         if (speedLimiterEnabled.get()) {
             final String limit = _GUI.T.SpeedMeterPanel_getString_limited(SizeFormatter.formatBytes(org.jdownloader.settings.staticreferences.CFG_GENERAL.DOWNLOAD_SPEED_LIMIT.getValue()));
             return limit + "\r\n" + ret;
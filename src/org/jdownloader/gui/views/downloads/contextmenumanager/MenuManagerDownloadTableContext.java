@@ -39,6 +39,7 @@ import org.jdownloader.gui.views.downloads.action.OpenDirectoryAction;
 import org.jdownloader.gui.views.downloads.action.OpenFileAction;
 import org.jdownloader.gui.views.downloads.action.OpenInBrowserAction;
 import org.jdownloader.gui.views.downloads.action.PackageNameAction;
+import org.jdownloader.gui.views.downloads.action.PackageSpeedLimitAction;
 import org.jdownloader.gui.views.downloads.action.PropertiesAction;
 import org.jdownloader.gui.views.downloads.action.ResetAction;
 import org.jdownloader.gui.views.downloads.action.ResumeAction;
@@ -172,6 +173,7 @@ public class MenuManagerDownloadTableContext extends ContextMenuManager<FilePack
         settings.add(new MenuItemData(new ActionData(PackageNameAction.class)));
         settings.add(new MenuItemData(new ActionData(SetDownloadFolderInDownloadTableAction.class)));
         settings.add(new MenuItemData(new ActionData(SetDownloadPassword.class)));
+        settings.add(new MenuItemData(new ActionData(PackageSpeedLimitAction.class)));
         settings.add(createPriorityMenu());
         settings.add(createChunksMenu());
         return settings;
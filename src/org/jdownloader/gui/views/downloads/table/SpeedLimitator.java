@@ -22,6 +22,7 @@ import org.jdownloader.images.AbstractIcon;
 import jd.controlling.linkcrawler.CrawledLink;
 import jd.controlling.packagecontroller.AbstractNode;
 import jd.plugins.DownloadLink;
+import jd.plugins.FilePackage;
 
 public class SpeedLimitator extends AbstractDialog<Object> {
 
@@ -47,6 +48,10 @@ public class SpeedLimitator extends AbstractDialog<Object> {
         super.setReturnmask(b);
         if (b) {
             for (AbstractNode n : inteliSelect) {
+                if (n instanceof FilePackage) {
+                    ((FilePackage) n).setCustomSpeedLimit((int) (enabledBox.isSelected() ? spinner.getLongValue() : 0));
+                    continue;
+                }
                 DownloadLink link = null;
                 if (n instanceof CrawledLink) {
                     link = ((CrawledLink) n).getDownloadLink();
@@ -112,6 +117,9 @@ public class SpeedLimitator extends AbstractDialog<Object> {
         } else if (contextObject instanceof DownloadLink) {
             spinner.setValue(((DownloadLink) contextObject).getCustomSpeedLimit());
             enabledBox.setSelected(((DownloadLink) contextObject).getCustomSpeedLimit() > 0);
+        } else if (contextObject instanceof FilePackage) {
+            spinner.setValue(((FilePackage) contextObject).getCustomSpeedLimit());
+            enabledBox.setSelected(((FilePackage) contextObject).getCustomSpeedLimit() > 0);
         } else {
             spinner.setValue(0);
             enabledBox.setSelected(false);
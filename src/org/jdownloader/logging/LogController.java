@@ -4,7 +4,6 @@ import java.util.WeakHashMap;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
-import org.appwork.utils.event.queue.QueueThread;
 import org.appwork.utils.logging2.LogConsoleHandler;
 import org.appwork.utils.logging2.LogInterface;
 import org.appwork.utils.logging2.LogSource;
@@ -105,9 +104,9 @@ public class LogController extends LogSourceProvider {
             } else if (currentThread instanceof SingleDownloadController) {
                 /* we are inside a SingleDownloadController, lets reuse the logger from hosterPlugin */
                 logger = ((SingleDownloadController) currentThread).getLogger();
-            } else if (currentThread instanceof QueueThread && ((QueueThread) currentThread).getQueue() instanceof ExtractionQueue) {
+            } else if (currentThread instanceof ExtractionQueue.ExtractionThread) {
                 /* we are inside an ExtractionController */
-                ExtractionController currentExtraction = ((ExtractionQueue) ((QueueThread) currentThread).getQueue()).getCurrentQueueEntry();
+                ExtractionController currentExtraction = ((ExtractionQueue.ExtractionThread) currentThread).getController();
                 if (currentExtraction != null) {
                     logger = currentExtraction.getLogger();
                 }
@@ -14,6 +14,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -822,7 +823,14 @@ public class YoutubeHelper {
         private String src;
     }
 
-    private HashMap<String, HashMap<String, String>> jsCache             = new HashMap<String, HashMap<String, String>>();
+    /* player url -> extracted descrambler javascript, most recent players in access order, guarded by itself */
+    private static final int                                            MAX_JS_CACHE = 16;
+    private static final LinkedHashMap<String, HashMap<String, String>> JS_CACHE     = new LinkedHashMap<String, HashMap<String, String>>(16, 0.75f, true) {
+                                                                                         @Override
+                                                                                         protected boolean removeEldestEntry(Map.Entry<String, HashMap<String, String>> eldest) {
+                                                                                             return size() > MAX_JS_CACHE;
+                                                                                         }
+                                                                                     };
     private HashSet<String>                          subtitleUrls;
     private HashSet<StreamMap>                       fmtMaps;
     private LinkedHashSet<StreamMap>                 mpdUrls;
@@ -839,6 +847,10 @@ public class YoutubeHelper {
         if (sig == null) {
             return null;
         }
+        final YoutubeSignatureDescrambler descrambler = YoutubeSignatureDescrambler.get(html5PlayerJs);
+        if (descrambler != null) {
+            return descrambler.descramble(sig);
+        }
         String ret = descrambleSignatureNew(sig);
         if (StringUtils.isNotEmpty(ret)) {
             return ret;
@@ -853,8 +865,9 @@ public class YoutubeHelper {
         String all = null;
         String descrambler = null;
         String des = null;
+        String requiredObject = null;
         Object result = null;
-        HashMap<String, String> cache = jsCache.get(vid.videoID);
+        HashMap<String, String> cache = getJsCache();
         if (cache != null && !cache.isEmpty()) {
             all = cache.get("all");
             descrambler = cache.get("descrambler");
@@ -868,7 +881,7 @@ public class YoutubeHelper {
             des = new Regex(html5PlayerSource, Pattern.compile(func, Pattern.DOTALL)).getMatch(1);
             all = new Regex(html5PlayerSource, Pattern.compile(Pattern.quote(descrambler) + "=function\\(([^)]+)\\)\\{(.+?return.*?)\\}.*?", Pattern.DOTALL)).getMatch(-1);
             String requiredObjectName = new Regex(des, "([\\w\\d\\$]+)\\.([\\w\\d]{2})\\(").getMatch(0);
-            String requiredObject = new Regex(html5PlayerSource, Pattern.compile("var " + Pattern.quote(requiredObjectName) + "=\\{.*?\\}\\};", Pattern.DOTALL)).getMatch(-1);
+            requiredObject = new Regex(html5PlayerSource, Pattern.compile("var " + Pattern.quote(requiredObjectName) + "=\\{.*?\\}\\};", Pattern.DOTALL)).getMatch(-1);
             all += ";";
             all += requiredObject;
         }
@@ -883,7 +896,8 @@ public class YoutubeHelper {
                         cache.put("descrambler", descrambler);
                         // not used by js but the failover.
                         cache.put("des", des);
-                        jsCache.put(vid.videoID, cache);
+                        putJsCache(cache);
+                        cacheDescrambler(des, requiredObject, sig, result.toString());
                     }
                     return result.toString();
                 }
@@ -926,6 +940,58 @@ public class YoutubeHelper {
         }
     }
 
+    /**
+     * @return the key of the current player url independent of the protocol, null if the player is unknown
+     */
+    private String getJsCacheKey() {
+        return html5PlayerJs != null ? html5PlayerJs.replaceFirst("^(?i)https?:", "") : null;
+    }
+
+    private HashMap<String, String> getJsCache() {
+        final String key = getJsCacheKey();
+        if (key == null) {
+            return null;
+        }
+        synchronized (JS_CACHE) {
+            return JS_CACHE.get(key);
+        }
+    }
+
+    private void putJsCache(final HashMap<String, String> cache) {
+        final String key = getJsCacheKey();
+        if (key != null) {
+            synchronized (JS_CACHE) {
+                JS_CACHE.put(key, cache);
+            }
+        }
+    }
+
+    /**
+     * compiles the descrambler function of the current player into a {@link YoutubeSignatureDescrambler} and caches it for the player if
+     * it returns the same result as the javascript evaluation
+     */
+    private void cacheDescrambler(final String des, String helperObject, final String sig, final String result) {
+        if (html5PlayerJs == null || des == null) {
+            return;
+        }
+        try {
+            if (helperObject == null) {
+                final String helperObjectName = new Regex(des, "([\\w\\d\\$]+)\\.([\\w\\d]{2})\\(").getMatch(0);
+                if (helperObjectName != null) {
+                    helperObject = new Regex(ensurePlayerSource(), Pattern.compile("var " + Pattern.quote(helperObjectName) + "=\\{.*?\\}\\};", Pattern.DOTALL)).getMatch(-1);
+                }
+            }
+            final YoutubeSignatureDescrambler descrambler = YoutubeSignatureDescrambler.compile(des, helperObject);
+            if (descrambler != null && StringUtils.equals(descrambler.descramble(sig), result)) {
+                YoutubeSignatureDescrambler.put(html5PlayerJs, descrambler);
+            } else {
+                logger.info("Could not compile descrambler: " + des);
+            }
+        } catch (final Throwable e) {
+            logger.log(e);
+        }
+    }
+
     private String ensurePlayerSource() throws IOException {
         if (html5PlayerSource == null) {
             html5PlayerSource = br.cloneBrowser().getPage(html5PlayerJs);
@@ -953,7 +1019,7 @@ public class YoutubeHelper {
         String descrambler = null;
         String des = null;
         Object result = null;
-        HashMap<String, String> cache = jsCache.get(vid.videoID);
+        HashMap<String, String> cache = getJsCache();
         if (cache != null && !cache.isEmpty()) {
             all = cache.get("all");
             descrambler = cache.get("descrambler");
@@ -997,7 +1063,8 @@ public class YoutubeHelper {
                         cache.put("descrambler", descrambler);
                         // not used by js but the failover.
                         cache.put("des", des);
-                        jsCache.put(vid.videoID, cache);
+                        putJsCache(cache);
+                        cacheDescrambler(des, null, sig, result.toString());
                     }
                     return result.toString();
                 }
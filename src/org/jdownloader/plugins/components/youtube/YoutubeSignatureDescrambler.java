@@ -0,0 +1,290 @@
+package org.jdownloader.plugins.components.youtube;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+
+import org.appwork.storage.JSonStorage;
+import org.appwork.storage.TypeRef;
+import org.appwork.utils.Application;
+import org.appwork.utils.IO;
+import org.appwork.utils.Regex;
+import org.appwork.utils.StringUtils;
+import org.jdownloader.logging.LogController;
+
+/**
+ * signature descrambler of a html5 player version, compiled from the player javascript into a list of reverse/splice/swap operations. the
+ * descramblers are cached process wide by player url and persisted to cfg/youtube/signatureDescramblers.json, so the player source has to
+ * be parsed and evaluated only once per player version.
+ */
+public class YoutubeSignatureDescrambler {
+
+    private static final char                                               REVERSE   = 'r';
+    private static final char                                               SPLICE    = 's';
+    private static final char                                               SWAP      = 'w';
+
+    private static final int                                                MAX_CACHE = 16;
+    private static final TypeRef<HashMap<String, String>>                   TYPE      = new TypeRef<HashMap<String, String>>() {
+                                                                                      };
+    /* player key -> descrambler in access order, guarded by itself */
+    private static final LinkedHashMap<String, YoutubeSignatureDescrambler> CACHE     = new LinkedHashMap<String, YoutubeSignatureDescrambler>(16, 0.75f, true);
+    private static boolean                                                  loaded    = false;
+
+    private final char[]                                                    operations;
+    private final int[]                                                     arguments;
+
+    private YoutubeSignatureDescrambler(char[] operations, int[] arguments) {
+        this.operations = operations;
+        this.arguments = arguments;
+    }
+
+    public String descramble(final String sig) {
+        if (sig == null) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder(sig);
+        for (int index = 0; index < operations.length; index++) {
+            final int argument = arguments[index];
+            switch (operations[index]) {
+            case REVERSE:
+                sb.reverse();
+                break;
+            case SPLICE:
+                sb.delete(0, Math.min(argument, sb.length()));
+                break;
+            case SWAP:
+                if (sb.length() > 0) {
+                    final int swap = argument % sb.length();
+                    final char c = sb.charAt(0);
+                    sb.setCharAt(0, sb.charAt(swap));
+                    sb.setCharAt(swap, c);
+                }
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the program as stored on disk, eg r;s:3;w:45
+     */
+    public String getProgram() {
+        final StringBuilder sb = new StringBuilder();
+        for (int index = 0; index < operations.length; index++) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(operations[index]);
+            if (operations[index] != REVERSE) {
+                sb.append(':').append(arguments[index]);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getProgram();
+    }
+
+    private static YoutubeSignatureDescrambler parseProgram(final String program) {
+        if (program == null) {
+            return null;
+        }
+        final String[] steps = program.length() == 0 ? new String[0] : program.split(";");
+        final char[] operations = new char[steps.length];
+        final int[] arguments = new int[steps.length];
+        for (int index = 0; index < steps.length; index++) {
+            final String step = steps[index];
+            if (step.length() == 0) {
+                return null;
+            }
+            operations[index] = step.charAt(0);
+            switch (operations[index]) {
+            case REVERSE:
+                break;
+            case SPLICE:
+            case SWAP:
+                if (step.length() < 3 || step.charAt(1) != ':') {
+                    return null;
+                }
+                try {
+                    arguments[index] = Integer.parseInt(step.substring(2));
+                } catch (final NumberFormatException e) {
+                    return null;
+                }
+                break;
+            default:
+                return null;
+            }
+        }
+        return new YoutubeSignatureDescrambler(operations, arguments);
+    }
+
+    /**
+     * compiles the body of the descrambler function, eg a=a.split("");Xy.ab(a,3);Xy.cd(a,45);return a.join("")
+     *
+     * @param helperObject
+     *            source of the helper object the body calls, eg var Xy={ab:function(a,b){a.splice(0,b)},...}; may be null
+     * @return the compiled descrambler, null if the body contains unknown statements
+     */
+    public static YoutubeSignatureDescrambler compile(final String body, final String helperObject) {
+        if (StringUtils.isEmpty(body)) {
+            return null;
+        }
+        final Map<String, Character> helperOperations = new HashMap<String, Character>();
+        if (helperObject != null) {
+            final String[][] methods = new Regex(helperObject, "([\\$\\w]+)\\s*:\\s*function\\s*\\([^)]*\\)\\s*\\{([^}]*)\\}").getMatches();
+            for (final String[] method : methods) {
+                final Character operation = getOperation(method[1]);
+                if (operation != null) {
+                    helperOperations.put(method[0], operation);
+                }
+            }
+        }
+        final List<Character> operations = new ArrayList<Character>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+        for (String statement : body.split(";")) {
+            statement = statement.trim();
+            if (statement.length() == 0) {
+                continue;
+            }
+            if (new Regex(statement, "^(?:[\\$\\w]+\\s*=\\s*)?[\\$\\w]+\\.split\\(\"\"\\)$").matches()) {
+                continue;
+            }
+            if (new Regex(statement, "^return\\s+[\\$\\w]+\\.join\\(\"\"\\)$").matches()) {
+                continue;
+            }
+            if (new Regex(statement, "^(?:[\\$\\w]+\\s*=\\s*)?[\\$\\w]+\\.reverse\\(\\)$").matches()) {
+                operations.add(REVERSE);
+                arguments.add(0);
+                continue;
+            }
+            String argument = new Regex(statement, "^(?:[\\$\\w]+\\s*=\\s*)?[\\$\\w]+\\.slice\\((\\d+)\\)$").getMatch(0);
+            if (argument != null) {
+                operations.add(SPLICE);
+                arguments.add(Integer.valueOf(argument));
+                continue;
+            }
+            /* helper call, Xy.ab(a,3) or Xy["ab"](a,3) */
+            final String[] call = new Regex(statement, "^(?:[\\$\\w]+\\s*=\\s*)?[\\$\\w]+(?:\\.([\\$\\w]+)|\\[\"([\\$\\w]+)\"\\])\\([\\$\\w]+\\s*,\\s*(\\d+)\\)$").getRow(0);
+            if (call != null) {
+                final Character operation = helperOperations.get(call[0] != null ? call[0] : call[1]);
+                if (operation == null) {
+                    return null;
+                }
+                operations.add(operation);
+                arguments.add(Integer.valueOf(call[2]));
+                continue;
+            }
+            /* legacy swap function, a=xy(a,3), see YoutubeHelper.pk */
+            argument = new Regex(statement, "^[\\$\\w]+\\s*=\\s*[\\$\\w]+\\([\\$\\w]+\\s*,\\s*(\\d+)\\)$").getMatch(0);
+            if (argument != null) {
+                operations.add(SWAP);
+                arguments.add(Integer.valueOf(argument));
+                continue;
+            }
+            return null;
+        }
+        final char[] ops = new char[operations.size()];
+        final int[] args = new int[arguments.size()];
+        for (int index = 0; index < ops.length; index++) {
+            ops[index] = operations.get(index).charValue();
+            args[index] = arguments.get(index).intValue();
+        }
+        return new YoutubeSignatureDescrambler(ops, args);
+    }
+
+    private static Character getOperation(final String methodBody) {
+        if (methodBody.contains(".reverse(")) {
+            return Character.valueOf(REVERSE);
+        } else if (methodBody.contains(".splice(")) {
+            return Character.valueOf(SPLICE);
+        } else if (Pattern.compile("\\[0\\]\\s*=\\s*[\\$\\w]+\\[[\\$\\w]+\\s*%\\s*[\\$\\w]+\\.length\\]").matcher(methodBody).find()) {
+            return Character.valueOf(SWAP);
+        }
+        return null;
+    }
+
+    /**
+     * @return the key of the given player url, independent of the protocol
+     */
+    private static String getKey(final String playerURL) {
+        return playerURL.replaceFirst("^(?i)https?:", "");
+    }
+
+    private static File getFile() {
+        return Application.getResource("cfg/youtube/signatureDescramblers.json");
+    }
+
+    /**
+     * @return the cached descrambler of the given player url, null if not cached
+     */
+    public static YoutubeSignatureDescrambler get(final String playerURL) {
+        if (playerURL == null) {
+            return null;
+        }
+        synchronized (CACHE) {
+            load();
+            return CACHE.get(getKey(playerURL));
+        }
+    }
+
+    public static void put(final String playerURL, final YoutubeSignatureDescrambler descrambler) {
+        if (playerURL == null || descrambler == null) {
+            return;
+        }
+        synchronized (CACHE) {
+            load();
+            CACHE.put(getKey(playerURL), descrambler);
+            while (CACHE.size() > MAX_CACHE) {
+                /* access order, first one is the least recently used player */
+                CACHE.remove(CACHE.keySet().iterator().next());
+            }
+            save();
+        }
+    }
+
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        final File file = getFile();
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            final HashMap<String, String> programs = JSonStorage.restoreFromString(IO.readFileToString(file), TYPE);
+            if (programs != null) {
+                for (final Entry<String, String> program : programs.entrySet()) {
+                    final YoutubeSignatureDescrambler descrambler = parseProgram(program.getValue());
+                    if (descrambler != null) {
+                        CACHE.put(program.getKey(), descrambler);
+                    }
+                }
+            }
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        }
+    }
+
+    private static void save() {
+        final HashMap<String, String> programs = new HashMap<String, String>();
+        for (final Entry<String, YoutubeSignatureDescrambler> entry : CACHE.entrySet()) {
+            programs.put(entry.getKey(), entry.getValue().getProgram());
+        }
+        try {
+            final File file = getFile();
+            file.getParentFile().mkdirs();
+            JSonStorage.saveTo(file, programs);
+        } catch (final Throwable e) {
+            LogController.CL().log(e);
+        }
+    }
+}
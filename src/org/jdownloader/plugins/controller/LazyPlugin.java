@@ -4,6 +4,8 @@ import java.io.UnsupportedEncodingException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +32,14 @@ public abstract class LazyPlugin<T extends Plugin> implements MinTimeWeakReferen
 
     private volatile MinTimeWeakReference<Matcher>         matcher         = null;
 
+    /* Matcher for canHandle, borrowed/returned without locking */
+    private final AtomicReference<MinTimeWeakReference<Matcher>> pooledMatcher = new AtomicReference<MinTimeWeakReference<Matcher>>(null);
+    private final AtomicLong                               matchCalls      = new AtomicLong(0);
+    private final AtomicLong                               matchHits       = new AtomicLong(0);
+    private final AtomicLong                               matchDuration   = new AtomicLong(0);
+
+    private volatile String[]                              dispatchTokens  = null;
+
     public PluginWrapper getPluginWrapper() {
         return new PluginWrapper(this) {
             /* workaround for old plugin system */
@@ -104,20 +114,73 @@ public abstract class LazyPlugin<T extends Plugin> implements MinTimeWeakReferen
         }
     }
 
+    /* match statistics cost two atomic updates and two nanoTime calls per canHandle, so they are collected on demand only */
+    private static volatile boolean MATCH_STATISTICS_ENABLED = false;
+
+    public static boolean isMatchStatisticsEnabled() {
+        return MATCH_STATISTICS_ENABLED;
+    }
+
+    public static void setMatchStatisticsEnabled(final boolean enabled) {
+        MATCH_STATISTICS_ENABLED = enabled;
+    }
+
     public boolean canHandle(String url) {
         if (patternBytes.length > 0) {
-            final Matcher matcher = getMatcher();
-            synchronized (matcher) {
-                try {
-                    return matcher.reset(url).find();
-                } finally {
-                    matcher.reset("");
+            final boolean statistics = MATCH_STATISTICS_ENABLED;
+            final long start = statistics ? System.nanoTime() : 0;
+            /* borrow pooled Matcher, concurrent callers create their own one instead of waiting */
+            MinTimeWeakReference<Matcher> reference = pooledMatcher.getAndSet(null);
+            Matcher matcher = reference != null ? reference.get() : null;
+            if (matcher == null) {
+                reference = null;
+                matcher = getPattern().matcher("");
+            }
+            boolean ret = false;
+            try {
+                ret = matcher.reset(url).find();
+                return ret;
+            } finally {
+                matcher.reset("");
+                if (pooledMatcher.get() == null) {
+                    if (reference == null) {
+                        reference = new MinTimeWeakReference<Matcher>(matcher, 60 * 1000l, displayName, this);
+                    }
+                    pooledMatcher.compareAndSet(null, reference);
+                }
+                if (statistics) {
+                    matchCalls.incrementAndGet();
+                    if (ret) {
+                        matchHits.incrementAndGet();
+                    }
+                    matchDuration.addAndGet(System.nanoTime() - start);
                 }
             }
         }
         return false;
     }
 
+    /**
+     * @return number of {@link #canHandle(String)} calls while {@link #isMatchStatisticsEnabled()}
+     */
+    public long getMatchCalls() {
+        return matchCalls.get();
+    }
+
+    /**
+     * @return number of {@link #canHandle(String)} calls that returned true
+     */
+    public long getMatchHits() {
+        return matchHits.get();
+    }
+
+    /**
+     * @return time in nanoseconds spent in {@link #canHandle(String)}
+     */
+    public long getMatchDuration() {
+        return matchDuration.get();
+    }
+
     public synchronized T getPrototype(PluginClassLoaderChild classLoader) throws UpdateRequiredClassNotFoundException {
         if (classLoader != null && classLoader != getClassLoader(false)) {
             /* create new Instance because we have different classLoader given than ProtoTypeClassLoader */
@@ -227,6 +290,21 @@ public abstract class LazyPlugin<T extends Plugin> implements MinTimeWeakReferen
         }
     }
 
+    /**
+     * @return tokens that occur in every url this plugin can handle, see {@link LazyPluginDispatchIndex#extractTokens(String)}
+     */
+    public final String[] getDispatchTokens() {
+        String[] ret = dispatchTokens;
+        if (ret == null) {
+            ret = LazyPluginDispatchIndex.extractTokens(getPatternSource());
+            dispatchTokens = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * @return shared Matcher, callers have to synchronize on it. {@link #canHandle(String)} uses its own lock-free pool
+     */
     public final Matcher getMatcher() {
         Matcher ret = null;
         final MinTimeWeakReference<Matcher> lMatcher = matcher;
@@ -249,12 +327,15 @@ public abstract class LazyPlugin<T extends Plugin> implements MinTimeWeakReferen
 
     @Override
     public synchronized void onMinTimeWeakReferenceCleanup(MinTimeWeakReference<?> minTimeWeakReference) {
+        final MinTimeWeakReference<Matcher> lPooledMatcher = pooledMatcher.get();
         if (minTimeWeakReference == compiledPattern) {
             compiledPattern = null;
         } else if (minTimeWeakReference == classLoader) {
             classLoader = null;
         } else if (minTimeWeakReference == matcher) {
             matcher = null;
+        } else if (minTimeWeakReference == lPooledMatcher) {
+            pooledMatcher.compareAndSet(lPooledMatcher, null);
         }
     }
 
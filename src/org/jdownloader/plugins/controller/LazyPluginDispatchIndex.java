@@ -0,0 +1,724 @@
+package org.jdownloader.plugins.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Immutable dispatch index over a sorted list of {@link LazyPlugin}s.
+ *
+ * Every plugin pattern is analyzed once (see {@link #extractTokens(String)}) for tokens (eg host labels like "rapidgator") that MUST
+ * occur in every url the pattern can match. {@link #getCandidates(String)} only returns plugins with at least one of their tokens present
+ * in the url plus all plugins whose pattern could not be indexed, so only a handful of regexes have to be run per url. The candidates are
+ * returned as positions within {@link #getPlugins()} in ascending order, so the priority of the sorted list is kept.
+ *
+ * Building the index is expensive, so it should be built once per plugin set. {@link #sortedBy(List)} returns a view for another order
+ * of the same plugins that shares the token map and only remaps positions.
+ *
+ * @param <T>
+ */
+public class LazyPluginDispatchIndex<T extends LazyPlugin<?>> {
+
+    private static final String[]    NO_TOKENS   = new String[0];
+    private static final int         MAX_RUNS    = 512;
+    private static final Set<String> STOP_TOKENS = new HashSet<String>(Arrays.asList(new String[] { "www", "http", "https", "ftp", "com", "net", "org", "html", "htm", "php", "file", "files", "download", "embed", "video", "watch", "folder", "index", "api" }));
+
+    private final List<T>                    plugins;
+    private final Map<String, int[]>         index;
+    private final int[]                      unindexed;
+    private final Object                     source;
+    private final boolean                    enabled;
+    /* null for a base index, see sortedBy */
+    private final LazyPluginDispatchIndex<T> base;
+    /* position within base.plugins -> position within plugins, -1 if not contained */
+    private final int[]                      order;
+
+    public LazyPluginDispatchIndex(final List<T> plugins, final boolean enabled) {
+        this(plugins, enabled, null);
+    }
+
+    /**
+     * @param source
+     *            the plugin set the index has been built from, see {@link #isIndexOf(Object, boolean)}
+     */
+    public LazyPluginDispatchIndex(final List<T> plugins, final boolean enabled, final Object source) {
+        this.plugins = plugins;
+        this.source = source;
+        this.enabled = enabled;
+        this.base = null;
+        this.order = null;
+        final HashMap<String, List<Integer>> tokenMap = new HashMap<String, List<Integer>>();
+        final int[] unindexed = new int[plugins.size()];
+        int unindexedSize = 0;
+        for (int position = 0; position < plugins.size(); position++) {
+            final String[] tokens = enabled ? plugins.get(position).getDispatchTokens() : NO_TOKENS;
+            if (tokens.length == 0) {
+                unindexed[unindexedSize++] = position;
+            } else {
+                for (final String token : tokens) {
+                    List<Integer> positions = tokenMap.get(token);
+                    if (positions == null) {
+                        positions = new ArrayList<Integer>(1);
+                        tokenMap.put(token, positions);
+                    }
+                    positions.add(position);
+                }
+            }
+        }
+        this.unindexed = Arrays.copyOf(unindexed, unindexedSize);
+        this.index = new HashMap<String, int[]>(tokenMap.size() * 2);
+        for (final Entry<String, List<Integer>> entry : tokenMap.entrySet()) {
+            final List<Integer> positions = entry.getValue();
+            final int[] array = new int[positions.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = positions.get(i);
+            }
+            index.put(entry.getKey(), array);
+        }
+    }
+
+    private LazyPluginDispatchIndex(final LazyPluginDispatchIndex<T> base, final List<T> plugins) {
+        this.plugins = plugins;
+        this.source = base.source;
+        this.enabled = base.enabled;
+        this.base = base;
+        this.index = base.index;
+        final IdentityHashMap<T, Integer> positions = new IdentityHashMap<T, Integer>(plugins.size());
+        for (int position = 0; position < plugins.size(); position++) {
+            positions.put(plugins.get(position), position);
+        }
+        final boolean[] mapped = new boolean[plugins.size()];
+        this.order = new int[base.plugins.size()];
+        for (int position = 0; position < order.length; position++) {
+            final Integer sortedPosition = positions.get(base.plugins.get(position));
+            if (sortedPosition == null) {
+                order[position] = -1;
+            } else {
+                order[position] = sortedPosition;
+                mapped[sortedPosition] = true;
+            }
+        }
+        /* unindexed plugins of the base and plugins unknown to the base */
+        final int[] unindexed = new int[plugins.size()];
+        int unindexedSize = 0;
+        for (final int position : base.unindexed) {
+            if (order[position] != -1) {
+                unindexed[unindexedSize++] = order[position];
+            }
+        }
+        for (int position = 0; position < mapped.length; position++) {
+            if (!mapped[position]) {
+                unindexed[unindexedSize++] = position;
+            }
+        }
+        Arrays.sort(unindexed, 0, unindexedSize);
+        this.unindexed = Arrays.copyOf(unindexed, unindexedSize);
+    }
+
+    /**
+     * @return index over the given order of the plugins without analyzing them again, plugins unknown to this index are treated as
+     *         unindexed
+     */
+    public LazyPluginDispatchIndex<T> sortedBy(final List<T> plugins) {
+        final LazyPluginDispatchIndex<T> base = this.base != null ? this.base : this;
+        if (base.plugins == plugins) {
+            return base;
+        }
+        return new LazyPluginDispatchIndex<T>(base, plugins);
+    }
+
+    /**
+     * @return true if the index has been built from the given plugin set with the given setting
+     */
+    public boolean isIndexOf(final Object source, final boolean enabled) {
+        return this.source != null && this.source == source && this.enabled == enabled;
+    }
+
+    public List<T> getPlugins() {
+        return plugins;
+    }
+
+    public int getIndexedSize() {
+        return plugins.size() - unindexed.length;
+    }
+
+    /**
+     * @param url
+     * @return ascending positions within {@link #getPlugins()} of all plugins that might be able to handle the given url
+     */
+    public int[] getCandidates(final String url) {
+        if (index.size() == 0 || url == null) {
+            return unindexed;
+        }
+        int[] hits = null;
+        int hitsSize = 0;
+        final int length = url.length();
+        int tokenStart = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && isTokenChar(toLowerCase(url.charAt(i)))) {
+                if (tokenStart == -1) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart != -1) {
+                final int[] positions = index.get(toLowerCase(url, tokenStart, i));
+                tokenStart = -1;
+                if (positions != null) {
+                    if (hits == null) {
+                        hits = new int[Math.max(8, positions.length)];
+                    } else if (hitsSize + positions.length > hits.length) {
+                        hits = Arrays.copyOf(hits, Math.max(hits.length * 2, hitsSize + positions.length));
+                    }
+                    if (order == null) {
+                        System.arraycopy(positions, 0, hits, hitsSize, positions.length);
+                        hitsSize += positions.length;
+                    } else {
+                        for (final int position : positions) {
+                            final int sortedPosition = order[position];
+                            if (sortedPosition != -1) {
+                                hits[hitsSize++] = sortedPosition;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (hitsSize == 0) {
+            return unindexed;
+        }
+        Arrays.sort(hits, 0, hitsSize);
+        /* merge sorted hits(with possible duplicates) and sorted unindexed */
+        final int[] ret = new int[hitsSize + unindexed.length];
+        int retSize = 0;
+        int hitIndex = 0;
+        int unindexedIndex = 0;
+        while (hitIndex < hitsSize || unindexedIndex < unindexed.length) {
+            final int next;
+            if (unindexedIndex == unindexed.length || (hitIndex < hitsSize && hits[hitIndex] < unindexed[unindexedIndex])) {
+                next = hits[hitIndex++];
+            } else {
+                next = unindexed[unindexedIndex++];
+            }
+            if (retSize == 0 || ret[retSize - 1] != next) {
+                ret[retSize++] = next;
+            }
+        }
+        return Arrays.copyOf(ret, retSize);
+    }
+
+    private static String toLowerCase(final String string, final int start, final int end) {
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = toLowerCase(string.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /* Pattern.CASE_INSENSITIVE without UNICODE_CASE only folds US-ASCII */
+    private static char toLowerCase(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + 32);
+        }
+        return c;
+    }
+
+    private static boolean isTokenChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+    /**
+     * Analyzes the given plugin pattern for tokens that are part of every possible match. A token is a sequence of [a-z0-9_-] that is
+     * bounded by literal non-token chars (or the start of the url) within the pattern and therefore also shows up as a complete token of
+     * the url. For each alternative of the pattern the most selective token is chosen.
+     *
+     * @param pattern
+     * @return the tokens to index the pattern with, or an empty array if the pattern is not indexable
+     */
+    public static String[] extractTokens(final String pattern) {
+        if (pattern == null || pattern.length() == 0) {
+            return NO_TOKENS;
+        }
+        try {
+            final Parser parser = new Parser(pattern);
+            final List<List<Atom>> alternatives = parser.parseAlternatives();
+            if (parser.position != pattern.length()) {
+                return NO_TOKENS;
+            }
+            final LinkedHashSet<String> ret = new LinkedHashSet<String>();
+            for (final List<Atom> alternative : alternatives) {
+                final Evaluator evaluator = new Evaluator();
+                evaluator.evaluate(alternative);
+                evaluator.flush(false);
+                if (evaluator.bestTokens == null) {
+                    return NO_TOKENS;
+                }
+                ret.addAll(Arrays.asList(evaluator.bestTokens));
+            }
+            return ret.toArray(new String[ret.size()]);
+        } catch (final IllegalArgumentException e) {
+            return NO_TOKENS;
+        }
+    }
+
+    private static enum AtomType {
+        LITERAL,
+        GROUP,
+        /* zero-width atoms like lookarounds, word boundaries or end anchors */
+        ZEROWIDTH,
+        /* start anchors */
+        START,
+        /* anything that consumes unknown chars */
+        UNKNOWN
+    }
+
+    private static class Atom {
+        private final AtomType         type;
+        private final char             literal;
+        private final List<List<Atom>> alternatives;
+        private int                    min = 1;
+        private boolean                once = true;
+
+        private Atom(AtomType type, char literal, List<List<Atom>> alternatives) {
+            this.type = type;
+            this.literal = toLowerCase(literal);
+            this.alternatives = alternatives;
+        }
+
+        private boolean isLiteralOnce() {
+            return type == AtomType.LITERAL && once;
+        }
+
+        /**
+         * @return true when the last char consumed by this atom (in case it matches at all) is always a non-token char
+         */
+        private boolean matchEndsWithDelimiter() {
+            switch (type) {
+            case LITERAL:
+                return !isTokenChar(literal);
+            case GROUP:
+                for (final List<Atom> alternative : alternatives) {
+                    if (!endsWithDelimiter(alternative, alternative.size())) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        private static boolean endsWithDelimiter(final List<Atom> alternative, final int end) {
+            for (int index = end - 1; index >= 0; index--) {
+                final Atom atom = alternative.get(index);
+                if (atom.type == AtomType.ZEROWIDTH) {
+                    continue;
+                } else if (!atom.matchEndsWithDelimiter()) {
+                    return false;
+                } else if (atom.min > 0) {
+                    return true;
+                } else {
+                    /* optional atom, the atoms before have to end with a delimiter as well */
+                    return endsWithDelimiter(alternative, index);
+                }
+            }
+            /* unknown what precedes the alternative */
+            return false;
+        }
+    }
+
+    /**
+     * minimal parser for java.util.regex syntax, throws IllegalArgumentException on anything it does not understand
+     */
+    private static class Parser {
+        private final String pattern;
+        private int          position = 0;
+
+        private Parser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        private List<List<Atom>> parseAlternatives() {
+            final List<List<Atom>> ret = new ArrayList<List<Atom>>();
+            List<Atom> current = new ArrayList<Atom>();
+            ret.add(current);
+            while (position < pattern.length()) {
+                final char c = pattern.charAt(position);
+                if (c == ')') {
+                    break;
+                } else if (c == '|') {
+                    position++;
+                    current = new ArrayList<Atom>();
+                    ret.add(current);
+                } else {
+                    final Atom atom = parseAtom();
+                    if (atom != null) {
+                        parseQuantifier(atom);
+                        current.add(atom);
+                    }
+                }
+            }
+            return ret;
+        }
+
+        private Atom parseAtom() {
+            final char c = pattern.charAt(position++);
+            switch (c) {
+            case '\\':
+                return parseEscape();
+            case '[':
+                skipCharacterClass();
+                return new Atom(AtomType.UNKNOWN, c, null);
+            case '(':
+                return parseGroup();
+            case '.':
+                return new Atom(AtomType.UNKNOWN, c, null);
+            case '^':
+                return new Atom(AtomType.START, c, null);
+            case '$':
+                return new Atom(AtomType.ZEROWIDTH, c, null);
+            case '{':
+            case '*':
+            case '+':
+            case '?':
+                throw new IllegalArgumentException("dangling meta character");
+            default:
+                return new Atom(AtomType.LITERAL, c, null);
+            }
+        }
+
+        private Atom parseEscape() {
+            if (position >= pattern.length()) {
+                throw new IllegalArgumentException("unexpected end");
+            }
+            final char c = pattern.charAt(position++);
+            if (!Character.isLetterOrDigit(c)) {
+                return new Atom(AtomType.LITERAL, c, null);
+            }
+            switch (c) {
+            case 't':
+                return new Atom(AtomType.LITERAL, '\t', null);
+            case 'n':
+                return new Atom(AtomType.LITERAL, '\n', null);
+            case 'r':
+                return new Atom(AtomType.LITERAL, '\r', null);
+            case 'f':
+                return new Atom(AtomType.LITERAL, '\f', null);
+            case 'a':
+                return new Atom(AtomType.LITERAL, '\u0007', null);
+            case 'e':
+                return new Atom(AtomType.LITERAL, '\u001B', null);
+            case 'w':
+            case 'W':
+            case 'd':
+            case 'D':
+            case 's':
+            case 'S':
+            case 'h':
+            case 'H':
+            case 'v':
+            case 'V':
+            case 'R':
+            case 'X':
+                return new Atom(AtomType.UNKNOWN, c, null);
+            case 'b':
+            case 'B':
+            case 'G':
+            case 'z':
+            case 'Z':
+                return new Atom(AtomType.ZEROWIDTH, c, null);
+            case 'A':
+                return new Atom(AtomType.START, c, null);
+            default:
+                if (c >= '1' && c <= '9') {
+                    while (position < pattern.length() && Character.isDigit(pattern.charAt(position))) {
+                        position++;
+                    }
+                    return new Atom(AtomType.UNKNOWN, c, null);
+                }
+                /* quotes, hex/unicode/octal escapes, properties, named back references */
+                throw new IllegalArgumentException("unsupported escape");
+            }
+        }
+
+        private void skipCharacterClass() {
+            int depth = 1;
+            if (position < pattern.length() && pattern.charAt(position) == '^') {
+                position++;
+            }
+            if (position < pattern.length() && pattern.charAt(position) == ']') {
+                position++;
+            }
+            while (position < pattern.length()) {
+                final char c = pattern.charAt(position++);
+                if (c == '\\') {
+                    position++;
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("unclosed character class");
+        }
+
+        private Atom parseGroup() {
+            AtomType type = AtomType.GROUP;
+            if (pattern.startsWith("?", position)) {
+                position++;
+                if (pattern.startsWith(":", position) || pattern.startsWith(">", position)) {
+                    position++;
+                } else if (pattern.startsWith("=", position) || pattern.startsWith("!", position)) {
+                    position++;
+                    type = AtomType.ZEROWIDTH;
+                } else if (pattern.startsWith("<=", position) || pattern.startsWith("<!", position)) {
+                    position += 2;
+                    type = AtomType.ZEROWIDTH;
+                } else if (pattern.startsWith("<", position)) {
+                    final int end = pattern.indexOf('>', position);
+                    if (end == -1) {
+                        throw new IllegalArgumentException("unclosed group name");
+                    }
+                    position = end + 1;
+                } else {
+                    /* inline flags */
+                    while (position < pattern.length()) {
+                        final char c = pattern.charAt(position++);
+                        if (c == 'x') {
+                            throw new IllegalArgumentException("comments mode is not supported");
+                        } else if (c == ')') {
+                            /* flags only, eg (?i) */
+                            return null;
+                        } else if (c == ':') {
+                            break;
+                        } else if ("idmsuU-".indexOf(c) == -1) {
+                            throw new IllegalArgumentException("unknown flag");
+                        }
+                    }
+                }
+            }
+            final List<List<Atom>> alternatives = parseAlternatives();
+            if (position >= pattern.length() || pattern.charAt(position) != ')') {
+                throw new IllegalArgumentException("unclosed group");
+            }
+            position++;
+            return new Atom(type, '(', alternatives);
+        }
+
+        private void parseQuantifier(final Atom atom) {
+            if (position >= pattern.length()) {
+                return;
+            }
+            final char c = pattern.charAt(position);
+            switch (c) {
+            case '?':
+            case '*':
+                atom.min = 0;
+                atom.once = false;
+                position++;
+                break;
+            case '+':
+                atom.once = false;
+                position++;
+                break;
+            case '{':
+                final int end = pattern.indexOf('}', position);
+                if (end == -1) {
+                    throw new IllegalArgumentException("unclosed repetition");
+                }
+                final String repetition = pattern.substring(position + 1, end);
+                final int comma = repetition.indexOf(',');
+                try {
+                    atom.min = Integer.parseInt((comma == -1 ? repetition : repetition.substring(0, comma)).trim());
+                } catch (final NumberFormatException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                atom.once = comma == -1 && atom.min == 1;
+                position = end + 1;
+                break;
+            default:
+                return;
+            }
+            if (position < pattern.length() && (pattern.charAt(position) == '?' || pattern.charAt(position) == '+')) {
+                /* lazy/possessive */
+                position++;
+            }
+        }
+    }
+
+    /**
+     * walks the atoms of one alternative and collects runs of literal chars that have to be matched contiguously
+     */
+    private static class Evaluator {
+        private List<StringBuilder> runs          = newRuns();
+        /* true when the chars before the current runs are guaranteed to be a non-token char or the start of the url */
+        private boolean             runsBoundary  = false;
+        private String[]            bestTokens    = null;
+        private int                 bestScore     = 0;
+
+        private static List<StringBuilder> newRuns() {
+            final List<StringBuilder> ret = new ArrayList<StringBuilder>(1);
+            ret.add(new StringBuilder());
+            return ret;
+        }
+
+        private boolean endsWithDelimiter() {
+            for (final StringBuilder run : runs) {
+                if (run.length() == 0) {
+                    return runsBoundary;
+                } else if (isTokenChar(run.charAt(run.length() - 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void evaluate(final List<Atom> atoms) {
+            for (final Atom atom : atoms) {
+                switch (atom.type) {
+                case ZEROWIDTH:
+                    break;
+                case START:
+                    flush(true);
+                    break;
+                case LITERAL:
+                    if (atom.once) {
+                        for (final StringBuilder run : runs) {
+                            run.append(atom.literal);
+                        }
+                    } else {
+                        breakRuns(atom);
+                    }
+                    break;
+                case GROUP:
+                    if (atom.once && atom.alternatives.size() == 1) {
+                        evaluate(atom.alternatives.get(0));
+                    } else if (atom.once && isLiteralOnly(atom.alternatives) && runs.size() * atom.alternatives.size() <= MAX_RUNS) {
+                        final List<StringBuilder> newRuns = new ArrayList<StringBuilder>(runs.size() * atom.alternatives.size());
+                        for (final StringBuilder run : runs) {
+                            for (final List<Atom> alternative : atom.alternatives) {
+                                final StringBuilder newRun = new StringBuilder(run);
+                                for (final Atom literal : alternative) {
+                                    newRun.append(literal.literal);
+                                }
+                                newRuns.add(newRun);
+                            }
+                        }
+                        runs = newRuns;
+                    } else if (atom.once) {
+                        evaluateAlternatives(atom);
+                    } else {
+                        breakRuns(atom);
+                    }
+                    break;
+                default:
+                    breakRuns(atom);
+                    break;
+                }
+            }
+        }
+
+        /**
+         * every alternative of the required group gets evaluated on its own, the group is satisfied when each alternative has a token
+         */
+        private void evaluateAlternatives(final Atom atom) {
+            final boolean boundary = endsWithDelimiter();
+            flush(atom.matchEndsWithDelimiter());
+            final LinkedHashSet<String> tokens = new LinkedHashSet<String>();
+            int score = Integer.MAX_VALUE;
+            for (final List<Atom> alternative : atom.alternatives) {
+                final Evaluator evaluator = new Evaluator();
+                evaluator.runsBoundary = boundary;
+                evaluator.evaluate(alternative);
+                evaluator.flush(false);
+                if (evaluator.bestTokens == null) {
+                    return;
+                }
+                tokens.addAll(Arrays.asList(evaluator.bestTokens));
+                score = Math.min(score, evaluator.bestScore);
+            }
+            consider(tokens.toArray(new String[tokens.size()]), score);
+        }
+
+        private void consider(final String[] tokens, final int score) {
+            if (score > bestScore) {
+                bestScore = score;
+                bestTokens = tokens;
+            }
+        }
+
+        private static boolean isLiteralOnly(final List<List<Atom>> alternatives) {
+            for (final List<Atom> alternative : alternatives) {
+                if (alternative.size() == 0) {
+                    return false;
+                }
+                for (final Atom atom : alternative) {
+                    if (!atom.isLiteralOnce()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void breakRuns(final Atom atom) {
+            final boolean boundary;
+            if (atom.min == 0) {
+                boundary = endsWithDelimiter() && atom.matchEndsWithDelimiter();
+            } else {
+                boundary = atom.matchEndsWithDelimiter();
+            }
+            flush(boundary);
+        }
+
+        private void flush(final boolean nextBoundary) {
+            final String[] tokens = new String[runs.size()];
+            int score = Integer.MAX_VALUE;
+            for (int index = 0; index < tokens.length && score > 0; index++) {
+                final StringBuilder run = runs.get(index);
+                int runScore = 0;
+                int tokenStart = -1;
+                for (int i = 0; i < run.length(); i++) {
+                    final char c = run.charAt(i);
+                    if (isTokenChar(c)) {
+                        if (tokenStart == -1) {
+                            tokenStart = i;
+                        }
+                    } else {
+                        if (tokenStart != -1 && (tokenStart > 0 || runsBoundary)) {
+                            final String token = run.substring(tokenStart, i);
+                            final int tokenScore = score(token, c);
+                            if (tokenScore > runScore) {
+                                runScore = tokenScore;
+                                tokens[index] = token;
+                            }
+                        }
+                        tokenStart = -1;
+                    }
+                }
+                score = Math.min(score, runScore);
+            }
+            consider(tokens, score);
+            runs = newRuns();
+            runsBoundary = nextBoundary;
+        }
+
+        private static int score(final String token, final char next) {
+            if (token.length() < 2 || STOP_TOKENS.contains(token)) {
+                return 0;
+            } else if (next == '.') {
+                /* most likely part of the domain */
+                return 1000 + token.length();
+            } else {
+                return token.length();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.jdownloader.settings;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import jd.controlling.downloadcontroller.DownloadLinkCandidateSelector;
 import jd.utils.JDUtilities;
@@ -139,6 +140,21 @@ public interface GeneralSettings extends ConfigInterface {
     @SpinnerValidator(min = 1, max = Integer.MAX_VALUE)
     int getDownloadSpeedLimit();
 
+    @AboutConfig
+    @DefaultJsonObject("{}")
+    @DescriptionForConfigEntry("Download Speed limit in bytes per host. Applies regardless of the global speed limit")
+    HashMap<String, Integer> getDownloadSpeedLimitByHostMap();
+
+    void setDownloadSpeedLimitByHostMap(HashMap<String, Integer> map);
+
+    @AboutConfig
+    @DescriptionForConfigEntry("Interval in ms in which the download speed is measured and the bandwidth is redistributed between the connections")
+    @DefaultIntValue(250)
+    @SpinnerValidator(min = 50, max = 2000)
+    int getDownloadSpeedManagerInterval();
+
+    void setDownloadSpeedManagerInterval(int ms);
+
     @AboutConfig
     @DescriptionForConfigEntry("If >0, JD will start additional downloads when total speed is below this value")
     @DefaultIntValue(0)
@@ -623,6 +639,14 @@ public interface GeneralSettings extends ConfigInterface {
 
     void setDupeManagerEnabled(boolean b);
 
+    @AboutConfig
+    @DefaultBooleanValue(false)
+    @DescriptionForConfigEntry("If Enabled, the dupemanager indexes 64bit hashes instead of the linkIDs to save memory. Collisions are verified against the links")
+    @RequiresRestart("A JDownloader Restart is Required")
+    boolean isDupeManagerCompactKeysEnabled();
+
+    void setDupeManagerCompactKeysEnabled(boolean b);
+
     @AboutConfig
     @DefaultIntValue(10)
     @DescriptionForConfigEntry("How many history entries will be kept in the download links")
@@ -654,6 +678,51 @@ public interface GeneralSettings extends ConfigInterface {
 
     void setPreferBouncyCastleForTLS(boolean b);
 
+    @AboutConfig
+    @DefaultBooleanValue(true)
+    @DescriptionForConfigEntry("Save changes of the downloadlist to an append-only journal and only rewrite the whole list during compaction")
+    boolean isDownloadListJournalEnabled();
+
+    void setDownloadListJournalEnabled(boolean b);
+
+    @AboutConfig
+    @DefaultIntValue(30)
+    @SpinnerValidator(min = 1, max = 24 * 60)
+    @DescriptionForConfigEntry("Max. age in minutes of the downloadlist journal before it gets compacted into a new downloadlist")
+    int getDownloadListJournalCompactionInterval();
+
+    void setDownloadListJournalCompactionInterval(int minutes);
+
+    @AboutConfig
+    @DefaultIntValue(4)
+    @SpinnerValidator(min = 1, max = 32)
+    @DescriptionForConfigEntry("Max. number of hash checks running at the same time")
+    int getMaxParallelHashChecks();
+
+    void setMaxParallelHashChecks(int i);
+
+    @AboutConfig
+    @DefaultIntValue(2)
+    @SpinnerValidator(min = 1, max = 32)
+    @DescriptionForConfigEntry("Max. number of hash checks running at the same time on the same disk")
+    int getMaxParallelHashChecksPerDisk();
+
+    void setMaxParallelHashChecksPerDisk(int i);
+
+    @AboutConfig
+    @DefaultBooleanValue(true)
+    @DescriptionForConfigEntry("Hash downloads while they are written, the hash check only has to read the bytes that were written out of order")
+    boolean isIncrementalHashCheckEnabled();
+
+    void setIncrementalHashCheckEnabled(boolean b);
+
+    @AboutConfig
+    @DefaultBooleanValue(false)
+    @DescriptionForConfigEntry("Headless only: Start the click'n'load/flashgot interface after the startup has finished. Same as the -faststart switch")
+    boolean isHeadlessFastStartEnabled();
+
+    void setHeadlessFastStartEnabled(boolean b);
+
     // @AboutConfig
     // @DefaultBooleanValue(true)
     // @DescriptionForConfigEntry("Enable/Disable JXBrowser usage. JXBrowser Plugin required!")
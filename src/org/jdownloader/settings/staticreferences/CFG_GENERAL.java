@@ -89,6 +89,11 @@ public class CFG_GENERAL {
      **/
     public static final BooleanKeyHandler               DUPE_MANAGER_ENABLED                                             = SH.getKeyHandler("DupeManagerEnabled", BooleanKeyHandler.class);
 
+    /**
+     * If Enabled, the dupemanager indexes 64bit hashes instead of the linkIDs to save memory. Collisions are verified against the links
+     **/
+    public static final BooleanKeyHandler               DUPE_MANAGER_COMPACT_KEYS_ENABLED                                = SH.getKeyHandler("DupeManagerCompactKeysEnabled", BooleanKeyHandler.class);
+
     // /**
     // * Enable/Disable JXBrowser usage. JXBrowser Plugin required!
     // **/
@@ -171,6 +176,16 @@ public class CFG_GENERAL {
      **/
     public static final IntegerKeyHandler               DOWNLOAD_SPEED_LIMIT                                             = SH.getKeyHandler("DownloadSpeedLimit", IntegerKeyHandler.class);
 
+    /**
+     * Download Speed limit in bytes per host. Applies regardless of the global speed limit
+     **/
+    public static final ObjectKeyHandler                DOWNLOAD_SPEED_LIMIT_BY_HOST_MAP                                 = SH.getKeyHandler("DownloadSpeedLimitByHostMap", ObjectKeyHandler.class);
+
+    /**
+     * Interval in ms in which the download speed is measured and the bandwidth is redistributed between the connections
+     **/
+    public static final IntegerKeyHandler               DOWNLOAD_SPEED_MANAGER_INTERVAL                                  = SH.getKeyHandler("DownloadSpeedManagerInterval", IntegerKeyHandler.class);
+
     public static final BooleanKeyHandler               SAMBA_PREFETCH_ENABLED                                           = SH.getKeyHandler("SambaPrefetchEnabled", BooleanKeyHandler.class);
 
     /**
@@ -337,4 +352,34 @@ public class CFG_GENERAL {
      * Penaltytime before a retry if JDownloader lost connection
      **/
     public static final IntegerKeyHandler               WAITTIME_ON_CONNECTION_LOSS                                      = SH.getKeyHandler("WaittimeOnConnectionLoss", IntegerKeyHandler.class);
+
+    /**
+     * Save changes of the downloadlist to an append-only journal and only rewrite the whole list during compaction
+     **/
+    public static final BooleanKeyHandler               DOWNLOAD_LIST_JOURNAL_ENABLED                                    = SH.getKeyHandler("DownloadListJournalEnabled", BooleanKeyHandler.class);
+
+    /**
+     * Max. age in minutes of the downloadlist journal before it gets compacted into a new downloadlist
+     **/
+    public static final IntegerKeyHandler               DOWNLOAD_LIST_JOURNAL_COMPACTION_INTERVAL                        = SH.getKeyHandler("DownloadListJournalCompactionInterval", IntegerKeyHandler.class);
+
+    /**
+     * Max. number of hash checks running at the same time
+     **/
+    public static final IntegerKeyHandler               MAX_PARALLEL_HASH_CHECKS                                         = SH.getKeyHandler("MaxParallelHashChecks", IntegerKeyHandler.class);
+
+    /**
+     * Max. number of hash checks running at the same time on the same disk
+     **/
+    public static final IntegerKeyHandler               MAX_PARALLEL_HASH_CHECKS_PER_DISK                                = SH.getKeyHandler("MaxParallelHashChecksPerDisk", IntegerKeyHandler.class);
+
+    /**
+     * Hash downloads while they are written, the hash check only has to read the bytes that were written out of order
+     **/
+    public static final BooleanKeyHandler               INCREMENTAL_HASH_CHECK_ENABLED                                   = SH.getKeyHandler("IncrementalHashCheckEnabled", BooleanKeyHandler.class);
+
+    /**
+     * Headless only: Start the click'n'load/flashgot interface after the startup has finished. Same as the -faststart switch
+     **/
+    public static final BooleanKeyHandler               HEADLESS_FAST_START_ENABLED                                      = SH.getKeyHandler("HeadlessFastStartEnabled", BooleanKeyHandler.class);
 }
\ No newline at end of file
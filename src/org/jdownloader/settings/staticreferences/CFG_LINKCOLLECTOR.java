@@ -5,6 +5,7 @@ import jd.controlling.linkcollector.LinkCollectorConfig;
 import org.appwork.storage.config.ConfigUtils;
 import org.appwork.storage.config.JsonConfig;
 import org.appwork.storage.config.handler.BooleanKeyHandler;
+import org.appwork.storage.config.handler.IntegerKeyHandler;
 import org.appwork.storage.config.handler.StorageHandler;
 
 public class CFG_LINKCOLLECTOR {
@@ -14,8 +15,8 @@ public class CFG_LINKCOLLECTOR {
 
     // Static Mappings for interface
     // jd.controlling.linkcollector.LinkCollectorConfig
-    public static final LinkCollectorConfig                 CFG                 = JsonConfig.create(LinkCollectorConfig.class);
-    public static final StorageHandler<LinkCollectorConfig> SH                  = (StorageHandler<LinkCollectorConfig>) CFG._getStorageHandler();
+    public static final LinkCollectorConfig                 CFG                  = JsonConfig.create(LinkCollectorConfig.class);
+    public static final StorageHandler<LinkCollectorConfig> SH                   = (StorageHandler<LinkCollectorConfig>) CFG._getStorageHandler();
     // let's do this mapping here. If we map all methods to static handlers,
     // access is faster, and we get an error on init if mappings are wrong.
     // Keyhandler interface
@@ -23,11 +24,17 @@ public class CFG_LINKCOLLECTOR {
     /**
      * check links for on/offline status
      **/
-    public static final BooleanKeyHandler                   DO_LINK_CHECK       = SH.getKeyHandler("DoLinkCheck", BooleanKeyHandler.class);
+    public static final BooleanKeyHandler                   DO_LINK_CHECK        = SH.getKeyHandler("DoLinkCheck", BooleanKeyHandler.class);
     // Keyhandler interface
     // jd.controlling.linkcollector.LinkCollectorConfig.domergetopbottom = true
     /**
      * use top(true) or bottom(false) position for merge
      **/
-    public static final BooleanKeyHandler                   DO_MERGE_TOP_BOTTOM = SH.getKeyHandler("DoMergeTopBottom", BooleanKeyHandler.class);
+    public static final BooleanKeyHandler                   DO_MERGE_TOP_BOTTOM  = SH.getKeyHandler("DoMergeTopBottom", BooleanKeyHandler.class);
+    // Keyhandler interface
+    // jd.controlling.linkcollector.LinkCollectorConfig.ingestionblocksize = 500
+    /**
+     * max. number of crawled links added to the linkcollector within one block
+     **/
+    public static final IntegerKeyHandler                   INGESTION_BLOCK_SIZE = SH.getKeyHandler("IngestionBlockSize", IntegerKeyHandler.class);
 }
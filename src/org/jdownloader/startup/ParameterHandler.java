@@ -85,6 +85,19 @@ public class ParameterHandler implements InstanceMessageListener, CommandSwitchL
             }
 
         });
+
+        addCommand(new AbstractStartupCommand("faststart") {
+
+            @Override
+            public void run(String command, String... parameters) {
+            }
+
+            @Override
+            public String getDescription() {
+                return "Headless only: Start the click'n'load/flashgot interface after the startup has finished";
+            }
+
+        });
     }
 
     private void addCommand(StartupCommand helpCommand) {
@@ -120,6 +133,11 @@ public class ParameterHandler implements InstanceMessageListener, CommandSwitchL
         return commands;
     }
 
+    public boolean hasCommandSwitch(String command) {
+        final ParameterParser lStartupParameters = startupParameters;
+        return lStartupParameters != null && lStartupParameters.hasCommandSwitch(command);
+    }
+
     public void onStartup(String[] args) {
         logger.info("Startup: " + Arrays.toString(args));
         startupParameters = RestartController.getInstance().getParameterParser(args);
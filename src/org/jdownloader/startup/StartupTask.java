@@ -0,0 +1,93 @@
+package org.jdownloader.startup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * stage of the startup, see {@link StartupTaskGraph}. a task runs as soon as all of its dependencies have finished, tasks without a path
+ * between them run concurrently
+ */
+public abstract class StartupTask {
+    /* nanoTime may be negative, timestamps are relative to this */
+    private static final long       NANO_BASE = System.nanoTime();
+
+    private final String            name;
+    private final List<StartupTask> dependencies;
+    /* set by the StartupTaskGraph, see now() */
+    protected volatile long         startTime = -1;
+    protected volatile long         endTime   = -1;
+    protected volatile long         cpuTime   = -1;
+    protected volatile Throwable    exception = null;
+    protected volatile boolean      skipped   = false;
+
+    public StartupTask(final String name, final StartupTask... dependencies) {
+        this.name = name;
+        this.dependencies = Collections.unmodifiableList(new ArrayList<StartupTask>(Arrays.asList(dependencies)));
+    }
+
+    public abstract void run() throws Exception;
+
+    /**
+     * @return ns since class init, never negative
+     */
+    protected static long now() {
+        return System.nanoTime() - NANO_BASE;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<StartupTask> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * @return true if the task has run, or has been skipped
+     */
+    public boolean isFinished() {
+        return endTime >= 0 || skipped;
+    }
+
+    /**
+     * @return true if the task has not run because a dependency failed
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return true if the task has run without exception
+     */
+    public boolean isSuccessful() {
+        return endTime >= 0 && exception == null;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    /**
+     * @return wall time of the task in ms, -1 if it has not run
+     */
+    public long getWallTime() {
+        if (startTime < 0 || endTime < 0) {
+            return -1;
+        }
+        return (endTime - startTime) / 1000000;
+    }
+
+    /**
+     * @return cpu time of the task in ms, -1 if unknown
+     */
+    public long getCpuTime() {
+        return cpuTime < 0 ? -1 : cpuTime / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        return "StartupTask:" + name;
+    }
+}
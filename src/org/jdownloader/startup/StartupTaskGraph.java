@@ -0,0 +1,258 @@
+package org.jdownloader.startup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.appwork.utils.logging2.LogInterface;
+
+/**
+ * runs {@link StartupTask}s along their dependencies. every task runs on its own thread as soon as its dependencies have finished, the
+ * dependents of a failed task are skipped. after {@link #run()} the timing report lists wall and cpu time of every task and the critical
+ * path, the chain of dependencies that determined the duration of the startup
+ */
+public class StartupTaskGraph {
+    private final String                                  name;
+    private final LogInterface                            logger;
+    private final List<StartupTask>                       tasks      = new ArrayList<StartupTask>();
+    /* guarded by this */
+    private final HashMap<StartupTask, Integer>           pending    = new HashMap<StartupTask, Integer>();
+    private final HashMap<StartupTask, List<StartupTask>> dependents = new HashMap<StartupTask, List<StartupTask>>();
+    private CountDownLatch                                done       = null;
+    private int                                           priority   = Thread.NORM_PRIORITY;
+    private volatile long                                 startTime  = -1;
+    private volatile long                                 endTime    = -1;
+
+    public StartupTaskGraph(final String name, final LogInterface logger) {
+        this.name = name;
+        this.logger = logger;
+    }
+
+    /**
+     * adds the task, dependencies of the task have to be added before. dependencies that belong to another graph have to be finished
+     * before this graph runs
+     */
+    public StartupTask add(final StartupTask task) {
+        synchronized (this) {
+            if (done != null) {
+                throw new IllegalStateException("Graph " + name + " already started");
+            }
+            if (tasks.contains(task)) {
+                throw new IllegalArgumentException("Task " + task.getName() + " already added");
+            }
+            tasks.add(task);
+        }
+        return task;
+    }
+
+    public List<StartupTask> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * @param priority
+     *            thread priority of the tasks
+     */
+    public void setPriority(final int priority) {
+        this.priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+    }
+
+    /**
+     * called on the thread of the task
+     */
+    protected void onTaskFailed(final StartupTask task, final Throwable e) {
+    }
+
+    /**
+     * runs all tasks and waits until they have finished
+     */
+    public void run() throws InterruptedException {
+        final List<StartupTask> ready = new ArrayList<StartupTask>();
+        synchronized (this) {
+            if (done != null) {
+                throw new IllegalStateException("Graph " + name + " already started");
+            }
+            done = new CountDownLatch(tasks.size());
+            for (final StartupTask task : tasks) {
+                int waitFor = 0;
+                for (final StartupTask dependency : task.getDependencies()) {
+                    if (tasks.contains(dependency)) {
+                        if (tasks.indexOf(dependency) > tasks.indexOf(task)) {
+                            throw new IllegalStateException("Task " + task.getName() + " added before its dependency " + dependency.getName());
+                        }
+                        List<StartupTask> list = dependents.get(dependency);
+                        if (list == null) {
+                            list = new ArrayList<StartupTask>();
+                            dependents.put(dependency, list);
+                        }
+                        list.add(task);
+                        waitFor++;
+                    } else if (!dependency.isFinished()) {
+                        throw new IllegalStateException("Task " + task.getName() + " depends on unfinished task " + dependency.getName() + " of another graph");
+                    }
+                }
+                pending.put(task, waitFor);
+                if (waitFor == 0) {
+                    ready.add(task);
+                }
+            }
+            startTime = StartupTask.now();
+            for (final StartupTask task : ready) {
+                if (isRunnable(task)) {
+                    start(task);
+                } else {
+                    skip(task);
+                }
+            }
+        }
+        done.await();
+        endTime = StartupTask.now();
+    }
+
+    private boolean isRunnable(final StartupTask task) {
+        for (final StartupTask dependency : task.getDependencies()) {
+            if (!dependency.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void start(final StartupTask task) {
+        final Thread thread = new Thread("Startup: " + task.getName()) {
+            @Override
+            public void run() {
+                final ThreadMXBean threadMXBean = getThreadMXBean();
+                final long cpuStart = threadMXBean != null ? threadMXBean.getCurrentThreadCpuTime() : -1;
+                task.startTime = StartupTask.now();
+                try {
+                    task.run();
+                } catch (final Throwable e) {
+                    task.exception = e;
+                    logger.log(e);
+                    onTaskFailed(task, e);
+                } finally {
+                    if (cpuStart >= 0) {
+                        task.cpuTime = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+                    }
+                    task.endTime = StartupTask.now();
+                    finished(task);
+                }
+            }
+        };
+        thread.setPriority(priority);
+        thread.start();
+    }
+
+    private void skip(final StartupTask task) {
+        logger.info("Skip startup task " + task.getName() + " because a dependency failed");
+        task.skipped = true;
+        finished(task);
+    }
+
+    private synchronized void finished(final StartupTask task) {
+        done.countDown();
+        final List<StartupTask> list = dependents.get(task);
+        if (list == null) {
+            return;
+        }
+        for (final StartupTask dependent : list) {
+            final int waitFor = pending.get(dependent) - 1;
+            pending.put(dependent, waitFor);
+            if (waitFor == 0) {
+                if (isRunnable(dependent)) {
+                    start(dependent);
+                } else {
+                    skip(dependent);
+                }
+            }
+        }
+    }
+
+    private static ThreadMXBean getThreadMXBean() {
+        try {
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+                return threadMXBean;
+            }
+        } catch (final Throwable e) {
+        }
+        return null;
+    }
+
+    /**
+     * @return wall time of the graph in ms, -1 if it has not finished yet
+     */
+    public long getWallTime() {
+        if (startTime < 0 || endTime < 0) {
+            return -1;
+        }
+        return (endTime - startTime) / 1000000;
+    }
+
+    /**
+     * @return chain of dependencies that finished last, first task first
+     */
+    public List<StartupTask> getCriticalPath() {
+        final ArrayList<StartupTask> ret = new ArrayList<StartupTask>();
+        StartupTask last = getLastFinished(tasks);
+        while (last != null) {
+            ret.add(0, last);
+            final ArrayList<StartupTask> dependencies = new ArrayList<StartupTask>();
+            for (final StartupTask dependency : last.getDependencies()) {
+                if (tasks.contains(dependency)) {
+                    dependencies.add(dependency);
+                }
+            }
+            last = getLastFinished(dependencies);
+        }
+        return ret;
+    }
+
+    private StartupTask getLastFinished(final List<StartupTask> list) {
+        StartupTask ret = null;
+        for (final StartupTask task : list) {
+            if (task.endTime >= 0 && (ret == null || task.endTime > ret.endTime)) {
+                ret = task;
+            }
+        }
+        return ret;
+    }
+
+    public String getReport() {
+        final StringBuilder sb = new StringBuilder();
+        final ArrayList<StartupTask> sorted = new ArrayList<StartupTask>(tasks);
+        Collections.sort(sorted, new Comparator<StartupTask>() {
+            @Override
+            public int compare(StartupTask o1, StartupTask o2) {
+                return o1.startTime < o2.startTime ? -1 : o1.startTime == o2.startTime ? 0 : 1;
+            }
+        });
+        long sum = 0;
+        for (final StartupTask task : sorted) {
+            sum += Math.max(0, task.getWallTime());
+        }
+        sb.append(name).append(": ").append(getWallTime()).append(" ms wall, ").append(sum).append(" ms in ").append(tasks.size()).append(" tasks");
+        for (final StartupTask task : sorted) {
+            sb.append("\r\n");
+            if (task.startTime < 0) {
+                sb.append(String.format("%-20s %s", task.getName(), task.isSkipped() ? "skipped" : "not started"));
+            } else {
+                sb.append(String.format("%-20s start:%6d ms wall:%6d ms cpu:%6d ms%s", task.getName(), (task.startTime - startTime) / 1000000, task.getWallTime(), task.getCpuTime(), task.getException() != null ? " failed:" + task.getException() : ""));
+            }
+        }
+        sb.append("\r\nCritical path:");
+        long critical = 0;
+        for (final StartupTask task : getCriticalPath()) {
+            sb.append(" ").append(task.getName()).append("(").append(task.getWallTime()).append(" ms)");
+            critical += task.getWallTime();
+        }
+        sb.append(" = ").append(critical).append(" ms");
+        return sb.toString();
+    }
+}
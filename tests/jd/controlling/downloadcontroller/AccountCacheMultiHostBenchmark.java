@@ -0,0 +1,113 @@
+package jd.controlling.downloadcontroller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jd.controlling.downloadcontroller.AccountCache.ACCOUNTTYPE;
+import jd.controlling.downloadcontroller.AccountCache.CachedAccount;
+import jd.plugins.Account;
+import jd.plugins.AccountInfo;
+import jd.plugins.DownloadLink;
+import jd.plugins.PluginForHost;
+
+import org.jdownloader.plugins.controller.host.HostPluginController;
+import org.jdownloader.tests.BenchmarkHarness;
+
+/**
+ * compares the account candidate selection of a selection pass(every queued link x every multihost account, see
+ * DownloadWatchDog.nextDownloadLinkCandidates) using the pre MultiHostIndex CachedAccount.canHandle(List.contains on
+ * AccountInfo.getMultiHostSupport) against the current CachedAccount.canHandle.
+ *
+ * usage: AccountCacheMultiHostBenchmark [accounts] [links] [hosts per account] [rounds]
+ */
+public class AccountCacheMultiHostBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness.init();
+        final int accounts = BenchmarkHarness.getArgument(args, 0, 20);
+        final int links = BenchmarkHarness.getArgument(args, 1, 100000);
+        final int hostsPerAccount = BenchmarkHarness.getArgument(args, 2, 500);
+        final int rounds = BenchmarkHarness.getArgument(args, 3, 5);
+        final int hosts = hostsPerAccount * 4;
+        final PluginForHost plugin = HostPluginController.getInstance().get("premiumize.me").getPrototype(null);
+        final Random random = new Random(4711);
+        final List<CachedAccount> accountCache = new ArrayList<CachedAccount>(accounts);
+        for (int index = 0; index < accounts; index++) {
+            final List<String> supported = new ArrayList<String>(hostsPerAccount);
+            for (int host = 0; host < hostsPerAccount; host++) {
+                supported.add("host" + random.nextInt(hosts) + ".com");
+            }
+            final AccountInfo ai = new AccountInfo();
+            ai.setUnlimitedTraffic();
+            ai.setProperty("multiHostSupport", supported);
+            final Account account = new Account("user" + index, "pass");
+            account.setHoster(plugin.getHost());
+            account.setAccountInfo(ai);
+            accountCache.add(new CachedAccount("host.com", account, plugin));
+        }
+        final List<DownloadLink> downloadLinks = new ArrayList<DownloadLink>(links);
+        for (int index = 0; index < links; index++) {
+            final String host = "host" + random.nextInt(hosts) + ".com";
+            downloadLinks.add(new DownloadLink(null, "file" + index + ".rar", host, "http://" + host + "/file" + index + ".rar", true));
+        }
+        BenchmarkHarness.run(rounds, new BenchmarkHarness.Round() {
+
+            @Override
+            public String run(int round) throws Exception {
+                long start = System.nanoTime();
+                int legacyCandidates = 0;
+                for (final DownloadLink link : downloadLinks) {
+                    for (final CachedAccount cachedAccount : accountCache) {
+                        if (legacyCanHandle(cachedAccount, link)) {
+                            legacyCandidates++;
+                        }
+                    }
+                }
+                final long legacy = System.nanoTime() - start;
+                start = System.nanoTime();
+                int candidates = 0;
+                for (final DownloadLink link : downloadLinks) {
+                    for (final CachedAccount cachedAccount : accountCache) {
+                        if (cachedAccount.canHandle(link)) {
+                            candidates++;
+                        }
+                    }
+                }
+                final long current = System.nanoTime() - start;
+                if (legacyCandidates != candidates) {
+                    throw new IllegalStateException("results differ: " + legacyCandidates + " != " + candidates);
+                }
+                final long checks = (long) links * accounts;
+                return checks + " checks, " + candidates + " candidates, List.contains " + (legacy / 1000000) + "ms, MultiHostIndex " + (current / 1000000) + "ms";
+            }
+        });
+    }
+
+    /**
+     * CachedAccount.canHandle before the MultiHostIndex
+     */
+    private static boolean legacyCanHandle(final CachedAccount cachedAccount, final DownloadLink link) throws Exception {
+        final PluginForHost plugin = cachedAccount.getPlugin();
+        if (plugin == null) {
+            return false;
+        }
+        final Account account = cachedAccount.getAccount();
+        final PluginForHost linkPlugin = link.getDefaultPlugin();
+        boolean canHandle = linkPlugin == null ? true : linkPlugin.allowHandle(link, plugin);
+        if (canHandle) {
+            canHandle = plugin.canHandle(link, account) && plugin.enoughTrafficFor(link, account);
+        }
+        if (canHandle && ACCOUNTTYPE.MULTI.equals(cachedAccount.getType()) && account != null) {
+            final AccountInfo ai = account.getAccountInfo();
+            /* verify again because plugins can modify list on runtime */
+            if (ai != null) {
+                final List<String> supported = ai.getMultiHostSupport();
+                if (supported != null) {
+                    canHandle = supported.contains(link.getHost());
+                }
+            }
+        }
+        return canHandle;
+    }
+}
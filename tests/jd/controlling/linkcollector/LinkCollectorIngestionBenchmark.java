@@ -0,0 +1,69 @@
+package jd.controlling.linkcollector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jd.controlling.linkcrawler.CrawledLink;
+import jd.controlling.linkcrawler.PackageInfo;
+import jd.plugins.DownloadLink;
+
+import org.appwork.utils.event.queue.QueueAction;
+import org.jdownloader.tests.BenchmarkHarness;
+
+/**
+ * measures links/sec of LinkCollector.addCrawledLink until all links are in the collector. only uses api that existed before the batched
+ * ingestion, so run it once against the baseline build(one QueueAction per link) and once against the current build(blocks of the
+ * configured IngestionBlockSize) to compare both. the configuration is not modified.
+ *
+ * usage: LinkCollectorIngestionBenchmark [links] [links per package] [rounds]
+ */
+public class LinkCollectorIngestionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness.init();
+        final int links = BenchmarkHarness.getArgument(args, 0, 100000);
+        final int linksPerPackage = BenchmarkHarness.getArgument(args, 1, 50);
+        final int rounds = BenchmarkHarness.getArgument(args, 2, 5);
+        BenchmarkHarness.run(rounds, new BenchmarkHarness.Round() {
+
+            @Override
+            public String run(int round) throws Exception {
+                return BenchmarkHarness.perSecond(links, ingest(round, links, linksPerPackage)) + " links/sec";
+            }
+        });
+    }
+
+    private static long ingest(final int round, final int links, final int linksPerPackage) throws Exception {
+        final LinkCollector linkCollector = LinkCollector.getInstance();
+        linkCollector.clear();
+        waitForQueue(linkCollector);
+        final List<CrawledLink> crawledLinks = new ArrayList<CrawledLink>(links);
+        for (int index = 0; index < links; index++) {
+            final String url = "http://benchmark.jdownloader.org/" + round + "/file" + index + ".rar";
+            final DownloadLink downloadLink = new DownloadLink(null, "file" + index + ".rar", "benchmark.jdownloader.org", url, true);
+            final CrawledLink crawledLink = new CrawledLink(downloadLink);
+            final PackageInfo packageInfo = new PackageInfo();
+            packageInfo.setName("Package " + (index / Math.max(1, linksPerPackage)));
+            crawledLink.setDesiredPackageInfo(packageInfo);
+            crawledLinks.add(crawledLink);
+        }
+        final long start = System.nanoTime();
+        for (final CrawledLink crawledLink : crawledLinks) {
+            linkCollector.addCrawledLink(crawledLink);
+        }
+        while (linkCollector.getChildrenCount() < links) {
+            waitForQueue(linkCollector);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void waitForQueue(final LinkCollector linkCollector) {
+        linkCollector.getQueue().addWait(new QueueAction<Void, RuntimeException>() {
+
+            @Override
+            protected Void run() throws RuntimeException {
+                return null;
+            }
+        });
+    }
+}
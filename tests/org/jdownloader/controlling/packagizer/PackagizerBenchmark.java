@@ -0,0 +1,336 @@
+package org.jdownloader.controlling.packagizer;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jd.controlling.linkcollector.LinkCollectingJob;
+import jd.controlling.linkcrawler.CrawledLink;
+import jd.controlling.linkcrawler.CrawledPackage;
+import jd.controlling.linkcrawler.PackageInfo;
+import jd.nutils.encoding.Encoding;
+
+import org.appwork.utils.Regex;
+import org.appwork.utils.StringUtils;
+import org.appwork.utils.os.CrossSystem;
+import org.jdownloader.controlling.filter.RegexFilter;
+import org.jdownloader.controlling.filter.RegexFilter.MatchType;
+import org.jdownloader.controlling.packagizer.PackagizerController.REPLACEVARIABLE;
+import org.jdownloader.logging.LogController;
+import org.jdownloader.tests.BenchmarkHarness;
+
+/**
+ * measures links/sec of runByUrl/runByFile with a realistic rule set and compares precompiled template evaluation against the former
+ * regex based replacement, a copy of the replacers and replaceVariables as they were before the templates(rescan the template and compile
+ * a Pattern for every tag).
+ *
+ * usage: PackagizerBenchmark [links] [rules] [rounds]
+ */
+public class PackagizerBenchmark {
+
+    private static final String[] TEMPLATES = new String[] { "<jd:packagename>/<jd:orgfiletype>", "<jd:orgfilename:1> - <jd:source:1>", "<jd:orgfilenamewithoutext>.<jd:orgfiletype>", "<jd:simpledate:yyyy-MM-dd>/<jd:orgpackagename>", "<jd:hoster:1>/<jd:orgfilename:1>", "Series <jd:orgfilename:1> S<jd:orgfilename:2>" };
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness.init();
+        final int links = BenchmarkHarness.getArgument(args, 0, 50000);
+        final int ruleCount = BenchmarkHarness.getArgument(args, 1, 40);
+        final int rounds = BenchmarkHarness.getArgument(args, 2, 5);
+        final PackagizerController controller = PackagizerController.createEmptyTestInstance();
+        final List<PackagizerRule> rules = new ArrayList<PackagizerRule>();
+        for (int index = 0; index < ruleCount; index++) {
+            final PackagizerRule rule = new PackagizerRule();
+            rule.setName("Rule " + index);
+            rule.setEnabled(true);
+            if (index % 2 == 0) {
+                rule.setFilenameFilter(new RegexFilter(true, MatchType.CONTAINS, "(.*?)\\.s(\\d+)e\\d+.*", true));
+            } else {
+                rule.setFilenameFilter(new RegexFilter(true, MatchType.CONTAINS, "*.rar", false));
+            }
+            rule.setHosterURLFilter(new RegexFilter(true, MatchType.CONTAINS, "https?://([^/]+)/.*", true));
+            rule.setSourceURLFilter(new RegexFilter(true, MatchType.CONTAINS, "https?://([^/]+)/.*", true));
+            rule.setDownloadDestination("/downloads/" + TEMPLATES[index % TEMPLATES.length]);
+            rule.setPackageName(TEMPLATES[(index + 1) % TEMPLATES.length]);
+            rule.setComment("rule " + index + " <jd:prop:benchmark>");
+            rules.add(rule);
+        }
+        controller.addAll(rules);
+        final List<PackagizerRuleWrapper> wrappers = new ArrayList<PackagizerRuleWrapper>();
+        for (final PackagizerRule rule : rules) {
+            wrappers.add(rule.compile());
+        }
+        final List<CrawledLink> crawledLinks = new ArrayList<CrawledLink>(links);
+        for (int index = 0; index < links; index++) {
+            final CrawledLink link = new CrawledLink("http://host" + (index % 20) + ".benchmark.jdownloader.org/files/" + index);
+            link.setName("show" + (index % 100) + ".s0" + (index % 9 + 1) + "e" + (index % 24) + ".part" + (index % 10 + 1) + ".rar");
+            crawledLinks.add(link);
+        }
+        BenchmarkHarness.run(rounds, new BenchmarkHarness.Round() {
+
+            @Override
+            public String run(int round) throws Exception {
+                long start = System.nanoTime();
+                for (final CrawledLink link : crawledLinks) {
+                    controller.runByUrl(link);
+                }
+                final long byUrl = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (final CrawledLink link : crawledLinks) {
+                    controller.runByFile(link);
+                }
+                final long byFile = System.nanoTime() - start;
+                long length = 0;
+                start = System.nanoTime();
+                for (final CrawledLink link : crawledLinks) {
+                    for (final PackagizerRuleWrapper lgr : wrappers) {
+                        length += legacyReplaceVariables(REPLACEVARIABLE.DIRECTORY, lgr.getRule().getDownloadDestination(), link, lgr).length();
+                    }
+                }
+                final long legacy = System.nanoTime() - start;
+                final long legacyLength = length;
+                length = 0;
+                start = System.nanoTime();
+                for (final CrawledLink link : crawledLinks) {
+                    for (final PackagizerRuleWrapper lgr : wrappers) {
+                        length += controller.replaceVariables(REPLACEVARIABLE.DIRECTORY, lgr.getDownloadDestinationTemplate(), link, lgr).length();
+                    }
+                }
+                final long compiled = System.nanoTime() - start;
+                return "runByUrl " + BenchmarkHarness.perSecond(links, byUrl) + " links/sec, runByFile " + BenchmarkHarness.perSecond(links, byFile) + " links/sec, templates legacy " + BenchmarkHarness.perSecond(links, legacy) + " links/sec(" + legacyLength + " chars), compiled " + BenchmarkHarness.perSecond(links, compiled) + " links/sec(" + length + " chars)";
+            }
+        });
+    }
+
+    /**
+     * former PackagizerReplacer, replaces the tag in the input itself
+     */
+    private static abstract class LegacyReplacer {
+        protected abstract String getID();
+
+        protected abstract String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr);
+    }
+
+    private static final HashMap<String, LegacyReplacer> LEGACY_REPLACERS = new HashMap<String, LegacyReplacer>();
+    static {
+        /* copies of the replacers used by TEMPLATES, as they were before the precompiled templates */
+        addLegacyReplacer(new LegacyReplacer() {
+
+            protected String getID() {
+                return PackagizerController.SIMPLEDATE;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    final String dateString = new SimpleDateFormat(modifiers).format(new Date());
+                    return Pattern.compile("<jd:simpledate:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, dateString)));
+                }
+                return input;
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+
+            protected String getID() {
+                return PackagizerController.SOURCE;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isEmpty(modifiers)) {
+                    return input;
+                }
+                final int id = Integer.parseInt(modifiers);
+                String output = input;
+                final String pattern = lgr.getSourceRule().getPattern().pattern();
+                final boolean indexed = pattern.matches("^\\-?\\d+\\\\\\. .+");
+                final boolean inverted = pattern.startsWith("-");
+                final String[] sources;
+                if (link.getSourceUrls() != null) {
+                    sources = link.getSourceUrls();
+                } else {
+                    sources = new String[2];
+                    sources[0] = link.getURL();
+                    final LinkCollectingJob job = link.getSourceJob();
+                    if (job != null) {
+                        sources[1] = job.getCustomSourceUrl();
+                    }
+                }
+                int i = 1;
+                for (int j = inverted ? 0 : sources.length - 1; (inverted ? (j < sources.length) : (j >= 0)); j = (inverted ? (j + 1) : (j - 1))) {
+                    final String s = sources[j];
+                    if (s == null) {
+                        continue;
+                    }
+                    final String toMatch = indexed ? (inverted ? "-" : "") + (i++) + ". " + s : s;
+                    Regex regex = new Regex(toMatch, lgr.getSourceRule().getPattern());
+                    String[] values = null;
+                    if (regex.matches()) {
+                        values = regex.getRow(0);
+                    } else {
+                        regex = new Regex(s, lgr.getSourceRule().getPattern());
+                        if (regex.matches()) {
+                            values = regex.getRow(0);
+                        }
+                    }
+                    if (values != null && values.length > (id - 1)) {
+                        final String value = Encoding.urlDecode(stringOrEmpty(values[id - 1]), false);
+                        output = Pattern.compile("<jd:source:" + id + "\\s*/?\\s*>").matcher(output).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, value)));
+                    }
+                }
+                return output;
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+            private final Pattern pat = Pattern.compile("<jd:" + PackagizerController.ORGFILENAME + "\\s*/?\\s*>");
+
+            protected String getID() {
+                return PackagizerController.ORGFILENAME;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    final String rep = stringOrEmpty(new Regex(link.getName(), lgr.getFileNameRule().getPattern()).getMatch(Integer.parseInt(modifiers) - 1));
+                    return Pattern.compile("<jd:" + PackagizerController.ORGFILENAME + ":" + modifiers + "\\s*/?\\s*>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, rep)));
+                }
+                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, link.getName())));
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+            private final Pattern pat = Pattern.compile("<jd:" + PackagizerController.ORGPACKAGENAME + "\\s*/?\\s*>");
+
+            protected String getID() {
+                return PackagizerController.ORGPACKAGENAME;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                String packagename = null;
+                if (link != null) {
+                    final CrawledPackage parentNode = link.getParentNode();
+                    if (parentNode != null) {
+                        packagename = parentNode.getName();
+                    }
+                    final PackageInfo dpi = link.getDesiredPackageInfo();
+                    if (StringUtils.isEmpty(packagename) && dpi != null) {
+                        packagename = dpi.getName();
+                    }
+                }
+                if (StringUtils.isEmpty(packagename)) {
+                    packagename = "";
+                }
+                packagename = CrossSystem.alleviatePathParts(packagename);
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    final String[] matches = new Regex(packagename, lgr.getPackageNameRule().getPattern()).getRow(0);
+                    return Pattern.compile("<jd:" + PackagizerController.ORGPACKAGENAME + ":" + modifiers + "\\s*/?\\s*>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, stringOrEmpty(matches[Integer.parseInt(modifiers) - 1]))));
+                }
+                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, packagename)));
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+            private final Pattern pat = Pattern.compile("<jd:orgfiletype/?>");
+
+            protected String getID() {
+                return PackagizerController.ORGFILETYPE;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                String fileType = new Regex(link.getName(), "\\.([0-9a-zA-Z]+)$").getMatch(0);
+                if (fileType == null) {
+                    fileType = "";
+                }
+                if (StringUtils.isNotEmpty(modifiers)) {
+                    return Pattern.compile("<jd:orgfiletype:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, stringOrEmpty(new Regex(fileType, lgr.getFileNameRule().getPattern()).getRow(0)[Integer.parseInt(modifiers) - 1]))));
+                }
+                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, fileType)));
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+            /* sic, the former pattern lacked the jd: prefix */
+            private final Pattern pat = Pattern.compile("<orgfilenamewithoutext/?>");
+
+            protected String getID() {
+                return PackagizerController.ORGFILENAMEWITHOUTEXT;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                final String name = new Regex(link.getName(), "(.+)\\.[0-9a-zA-Z]+$").getMatch(0);
+                if (name == null) {
+                    return pat.matcher(input).replaceAll("");
+                }
+                return pat.matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, name)));
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+
+            protected String getID() {
+                return PackagizerController.HOSTER;
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isEmpty(modifiers)) {
+                    return input;
+                }
+                final int id = Integer.parseInt(modifiers);
+                final Regex regex = new Regex(link.getURL(), lgr.getHosterRule().getPattern());
+                if (regex.matches()) {
+                    final String[] values = regex.getRow(0);
+                    return Pattern.compile("<jd:hoster:" + id + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, Encoding.urlDecode(stringOrEmpty(values[id - 1]), false))));
+                }
+                return input;
+            }
+        });
+        addLegacyReplacer(new LegacyReplacer() {
+
+            protected String getID() {
+                return "prop";
+            }
+
+            protected String replace(REPLACEVARIABLE replaceVariable, String modifiers, CrawledLink link, String input, PackagizerRuleWrapper lgr) {
+                if (StringUtils.isEmpty(modifiers) || link.getDownloadLink() == null) {
+                    return input;
+                }
+                final Object property = link.getDownloadLink().getProperty(modifiers);
+                if (property == null || (!(property instanceof String) && !(property instanceof Number))) {
+                    return Pattern.compile("<jd:prop:" + modifiers + "/?>").matcher(input).replaceAll("");
+                }
+                return Pattern.compile("<jd:prop:" + modifiers + "/?>").matcher(input).replaceAll(Matcher.quoteReplacement(preprocessReplacement(replaceVariable, property.toString())));
+            }
+        });
+    }
+
+    private static void addLegacyReplacer(final LegacyReplacer replacer) {
+        LEGACY_REPLACERS.put(replacer.getID().toLowerCase(Locale.ENGLISH), replacer);
+    }
+
+    private static String preprocessReplacement(final REPLACEVARIABLE replaceVariable, final String string) {
+        if (REPLACEVARIABLE.DIRECTORY.equals(replaceVariable)) {
+            return CrossSystem.alleviatePathParts(string);
+        }
+        return string;
+    }
+
+    private static String stringOrEmpty(final String input) {
+        return StringUtils.isEmpty(input) ? "" : input;
+    }
+
+    /**
+     * former PackagizerController.replaceVariables: rescan the template for tags and let every replacer compile its own Pattern
+     */
+    private static String legacyReplaceVariables(final REPLACEVARIABLE replaceVariable, String txt, final CrawledLink link, final PackagizerRuleWrapper lgr) {
+        final String[][] matches = new Regex(txt, "<jd:([^>:]+)(?::(.+?))?\\s*/?\\s*>").getMatches();
+        if (matches != null) {
+            for (final String m[] : matches) {
+                try {
+                    final LegacyReplacer replacer = LEGACY_REPLACERS.get(m[0].toLowerCase(Locale.ENGLISH));
+                    if (replacer != null) {
+                        txt = replacer.replace(replaceVariable, StringUtils.isEmpty(m[1]) ? null : m[1], link, txt, lgr);
+                    }
+                } catch (final Throwable e) {
+                    LogController.CL(false).log(e);
+                }
+            }
+        }
+        return txt;
+    }
+}
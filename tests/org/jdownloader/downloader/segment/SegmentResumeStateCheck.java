@@ -0,0 +1,45 @@
+package org.jdownloader.downloader.segment;
+
+import java.util.Arrays;
+
+import org.appwork.storage.JSonStorage;
+import org.appwork.storage.TypeRef;
+
+/**
+ * checks that the resume state of the SegmentDownloader survives a restart: the state is stored as link property, serialized to json and
+ * comes back as List of numbers. also checks that mangled states are rejected instead of truncating the part file.
+ *
+ * usage: SegmentResumeStateCheck
+ */
+public class SegmentResumeStateCheck {
+
+    public static void main(String[] args) throws Exception {
+        final int segments = 120;
+        final long partFileLength = 5 * 1024 * 1024l;
+        /* partially written */
+        check(SegmentDownloader.createResumeState(37, 1536 * 1024l, segments), segments, partFileLength, true);
+        /* complete, but part file longer than the written bytes */
+        check(SegmentDownloader.createResumeState(segments, 1536 * 1024l, segments), segments, partFileLength, false);
+        check(SegmentDownloader.createResumeState(segments, partFileLength, segments), segments, partFileLength, true);
+        /* part file shorter than the written bytes */
+        check(SegmentDownloader.createResumeState(37, partFileLength + 1, segments), segments, partFileLength, false);
+        /* other segment list */
+        check(SegmentDownloader.createResumeState(37, 1536 * 1024l, segments + 1), segments, partFileLength, false);
+        /* state of the former restore, every element got the value of the first one */
+        if (SegmentDownloader.isValidResumeState(new long[] { segments, segments, segments }, segments, partFileLength)) {
+            throw new IllegalStateException("accepted former state");
+        }
+        System.out.println("ok");
+    }
+
+    private static void check(final long[] state, final int segments, final long partFileLength, final boolean valid) {
+        final Object restored = JSonStorage.restoreFromString(JSonStorage.serializeToJson(state), TypeRef.OBJECT);
+        final long[] chunksProgress = SegmentDownloader.toChunksProgress(restored);
+        if (!Arrays.equals(state, chunksProgress)) {
+            throw new IllegalStateException("restored " + Arrays.toString(chunksProgress) + " != " + Arrays.toString(state));
+        }
+        if (SegmentDownloader.isValidResumeState(chunksProgress, segments, partFileLength) != valid) {
+            throw new IllegalStateException("state " + Arrays.toString(state) + " valid != " + valid);
+        }
+    }
+}
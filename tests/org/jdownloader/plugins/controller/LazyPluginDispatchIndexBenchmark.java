@@ -0,0 +1,76 @@
+package org.jdownloader.plugins.controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.appwork.utils.IO;
+import org.jdownloader.plugins.controller.crawler.CrawlerPluginController;
+import org.jdownloader.plugins.controller.crawler.LazyCrawlerPlugin;
+import org.jdownloader.plugins.controller.host.HostPluginController;
+import org.jdownloader.plugins.controller.host.LazyHostPlugin;
+import org.jdownloader.tests.BenchmarkHarness;
+
+/**
+ * compares urls/sec of the sorted plugin list scan against {@link LazyPluginDispatchIndex}.
+ *
+ * usage: LazyPluginDispatchIndexBenchmark <file with one url per line> [rounds]
+ */
+public class LazyPluginDispatchIndexBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness.init();
+        final List<String> urls = new ArrayList<String>();
+        for (final String line : IO.readFileToString(new File(args[0])).split("[\r\n]+")) {
+            if (line.trim().length() > 0) {
+                urls.add(line.trim());
+            }
+        }
+        final int rounds = BenchmarkHarness.getArgument(args, 1, 5);
+        final List<LazyCrawlerPlugin> crawlerPlugins = new ArrayList<LazyCrawlerPlugin>(CrawlerPluginController.getInstance().list());
+        final List<LazyHostPlugin> hostPlugins = new ArrayList<LazyHostPlugin>(HostPluginController.getInstance().list());
+        final LazyPluginDispatchIndex<LazyCrawlerPlugin> crawlerIndex = new LazyPluginDispatchIndex<LazyCrawlerPlugin>(crawlerPlugins, true);
+        final LazyPluginDispatchIndex<LazyHostPlugin> hostIndex = new LazyPluginDispatchIndex<LazyHostPlugin>(hostPlugins, true);
+        System.out.println("crawler plugins indexed: " + crawlerIndex.getIndexedSize() + "/" + crawlerPlugins.size());
+        System.out.println("host plugins indexed: " + hostIndex.getIndexedSize() + "/" + hostPlugins.size());
+        BenchmarkHarness.run(rounds, new BenchmarkHarness.Round() {
+
+            @Override
+            public String run(int round) throws Exception {
+                long matches = 0;
+                long start = System.nanoTime();
+                for (final String url : urls) {
+                    matches += scan(crawlerPlugins, url) + scan(hostPlugins, url);
+                }
+                final long scan = System.nanoTime() - start;
+                final long scanMatches = matches;
+                matches = 0;
+                start = System.nanoTime();
+                for (final String url : urls) {
+                    matches += scan(crawlerIndex, url) + scan(hostIndex, url);
+                }
+                final long index = System.nanoTime() - start;
+                return "scan " + BenchmarkHarness.perSecond(urls.size(), scan) + " urls/sec(" + scanMatches + " matches), index " + BenchmarkHarness.perSecond(urls.size(), index) + " urls/sec(" + matches + " matches)";
+            }
+        });
+    }
+
+    private static int scan(final List<? extends LazyPlugin<?>> plugins, final String url) {
+        for (final LazyPlugin<?> plugin : plugins) {
+            if (plugin.canHandle(url)) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int scan(final LazyPluginDispatchIndex<? extends LazyPlugin<?>> index, final String url) {
+        final List<? extends LazyPlugin<?>> plugins = index.getPlugins();
+        for (final int position : index.getCandidates(url)) {
+            if (plugins.get(position).canHandle(url)) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,50 @@
+package org.jdownloader.tests;
+
+import org.appwork.utils.Application;
+
+/**
+ * scaffold of the manual benchmarks: application home, optional numeric arguments and the measured rounds
+ */
+public class BenchmarkHarness {
+
+    public static interface Round {
+        /**
+         * @return result of the round
+         */
+        public String run(int round) throws Exception;
+    }
+
+    /**
+     * call before any controller is touched
+     */
+    public static void init() {
+        Application.setApplication(".jd_home");
+    }
+
+    /**
+     * @return the argument at the given index, defaultValue if there is none
+     */
+    public static int getArgument(final String[] args, final int index, final int defaultValue) {
+        if (args == null || args.length <= index) {
+            return defaultValue;
+        }
+        return Integer.parseInt(args[index]);
+    }
+
+    /**
+     * @return count per second of the given duration in ns
+     */
+    public static long perSecond(final long count, final long duration) {
+        return count * 1000000000l / Math.max(1, duration);
+    }
+
+    /**
+     * runs and prints the given number of rounds, exits afterwards because the controllers keep their threads running
+     */
+    public static void run(final int rounds, final Round round) throws Exception {
+        for (int index = 0; index < rounds; index++) {
+            System.out.println("round " + index + ": " + round.run(index));
+        }
+        System.exit(0);
+    }
+}